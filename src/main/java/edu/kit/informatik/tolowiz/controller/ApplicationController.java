@@ -5,7 +5,9 @@
  */
 package edu.kit.informatik.tolowiz.controller;
 
+import edu.kit.informatik.tolowiz.controller.interpretation.InterpretationCancelledException;
 import edu.kit.informatik.tolowiz.controller.interpretation.InterpreterFactory;
+import edu.kit.informatik.tolowiz.controller.interpretation.InterpreterInterface;
 import edu.kit.informatik.tolowiz.controller.interpretation.OntologyFileException;
 import edu.kit.informatik.tolowiz.model.data.configurations.DatabaseInterface;
 import edu.kit.informatik.tolowiz.model.data.configurations.InternalDatabaseException;
@@ -16,6 +18,7 @@ import edu.kit.informatik.tolowiz.model.data.icons.IconDatabaseException;
 import edu.kit.informatik.tolowiz.model.data.icons.IconDatabaseInterface;
 import edu.kit.informatik.tolowiz.model.data.icons.IconInterface;
 import edu.kit.informatik.tolowiz.model.ontology.Ontology;
+import edu.kit.informatik.tolowiz.model.ontology.OntologyDigest;
 import edu.kit.informatik.tolowiz.model.visualization.Configuration;
 import edu.kit.informatik.tolowiz.model.visualization.InstanceTypeConfiguration;
 import edu.kit.informatik.tolowiz.view.gui.ApplicationControllerInterface;
@@ -26,10 +29,15 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 import org.apache.commons.io.FilenameUtils;
 
@@ -66,6 +74,20 @@ public class ApplicationController implements ApplicationControllerInterface {
      * List containing all tabs controllers of this application.
      */
     private List<TabController> tabs = new LinkedList<>();
+    /**
+     * The ontology files of the tabs that were opened from one.
+     */
+    private Map<TabController, Path> sources = new ConcurrentHashMap<>();
+    /**
+     * The digests of the ontologies of the tabs that were opened from a file,
+     * which the changes of the file are computed against.
+     */
+    private Map<TabController, OntologyDigest> digests = new ConcurrentHashMap<>();
+    /**
+     * Watches the ontology files of the tabs for changes, created when the
+     * first ontology is opened.
+     */
+    private OntologyWatcher watcher;
     private boolean uriLocked;
     private String uriPrefix;
 
@@ -90,11 +112,20 @@ public class ApplicationController implements ApplicationControllerInterface {
 
     @Override
     public void exitProgram() {
-        Iterator<TabController> i = this.tabs.iterator();
+        // closing a tab removes it from the list
+        Iterator<TabController> i = new LinkedList<>(this.tabs).iterator();
         while (i.hasNext()) {
             TabController tc = i.next();
             tc.closeOntology();
-            i.remove();
+        }
+        this.tabs.clear();
+        this.interpreter.shutdown();
+        if (this.watcher != null) {
+            try {
+                this.watcher.close();
+            } catch (@SuppressWarnings("unused") IOException e) {
+                // the application exits anyway
+            }
         }
 
         this.view.closeApplication();
@@ -103,17 +134,177 @@ public class ApplicationController implements ApplicationControllerInterface {
     @Override
     public void openOntology(Path path) {
         try {
-            Ontology onto = this.interpreter.getInterpreter(path, this)
-                    .buildOntology();
-            this.runLater(() -> this.tabs.add(new TabController(this, this.view,
-                    this.filesaver, this.database, this.icons, onto,
-                    FilenameUtils
-                    .removeExtension(path.getFileName().toString()))));
+            Ontology onto = this.buildOntology(path, true);
+            OntologyDigest digest = OntologyDigest.of(onto);
+            this.runLater(() -> this.addTab(path, onto, digest));
+        } catch (FileNotFoundException e) {
+            this.view.showError(e);
+        } catch (@SuppressWarnings("unused") InterpretationCancelledException e) {
+            // the user cancelled the loading, nothing to report
+        } catch (OntologyFileException e) {
+            this.view.showError(e);
+        }
+    }
+
+    /**
+     * Opens a new tab for an ontology file and watches the file for changes.
+     * Must be called on the GUI thread.
+     *
+     * @param path the ontology file
+     * @param onto the ontology interpreted from the file, which belongs to the
+     *            new tab alone
+     * @param digest the digest of the ontology
+     */
+    private void addTab(Path path, Ontology onto, OntologyDigest digest) {
+        TabController tab = new TabController(this, this.view, this.filesaver,
+                this.database, this.icons, onto,
+                FilenameUtils.removeExtension(path.getFileName().toString()));
+        this.tabs.add(tab);
+        this.sources.put(tab, OntologyWatcher.normalize(path));
+        this.digests.put(tab, digest);
+        this.watch(path);
+    }
+
+    /**
+     * Interprets an ontology file again and applies the changes to all tabs that
+     * were opened from it. Only the changed instances and relations are
+     * updated, so positions, marks and groups of all other instances are kept.
+     * If types, value types or relation types changed, the tabs are closed and
+     * replaced by one new tab of the file.<br>
+     * The file is interpreted and the changes are computed against the digests
+     * of the tabs on the calling thread. Only applying them runs on the GUI
+     * thread, which is the only one changing the ontologies of the tabs, and
+     * takes time proportional to the changes. The calling thread waits for
+     * that, so that the next reload computes its changes against the updated
+     * digests.
+     *
+     * @param path the ontology file
+     */
+    void reloadOntology(Path path) {
+        Path normalized = OntologyWatcher.normalize(path);
+        if (!this.sources.containsValue(normalized)) {
+            return;
+        }
+        try {
+            Ontology updated = this.buildOntology(path, false);
+            OntologyDigest digest = OntologyDigest.of(updated);
+            Map<TabController, OntologyDigest.Changes> changes = new HashMap<>();
+            for (TabController tab : this.getTabs(normalized)) {
+                OntologyDigest previous = this.digests.get(tab);
+                if (previous != null) {
+                    changes.put(tab, previous.changesTo(updated));
+                }
+            }
+            FutureTask<Void> apply = new FutureTask<>(() -> {
+                List<TabController> replaced = new LinkedList<>();
+                changes.forEach((tab, tabChanges) -> {
+                    if (!this.tabs.contains(tab)) {
+                        return;
+                    }
+                    if (tabChanges.isSchemaChanged()) {
+                        replaced.add(tab);
+                    } else {
+                        if (!tabChanges.isEmpty()) {
+                            tab.applyOntologyChanges(tabChanges
+                                    .resolve(tab.getConfig().getOntology()));
+                        }
+                        this.digests.put(tab, digest);
+                    }
+                });
+                if (!replaced.isEmpty()) {
+                    // added first, so that the file is watched without a gap
+                    this.addTab(path, updated, digest);
+                    replaced.forEach(TabController::closeOntology);
+                }
+            }, null);
+            this.runLater(apply);
+            apply.get();
         } catch (FileNotFoundException e) {
             this.view.showError(e);
         } catch (OntologyFileException e) {
             this.view.showError(e);
+        } catch (ExecutionException e) {
+            this.view.showError(new OntologyFileException(
+                    "the changes of the ontology file could not be applied", //$NON-NLS-1$
+                    e.getCause()));
+        } catch (@SuppressWarnings("unused") InterruptedException e) {
+            // the watcher is closed
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns the tabs that were opened from an ontology file.
+     *
+     * @param normalized the normalized path of the file
+     * @return the tabs
+     */
+    private List<TabController> getTabs(Path normalized) {
+        List<TabController> opened = new LinkedList<>();
+        this.sources.forEach((tab, source) -> {
+            if (source.equals(normalized)) {
+                opened.add(tab);
+            }
+        });
+        return opened;
+    }
+
+    /**
+     * Starts watching an ontology file, so that its tabs are updated when it
+     * changes.
+     *
+     * @param path the ontology file
+     */
+    private void watch(Path path) {
+        try {
+            if (this.watcher == null) {
+                this.watcher = new OntologyWatcher(this::reloadOntology,
+                        OntologyWatcher.DEBOUNCE_MILLIS);
+            }
+            this.watcher.register(path);
+        } catch (IOException e) {
+            this.view.showError(e);
+        }
+    }
+
+    /**
+     * Returns the ontology of a file. If the file was opened before and has not
+     * changed since, the cached ontology is used, otherwise the file is
+     * interpreted and the result is cached.
+     *
+     * @param path the ontology file
+     * @param showProgress whether the view shows the progress of the
+     *            interpretation and lets the user cancel it
+     * @return the ontology
+     * @throws FileNotFoundException if the file does not exist
+     * @throws OntologyFileException if the file can not be interpreted or the
+     *             interpretation was cancelled
+     */
+    private Ontology buildOntology(Path path, boolean showProgress)
+            throws FileNotFoundException, OntologyFileException {
+        Ontology onto = null;
+        if (this.database != null) {
+            onto = this.database.getCachedOntology(path,
+                    this.interpreter.getKind(), this::selectURI);
         }
+        if (onto == null) {
+            InterpreterInterface interpreter = this.interpreter
+                    .getInterpreter(path, this);
+            if (showProgress) {
+                this.view.showProgress(interpreter.getProgress());
+            }
+            onto = interpreter.buildOntology();
+            if (this.database != null) {
+                try {
+                    this.database.cacheOntology(path,
+                            this.interpreter.getKind(), onto,
+                            interpreter.getUriCandidates());
+                } catch (InternalDatabaseException e) {
+                    this.view.showError(e);
+                }
+            }
+        }
+        return onto;
     }
 
     @Override
@@ -166,6 +357,11 @@ public class ApplicationController implements ApplicationControllerInterface {
      */
     void removeTab(TabControllerInterface tabController) {
         this.tabs.remove(tabController);
+        Path source = this.sources.remove(tabController);
+        this.digests.remove(tabController);
+        if ((source != null) && (this.watcher != null)) {
+            this.watcher.unregister(source);
+        }
 
     }
 
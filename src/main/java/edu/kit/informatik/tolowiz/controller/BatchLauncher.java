@@ -0,0 +1,406 @@
+/*
+ * Copyright 2020 Anne Bernhart, Anja Hansen, Tobias Klumpp, Fabian Palitza,
+ * Florian Patzer, Friedrich Volz, Sandra Wolf
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package edu.kit.informatik.tolowiz.controller;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.io.FilenameUtils;
+
+import edu.kit.informatik.tolowiz.controller.interpretation.InterpreterFactory;
+import edu.kit.informatik.tolowiz.controller.interpretation.InterpreterInterface;
+import edu.kit.informatik.tolowiz.controller.interpretation.OntologyFileException;
+import edu.kit.informatik.tolowiz.controller.interpretation.RDFInterpreterFactory;
+import edu.kit.informatik.tolowiz.controller.interpretation.StreamingRDFInterpreterFactory;
+import edu.kit.informatik.tolowiz.model.data.configurations.Database;
+import edu.kit.informatik.tolowiz.model.data.configurations.DatabaseInterface;
+import edu.kit.informatik.tolowiz.model.data.configurations.InternalDatabaseException;
+import edu.kit.informatik.tolowiz.model.data.configurations.NoSuchEntryException;
+import edu.kit.informatik.tolowiz.model.data.file.FileSaver;
+import edu.kit.informatik.tolowiz.model.data.file.FileSaverInterface;
+import edu.kit.informatik.tolowiz.model.ontology.Ontology;
+import edu.kit.informatik.tolowiz.model.visualization.Configuration;
+import edu.kit.informatik.tolowiz.view.graph.HeadlessImage;
+import edu.kit.informatik.tolowiz.view.graph.ImageInterface;
+import edu.kit.informatik.tolowiz.view.gui.ApplicationControllerInterface;
+
+/**
+ * Renders ontologies and configurations to images from the command line,
+ * without starting JavaFX. Every input is either an ontology file, an exported
+ * configuration ({@code .tolo}) or a directory whose ontology and configuration
+ * files are all rendered. The inputs are processed in parallel.<br>
+ * <br>
+ * Ontologies are shown like a newly opened tab, unless the name of a
+ * configuration saved for them in the internal database is given. Instances
+ * that have no position yet are laid out automatically.
+ */
+public final class BatchLauncher {
+    /**
+     * The extension of exported configurations.
+     */
+    static final String CONFIGURATION_EXTENSION = "tolo"; //$NON-NLS-1$
+
+    private static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: BatchLauncher [options] <file or directory>...", //$NON-NLS-1$
+            "  -f, --format <png|jpeg|gif|tiff|svg|pdf>  output format, default png", //$NON-NLS-1$
+            "  -o, --output <directory>                  output directory, default next to each input", //$NON-NLS-1$
+            "  -c, --configuration <name>                saved configuration to apply to ontologies", //$NON-NLS-1$
+            "  -t, --threads <n>                         files rendered at the same time", //$NON-NLS-1$
+            "  -W, --width <pixels>                      image width, default 1920", //$NON-NLS-1$
+            "  -H, --height <pixels>                     image height, default 1080", //$NON-NLS-1$
+            "  -s, --streaming                           stream the ontology files"); //$NON-NLS-1$
+
+    private String format = "png"; //$NON-NLS-1$
+    private Path output;
+    private String configuration;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int width = 1920;
+    private int height = 1080;
+    private boolean streaming = Boolean.getBoolean("tolowiz.streaming"); //$NON-NLS-1$
+    private List<Path> inputs = new LinkedList<>();
+
+    private final PrintStream log;
+    private InterpreterFactory interpreter;
+    private FileSaverInterface filesaver = new FileSaver();
+    private DatabaseInterface database;
+
+    /**
+     * Creates a launcher from command line arguments.
+     *
+     * @param args the arguments
+     * @param log  where progress and failures are reported
+     * @throws IllegalArgumentException if the arguments are invalid
+     */
+    BatchLauncher(String[] args, PrintStream log) {
+        this.log = log;
+        Iterator<String> it = List.of(args).iterator();
+        while (it.hasNext()) {
+            String arg = it.next();
+            switch (arg) {
+            case "-f": //$NON-NLS-1$
+            case "--format": //$NON-NLS-1$
+                this.format = BatchLauncher.value(arg, it).toLowerCase(Locale.ROOT);
+                if (!this.format.equals("pdf")) { //$NON-NLS-1$
+                    BatchLauncher.imageType(this.format);
+                }
+                break;
+            case "-o": //$NON-NLS-1$
+            case "--output": //$NON-NLS-1$
+                this.output = Paths.get(BatchLauncher.value(arg, it));
+                break;
+            case "-c": //$NON-NLS-1$
+            case "--configuration": //$NON-NLS-1$
+                this.configuration = BatchLauncher.value(arg, it);
+                break;
+            case "-t": //$NON-NLS-1$
+            case "--threads": //$NON-NLS-1$
+                this.threads = BatchLauncher.positive(arg, it);
+                break;
+            case "-W": //$NON-NLS-1$
+            case "--width": //$NON-NLS-1$
+                this.width = BatchLauncher.positive(arg, it);
+                break;
+            case "-H": //$NON-NLS-1$
+            case "--height": //$NON-NLS-1$
+                this.height = BatchLauncher.positive(arg, it);
+                break;
+            case "-s": //$NON-NLS-1$
+            case "--streaming": //$NON-NLS-1$
+                this.streaming = true;
+                break;
+            default:
+                if (arg.startsWith("-")) { //$NON-NLS-1$
+                    throw new IllegalArgumentException("unknown option " + arg); //$NON-NLS-1$
+                }
+                this.inputs.add(Paths.get(arg));
+            }
+        }
+        if (this.inputs.isEmpty()) {
+            throw new IllegalArgumentException("no input given"); //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * Renders the files given on the command line. AWT is switched to headless
+     * mode, so no display is needed. The exit code is the number of files that
+     * could not be rendered, capped at 100, or 101 for invalid arguments.
+     *
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true"); //$NON-NLS-1$ //$NON-NLS-2$
+        BatchLauncher launcher;
+        try {
+            launcher = new BatchLauncher(args, System.err);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(BatchLauncher.USAGE);
+            System.exit(101);
+            return;
+        }
+        System.exit(Math.min(launcher.run(), 100));
+    }
+
+    /**
+     * Renders all inputs, using as many worker threads as configured.
+     *
+     * @return the number of files that could not be rendered
+     */
+    int run() {
+        this.interpreter = this.streaming ? new StreamingRDFInterpreterFactory() : new RDFInterpreterFactory();
+        this.database = this.openDatabase();
+
+        List<Path> files = this.collectFiles();
+        ExecutorService pool = Executors.newFixedThreadPool(this.threads);
+        int failures = 0;
+        try {
+            List<Future<Path>> results = new ArrayList<>();
+            for (Path file : files) {
+                results.add(pool.submit(() -> this.render(file)));
+            }
+            for (int i = 0; i < files.size(); i++) {
+                try {
+                    this.log.println(files.get(i) + " -> " + results.get(i).get()); //$NON-NLS-1$
+                } catch (ExecutionException e) {
+                    failures++;
+                    this.log.println(files.get(i) + " failed: " + e.getCause()); //$NON-NLS-1$
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failures = files.size();
+        } finally {
+            pool.shutdownNow();
+            this.interpreter.shutdown();
+        }
+        return failures;
+    }
+
+    /**
+     * Expands the inputs into the files to render. Directories contribute all
+     * ontology and configuration files directly inside them, in name order.
+     *
+     * @return the files
+     */
+    private List<Path> collectFiles() {
+        List<Path> files = new ArrayList<>();
+        for (Path input : this.inputs) {
+            if (!Files.isDirectory(input)) {
+                files.add(input);
+                continue;
+            }
+            try (Stream<Path> list = Files.list(input)) {
+                files.addAll(list.filter(Files::isRegularFile)
+                        .filter(f -> this.isConfiguration(f) || this.interpreter.canInterpret(f)).sorted()
+                        .collect(Collectors.toList()));
+            } catch (IOException e) {
+                this.log.println(input + " can not be listed: " + e); //$NON-NLS-1$
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Renders a single file.
+     *
+     * @param file the ontology or configuration file
+     * @return the written image
+     * @throws Exception if the file can not be read or the image not be written
+     */
+    private Path render(Path file) throws Exception {
+        Configuration conf = this.isConfiguration(file) ? this.filesaver.generateFile(file).importConfiguration()
+                : this.configure(file);
+        String name = this.isConfiguration(file) ? FilenameUtils.getBaseName(file.toString())
+                : conf.getOntology().getName();
+        Path directory = (this.output != null) ? this.output : file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path target = directory.resolve(name + "." + this.format); //$NON-NLS-1$
+
+        ImageInterface image = new HeadlessImage(conf, this.width, this.height);
+        if (this.format.equals("pdf")) { //$NON-NLS-1$
+            image.exportPDF(target);
+        } else {
+            image.export(target, BatchLauncher.imageType(this.format));
+        }
+        return target;
+    }
+
+    /**
+     * Interprets an ontology file and returns the configuration to render it
+     * with.
+     *
+     * @param file the ontology file
+     * @return the saved configuration if one was requested, otherwise the
+     *         default configuration
+     * @throws OntologyFileException     if the file can not be interpreted
+     * @throws IOException               if the file can not be read, or a
+     *                                   saved configuration was requested
+     *                                   without an internal database
+     * @throws InternalDatabaseException if the saved configuration can not be
+     *                                   read
+     * @throws NoSuchEntryException      if there is no such saved configuration
+     */
+    private Configuration configure(Path file)
+            throws OntologyFileException, IOException, InternalDatabaseException, NoSuchEntryException {
+        Headless headless = new Headless();
+        String kind = this.interpreter.getKind();
+        Ontology onto = (this.database != null) ? this.database.getCachedOntology(file, kind, headless::selectURI)
+                : null;
+        if (onto == null) {
+            InterpreterInterface interpreter = this.interpreter.getInterpreter(file, headless);
+            onto = interpreter.buildOntology();
+            if (this.database != null) {
+                this.database.cacheOntology(file, kind, onto, interpreter.getUriCandidates());
+            }
+        }
+        if (this.configuration == null) {
+            return new Configuration(onto, null);
+        }
+        if (this.database == null) {
+            throw new IOException("the internal database is not available"); //$NON-NLS-1$
+        }
+        return this.database.getStorageByID(onto.getIRI()).getEntry(this.configuration);
+    }
+
+    /**
+     * Opens the internal database of the user, creating it if needed.
+     *
+     * @return the database, or {@code null} if it can not be opened
+     */
+    private DatabaseInterface openDatabase() {
+        Path programdir = Paths.get(System.getProperty("user.home")).resolve(".tolowiz"); //$NON-NLS-1$ //$NON-NLS-2$
+        try {
+            Files.createDirectories(programdir);
+            return new Database(this.filesaver, programdir);
+        } catch (IOException | InternalDatabaseException e) {
+            this.log.println("the internal database is not available: " + e); //$NON-NLS-1$
+            return null;
+        }
+    }
+
+    /**
+     * Checks whether a file is an exported configuration.
+     *
+     * @param file the file
+     * @return whether the file has the configuration extension
+     */
+    private boolean isConfiguration(Path file) {
+        return FilenameUtils.isExtension(file.getFileName().toString().toLowerCase(Locale.ROOT),
+                BatchLauncher.CONFIGURATION_EXTENSION);
+    }
+
+    /**
+     * Returns the image type of a format name.
+     *
+     * @param format the lower case format
+     * @return the image type
+     * @throws IllegalArgumentException if the format is unknown
+     */
+    private static ImageFiletype imageType(String format) {
+        try {
+            return ImageFiletype.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("unknown format " + format, e); //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * Returns the value of an option.
+     *
+     * @param option the option
+     * @param it     the remaining arguments
+     * @return the value
+     * @throws IllegalArgumentException if the value is missing
+     */
+    private static String value(String option, Iterator<String> it) {
+        if (!it.hasNext()) {
+            throw new IllegalArgumentException(option + " needs a value"); //$NON-NLS-1$
+        }
+        return it.next();
+    }
+
+    /**
+     * Returns the positive number given for an option.
+     *
+     * @param option the option
+     * @param it     the remaining arguments
+     * @return the number
+     * @throws IllegalArgumentException if the value is missing or not positive
+     */
+    private static int positive(String option, Iterator<String> it) {
+        String value = BatchLauncher.value(option, it);
+        int number;
+        try {
+            number = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(option + " needs a number", e); //$NON-NLS-1$
+        }
+        if (number < 1) {
+            throw new IllegalArgumentException(option + " must be at least 1"); //$NON-NLS-1$
+        }
+        return number;
+    }
+
+    /**
+     * Answers the questions of the interpreters without a user. If an ontology
+     * does not specify its URI prefix, the alphabetically first candidate is
+     * used, so that repeated runs agree. A batch run has no tabs, so all other
+     * requests are ignored.
+     */
+    private static final class Headless implements ApplicationControllerInterface {
+
+        @Override
+        public String selectURI(Set<String> uris) {
+            return new TreeSet<>(uris).stream().findFirst().orElse(""); //$NON-NLS-1$
+        }
+
+        @Override
+        public void setUriPrefix(String value) {
+            // the prefix is selected without asking
+        }
+
+        @Override
+        public void exitProgram() {
+            // the batch run ends with its last file
+        }
+
+        @Override
+        public void openOntology(Path path) {
+            // there are no tabs to open
+        }
+
+        @Override
+        public void importConfiguration(Path path) {
+            // there are no tabs to open
+        }
+
+        @Override
+        public void loadConfiguration(String id, String name) {
+            // there are no tabs to open
+        }
+
+        @Override
+        public void loadAutosave(String id) {
+            // there are no tabs to open
+        }
+    }
+}
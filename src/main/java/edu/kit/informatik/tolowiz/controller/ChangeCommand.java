@@ -0,0 +1,39 @@
+/*
+ * Copyright 2020 Anne Bernhart, Anja Hansen, Tobias Klumpp, Fabian Palitza,
+ * Florian Patzer, Friedrich Volz, Sandra Wolf
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package edu.kit.informatik.tolowiz.controller;
+
+import edu.kit.informatik.tolowiz.model.visualization.Snapshot;
+import edu.kit.informatik.tolowiz.model.visualization.Transition;
+
+/**
+ * A command that runs an arbitrary change of the Instances, types, groups and
+ * settings of a configuration. It stores no state of its own: everything the
+ * change may touch is part of a {@link Snapshot}, so the {@link UndoHistory}
+ * undoes it by the {@link Transition} of the operation. Executing the command
+ * again runs the change again.
+ */
+final class ChangeCommand implements Command {
+    private final Runnable change;
+
+    /**
+     * Creates a command for a change of a configuration.
+     *
+     * @param change the change
+     */
+    ChangeCommand(Runnable change) {
+        this.change = change;
+    }
+
+    @Override
+    public void execute() {
+        this.change.run();
+    }
+
+    @Override
+    public void undo() {
+        // the transition of the operation restores everything the change touched
+    }
+}
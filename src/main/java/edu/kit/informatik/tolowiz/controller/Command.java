@@ -0,0 +1,32 @@
+/*
+ * Copyright 2020 Anne Bernhart, Anja Hansen, Tobias Klumpp, Fabian Palitza,
+ * Florian Patzer, Friedrich Volz, Sandra Wolf
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package edu.kit.informatik.tolowiz.controller;
+
+/**
+ * A reversible change of a configuration. Every operation of the
+ * {@link GraphController} is done as a command, so that the
+ * {@link TabController} can undo and redo it. The {@link UndoHistory} reverts
+ * the state of the configuration that its snapshots cover by the transition of
+ * the operation, a command only reverts what lies beyond, such as the camera or
+ * the seeds of the neighborhood.<br>
+ * A command remembers the state it overwrites every time it is executed, so
+ * executing it again after {@link #undo()} redoes it.
+ *
+ * @see CompoundCommand
+ */
+interface Command {
+
+    /**
+     * Does the change, or does it again after it was undone.
+     */
+    void execute();
+
+    /**
+     * Reverts the last execution of the change, at least where it is not
+     * covered by the snapshots of the configuration.
+     */
+    void undo();
+}
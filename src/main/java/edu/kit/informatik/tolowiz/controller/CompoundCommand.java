@@ -0,0 +1,49 @@
+/*
+ * Copyright 2020 Anne Bernhart, Anja Hansen, Tobias Klumpp, Fabian Palitza,
+ * Florian Patzer, Friedrich Volz, Sandra Wolf
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package edu.kit.informatik.tolowiz.controller;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ListIterator;
+
+/**
+ * A command made of other commands, which are undone and redone together. They
+ * are executed in the order they were added, and undone in reverse order.
+ */
+final class CompoundCommand implements Command {
+    private final List<Command> commands = new ArrayList<>();
+
+    /**
+     * Adds a command to the end of this command. It is not executed.
+     *
+     * @param command the command to add
+     */
+    void add(Command command) {
+        this.commands.add(command);
+    }
+
+    /**
+     * Checks whether this command does anything.
+     *
+     * @return {@code true} if no command was added
+     */
+    boolean isEmpty() {
+        return this.commands.isEmpty();
+    }
+
+    @Override
+    public void execute() {
+        this.commands.forEach(Command::execute);
+    }
+
+    @Override
+    public void undo() {
+        ListIterator<Command> it = this.commands.listIterator(this.commands.size());
+        while (it.hasPrevious()) {
+            it.previous().undo();
+        }
+    }
+}
@@ -5,7 +5,13 @@
  */
 package edu.kit.informatik.tolowiz.controller;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import edu.kit.informatik.tolowiz.model.data.icons.IconInterface;
 import edu.kit.informatik.tolowiz.model.ontology.ValueType;
@@ -16,6 +22,7 @@ import edu.kit.informatik.tolowiz.model.visualization.Group;
 import edu.kit.informatik.tolowiz.model.visualization.InstanceConfiguration;
 import edu.kit.informatik.tolowiz.model.visualization.InstanceMark;
 import edu.kit.informatik.tolowiz.model.visualization.InstanceTypeConfiguration;
+import edu.kit.informatik.tolowiz.model.visualization.Neighborhood;
 import edu.kit.informatik.tolowiz.model.visualization.Point;
 import edu.kit.informatik.tolowiz.model.visualization.RelationStyle;
 import edu.kit.informatik.tolowiz.model.visualization.RelationTypeConfiguration;
@@ -51,6 +58,30 @@ class GraphController implements GraphControllerInterface {
         this.controller = tabController;
     }
 
+    /**
+     * Runs a change of Instances, types or groups as an operation that can be
+     * undone. The view is updated once at the end.
+     *
+     * @param change the change
+     * @see ChangeCommand
+     */
+    private void change(Runnable change) {
+        this.controller.doOperation(new ChangeCommand(change));
+    }
+
+    /**
+     * Sets a property as an operation that can be undone.
+     *
+     * @param <T>    the type of the property
+     * @param getter reads the current value of the property
+     * @param setter sets the property
+     * @param value  the value to set
+     * @see PropertyCommand
+     */
+    private <T> void set(Supplier<T> getter, Consumer<T> setter, T value) {
+        this.controller.doOperation(new PropertyCommand<>(getter, setter, value));
+    }
+
     // Private helper methods to simplify argument checking
 
     private void checkValueType(InstanceTypeConfiguration type, ValueType value) throws IllegalArgumentException {
@@ -101,11 +132,10 @@ class GraphController implements GraphControllerInterface {
     @Override
     public void showInstanceType(InstanceTypeConfiguration instanceType) throws IllegalArgumentException {
         this.checkInstanceType(instanceType);
-        this.controller.doOperation();
-        instanceType.getMembers().forEach(i -> {
+        this.change(() -> instanceType.getMembers().forEach(i -> {
             this.controller.getConfig().getHiddenInstances().remove(i);
             i.show();
-        });
+        }));
     }
 
     /**
@@ -115,11 +145,10 @@ class GraphController implements GraphControllerInterface {
     @Override
     public void hideInstanceType(InstanceTypeConfiguration instanceType) throws IllegalArgumentException {
         this.checkInstanceType(instanceType);
-        this.controller.doOperation();
-        instanceType.getMembers().forEach(i -> {
+        this.change(() -> instanceType.getMembers().forEach(i -> {
             this.controller.getConfig().getHiddenInstances().remove(i);
             i.hide();
-        });
+        }));
     }
 
     /**
@@ -129,9 +158,30 @@ class GraphController implements GraphControllerInterface {
     @Override
     public void showInstance(InstanceConfiguration node) throws IllegalArgumentException {
         this.checkInstanceConfiguration(node);
-        this.controller.doOperation();
-        this.controller.getConfig().getHiddenInstances().remove(node);
-        node.show();
+        this.change(() -> {
+            this.controller.getConfig().getHiddenInstances().remove(node);
+            node.show();
+        });
+    }
+
+    /**
+     * @throws IllegalArgumentException If the given node is not present in this
+     *                                  configuration.
+     */
+    @Override
+    public void showNeighborhood(InstanceConfiguration node) throws IllegalArgumentException {
+        this.checkInstanceConfiguration(node);
+        Neighborhood neighborhood = this.controller.getConfig().getNeighborhood();
+        List<InstanceConfiguration> seeds = new ArrayList<>(neighborhood.getSeeds());
+        seeds.add(node);
+        // the seed is set first, so that the change shows the new neighborhood
+        this.controller.doOperations(() -> {
+            this.set(() -> new ArrayList<>(neighborhood.getSeeds()), neighborhood::setSeeds, seeds);
+            this.change(() -> neighborhood.getInstances().forEach(i -> {
+                this.controller.getConfig().getHiddenInstances().remove(i);
+                i.show();
+            }));
+        });
     }
 
     /**
@@ -141,9 +191,10 @@ class GraphController implements GraphControllerInterface {
     @Override
     public void hideInstance(InstanceConfiguration node) throws IllegalArgumentException {
         this.checkInstanceConfiguration(node);
-        this.controller.doOperation();
-        this.controller.getConfig().getHiddenInstances().add(node);
-        node.hide();
+        this.change(() -> {
+            this.controller.getConfig().getHiddenInstances().add(node);
+            node.hide();
+        });
     }
 
     /**
@@ -154,11 +205,10 @@ class GraphController implements GraphControllerInterface {
     @Override
     public void showGroup(Group g) throws IllegalArgumentException {
         this.checkGroup(g);
-        this.controller.doOperation();
-        g.getInstances().forEach(i -> {
+        this.change(() -> g.getInstances().forEach(i -> {
             i.show();
             this.controller.getConfig().getHiddenInstances().remove(i);
-        });
+        }));
     }
 
     /**
@@ -169,11 +219,10 @@ class GraphController implements GraphControllerInterface {
     @Override
     public void hideGroup(Group g) throws IllegalArgumentException {
         this.checkGroup(g);
-        this.controller.doOperation();
-        g.getInstances().forEach(i -> {
+        this.change(() -> g.getInstances().forEach(i -> {
             i.hide();
             this.controller.getConfig().getHiddenInstances().remove(i);
-        });
+        }));
     }
 
     /**
@@ -190,8 +239,7 @@ class GraphController implements GraphControllerInterface {
             throw new IllegalArgumentException(
                     "It's not possible to assign this handler to type " + instanceType.getName());
         }
-        this.controller.doOperation();
-        instanceType.setHandler(handler);
+        this.set(instanceType::getHandler, instanceType::setHandler, handler);
     }
 
     /**
@@ -201,8 +249,7 @@ class GraphController implements GraphControllerInterface {
     @Override
     public void showRelationType(RelationTypeConfiguration relationType) throws IllegalArgumentException {
         this.checkRelationTypeConfiguration(relationType);
-        this.controller.doOperation();
-        relationType.show();
+        this.set(relationType::isVisible, v -> GraphController.setVisible(relationType, v), Boolean.TRUE);
     }
 
     /**
@@ -212,20 +259,19 @@ class GraphController implements GraphControllerInterface {
     @Override
     public void hideRelationType(RelationTypeConfiguration relationType) throws IllegalArgumentException {
         this.checkRelationTypeConfiguration(relationType);
-        this.controller.doOperation();
-        relationType.hide();
+        this.set(relationType::isVisible, v -> GraphController.setVisible(relationType, v), Boolean.FALSE);
     }
 
     @Override
     public void showAllRelations() {
-        this.controller.doOperation();
-        this.controller.getConfig().getRelationTypes().forEach(RelationTypeConfiguration::show);
+        this.controller.doOperations(() -> this.controller.getConfig().getRelationTypes()
+                .forEach(this::showRelationType));
     }
 
     @Override
     public void hideAllRelations() {
-        this.controller.doOperation();
-        this.controller.getConfig().getRelationTypes().forEach(RelationTypeConfiguration::hide);
+        this.controller.doOperations(() -> this.controller.getConfig().getRelationTypes()
+                .forEach(this::hideRelationType));
     }
 
     /**
@@ -236,8 +282,7 @@ class GraphController implements GraphControllerInterface {
     public void changeRelationTypeSymbol(RelationTypeConfiguration relationType, RelationStyle style)
             throws IllegalArgumentException {
         this.checkRelationTypeConfiguration(relationType);
-        this.controller.doOperation();
-        relationType.setStyle(style);
+        this.set(relationType::getStyle, relationType::setStyle, style);
     }
 
     /**
@@ -248,8 +293,7 @@ class GraphController implements GraphControllerInterface {
     public void changeInstanceTypeSymbol(InstanceTypeConfiguration instanceType, IconInterface icon)
             throws IllegalArgumentException {
         this.checkInstanceType(instanceType);
-        this.controller.doOperation();
-        instanceType.setIcon(icon);
+        this.set(instanceType::getIcon, instanceType::setIcon, icon);
     }
 
     /**
@@ -259,8 +303,7 @@ class GraphController implements GraphControllerInterface {
     @Override
     public void markInstance(InstanceConfiguration node, InstanceMark mark) throws IllegalArgumentException {
         this.checkInstanceConfiguration(node);
-        this.controller.doOperation();
-        node.mark(mark);
+        this.change(() -> node.mark(mark));
     }
 
     /**
@@ -270,8 +313,7 @@ class GraphController implements GraphControllerInterface {
     @Override
     public void unmarkInstance(InstanceConfiguration node, InstanceMark mark) throws IllegalArgumentException {
         this.checkInstanceConfiguration(node);
-        this.controller.doOperation();
-        node.unmark(mark);
+        this.change(() -> node.unmark(mark));
     }
 
     /**
@@ -281,10 +323,7 @@ class GraphController implements GraphControllerInterface {
     @Override
     public void clearInstance(InstanceConfiguration node) throws IllegalArgumentException {
         this.checkInstanceConfiguration(node);
-        this.controller.doOperation();
-        node.getMarks().clear();
-        Point p = node.getPosition().orElse(null);
-        node.setPosition((p != null) ? new Point(p.getX(), p.getY()) : null); // trigger change
+        this.change(() -> node.setMarks(List.of()));
     }
 
     /**
@@ -293,9 +332,13 @@ class GraphController implements GraphControllerInterface {
      */
     @Override
     public void createNewGroup(String name, InstanceConfiguration instance) {
-        this.controller.doOperation();
-        Group g = (instance == null ? new Group(name) : new Group(name, instance));
-        this.controller.getConfig().getGroups().add(g);
+        Group g = new Group(name);
+        this.change(() -> {
+            this.controller.getConfig().addGroup(g);
+            if (instance != null) {
+                g.addInstance(instance);
+            }
+        });
     }
 
     /**
@@ -307,9 +350,11 @@ class GraphController implements GraphControllerInterface {
         if (instances == null) {
             throw new IllegalArgumentException("Can not create a group with a null set!");
         }
-        this.controller.doOperation();
-        Group g = new Group(name, instances);
-        this.controller.getConfig().getGroups().add(g);
+        Group g = new Group(name);
+        this.change(() -> {
+            this.controller.getConfig().addGroup(g);
+            g.addInstances(instances);
+        });
     }
 
     /**
@@ -319,9 +364,10 @@ class GraphController implements GraphControllerInterface {
     @Override
     public void deleteGroup(Group g) throws IllegalArgumentException {
         this.checkGroup(g);
-        this.controller.doOperation();
-        g.clear();
-        this.controller.getConfig().getGroups().remove(g);
+        this.change(() -> {
+            g.clear();
+            this.controller.getConfig().removeGroup(g);
+        });
     }
 
     /**
@@ -332,8 +378,7 @@ class GraphController implements GraphControllerInterface {
     public void addToGroup(Group g, InstanceConfiguration instance) throws IllegalArgumentException {
         this.checkInstanceConfiguration(instance);
         this.checkGroup(g);
-        this.controller.doOperation();
-        g.addInstance(instance);
+        this.change(() -> g.addInstance(instance));
     }
 
     /**
@@ -344,8 +389,55 @@ class GraphController implements GraphControllerInterface {
     public void removeFromGroup(Group g, InstanceConfiguration instance) throws IllegalArgumentException {
         this.checkInstanceConfiguration(instance);
         this.checkGroup(g);
-        this.controller.doOperation();
-        g.removeInstance(instance);
+        this.change(() -> g.removeInstance(instance));
+    }
+
+    /**
+     * @throws IllegalArgumentException If the given group or one of the
+     *                                  instances is not part of the associated
+     *                                  configuration.
+     */
+    @Override
+    public void addAllToGroup(Group g, Set<InstanceConfiguration> instances) throws IllegalArgumentException {
+        this.checkGroup(g);
+        instances.forEach(this::checkInstanceConfiguration);
+        this.change(() -> g.addInstances(instances));
+    }
+
+    /**
+     * @throws IllegalArgumentException If the given group or one of the
+     *                                  instances is not part of the associated
+     *                                  configuration.
+     */
+    @Override
+    public void removeAllFromGroup(Group g, Set<InstanceConfiguration> instances) throws IllegalArgumentException {
+        this.checkGroup(g);
+        instances.forEach(this::checkInstanceConfiguration);
+        this.change(() -> g.removeInstances(instances));
+    }
+
+    /**
+     * @throws IllegalArgumentException If the given group or type is not part
+     *                                  of the associated configuration.
+     */
+    @Override
+    public void addMatchingToGroup(Group g, InstanceTypeConfiguration type,
+            Predicate<InstanceConfiguration> condition) throws IllegalArgumentException {
+        this.checkGroup(g);
+        this.checkInstanceType(type);
+        List<InstanceConfiguration> matching = type.getMembers().stream().filter(condition)
+                .collect(Collectors.toList());
+        this.change(() -> g.addInstances(matching));
+    }
+
+    /**
+     * @throws IllegalArgumentException If the given group is not part of the
+     *                                  associated configuration.
+     */
+    @Override
+    public void setGroupMark(Group g, InstanceMark mark) throws IllegalArgumentException {
+        this.checkGroup(g);
+        this.change(() -> g.setMark(mark));
     }
 
     /**
@@ -357,8 +449,8 @@ class GraphController implements GraphControllerInterface {
     public void activateValue(InstanceTypeConfiguration type, ValueType value) throws IllegalArgumentException {
         this.checkInstanceType(type);
         this.checkValueType(type, value);
-        this.controller.doOperation();
-        type.activateValue(value);
+        this.set(() -> type.getActiveValues().contains(value), a -> GraphController.setActive(type, value, a),
+                Boolean.TRUE);
     }
 
     /**
@@ -370,8 +462,8 @@ class GraphController implements GraphControllerInterface {
     public void deactivateValue(InstanceTypeConfiguration type, ValueType value) throws IllegalArgumentException {
         this.checkInstanceType(type);
         this.checkValueType(type, value);
-        this.controller.doOperation();
-        type.deactivateValue(value);
+        this.set(() -> type.getActiveValues().contains(value), a -> GraphController.setActive(type, value, a),
+                Boolean.FALSE);
     }
 
     /**
@@ -380,8 +472,7 @@ class GraphController implements GraphControllerInterface {
     @Override
     public void activateAllValues(InstanceTypeConfiguration type) throws IllegalArgumentException {
         this.checkInstanceType(type);
-        this.controller.doOperation();
-        type.getAllValues().forEach(type::activateValue);
+        this.controller.doOperations(() -> type.getAllValues().forEach(v -> this.activateValue(type, v)));
     }
 
     /**
@@ -390,8 +481,7 @@ class GraphController implements GraphControllerInterface {
     @Override
     public void deactivateAllValues(InstanceTypeConfiguration type) throws IllegalArgumentException {
         this.checkInstanceType(type);
-        this.controller.doOperation();
-        type.getAllValues().forEach(type::deactivateValue);
+        this.controller.doOperations(() -> type.getAllValues().forEach(v -> this.deactivateValue(type, v)));
     }
 
     /**
@@ -400,7 +490,6 @@ class GraphController implements GraphControllerInterface {
     @Override
     public void moveNodeTo(InstanceConfiguration node, double x, double y) {
         this.checkInstanceConfiguration(node);
-        this.controller.doOperation();
         // ensures x fits
         /*
          * if (x > (this.controller.getConfig().getCameraConfiguration().getWidth() /
@@ -416,19 +505,18 @@ class GraphController implements GraphControllerInterface {
          * this.controller.getConfig().getCameraConfiguration().setWidth((int)
          * Math.ceil(-2 * y)); }
          */
-        node.setPosition(new Point(x, y));
+        this.set(node::getStoredPosition, node::setPosition, new Point(x, y));
     }
 
     @Override
     @Deprecated
     public void scrollBy(double dx, double dy) {
-        this.controller.doOperation();
         CameraConfiguration camera = this.controller.getConfig().getCameraConfiguration();
         double scrollX = (camera.getWidth() / 100.0) * dx;
         double scrollY = (camera.getHeight() / 100.0) * dy;
         Point center = camera.getCenter();
 
-        camera.setCenter(new Point(center.getX() + scrollX, center.getY() + scrollY));
+        this.set(camera::getCenter, camera::setCenter, new Point(center.getX() + scrollX, center.getY() + scrollY));
     }
 
     /**
@@ -437,12 +525,19 @@ class GraphController implements GraphControllerInterface {
      */
     @Override
     public void restoreStandardAlignment() {
-        this.controller.doOperation();
-        this.controller.getConfig().getInstanceTypes().forEach(InstanceTypeConfiguration::hide);
-        this.controller.getConfig().getHiddenInstances().clear();
-        this.controller.getConfig().getRelationTypes().forEach(RelationTypeConfiguration::hide);
-        this.controller.getConfig().getInstances().forEach(InstanceConfiguration::restoreDefaultPosition);
-        this.controller.getConfig().getCameraConfiguration().reset();
+        Configuration conf = this.controller.getConfig();
+        this.controller.doOperations(() -> {
+            this.change(() -> {
+                conf.getInstanceTypes().forEach(InstanceTypeConfiguration::hide);
+                conf.getHiddenInstances().clear();
+                conf.getInstances().forEach(InstanceConfiguration::restoreDefaultPosition);
+                conf.getRelationTypes().forEach(RelationTypeConfiguration::hide);
+            });
+            CameraConfiguration camera = conf.getCameraConfiguration();
+            CameraConfiguration standard = camera.clone();
+            standard.reset();
+            this.set(camera::clone, c -> GraphController.setCamera(camera, c), standard);
+        });
     }
 
     /**
@@ -450,11 +545,13 @@ class GraphController implements GraphControllerInterface {
      */
     @Override
     public void restoreStandardView() {
-        this.controller.doOperation();
-        this.controller.getConfig().getGroups().forEach(Group::clearMarks);
-        this.controller.getConfig().getInstanceTypes().forEach(t -> t.setIcon(this.controller.getDefaultIcon(t)));
-        this.controller.getConfig().getInstances().forEach(i -> this.clearInstance(i));
-        this.controller.getConfig().getRelationTypes().forEach(r -> r.setStyle(new RelationStyle()));
+        Configuration conf = this.controller.getConfig();
+        this.change(() -> {
+            conf.getGroups().forEach(Group::clearMarks);
+            conf.getInstances().forEach(i -> i.setMarks(List.of()));
+            conf.getInstanceTypes().forEach(t -> t.setIcon(this.controller.getDefaultIcon(t)));
+            conf.getRelationTypes().forEach(r -> r.setStyle(new RelationStyle()));
+        });
     }
 
     /**
@@ -465,8 +562,8 @@ class GraphController implements GraphControllerInterface {
         if (depth < 0) {
             throw new IllegalArgumentException("The depth must not be negative!");
         }
-        this.controller.doOperation();
-        this.controller.getConfig().setDepth(depth);
+        Configuration conf = this.controller.getConfig();
+        this.set(conf::getDepth, conf::setDepth, Integer.valueOf(depth));
     }
 
     /**
@@ -477,8 +574,8 @@ class GraphController implements GraphControllerInterface {
         if (!(parallel > 0)) {
             throw new IllegalArgumentException("You can not display less than one relations in parallel");
         }
-        this.controller.doOperation();
-        this.controller.getConfig().setMaxParallelRelations(parallel);
+        Configuration conf = this.controller.getConfig();
+        this.set(conf::getmaxParallelRelations, conf::setMaxParallelRelations, Integer.valueOf(parallel));
     }
 
     @Override
@@ -487,4 +584,28 @@ class GraphController implements GraphControllerInterface {
         return this.controller.getConfig();
     }
 
+    private static void setVisible(RelationTypeConfiguration relationType, boolean visible) {
+        if (visible) {
+            relationType.show();
+        } else {
+            relationType.hide();
+        }
+    }
+
+    private static void setActive(InstanceTypeConfiguration type, ValueType value, boolean active) {
+        if (active) {
+            type.activateValue(value);
+        } else {
+            type.deactivateValue(value);
+        }
+    }
+
+    private static void setCamera(CameraConfiguration camera, CameraConfiguration values) {
+        camera.setWidth(values.getWidth());
+        camera.setHeight(values.getHeight());
+        camera.setZoom(values.getZoom());
+        camera.setGridActive(values.isGridActive());
+        camera.setCenter(values.getCenter());
+    }
+
 }
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2020 Anne Bernhart, Anja Hansen, Tobias Klumpp, Fabian Palitza,
+ * Florian Patzer, Friedrich Volz, Sandra Wolf
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package edu.kit.informatik.tolowiz.controller;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Watches opened ontology files for changes. Since editors often write a file
+ * in several steps, changes are debounced: a file is reported once no further
+ * change happened for a short time. Changes are reported on a background
+ * thread, one file at a time.
+ */
+class OntologyWatcher implements Closeable {
+    /**
+     * The default time in milliseconds a file has to stay unchanged before it is
+     * reported.
+     */
+    static final long DEBOUNCE_MILLIS = 500;
+
+    private final WatchService service;
+    private final Consumer<Path> onChange;
+    private final long debounce;
+    /**
+     * The watched directories with the keys of their registration.
+     */
+    private final Map<Path, WatchKey> directories = new HashMap<>();
+    /**
+     * The watched files with the number of times they were registered.
+     */
+    private final Map<Path, Integer> files = new HashMap<>();
+    /**
+     * The reports waiting for their debounce time to pass.
+     */
+    private final Map<Path, ScheduledFuture<?>> pending = new HashMap<>();
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Creates a watcher and starts watching in the background.
+     *
+     * @param onChange called with the path of a changed file
+     * @param debounce the time in milliseconds a file has to stay unchanged
+     * @throws IOException if the file system can not be watched
+     */
+    OntologyWatcher(Consumer<Path> onChange, long debounce) throws IOException {
+        this.service = FileSystems.getDefault().newWatchService();
+        this.onChange = onChange;
+        this.debounce = debounce;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "ontology-reload"); //$NON-NLS-1$
+            thread.setDaemon(true);
+            return thread;
+        });
+        Thread thread = new Thread(this::run, "ontology-watcher"); //$NON-NLS-1$
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Starts watching a file. A file can be registered several times and is
+     * watched until it was unregistered as often.
+     *
+     * @param file the file
+     * @throws IOException if the directory of the file can not be watched
+     */
+    synchronized void register(Path file) throws IOException {
+        Path normalized = OntologyWatcher.normalize(file);
+        Path directory = normalized.getParent();
+        if (!this.directories.containsKey(directory)) {
+            this.directories.put(directory, directory.register(this.service,
+                    StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY));
+        }
+        this.files.merge(normalized, 1, Integer::sum);
+    }
+
+    /**
+     * Stops watching a file once it was unregistered as often as it was
+     * registered.
+     *
+     * @param file the file
+     */
+    synchronized void unregister(Path file) {
+        Path normalized = OntologyWatcher.normalize(file);
+        if (this.files.computeIfPresent(normalized, (f, count) -> (count > 1) ? count - 1 : null) != null) {
+            return;
+        }
+        ScheduledFuture<?> report = this.pending.remove(normalized);
+        if (report != null) {
+            report.cancel(false);
+        }
+        Path directory = normalized.getParent();
+        if (this.files.keySet().stream().noneMatch(f -> f.getParent().equals(directory))) {
+            WatchKey key = this.directories.remove(directory);
+            if (key != null) {
+                key.cancel();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.scheduler.shutdownNow();
+        this.service.close();
+    }
+
+    /**
+     * Waits for file system events until the watcher is closed.
+     */
+    private void run() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = this.service.take();
+            } catch (@SuppressWarnings("unused") InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            Path directory = (Path) key.watchable();
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    this.scheduleDirectory(directory);
+                } else {
+                    this.schedule(directory.resolve((Path) event.context()));
+                }
+            }
+            key.reset();
+        }
+    }
+
+    /**
+     * Reports all watched files of a directory whose events were lost.
+     *
+     * @param directory the directory
+     */
+    private synchronized void scheduleDirectory(Path directory) {
+        this.files.keySet().stream().filter(f -> f.getParent().equals(directory)).forEach(this::schedule);
+    }
+
+    /**
+     * Reports a file after the debounce time, unless it changes again until
+     * then.
+     *
+     * @param file the changed file
+     */
+    private synchronized void schedule(Path file) {
+        if (!this.files.containsKey(file) || this.scheduler.isShutdown()) {
+            return;
+        }
+        ScheduledFuture<?> previous = this.pending.put(file,
+                this.scheduler.schedule(() -> this.report(file), this.debounce, TimeUnit.MILLISECONDS));
+        if (previous != null) {
+            previous.cancel(false);
+        }
+    }
+
+    /**
+     * Reports a file whose debounce time passed.
+     *
+     * @param file the changed file
+     */
+    private void report(Path file) {
+        synchronized (this) {
+            this.pending.remove(file);
+            if (!this.files.containsKey(file)) {
+                return;
+            }
+        }
+        // a file that is being replaced may be missing for a moment, its creation is reported again
+        if (Files.isRegularFile(file)) {
+            this.onChange.accept(file);
+        }
+    }
+
+    /**
+     * Returns the normalized absolute path of a file.
+     *
+     * @param file the file
+     * @return the path
+     */
+    static Path normalize(Path file) {
+        return file.toAbsolutePath().normalize();
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2020 Anne Bernhart, Anja Hansen, Tobias Klumpp, Fabian Palitza,
+ * Florian Patzer, Friedrich Volz, Sandra Wolf
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package edu.kit.informatik.tolowiz.controller;
+
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * A command that sets a single property, such as the icon of a type or the
+ * relation depth, and sets the previous value again when undone.
+ *
+ * @param <T> the type of the property
+ */
+final class PropertyCommand<T> implements Command {
+    private final Supplier<T> getter;
+    private final Consumer<T> setter;
+    private final T value;
+    private T previous;
+
+    /**
+     * Creates a command that sets a property.
+     *
+     * @param getter reads the current value of the property
+     * @param setter sets the property
+     * @param value  the value to set
+     */
+    PropertyCommand(Supplier<T> getter, Consumer<T> setter, T value) {
+        this.getter = getter;
+        this.setter = setter;
+        this.value = value;
+    }
+
+    @Override
+    public void execute() {
+        this.previous = this.getter.get();
+        this.setter.accept(this.value);
+    }
+
+    @Override
+    public void undo() {
+        this.setter.accept(this.previous);
+    }
+}
@@ -8,8 +8,6 @@ package edu.kit.informatik.tolowiz.controller;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Deque;
-import java.util.LinkedList;
 
 import org.apache.commons.io.FilenameUtils;
 
@@ -23,8 +21,10 @@ import edu.kit.informatik.tolowiz.model.data.icons.IconDatabaseException;
 import edu.kit.informatik.tolowiz.model.data.icons.IconDatabaseInterface;
 import edu.kit.informatik.tolowiz.model.data.icons.IconInterface;
 import edu.kit.informatik.tolowiz.model.ontology.Ontology;
+import edu.kit.informatik.tolowiz.model.ontology.OntologyDelta;
 import edu.kit.informatik.tolowiz.model.visualization.Configuration;
 import edu.kit.informatik.tolowiz.model.visualization.InstanceTypeConfiguration;
+import edu.kit.informatik.tolowiz.model.visualization.Snapshot;
 import edu.kit.informatik.tolowiz.view.graph.ImageInterface;
 import edu.kit.informatik.tolowiz.view.graph.ImageWriteException;
 import edu.kit.informatik.tolowiz.view.gui.TabControllerInterface;
@@ -43,13 +43,14 @@ import edu.kit.informatik.tolowiz.view.gui.ViewInterface;
 
 class TabController implements TabControllerInterface {
     /**
-     * Dequeue for stroring undo operations
+     * The operations that can be undone and redone
      */
-    private Deque<Configuration> undoOperations = new LinkedList<>();
+    private UndoHistory history;
     /**
-     * Dequeue for storing redo operations
+     * The command that collects the operations of
+     * {@link #doOperations(Runnable)}, or {@code null} if none is running.
      */
-    private Deque<Configuration> redoOperations = new LinkedList<>();
+    private CompoundCommand compound;
     /**
      * The current configuration
      */
@@ -111,35 +112,81 @@ class TabController implements TabControllerInterface {
         this.appController = appCont;
         this.filesaver = filesaver;
         this.current = conf;
-        this.graphCont = new GraphController(this);
-        this.tab = view.createTab(this, this.current, this.graphCont, name);
         try {
             this.st = database.createStorage(conf.getOntology());
         } catch (InternalDatabaseException e) {
             this.appController.showError(e);
         }
+        this.history = new UndoHistory(this.current, this.st);
+        this.graphCont = new GraphController(this);
+        this.tab = view.createTab(this, this.current, this.graphCont, name);
     }
 
     @Override
     public void closeOntology() {
+        this.history.clear();
         try {
             this.st.autosave(this.current);
             this.tab.closeTab();
         } catch (InternalDatabaseException e) {
             this.tab.showError(e);
         }
+        this.appController.removeTab(this);
+    }
 
+    /**
+     * Executes a change of the configuration as a command to allow undo and
+     * redo. Every change to the configuration must be done this way. The
+     * changes of the command are shown at once when it is done.
+     *
+     * @param command the change
+     */
+    void doOperation(Command command) {
+        Snapshot before = (this.compound == null) ? this.current.snapshot() : null;
+        this.current.batch(command::execute);
+        if (this.compound != null) {
+            this.compound.add(command);
+        } else {
+            this.history.add(command, before);
+        }
+    }
+
+    /**
+     * Runs several operations so that they are undone and redone together, like
+     * a single operation. Operations may also be grouped inside of such a
+     * group, then they belong to the outermost one.
+     *
+     * @param operations the operations, which call {@link #doOperation(Command)}
+     */
+    void doOperations(Runnable operations) {
+        if (this.compound != null) {
+            operations.run();
+            return;
+        }
+        Snapshot before = this.current.snapshot();
+        this.compound = new CompoundCommand();
+        try {
+            this.current.batch(operations);
+        } finally {
+            CompoundCommand done = this.compound;
+            this.compound = null;
+            if (!done.isEmpty()) {
+                this.history.add(done, before);
+            }
+        }
     }
 
     /**
-     * Must be called before every change to the configuration to allow undo and
-     * redo.
+     * Applies changes of the ontology file to the current configuration. The
+     * undo and redo history is discarded, because it shares the changed
+     * ontology.
+     *
+     * @param delta the changes, computed against the ontology of the current
+     *              configuration
      */
-    void doOperation() {
-        this.undoOperations.addFirst(this.current.clone());
-        // this.undoOperations.addFirst(this.current);
-        this.redoOperations = new LinkedList<>();
-        assert (this.undoOperations.getFirst() != null);
+    void applyOntologyChanges(OntologyDelta delta) {
+        this.current.applyDelta(delta);
+        this.history.clear();
     }
 
     @Override
@@ -231,8 +278,7 @@ class TabController implements TabControllerInterface {
                 this.tab.showError(new WrongOntologyException());
             } else {
                 this.current = conf;
-                this.undoOperations = new LinkedList<>();
-                this.redoOperations = new LinkedList<>();
+                this.resetHistory();
                 this.tab.showGraph(conf);
             }
         } catch (FileTypeException | IOException e) {
@@ -246,8 +292,7 @@ class TabController implements TabControllerInterface {
     public void loadAutosaveConfiguration() {
         try {
             this.current = this.st.getAutosaveEntry();
-            this.undoOperations = new LinkedList<>();
-            this.redoOperations = new LinkedList<>();
+            this.resetHistory();
             this.tab.showGraph(this.current);
         } catch (NoSuchEntryException | InternalDatabaseException e) {
             this.tab.showError(e);
@@ -259,8 +304,7 @@ class TabController implements TabControllerInterface {
     public void loadConfiguration(String name) {
         try {
             this.current = this.st.getEntry(name);
-            this.undoOperations = new LinkedList<>();
-            this.redoOperations = new LinkedList<>();
+            this.resetHistory();
             this.tab.showGraph(this.current);
         } catch (NoSuchEntryException | InternalDatabaseException e) {
             this.tab.showError(e);
@@ -279,13 +323,7 @@ class TabController implements TabControllerInterface {
 
     @Override
     public void redo() throws UndoException {
-        if (!this.isRedoPossible()) {
-            throw new UndoException();
-        }
-        this.undoOperations.addFirst(this.current);
-        this.current = this.redoOperations.removeFirst();
-        this.tab.showGraph(this.current);
-        assert (this.current != null);
+        this.history.redo();
     }
 
     @Override
@@ -299,14 +337,7 @@ class TabController implements TabControllerInterface {
 
     @Override
     public void undo() throws UndoException {
-        if (!this.isUndoPossible()) {
-            throw new UndoException();
-        }
-        this.redoOperations.addFirst(this.current);
-        this.current = this.undoOperations.removeFirst();
-        this.tab.showGraph(this.current);
-        assert (this.current != null);
-
+        this.history.undo();
     }
 
     @Override
@@ -316,12 +347,21 @@ class TabController implements TabControllerInterface {
 
     @Override
     public boolean isUndoPossible() {
-        return !this.undoOperations.isEmpty();
+        return this.history.canUndo();
     }
 
     @Override
     public boolean isRedoPossible() {
-        return !this.redoOperations.isEmpty();
+        return this.history.canRedo();
+    }
+
+    /**
+     * Drops the operations of the previous configuration, which can not be
+     * undone on the current one.
+     */
+    private void resetHistory() {
+        this.history.clear();
+        this.history = new UndoHistory(this.current, this.st);
     }
 
     /**
@@ -18,4 +18,21 @@ public class UndoException extends Exception {
      */
     private static final long serialVersionUID = 1L;
 
+    /**
+     * Creates an exception for an operation that is not possible.
+     */
+    public UndoException() {
+        super();
+    }
+
+    /**
+     * Creates an exception for an operation that failed, because it could not
+     * be read back from the storage.
+     *
+     * @param cause the original exception
+     */
+    public UndoException(Exception cause) {
+        super(cause);
+    }
+
 }
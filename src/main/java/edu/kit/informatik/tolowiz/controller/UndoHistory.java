@@ -0,0 +1,306 @@
+/*
+ * Copyright 2020 Anne Bernhart, Anja Hansen, Tobias Klumpp, Fabian Palitza,
+ * Florian Patzer, Friedrich Volz, Sandra Wolf
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package edu.kit.informatik.tolowiz.controller;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.io.FileUtils;
+
+import edu.kit.informatik.tolowiz.model.data.configurations.InternalDatabaseException;
+import edu.kit.informatik.tolowiz.model.data.configurations.StorageInterface;
+import edu.kit.informatik.tolowiz.model.visualization.Configuration;
+import edu.kit.informatik.tolowiz.model.visualization.Snapshot;
+import edu.kit.informatik.tolowiz.model.visualization.Transition;
+
+/**
+ * The undo and redo history of a tab. It keeps a limited number of
+ * operations, and the memory of the operations it keeps is limited by an
+ * estimate. The limits can be set with the system properties
+ * {@code tolowiz.undo.entries} and {@code tolowiz.undo.memory}, in bytes.<br>
+ * <br>
+ * Besides its command, every operation stores the {@link Transition} of the
+ * configuration it caused, which is what undoes it. The command only undoes
+ * what the transition does not cover, such as the camera, and redoes the
+ * operation. If the memory is exceeded, the oldest operations are spilled:
+ * their commands are dropped, and the states of the Instances in their
+ * transitions are written compressed to files of the storage. Undoing that far
+ * reads them back, and redoing such an operation applies its transition. The
+ * camera stays as it is then.
+ */
+final class UndoHistory {
+    /**
+     * The default number of operations that can be undone.
+     */
+    static final int MAX_ENTRIES = Integer.getInteger("tolowiz.undo.entries", 500).intValue(); //$NON-NLS-1$
+    /**
+     * The default memory for the operations that are not spilled, in bytes.
+     */
+    static final long MAX_MEMORY = Long.getLong("tolowiz.undo.memory", 64L << 20).longValue(); //$NON-NLS-1$
+
+    /**
+     * The estimated memory of an operation, and of the states of one Instance
+     * it changed in its transition.
+     */
+    private static final long ENTRY_BYTES = 512;
+    private static final long STATE_BYTES = 256;
+
+    private final Configuration configuration;
+    private final StorageInterface storage;
+    private final int maxEntries;
+    private final long maxMemory;
+
+    /**
+     * The operations that can be undone or redone, the most recent first.
+     */
+    private final Deque<Entry> undoEntries = new LinkedList<>();
+    private final Deque<Entry> redoEntries = new LinkedList<>();
+
+    /**
+     * Creates an empty history with the default limits.
+     *
+     * @param configuration the configuration the operations change
+     * @param storage       the storage the operations are spilled to, or
+     *                      {@code null} to drop them instead
+     */
+    UndoHistory(Configuration configuration, StorageInterface storage) {
+        this(configuration, storage, UndoHistory.MAX_ENTRIES, UndoHistory.MAX_MEMORY);
+    }
+
+    /**
+     * Creates an empty history.
+     *
+     * @param configuration the configuration the operations change
+     * @param storage       the storage the operations are spilled to, or
+     *                      {@code null} to drop them instead
+     * @param maxEntries    the number of operations that can be undone
+     * @param maxMemory     the memory for the operations that are not spilled
+     */
+    UndoHistory(Configuration configuration, StorageInterface storage, int maxEntries, long maxMemory) {
+        this.configuration = configuration;
+        this.storage = storage;
+        this.maxEntries = maxEntries;
+        this.maxMemory = maxMemory;
+    }
+
+    /**
+     * Adds an operation that was just done. The operations that could be
+     * redone are dropped.
+     *
+     * @param command the command of the operation
+     * @param before  a snapshot of the configuration before the operation
+     */
+    void add(Command command, Snapshot before) {
+        this.redoEntries.forEach(this::discard);
+        this.redoEntries.clear();
+        this.push(new Entry(command, Transition.between(before, this.configuration.snapshot())));
+    }
+
+    /**
+     * Undoes the most recent operation, reading it back if it was spilled.
+     *
+     * @throws UndoException if there is no operation, or if it can not be read
+     *                       back, then it is dropped with all older ones
+     */
+    void undo() throws UndoException {
+        if (!this.canUndo()) {
+            throw new UndoException();
+        }
+        Entry entry = this.undoEntries.removeFirst();
+        if (entry.isSpilled()) {
+            try {
+                this.load(entry);
+            } catch (IOException e) {
+                this.discard(entry);
+                this.undoEntries.forEach(this::discard);
+                this.undoEntries.clear();
+                throw new UndoException(e);
+            }
+        }
+        this.configuration.batch(entry::undo);
+        this.redoEntries.addFirst(entry);
+    }
+
+    /**
+     * Redoes the most recently undone operation.
+     *
+     * @throws UndoException if there is no such operation
+     */
+    void redo() throws UndoException {
+        if (!this.canRedo()) {
+            throw new UndoException();
+        }
+        Entry entry = this.redoEntries.removeFirst();
+        this.configuration.batch(entry::redo);
+        this.push(entry);
+    }
+
+    /**
+     * Checks whether an operation can be undone.
+     *
+     * @return {@code true} if there is an operation to undo
+     */
+    boolean canUndo() {
+        return !this.undoEntries.isEmpty();
+    }
+
+    /**
+     * Checks whether an operation can be redone.
+     *
+     * @return {@code true} if there is an operation to redo
+     */
+    boolean canRedo() {
+        return !this.redoEntries.isEmpty();
+    }
+
+    /**
+     * Drops all operations and deletes their files.
+     */
+    void clear() {
+        this.undoEntries.forEach(this::discard);
+        this.undoEntries.clear();
+        this.redoEntries.forEach(this::discard);
+        this.redoEntries.clear();
+    }
+
+    /**
+     * Gets the estimated memory of the operations that can be undone and are
+     * not spilled.
+     *
+     * @return the memory in bytes
+     */
+    long getMemory() {
+        return this.undoEntries.stream().filter(e -> !e.isSpilled()).mapToLong(Entry::getMemory).sum();
+    }
+
+    /**
+     * Adds an operation that can be undone, and then enforces the limits from
+     * the oldest operation on.
+     *
+     * @param entry the operation
+     */
+    private void push(Entry entry) {
+        this.undoEntries.addFirst(entry);
+        while (this.undoEntries.size() > this.maxEntries) {
+            this.discard(this.undoEntries.removeLast());
+        }
+        Iterator<Entry> it = this.undoEntries.descendingIterator();
+        while ((this.getMemory() > this.maxMemory) && it.hasNext()) {
+            Entry oldest = it.next();
+            if (oldest.isSpilled()) {
+                continue;
+            }
+            try {
+                this.spill(oldest);
+            } catch (IOException | InternalDatabaseException e) {
+                // the older operations can not be undone without this one
+                Entry dropped;
+                do {
+                    dropped = this.undoEntries.removeLast();
+                    this.discard(dropped);
+                } while (dropped != oldest);
+                it = this.undoEntries.descendingIterator();
+            }
+        }
+    }
+
+    /**
+     * Writes the states of the transition of an operation to a new file, and
+     * drops them and the command from memory.
+     *
+     * @param entry the operation
+     * @throws IOException               if the file can not be written
+     * @throws InternalDatabaseException if the file can not be created
+     */
+    private void spill(Entry entry) throws IOException, InternalDatabaseException {
+        if (this.storage == null) {
+            throw new IOException("There is no storage for the undo history"); //$NON-NLS-1$
+        }
+        Path file = this.storage.createHistoryFile();
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(file))))) {
+            entry.transition.write(out);
+        } catch (IOException e) {
+            FileUtils.deleteQuietly(file.toFile());
+            throw e;
+        }
+        entry.transition.release();
+        entry.command = null;
+        entry.file = file;
+    }
+
+    /**
+     * Reads back the states of the transition of a spilled operation, and
+     * deletes its file.
+     *
+     * @param entry the operation
+     * @throws IOException if the file can not be read
+     */
+    private void load(Entry entry) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new GZIPInputStream(Files.newInputStream(entry.file))))) {
+            entry.transition.read(in);
+        }
+        FileUtils.deleteQuietly(entry.file.toFile());
+        entry.file = null;
+    }
+
+    private void discard(Entry entry) {
+        if (entry.isSpilled()) {
+            FileUtils.deleteQuietly(entry.file.toFile());
+            entry.file = null;
+        }
+    }
+
+    /**
+     * An operation in the history. It is undone by its transition, after its
+     * command undid the rest, and redone by its command, or by its transition
+     * once the command was dropped.
+     */
+    private final class Entry {
+        private Command command;
+        private final Transition transition;
+        private Path file;
+
+        Entry(Command command, Transition transition) {
+            this.command = command;
+            this.transition = transition;
+        }
+
+        boolean isSpilled() {
+            return this.file != null;
+        }
+
+        long getMemory() {
+            return UndoHistory.ENTRY_BYTES + (UndoHistory.STATE_BYTES * this.transition.size());
+        }
+
+        void undo() {
+            if (this.command != null) {
+                this.command.undo();
+            }
+            this.transition.revert(UndoHistory.this.configuration);
+        }
+
+        void redo() {
+            if (this.command != null) {
+                this.command.execute();
+            } else {
+                this.transition.apply(UndoHistory.this.configuration);
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+/*
+ * Copyright 2020 Anne Bernhart, Anja Hansen, Tobias Klumpp, Fabian Palitza,
+ * Florian Patzer, Friedrich Volz, Sandra Wolf
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package edu.kit.informatik.tolowiz.controller.interpretation;
+
+/**
+ * This Exception is thrown if the interpretation of an ontology file was
+ * cancelled through its {@link LoadProgress}.
+ */
+public class InterpretationCancelledException extends OntologyFileException {
+
+    /**
+     *
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Creates a new exception
+     *
+     * @param cause the causing exception
+     */
+    public InterpretationCancelledException(Throwable cause) {
+        super("the interpretation was cancelled.", cause);
+    }
+}
@@ -5,20 +5,22 @@
  */
 package edu.kit.informatik.tolowiz.controller.interpretation;
 
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 
-import org.apache.commons.collections4.ListUtils;
-import org.apache.commons.io.FilenameUtils;
+import org.apache.jena.graph.Node;
 import org.apache.jena.ontology.DatatypeProperty;
 import org.apache.jena.ontology.Individual;
 import org.apache.jena.ontology.ObjectProperty;
@@ -26,12 +28,12 @@ import org.apache.jena.ontology.OntClass;
 import org.apache.jena.ontology.OntModel;
 import org.apache.jena.ontology.OntResource;
 import org.apache.jena.rdf.model.ModelFactory;
-import org.apache.jena.rdf.model.RDFNode;
 import org.javatuples.Pair;
 
 import edu.kit.informatik.tolowiz.model.ontology.Instance;
 import edu.kit.informatik.tolowiz.model.ontology.InstanceType;
 import edu.kit.informatik.tolowiz.model.ontology.Ontology;
+import edu.kit.informatik.tolowiz.model.ontology.OntologyBuilder;
 import edu.kit.informatik.tolowiz.model.ontology.RelationType;
 import edu.kit.informatik.tolowiz.model.ontology.ValueType;
 import edu.kit.informatik.tolowiz.view.gui.ApplicationControllerInterface;
@@ -39,26 +41,45 @@ import edu.kit.informatik.tolowiz.view.gui.ApplicationControllerInterface;
 class Interpreter implements InterpreterInterface {
     private Path filepath;
     private OntModel rdfOntology;
-    private Ontology ontology;
+    private OntologyBuilder builder;
     private String uriPrefix;
-    private ConcurrentMap<Individual, Instance> instances;
+    private Set<String> uriCandidates = Collections.emptySet();
+    private ConcurrentMap<Node, Instance> instances;
     private ConcurrentMap<ObjectProperty, RelationType> relationTypes;
     private ConcurrentMap<OntClass, InstanceType> types;
     private ConcurrentMap<DatatypeProperty, ValueType> valueTypes;
     private InstanceType owlThing;
+    private PropertyIndex index;
     private List<String> errors = new LinkedList<>();
     private ApplicationControllerInterface applicationController;
+    private ForkJoinPool pool;
+    private final LoadProgress progress = new LoadProgress();
 
     /**
-     * Generates a new Interpreter. It can be used to interpret RDF/XML files.
+     * Generates a new Interpreter. It can be used to interpret RDF/XML files. The
+     * common pool is used for the parallel parts of the interpretation.
      *
      * @param filepath              The File to use
      * @param applicationController The ApplicationController connected to this
      *                              interpreter
      */
     Interpreter(Path filepath, ApplicationControllerInterface applicationController) {
+        this(filepath, applicationController, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Generates a new Interpreter. It can be used to interpret RDF/XML files.
+     *
+     * @param filepath              The File to use
+     * @param applicationController The ApplicationController connected to this
+     *                              interpreter
+     * @param pool                  the pool running the parallel parts of the
+     *                              interpretation
+     */
+    Interpreter(Path filepath, ApplicationControllerInterface applicationController, ForkJoinPool pool) {
         this.filepath = filepath;
         this.applicationController = applicationController;
+        this.pool = pool;
     }
 
     @Override
@@ -66,52 +87,104 @@ class Interpreter implements InterpreterInterface {
         return this.errors;
     }
 
+    @Override
+    public LoadProgress getProgress() {
+        return this.progress;
+    }
+
+    @Override
+    public Set<String> getUriCandidates() {
+        return this.uriCandidates;
+    }
+
     @Override
     public Ontology buildOntology() throws OntologyFileException, FileNotFoundException {
+        try {
+            return this.interpret();
+        } catch (CancellationException e) {
+            throw new InterpretationCancelledException(e);
+        } catch (OntologyFileException e) {
+            // a cancelled parser or pool reports the cancellation as failure
+            if (this.progress.isCancelled()) {
+                throw new InterpretationCancelledException(e);
+            }
+            throw e;
+        } finally {
+            this.release();
+        }
+    }
 
-        this.rdfOntology = this.readOntologyFile(this.fetchFile(this.filepath));
+    /**
+     * Builds the ontology, stopping at the next check if the progress is
+     * cancelled.
+     *
+     * @return the ontology
+     * @throws OntologyFileException if the input file is not a valid ontology file.
+     * @throws FileNotFoundException if the file can not be found
+     */
+    private Ontology interpret() throws OntologyFileException, FileNotFoundException {
+        this.progress.enter(LoadProgress.Phase.PARSING);
+        this.rdfOntology = this.readOntologyFile(this.filepath);
+        // run the inference up front, the parallel parts only use what was looked up before
+        this.rdfOntology.prepare();
+        this.progress.enter(LoadProgress.Phase.TYPES);
         String uriPrefix = this.getUriPrefix();
-        this.ontology = new Ontology(uriPrefix, FilenameUtils.getBaseName(this.filepath.getFileName().toString()));
+        this.builder = new OntologyBuilder(uriPrefix,
+                RDFSource.getBaseName(this.filepath));
         this.addInstanceTypes();
         this.addValueTypes();
         this.addRelationTypes();
         this.deriveTypeHierarchy();
+        this.progress.enter(LoadProgress.Phase.INSTANCES);
+        this.index = new PropertyIndex(this.rdfOntology, this.valueTypes, this.relationTypes,
+                this.builder.getDictionary());
         this.addInstances();
+        this.progress.enter(LoadProgress.Phase.RELATIONS);
         this.addRelations();
 
-        return this.ontology;
+        Ontology ontology = this.builder.build();
+        this.progress.enter(LoadProgress.Phase.DONE);
+        return ontology;
     }
 
     /**
-     * creates an OntModel object with all the input from the given InputStream.
+     * Drops the model and everything built from it, so a failed or cancelled
+     * interpretation does not keep the partial model alive.
+     */
+    private void release() {
+        if (this.rdfOntology != null) {
+            this.rdfOntology.close();
+        }
+        this.rdfOntology = null;
+        this.builder = null;
+        this.index = null;
+        this.instances = null;
+        this.types = null;
+        this.valueTypes = null;
+        this.relationTypes = null;
+    }
+
+    /**
+     * creates an OntModel object with all the input from the given file. The
+     * syntax and compression of the file are detected automatically.
      *
-     * @param ontology the InputStream
-     * @return an OntModel with the info from ontology
+     * @param filepath the file
+     * @return an OntModel with the info from the file
      * @throws OntologyFileException if the input file is not a valid ontology file.
+     * @throws FileNotFoundException if the file can not be found
      */
-    private OntModel readOntologyFile(FileInputStream ontology) throws OntologyFileException {
+    private OntModel readOntologyFile(Path filepath) throws OntologyFileException, FileNotFoundException {
         OntModel rdfOntology = ModelFactory.createOntologyModel();
-        try {
-            rdfOntology.read(ontology, null);
+        try (RDFSource source = RDFSource.open(filepath, this.progress)) {
+            source.read(rdfOntology);
+        } catch (FileNotFoundException e) {
+            throw e;
         } catch (Exception e) {
             throw new OntologyFileException("this ontology file is not interpretable.", e);
         }
         return rdfOntology;
     }
 
-    /**
-     * Turns a filepath into a FileInputStream object
-     *
-     * @param filepath The path to read.
-     * @return the file from this filepath as a FileInputStream.
-     * @throws FileNotFoundException
-     */
-    private FileInputStream fetchFile(Path filepath) throws FileNotFoundException {
-        File file = filepath.toFile();
-        FileInputStream stream = new FileInputStream(file);
-        return stream;
-    }
-
     /**
      * Finds the given Ontology's specific uri prefix
      *
@@ -129,6 +202,7 @@ class Interpreter implements InterpreterInterface {
                 for (Map.Entry<String, String> entry : ns.entrySet()) {
                     potentialUris.add(entry.getValue());
                 }
+                this.uriCandidates = potentialUris;
                 String uri = this.applicationController.selectURI(potentialUris);
                 this.uriPrefix = uri;
             }
@@ -142,41 +216,47 @@ class Interpreter implements InterpreterInterface {
      * @param ontology you want to add the instance types to.
      */
     private void addInstanceTypes() {
-        this.owlThing = this.ontology.addType("owl:Thing", null, null, null, null,
-                (this.getUriPrefix() + "#owl:Thing"));
+        this.owlThing = this.builder.addType("owl:Thing", (this.getUriPrefix() + "#owl:Thing"));
+        this.progress.addType();
         List<OntClass> typ = this.getClasses();
         ConcurrentMap<OntClass, InstanceType> instanceTypes = new ConcurrentHashMap<>();
         for (OntClass ontClass : typ) {
+            this.progress.checkCancelled();
             instanceTypes.put(ontClass,
-                    this.ontology.addType(ontClass.getLocalName(), null, null, null, null, ontClass.getURI()));
+                    this.builder.addType(ontClass.getLocalName(), ontClass.getURI()));
+            this.progress.addType();
         }
         this.types = instanceTypes;
     }
 
     /**
-     * Sets all subType relations in the ontology
+     * Sets all subType relations in the ontology. The direct superclasses of all
+     * classes are looked up in one pass over the model, as concurrent reads of an
+     * inference model are not safe, and then added in parallel.
      *
-     * @param ontology
+     * @throws OntologyFileException if the lookup failed
      */
-    private void deriveTypeHierarchy() {
+    private void deriveTypeHierarchy() throws OntologyFileException {
+        Map<InstanceType, List<OntClass>> superClasses = new HashMap<>();
         for (Map.Entry<OntClass, InstanceType> entry : this.types.entrySet()) {
-            InstanceType type = entry.getValue();
-            OntClass ontClass = entry.getKey();
-            InstanceType superType;
-            List<OntClass> superClasses = ontClass.listSuperClasses(true).toList();
-            for (OntClass superClass : superClasses) {
-                if (this.types.get(superClass) != null) {
-                    superType = this.types.get(superClass);
-                    this.ontology.addSuperType(type, superType);
-                    this.ontology.addSubType(superType, type);
+            this.progress.checkCancelled();
+            superClasses.put(entry.getValue(), entry.getKey().listSuperClasses(true).toList());
+        }
+        this.inParallel(() -> superClasses.entrySet().parallelStream().forEach(entry -> {
+            this.progress.checkCancelled();
+            InstanceType type = entry.getKey();
+            boolean hasSuperType = false;
+            for (OntClass superClass : entry.getValue()) {
+                InstanceType superType = this.types.get(superClass);
+                if (superType != null) {
+                    this.builder.addSuperType(type, superType);
+                    hasSuperType = true;
                 }
-
             }
-            if (type.getSuperTypes().isEmpty()) {
-                this.ontology.addSuperType(type, this.owlThing);
-                this.ontology.addSubType(this.owlThing, type);
+            if (!hasSuperType) {
+                this.builder.addSuperType(type, this.owlThing);
             }
-        }
+        }));
     }
 
     /**
@@ -189,7 +269,8 @@ class Interpreter implements InterpreterInterface {
         ConcurrentMap<DatatypeProperty, ValueType> valueTypes = new ConcurrentHashMap<>();
         for (DatatypeProperty datatypeProperty : dat) {
             valueTypes.put(datatypeProperty,
-                    this.ontology.addValueType(datatypeProperty.getLocalName(), datatypeProperty.getURI()));
+                    this.builder.addValueType(datatypeProperty.getLocalName(), datatypeProperty.getURI()));
+            this.progress.addType();
         }
         this.valueTypes = valueTypes;
     }
@@ -204,59 +285,30 @@ class Interpreter implements InterpreterInterface {
         ConcurrentMap<ObjectProperty, RelationType> relationTypes = new ConcurrentHashMap<>();
         for (ObjectProperty objectProperty : obj) {
             relationTypes.put(objectProperty,
-                    this.ontology.addRelationType(objectProperty.getLocalName(), objectProperty.getURI()));
+                    this.builder.addRelationType(objectProperty.getLocalName(), objectProperty.getURI()));
+            this.progress.addType();
         }
         this.relationTypes = relationTypes;
     }
 
-    private void addInstances() {
-        List<Individual> ind = new LinkedList<>();
-        ind.addAll(this.getIndividuals());
+    /**
+     * Adds all individuals described in the rdf file to the ontology object. The
+     * individuals and their types are collected from the model first, then they
+     * are added in parallel.
+     *
+     * @throws OntologyFileException if the lookup failed
+     */
+    private void addInstances() throws OntologyFileException {
+        Map<Individual, Set<InstanceType>> ind = this.getIndividuals();
         this.instances = new ConcurrentHashMap<>();
 
-        List<Thread> workers = new LinkedList<>();
-
-        int threads = Runtime.getRuntime().availableProcessors();
-        threads = (threads > 6 ? threads - 6 : 1);
-
-        if (ind.size() == 0) {
-            return;
-        }
-        List<List<Individual>> parts = ListUtils.partition(ind,
-                (int) Math.ceil((double) ind.size() / (double) threads));
-
-        for (List<Individual> list : parts) {
-            Runnable work = () -> {
-                for (Individual individual : list) {
-                    Set<InstanceType> types = new HashSet<>();
-                    List<OntClass> classes = individual.listOntClasses(true).toList();
-                    for (OntClass ontClass : classes) {
-                        if (this.types.get(ontClass) != null) {
-                            types.add(this.types.get(ontClass));
-                        }
-                    }
-                    Set<Pair<ValueType, String>> values = this.getValues(individual);
-                    String uri = individual.getURI();
-                    Instance instance = null;
-                    synchronized (this) {
-                        instance = this.ontology.addInstance(individual.getLocalName(), uri, types, null, values);
-                    }
-                    this.instances.put(individual, instance);
-                }
-            };
-
-            Thread thread = new Thread(work);
-            workers.add(thread);
-            thread.start();
-        }
-
-        for (Thread thread : workers) {
-            try {
-                thread.join();
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
-        }
+        this.inParallel(() -> ind.entrySet().parallelStream().forEach(entry -> {
+            this.progress.checkCancelled();
+            Individual individual = entry.getKey();
+            this.instances.put(individual.asNode(), this.builder.addInstance(individual.getLocalName(),
+                    individual.getURI(), entry.getValue(), this.getValues(individual)));
+            this.progress.addInstance();
+        }));
     }
 
     /**
@@ -265,40 +317,28 @@ class Interpreter implements InterpreterInterface {
      * @param individual from the rdf file
      */
     private Set<Pair<ValueType, String>> getValues(Individual ind) {
-        Set<Pair<ValueType, String>> values = new HashSet<>();
-        for (Map.Entry<DatatypeProperty, ValueType> entry : this.valueTypes.entrySet()) {
-            DatatypeProperty prop = entry.getKey();
-            List<RDFNode> vals = ind.listPropertyValues(prop).toList();
-            for (RDFNode val : vals) {
-                String value = val.asLiteral().getLexicalForm();
-                values.add(new Pair<>(this.valueTypes.get(prop), value));
-            }
-        }
-        return values;
+        return this.index.getValues(ind.asNode());
     }
 
     /**
      * Adds all the relations described in the rdf file to the ontology object.
+     * Relations pointing to resources that are no individuals are skipped. The
+     * relations are collected in parallel.
      *
-     * @param ontology you want to add the relations to.
+     * @throws OntologyFileException if the lookup failed
      */
-    private void addRelations() {
-        for (Map.Entry<Individual, Instance> entry : this.instances.entrySet()) {
-            Individual ind = entry.getKey();
-            Instance ins = entry.getValue();
-            for (Map.Entry<ObjectProperty, RelationType> rEntry : this.relationTypes.entrySet()) {
-                ObjectProperty prop = rEntry.getKey();
-                List<RDFNode> nodes = ind.listPropertyValues(prop).toList();
-                for (RDFNode val : nodes) {
-                    OntResource res = (OntResource) val.asResource();
-                    Individual value = res.asIndividual();
-                    Instance dest = this.instances.get(value);
-                    String uri = prop.getURI() + ":"
-                            + (ind.getURI() + "->" + dest.getURI()).replace(this.getUriPrefix(), "");
-                    this.ontology.addRelation(uri, this.relationTypes.get(prop), ins, dest);
+    private void addRelations() throws OntologyFileException {
+        this.inParallel(() -> this.instances.entrySet().parallelStream().forEach(entry -> {
+            this.progress.checkCancelled();
+            Instance origin = entry.getValue();
+            for (Pair<RelationType, Node> relation : this.index.getRelations(entry.getKey())) {
+                Instance dest = this.instances.get(relation.getValue1());
+                if (dest != null) {
+                    this.builder.addRelation(relation.getValue0(), origin, dest);
+                    this.progress.addRelation();
                 }
             }
-        }
+        }));
     }
 
     /**
@@ -313,20 +353,22 @@ class Interpreter implements InterpreterInterface {
     }
 
     /**
-     * Lists all individuals in the ontology.
+     * Lists all individuals in the ontology with their types. An individual is
+     * found as direct instance of each of its direct classes, so these are its
+     * types.
      *
-     * @param ontology
-     * @return List with individuals
+     * @return the individuals and their types
      */
-    private Set<Individual> getIndividuals() {
-        Set<Individual> ind = new HashSet<>();
+    private Map<Individual, Set<InstanceType>> getIndividuals() {
+        Map<Individual, Set<InstanceType>> ind = new HashMap<>();
 
         for (Map.Entry<OntClass, InstanceType> entry : this.types.entrySet()) {
+            this.progress.checkCancelled();
             OntClass ontClass = entry.getKey();
             List<? extends OntResource> resources = ontClass.listInstances(true).toList();
             for (OntResource ontRes : resources) {
                 Individual individual = ontRes.asIndividual();
-                ind.add(individual);
+                ind.computeIfAbsent(individual, k -> new HashSet<>()).add(entry.getValue());
             }
         }
 
@@ -354,4 +396,22 @@ class Interpreter implements InterpreterInterface {
         List<ObjectProperty> obj = this.rdfOntology.listObjectProperties().toList();
         return obj;
     }
+
+    /**
+     * Runs a task in the pool of this interpreter and waits for it to finish.
+     *
+     * @param task the task, usually a parallel stream
+     * @throws OntologyFileException if the task failed or the thread was
+     *                               interrupted
+     */
+    private void inParallel(Runnable task) throws OntologyFileException {
+        try {
+            this.pool.submit(task).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OntologyFileException("the interpretation was interrupted.", e);
+        } catch (ExecutionException e) {
+            throw new OntologyFileException("this ontology file is not interpretable.", e.getCause());
+        }
+    }
 }
@@ -25,4 +25,35 @@ public abstract class InterpreterFactory {
      */
     public abstract InterpreterInterface getInterpreter(Path filepath,
             ApplicationControllerInterface applicationController);
+
+    /**
+     * Checks by its name whether a file is an ontology file the interpreters of
+     * this factory can read, e.g. to pick the ontologies out of a directory.
+     *
+     * @param filepath the file
+     * @return whether the file has the extension of a supported RDF syntax,
+     *         optionally followed by the extension of a supported compression
+     */
+    public boolean canInterpret(Path filepath) {
+        return RDFSource.isSupported(filepath);
+    }
+
+    /**
+     * Returns the kind of the interpreters of this factory. Interpreters of
+     * different kinds may build different ontologies from the same file.
+     *
+     * @return the kind
+     */
+    public String getKind() {
+        return this.getClass().getName();
+    }
+
+    /**
+     * Releases the threads the interpreters of this factory share. Running
+     * interpretations are finished, but no interpreter may be created
+     * afterwards.
+     */
+    public void shutdown() {
+        // the default interpreters do not share threads
+    }
 }
@@ -7,6 +7,7 @@ package edu.kit.informatik.tolowiz.controller.interpretation;
 
 import java.io.FileNotFoundException;
 import java.util.List;
+import java.util.Set;
 
 import edu.kit.informatik.tolowiz.model.ontology.Ontology;
 
@@ -26,10 +27,21 @@ public interface InterpreterInterface {
      * @return returns the newly built ontology.
      * @throws FileNotFoundException if the given file can not be found
      * @throws OntologyFileException if the given filepath doesn't refer to a valid
-     *                               ontology file.
+     *                               ontology file, or an
+     *                               {@link InterpretationCancelledException} if
+     *                               the interpretation was cancelled.
      */
     public Ontology buildOntology() throws FileNotFoundException, OntologyFileException;
 
+    /**
+     * Returns the progress of {@link #buildOntology()}. It can be read from any
+     * thread while the ontology is built, and cancels the interpretation when
+     * {@link LoadProgress#cancel()} is called.
+     *
+     * @return the progress of this interpreter
+     */
+    public LoadProgress getProgress();
+
     /**
      * returns all Error messages of Problems that have occured while reading and
      * processing the ontology given when constructing. The Messages describe what
@@ -38,4 +50,13 @@ public interface InterpreterInterface {
      * @return the List of all Error messages.
      */
     public List<String> getErrorMessages();
+
+    /**
+     * Returns the URIs the prefix of the ontology was chosen from with
+     * {@link edu.kit.informatik.tolowiz.view.gui.ApplicationControllerInterface#selectURI(Set)}
+     * while it was built.
+     *
+     * @return the URIs, or an empty set if the file specifies the prefix
+     */
+    public Set<String> getUriCandidates();
 }
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2020 Anne Bernhart, Anja Hansen, Tobias Klumpp, Fabian Palitza,
+ * Florian Patzer, Friedrich Volz, Sandra Wolf
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package edu.kit.informatik.tolowiz.controller.interpretation;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The progress of an interpreter building an ontology. The interpreter updates
+ * the counters while it runs, any other thread may read them at any time and
+ * may cancel the interpretation.<br>
+ * <br>
+ * The byte counters refer to the file as it is stored, so for compressed files
+ * they count compressed bytes. Interpreters reading the file more than once
+ * restart the byte count with every pass.
+ */
+public final class LoadProgress {
+
+    /**
+     * The steps of building an ontology, in the order they are run.
+     */
+    public enum Phase {
+        /**
+         * The file is opened.
+         */
+        STARTING,
+        /**
+         * The file is parsed.
+         */
+        PARSING,
+        /**
+         * Instance types, value types and relation types are created.
+         */
+        TYPES,
+        /**
+         * Instances are created.
+         */
+        INSTANCES,
+        /**
+         * Relations are created.
+         */
+        RELATIONS,
+        /**
+         * The ontology is built.
+         */
+        DONE
+    }
+
+    private volatile Phase phase = Phase.STARTING;
+    private volatile boolean cancelled;
+    private final AtomicLong bytesRead = new AtomicLong();
+    private volatile long totalBytes = -1;
+    private final AtomicLong triples = new AtomicLong();
+    private final AtomicLong types = new AtomicLong();
+    private final AtomicLong instances = new AtomicLong();
+    private final AtomicLong relations = new AtomicLong();
+
+    /**
+     * Returns the step the interpreter is currently in.
+     *
+     * @return the phase
+     */
+    public Phase getPhase() {
+        return this.phase;
+    }
+
+    /**
+     * Returns the number of bytes of the file read in the current pass.
+     *
+     * @return the bytes read
+     */
+    public long getBytesRead() {
+        return this.bytesRead.get();
+    }
+
+    /**
+     * Returns the size of the file.
+     *
+     * @return the size in bytes, or -1 if it is not known yet
+     */
+    public long getTotalBytes() {
+        return this.totalBytes;
+    }
+
+    /**
+     * Returns the share of the file read in the current pass.
+     *
+     * @return a value between 0 and 1, or -1 if the size of the file is not
+     *         known
+     */
+    public double getFractionRead() {
+        long total = this.totalBytes;
+        if (total <= 0) {
+            return -1;
+        }
+        return Math.min(1.0, (double) this.bytesRead.get() / total);
+    }
+
+    /**
+     * Returns the number of triples parsed over all passes.
+     *
+     * @return the number of triples
+     */
+    public long getTriples() {
+        return this.triples.get();
+    }
+
+    /**
+     * Returns the number of instance types, value types and relation types
+     * created so far.
+     *
+     * @return the number of types
+     */
+    public long getTypes() {
+        return this.types.get();
+    }
+
+    /**
+     * Returns the number of instances created so far.
+     *
+     * @return the number of instances
+     */
+    public long getInstances() {
+        return this.instances.get();
+    }
+
+    /**
+     * Returns the number of relations created so far.
+     *
+     * @return the number of relations
+     */
+    public long getRelations() {
+        return this.relations.get();
+    }
+
+    /**
+     * Asks the interpreter to stop. The interpreter stops at its next check,
+     * drops everything it built so far and throws an
+     * {@link InterpretationCancelledException}.
+     */
+    public void cancel() {
+        this.cancelled = true;
+    }
+
+    /**
+     * Returns whether the interpretation was cancelled.
+     *
+     * @return whether {@link #cancel()} was called
+     */
+    public boolean isCancelled() {
+        return this.cancelled;
+    }
+
+    /**
+     * Enters the next step and checks for cancellation.
+     *
+     * @param phase the step
+     */
+    void enter(Phase phase) {
+        this.checkCancelled();
+        this.phase = phase;
+    }
+
+    /**
+     * Starts a new pass over a file.
+     *
+     * @param size the size of the file in bytes
+     */
+    void startPass(long size) {
+        this.totalBytes = size;
+        this.bytesRead.set(0);
+    }
+
+    /**
+     * Counts bytes read from the file.
+     *
+     * @param count the number of bytes
+     */
+    void addBytes(long count) {
+        this.bytesRead.addAndGet(count);
+    }
+
+    /**
+     * Counts a parsed triple.
+     */
+    void addTriple() {
+        this.triples.incrementAndGet();
+    }
+
+    /**
+     * Counts a created type.
+     */
+    void addType() {
+        this.types.incrementAndGet();
+    }
+
+    /**
+     * Counts a created instance.
+     */
+    void addInstance() {
+        this.instances.incrementAndGet();
+    }
+
+    /**
+     * Counts a created relation.
+     */
+    void addRelation() {
+        this.relations.incrementAndGet();
+    }
+
+    /**
+     * Aborts the current task if the interpretation was cancelled.
+     *
+     * @throws CancellationException if the interpretation was cancelled
+     */
+    void checkCancelled() {
+        if (this.cancelled) {
+            throw new CancellationException();
+        }
+    }
+}
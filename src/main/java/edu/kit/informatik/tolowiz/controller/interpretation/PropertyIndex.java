@@ -0,0 +1,104 @@
+/*
+ * Copyright 2020 Anne Bernhart, Anja Hansen, Tobias Klumpp, Fabian Palitza,
+ * Florian Patzer, Friedrich Volz, Sandra Wolf
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package edu.kit.informatik.tolowiz.controller.interpretation;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.ontology.DatatypeProperty;
+import org.apache.jena.ontology.ObjectProperty;
+import org.apache.jena.ontology.OntModel;
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.rdf.model.Statement;
+import org.apache.jena.rdf.model.StmtIterator;
+import org.javatuples.Pair;
+
+import edu.kit.informatik.tolowiz.model.ontology.OntologyDictionary;
+import edu.kit.informatik.tolowiz.model.ontology.RelationType;
+import edu.kit.informatik.tolowiz.model.ontology.ValueType;
+
+/**
+ * Holds all values and outgoing relations of the subjects of an ontology model,
+ * indexed by subject. The index is built with one sweep per property over the
+ * statements of the model instead of asking every individual for every
+ * property. After construction it is read-only and may be queried from several
+ * threads.
+ */
+class PropertyIndex {
+    private final Map<Node, Set<Pair<ValueType, String>>> values = new HashMap<>();
+    private final Map<Node, List<Pair<RelationType, Node>>> relations = new HashMap<>();
+
+    /**
+     * Builds the index.
+     *
+     * @param model         the model to index
+     * @param valueTypes    the datatype properties to index and their value types
+     * @param relationTypes the object properties to index and their relation
+     *                      types
+     * @param dictionary    the dictionary sharing equal values
+     */
+    PropertyIndex(OntModel model, Map<DatatypeProperty, ValueType> valueTypes,
+            Map<ObjectProperty, RelationType> relationTypes, OntologyDictionary dictionary) {
+        for (Map.Entry<DatatypeProperty, ValueType> entry : valueTypes.entrySet()) {
+            StmtIterator it = model.listStatements(null, entry.getKey(), (RDFNode) null);
+            try {
+                while (it.hasNext()) {
+                    Statement stmt = it.next();
+                    if (stmt.getObject().isLiteral()) {
+                        this.values.computeIfAbsent(stmt.getSubject().asNode(), k -> new HashSet<>())
+                                .add(dictionary.value(entry.getValue(), stmt.getLiteral().getLexicalForm()));
+                    }
+                }
+            } finally {
+                it.close();
+            }
+        }
+        for (Map.Entry<ObjectProperty, RelationType> entry : relationTypes.entrySet()) {
+            StmtIterator it = model.listStatements(null, entry.getKey(), (RDFNode) null);
+            try {
+                while (it.hasNext()) {
+                    Statement stmt = it.next();
+                    if (stmt.getObject().isResource()) {
+                        this.relations.computeIfAbsent(stmt.getSubject().asNode(), k -> new LinkedList<>())
+                                .add(new Pair<>(entry.getValue(), stmt.getObject().asNode()));
+                    }
+                }
+            } finally {
+                it.close();
+            }
+        }
+    }
+
+    /**
+     * Returns the values of a subject.
+     *
+     * @param subject the subject
+     * @return a new set of pairs of value type and lexical form, empty if the
+     *         subject has no values
+     */
+    Set<Pair<ValueType, String>> getValues(Node subject) {
+        Set<Pair<ValueType, String>> result = this.values.get(subject);
+        return (result == null ? new HashSet<>() : new HashSet<>(result));
+    }
+
+    /**
+     * Returns the outgoing relations of a subject.
+     *
+     * @param subject the subject
+     * @return a list of pairs of relation type and destination node, empty if the
+     *         subject has no outgoing relations
+     */
+    List<Pair<RelationType, Node>> getRelations(Node subject) {
+        List<Pair<RelationType, Node>> result = this.relations.get(subject);
+        return (result == null ? Collections.emptyList() : result);
+    }
+}
@@ -6,6 +6,7 @@
 package edu.kit.informatik.tolowiz.controller.interpretation;
 
 import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
 
 import edu.kit.informatik.tolowiz.view.gui.ApplicationControllerInterface;
 
@@ -16,10 +17,52 @@ import edu.kit.informatik.tolowiz.view.gui.ApplicationControllerInterface;
  *
  */
 public class RDFInterpreterFactory extends InterpreterFactory {
+    /**
+     * The system property used to configure the parallelism of the default
+     * factory.
+     */
+    public static final String PARALLELISM_PROPERTY = "tolowiz.parallelism"; //$NON-NLS-1$
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a factory whose interpreters use as many worker threads as set in
+     * the system property {@value #PARALLELISM_PROPERTY}, or one per available
+     * processor if it is not set.
+     */
+    public RDFInterpreterFactory() {
+        this(Integer.getInteger(RDFInterpreterFactory.PARALLELISM_PROPERTY,
+                Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * Creates a factory whose interpreters share a pool with the given number of
+     * worker threads.
+     *
+     * @param parallelism the number of worker threads, at least 1
+     * @throws IllegalArgumentException if parallelism is less than 1
+     */
+    public RDFInterpreterFactory(int parallelism) {
+        this.pool = new ForkJoinPool(parallelism);
+    }
 
     @Override
     public InterpreterInterface getInterpreter(Path filepath, ApplicationControllerInterface applicationController) {
-        return new Interpreter(filepath, applicationController);
+        return new Interpreter(filepath, applicationController, this.pool);
+    }
+
+    /**
+     * Returns the number of worker threads the interpreters of this factory use.
+     *
+     * @return the parallelism
+     */
+    public int getParallelism() {
+        return this.pool.getParallelism();
+    }
+
+    @Override
+    public void shutdown() {
+        this.pool.shutdown();
     }
 
 }
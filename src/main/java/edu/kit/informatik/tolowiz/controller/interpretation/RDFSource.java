@@ -0,0 +1,504 @@
+/*
+ * Copyright 2020 Anne Bernhart, Anja Hansen, Tobias Klumpp, Fabian Palitza,
+ * Florian Patzer, Friedrich Volz, Sandra Wolf
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package edu.kit.informatik.tolowiz.controller.interpretation;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.compress.compressors.CompressorException;
+import org.apache.commons.compress.compressors.CompressorStreamFactory;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFLanguages;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFLib;
+import org.apache.jena.riot.system.StreamRDFWrapper;
+
+/**
+ * An opened ontology file. The file may be compressed with gzip, bzip2 or xz
+ * and may use any RDF syntax Jena can parse, e.g. RDF/XML, Turtle, N-Triples,
+ * N-Quads, JSON-LD or RDF Thrift.<br>
+ * <br>
+ * Compression is detected by the file content, the syntax by the file
+ * extension or, if that is unknown, by the beginning of the content. Compressed
+ * files are decompressed on a separate thread, so decompression and parsing
+ * run in parallel. Files that are not compressed are read by the parsing thread
+ * itself, since reading them takes little time compared to parsing.<br>
+ * <br>
+ * Bytes read from the file and parsed triples are counted in a
+ * {@link LoadProgress}, and reading stops once it is cancelled.
+ */
+final class RDFSource implements Closeable {
+    /**
+     * The size of the read buffers.
+     */
+    static final int BUFFER_SIZE = 1 << 16;
+    /**
+     * The number of decompressed bytes that may wait for the parser.
+     */
+    static final int PIPE_SIZE = 1 << 20;
+    /**
+     * The number of bytes looked at to guess the syntax.
+     */
+    private static final int SNIFF_SIZE = 1024;
+
+    private final InputStream stream;
+    private final Lang lang;
+    private final LoadProgress progress;
+
+    /**
+     * Creates a source.
+     *
+     * @param stream   the decompressed content
+     * @param lang     the syntax of the content
+     * @param progress the progress counting the parsed triples
+     */
+    private RDFSource(InputStream stream, Lang lang, LoadProgress progress) {
+        this.stream = stream;
+        this.lang = lang;
+        this.progress = progress;
+    }
+
+    /**
+     * Opens an ontology file.
+     *
+     * @param file the file
+     * @return the source
+     * @throws FileNotFoundException if the file does not exist
+     * @throws IOException           if the file can not be read
+     */
+    static RDFSource open(Path file) throws FileNotFoundException, IOException {
+        return RDFSource.open(file, new LoadProgress());
+    }
+
+    /**
+     * Opens an ontology file and starts a new pass of the given progress.
+     *
+     * @param file     the file
+     * @param progress the progress counting read bytes and parsed triples
+     * @return the source
+     * @throws FileNotFoundException if the file does not exist
+     * @throws IOException           if the file can not be read
+     */
+    static RDFSource open(Path file, LoadProgress progress) throws FileNotFoundException, IOException {
+        InputStream raw;
+        try {
+            progress.startPass(Files.size(file));
+            raw = new BufferedInputStream(new Counting(Files.newInputStream(file), progress),
+                    RDFSource.BUFFER_SIZE);
+        } catch (NoSuchFileException e) {
+            FileNotFoundException notFound = new FileNotFoundException(file.toString());
+            notFound.initCause(e);
+            throw notFound;
+        }
+        try {
+            String compression = RDFSource.detectCompression(raw);
+            String name = file.getFileName().toString();
+            // plain files are read on the parsing thread: reading only copies what the
+            // operating system has read ahead, a pipe would only add another copy
+            InputStream content = raw;
+            if (compression != null) {
+                if (RDFSource.isCompressionExtension(FilenameUtils.getExtension(name))) {
+                    name = FilenameUtils.removeExtension(name);
+                }
+                content = new BufferedInputStream(RDFSource.pipe(RDFSource.decompress(compression, raw)),
+                        RDFSource.BUFFER_SIZE);
+            }
+            Lang lang = RDFLanguages.filenameToLang(name);
+            if (lang == null) {
+                lang = RDFSource.detectLang(content);
+            }
+            return new RDFSource(content, lang, progress);
+        } catch (IOException | RuntimeException e) {
+            raw.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the name of an ontology file without its extensions, including
+     * the extension of the compression.
+     *
+     * @param file the file
+     * @return the name
+     */
+    static String getBaseName(Path file) {
+        String name = file.getFileName().toString();
+        if (RDFSource.isCompressionExtension(FilenameUtils.getExtension(name))) {
+            name = FilenameUtils.removeExtension(name);
+        }
+        return FilenameUtils.getBaseName(name);
+    }
+
+    /**
+     * Checks whether the name of a file names a syntax Jena can parse, after
+     * removing the extension of a supported compression.
+     *
+     * @param file the file
+     * @return whether the syntax of the file is known by its name
+     */
+    static boolean isSupported(Path file) {
+        String name = file.getFileName().toString();
+        if (RDFSource.isCompressionExtension(FilenameUtils.getExtension(name))) {
+            name = FilenameUtils.removeExtension(name);
+        }
+        return RDFLanguages.filenameToLang(name) != null;
+    }
+
+    /**
+     * Returns the syntax of the file.
+     *
+     * @return the language
+     */
+    Lang getLang() {
+        return this.lang;
+    }
+
+    /**
+     * Parses the file into a model.
+     *
+     * @param model the model receiving all statements of the file
+     */
+    void read(Model model) {
+        this.parse(StreamRDFLib.graph(model.getGraph()));
+    }
+
+    /**
+     * Parses the file into a sink.
+     *
+     * @param sink the sink receiving all triples of the file
+     */
+    void parse(StreamRDF sink) {
+        RDFParser.create().source(this.stream).lang(this.lang).parse(new Counted(sink, this.progress));
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.stream.close();
+    }
+
+    /**
+     * Finds out how a stream is compressed, without consuming it.
+     *
+     * @param in the stream, supporting mark and reset
+     * @return the compression as named by {@link CompressorStreamFactory}, or
+     *         {@code null} if the stream is not compressed
+     * @throws IOException if the stream can not be read
+     */
+    private static String detectCompression(InputStream in) throws IOException {
+        String compression;
+        try {
+            compression = CompressorStreamFactory.detect(in);
+        } catch (@SuppressWarnings("unused") CompressorException e) {
+            return null;
+        }
+        switch (compression) {
+        case CompressorStreamFactory.GZIP:
+        case CompressorStreamFactory.BZIP2:
+        case CompressorStreamFactory.XZ:
+            return compression;
+        default:
+            // other formats are too rare to be worth it, and detection may guess wrong
+            return null;
+        }
+    }
+
+    /**
+     * Checks whether a file extension belongs to a supported compression.
+     *
+     * @param extension the file extension
+     * @return whether the extension names a compression
+     */
+    private static boolean isCompressionExtension(String extension) {
+        switch (extension.toLowerCase(Locale.ROOT)) {
+        case "gz": //$NON-NLS-1$
+        case "bz2": //$NON-NLS-1$
+        case "xz": //$NON-NLS-1$
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * Wraps a stream into a decompressing stream. Concatenated compressed
+     * streams, as written by parallel compressors, are read completely.
+     *
+     * @param compression the compression
+     * @param in          the compressed stream
+     * @return the decompressed stream
+     * @throws IOException if the stream can not be decompressed
+     */
+    private static InputStream decompress(String compression, InputStream in) throws IOException {
+        if (compression.equals(CompressorStreamFactory.GZIP)) {
+            return new GZIPInputStream(in, RDFSource.BUFFER_SIZE);
+        }
+        try {
+            return new CompressorStreamFactory(true).createCompressorInputStream(compression, in);
+        } catch (CompressorException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Guesses the syntax of a stream from its first characters, without
+     * consuming it.
+     *
+     * @param in the stream, supporting mark and reset
+     * @return the language, RDF/XML if no other syntax fits
+     * @throws IOException if the stream can not be read
+     */
+    private static Lang detectLang(InputStream in) throws IOException {
+        in.mark(RDFSource.SNIFF_SIZE);
+        byte[] start = in.readNBytes(RDFSource.SNIFF_SIZE);
+        in.reset();
+        String text = new String(start, StandardCharsets.UTF_8).strip();
+        if (text.startsWith("{") || text.startsWith("[")) { //$NON-NLS-1$ //$NON-NLS-2$
+            return Lang.JSONLD;
+        }
+        if (text.startsWith("<?xml") || text.startsWith("<rdf") //$NON-NLS-1$ //$NON-NLS-2$
+                || text.startsWith("<!")) { //$NON-NLS-1$
+            return Lang.RDFXML;
+        }
+        if (text.startsWith("@") || text.toUpperCase(Locale.ROOT).startsWith("PREFIX") //$NON-NLS-1$ //$NON-NLS-2$
+                || text.toUpperCase(Locale.ROOT).startsWith("BASE")) { //$NON-NLS-1$
+            return Lang.TURTLE;
+        }
+        if (text.startsWith("<") || text.startsWith("_:") //$NON-NLS-1$ //$NON-NLS-2$
+                || text.startsWith("#")) { //$NON-NLS-1$
+            // Turtle also covers N-Triples, only N-Quads have a fourth term
+            return text.lines().findFirst().filter(RDFSource::isQuad).isPresent() ? Lang.NQUADS : Lang.TURTLE;
+        }
+        return Lang.RDFXML;
+    }
+
+    /**
+     * Checks whether a line of N-Triples or N-Quads holds a quad, i.e. whether
+     * a graph name follows the object.
+     *
+     * @param line the line
+     * @return whether the line holds four terms
+     */
+    private static boolean isQuad(String line) {
+        String statement = line.strip();
+        if (!statement.endsWith(".") || statement.endsWith("\" .") //$NON-NLS-1$ //$NON-NLS-2$
+                || statement.endsWith("\".")) { //$NON-NLS-1$
+            return false;
+        }
+        return statement.split(">\\s*<|>\\s+_:|\\s+<").length >= 4; //$NON-NLS-1$
+    }
+
+    /**
+     * Copies a stream on a separate thread. Failures of the copying thread are
+     * thrown when reading the returned stream.
+     *
+     * @param in the stream to copy
+     * @return the copy
+     * @throws IOException if the pipe can not be created
+     */
+    private static InputStream pipe(InputStream in) throws IOException {
+        PipedInputStream sink = new PipedInputStream(RDFSource.PIPE_SIZE);
+        Pipe pipe = new Pipe(sink, in, new PipedOutputStream(sink));
+        pipe.copier.start();
+        return pipe;
+    }
+
+    /**
+     * A file stream counting the bytes read. Reading fails once the progress is
+     * cancelled.
+     */
+    private static final class Counting extends FilterInputStream {
+        private final LoadProgress progress;
+
+        /**
+         * Creates the stream.
+         *
+         * @param in       the file stream
+         * @param progress the progress to count in
+         */
+        Counting(InputStream in, LoadProgress progress) {
+            super(in);
+            this.progress = progress;
+        }
+
+        @Override
+        public int read() throws IOException {
+            this.check();
+            int result = super.read();
+            if (result >= 0) {
+                this.progress.addBytes(1);
+            }
+            return result;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            this.check();
+            int result = super.read(b, off, len);
+            if (result > 0) {
+                this.progress.addBytes(result);
+            }
+            return result;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long result = super.skip(n);
+            this.progress.addBytes(result);
+            return result;
+        }
+
+        /**
+         * Stops reading if the progress is cancelled.
+         *
+         * @throws IOException if the progress is cancelled
+         */
+        private void check() throws IOException {
+            if (this.progress.isCancelled()) {
+                throw new IOException("reading the ontology file was cancelled"); //$NON-NLS-1$
+            }
+        }
+    }
+
+    /**
+     * A sink counting the triples passed on. Parsing stops once the progress is
+     * cancelled.
+     */
+    private static final class Counted extends StreamRDFWrapper {
+        private final LoadProgress progress;
+
+        /**
+         * Creates the sink.
+         *
+         * @param sink     the sink receiving the triples
+         * @param progress the progress to count in
+         */
+        Counted(StreamRDF sink, LoadProgress progress) {
+            super(sink);
+            this.progress = progress;
+        }
+
+        @Override
+        public void triple(Triple triple) {
+            this.progress.checkCancelled();
+            this.progress.addTriple();
+            super.triple(triple);
+        }
+    }
+
+    /**
+     * The reading end of a pipe, reporting failures of the writing end. The
+     * stream copied into the pipe is only read and closed by the copying
+     * thread.
+     */
+    private static final class Pipe extends FilterInputStream {
+        private final Thread copier;
+        private volatile boolean cancelled;
+        private volatile IOException failure;
+
+        /**
+         * Creates the reading end. The copying thread has to be started
+         * afterwards.
+         *
+         * @param sink   the pipe
+         * @param source the stream copied into the pipe
+         * @param out    the writing end of the pipe
+         */
+        Pipe(PipedInputStream sink, InputStream source, OutputStream out) {
+            super(sink);
+            this.copier = new Thread(() -> this.copy(source, out), "ontology-decompression"); //$NON-NLS-1$
+            this.copier.setDaemon(true);
+        }
+
+        /**
+         * Copies the stream into the pipe until it is exhausted or the pipe is
+         * closed.
+         *
+         * @param source the stream copied into the pipe
+         * @param out    the writing end of the pipe
+         */
+        private void copy(InputStream source, OutputStream out) {
+            try (source; out) {
+                try {
+                    byte[] buffer = new byte[RDFSource.BUFFER_SIZE];
+                    int read;
+                    while (!this.cancelled && ((read = source.read(buffer)) >= 0)) {
+                        out.write(buffer, 0, read);
+                    }
+                } catch (IOException e) {
+                    // recorded before the pipe is closed, so the reading end sees it
+                    if (!this.cancelled) {
+                        this.failure = e;
+                    }
+                }
+            } catch (@SuppressWarnings("unused") IOException e) {
+                // everything was copied or the copy failed already
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            return this.check(super.read());
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return this.check(super.read(b, off, len));
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.cancelled = true;
+            // wakes the copying thread if it waits for space in the pipe
+            this.copier.interrupt();
+            try {
+                super.close();
+            } finally {
+                boolean interrupted = false;
+                while (this.copier.isAlive()) {
+                    try {
+                        this.copier.join();
+                    } catch (@SuppressWarnings("unused") InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        /**
+         * Throws the failure of the writing end once the pipe is exhausted.
+         *
+         * @param result the result of a read
+         * @return the result
+         * @throws IOException if the writing end failed
+         */
+        private int check(int result) throws IOException {
+            if ((result < 0) && (this.failure != null)) {
+                throw new IOException("the ontology file could not be decompressed", this.failure); //$NON-NLS-1$
+            }
+            return result;
+        }
+    }
+}
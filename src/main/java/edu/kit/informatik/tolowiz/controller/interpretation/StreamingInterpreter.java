@@ -0,0 +1,434 @@
+/*
+ * Copyright 2020 Anne Bernhart, Anja Hansen, Tobias Klumpp, Fabian Palitza,
+ * Florian Patzer, Friedrich Volz, Sandra Wolf
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package edu.kit.informatik.tolowiz.controller.interpretation;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFBase;
+import org.apache.jena.vocabulary.OWL;
+import org.apache.jena.vocabulary.RDF;
+import org.apache.jena.vocabulary.RDFS;
+import org.javatuples.Pair;
+
+import edu.kit.informatik.tolowiz.model.ontology.Instance;
+import edu.kit.informatik.tolowiz.model.ontology.InstanceType;
+import edu.kit.informatik.tolowiz.model.ontology.Ontology;
+import edu.kit.informatik.tolowiz.model.ontology.RelationType;
+import edu.kit.informatik.tolowiz.model.ontology.ValueType;
+import edu.kit.informatik.tolowiz.view.gui.ApplicationControllerInterface;
+
+/**
+ * Interprets ontology files without loading them into a Jena model first. The
+ * file is streamed through a RIOT parser twice: the first pass collects the
+ * schema (classes, properties, the class hierarchy and the asserted types of
+ * all individuals), the second pass collects the values and relations of the
+ * individuals found in the first pass. Only triples that end up in the
+ * resulting {@link Ontology} are kept in memory.
+ */
+class StreamingInterpreter implements InterpreterInterface {
+    private static final Node TYPE = RDF.type.asNode();
+    private static final Node SUB_CLASS_OF = RDFS.subClassOf.asNode();
+    private static final Node OWL_CLASS = OWL.Class.asNode();
+    private static final Node OBJECT_PROPERTY = OWL.ObjectProperty.asNode();
+    private static final Node DATATYPE_PROPERTY = OWL.DatatypeProperty.asNode();
+
+    private Path filepath;
+    private Ontology ontology;
+    private String uriPrefix;
+    private Set<String> uriCandidates = Collections.emptySet();
+    private Map<String, String> prefixes = new HashMap<>();
+    private Set<String> classes = new HashSet<>();
+    private Set<String> objectProperties = new HashSet<>();
+    private Set<String> datatypeProperties = new HashSet<>();
+    private Map<String, Set<String>> superClasses = new HashMap<>();
+    private Map<String, Set<String>> assertedTypes = new HashMap<>();
+    private Map<String, InstanceType> types;
+    private Map<String, RelationType> relationTypes;
+    private Map<String, ValueType> valueTypes;
+    private Map<String, Set<InstanceType>> individuals;
+    private Map<String, Set<Pair<ValueType, String>>> values;
+    private List<Triple> relations;
+    private InstanceType owlThing;
+    private List<String> errors = new LinkedList<>();
+    private ApplicationControllerInterface applicationController;
+    private final LoadProgress progress = new LoadProgress();
+
+    /**
+     * Generates a new StreamingInterpreter. It can be used to interpret every
+     * RDF serialization known to RIOT, RDF/XML being the default.
+     *
+     * @param filepath              The File to use
+     * @param applicationController The ApplicationController connected to this
+     *                              interpreter
+     */
+    StreamingInterpreter(Path filepath, ApplicationControllerInterface applicationController) {
+        this.filepath = filepath;
+        this.applicationController = applicationController;
+    }
+
+    @Override
+    public List<String> getErrorMessages() {
+        return this.errors;
+    }
+
+    @Override
+    public LoadProgress getProgress() {
+        return this.progress;
+    }
+
+    @Override
+    public Set<String> getUriCandidates() {
+        return this.uriCandidates;
+    }
+
+    @Override
+    public Ontology buildOntology() throws OntologyFileException, FileNotFoundException {
+        try {
+            return this.interpret();
+        } catch (CancellationException e) {
+            this.release();
+            throw new InterpretationCancelledException(e);
+        } catch (OntologyFileException e) {
+            this.release();
+            // a cancelled parser reports the cancellation as failure
+            if (this.progress.isCancelled()) {
+                throw new InterpretationCancelledException(e);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Builds the ontology, stopping at the next check if the progress is
+     * cancelled.
+     *
+     * @return the ontology
+     * @throws OntologyFileException if the input file is not a valid ontology
+     *                               file.
+     * @throws FileNotFoundException if the file can not be found
+     */
+    private Ontology interpret() throws OntologyFileException, FileNotFoundException {
+        this.progress.enter(LoadProgress.Phase.PARSING);
+        this.parse(new SchemaSink());
+        this.progress.enter(LoadProgress.Phase.TYPES);
+        this.ontology = new Ontology(this.getUriPrefix(),
+                RDFSource.getBaseName(this.filepath));
+        this.addInstanceTypes();
+        this.addValueTypes();
+        this.addRelationTypes();
+        this.deriveTypeHierarchy();
+        this.collectIndividuals();
+
+        // the second pass is counted as part of creating the instances
+        this.progress.enter(LoadProgress.Phase.INSTANCES);
+        this.values = new HashMap<>();
+        this.relations = new ArrayList<>();
+        this.parse(new DataSink());
+        this.addInstancesAndRelations();
+
+        this.progress.enter(LoadProgress.Phase.DONE);
+        return this.ontology;
+    }
+
+    /**
+     * Drops everything collected so far, so a failed or cancelled interpretation
+     * does not keep the partial ontology alive.
+     */
+    private void release() {
+        this.ontology = null;
+        this.classes = null;
+        this.objectProperties = null;
+        this.datatypeProperties = null;
+        this.superClasses = null;
+        this.assertedTypes = null;
+        this.types = null;
+        this.relationTypes = null;
+        this.valueTypes = null;
+        this.individuals = null;
+        this.values = null;
+        this.relations = null;
+    }
+
+    /**
+     * Streams the file once through the given sink.
+     *
+     * @param sink the sink receiving all triples of the file
+     * @throws OntologyFileException if the input file is not a valid ontology
+     *                               file.
+     * @throws FileNotFoundException if the file can not be found
+     */
+    private void parse(StreamRDF sink) throws OntologyFileException, FileNotFoundException {
+        try (RDFSource source = RDFSource.open(this.filepath, this.progress)) {
+            source.parse(sink);
+        } catch (FileNotFoundException e) {
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            throw new OntologyFileException("this ontology file is not interpretable.", e);
+        }
+    }
+
+    /**
+     * Finds the given Ontology's specific uri prefix
+     *
+     * @return the uri prefix of this ontology
+     */
+    private String getUriPrefix() {
+        if (this.uriPrefix == null) {
+            this.uriPrefix = this.prefixes.get("");
+            if (this.uriPrefix == null) {
+                this.errors.add("Your Ontology file doesn't specify the empty URI Prefix. "
+                        + "Please choose, which URI to associate with this ontology.");
+                Set<String> potentialUris = new HashSet<>(this.prefixes.values());
+                this.uriCandidates = potentialUris;
+                this.uriPrefix = this.applicationController.selectURI(potentialUris);
+            }
+        }
+        return this.uriPrefix;
+    }
+
+    /**
+     * Adds all the instance types found in the first pass to the ontology object.
+     */
+    private void addInstanceTypes() {
+        this.owlThing = this.ontology.addType("owl:Thing", null, null, null, null,
+                (this.getUriPrefix() + "#owl:Thing"));
+        this.progress.addType();
+        this.types = new HashMap<>();
+        for (String iri : this.classes) {
+            this.types.put(iri,
+                    this.ontology.addType(StreamingInterpreter.localName(iri), null, null, null, null, iri));
+            this.progress.addType();
+        }
+    }
+
+    /**
+     * Sets all subType relations in the ontology. Only direct superclasses are
+     * used, asserted superclasses that are implied by another superclass are
+     * skipped.
+     */
+    private void deriveTypeHierarchy() {
+        for (Map.Entry<String, InstanceType> entry : this.types.entrySet()) {
+            InstanceType type = entry.getValue();
+            for (String superClass : this.direct(this.superClasses.get(entry.getKey()))) {
+                InstanceType superType = this.types.get(superClass);
+                this.ontology.addSuperType(type, superType);
+                this.ontology.addSubType(superType, type);
+            }
+            if (type.getSuperTypes().isEmpty()) {
+                this.ontology.addSuperType(type, this.owlThing);
+                this.ontology.addSubType(this.owlThing, type);
+            }
+        }
+    }
+
+    /**
+     * Adds all the value types found in the first pass to the ontology object.
+     */
+    private void addValueTypes() {
+        this.valueTypes = new HashMap<>();
+        for (String uri : this.datatypeProperties) {
+            this.valueTypes.put(uri, this.ontology.addValueType(StreamingInterpreter.localName(uri), uri));
+            this.progress.addType();
+        }
+        this.datatypeProperties = null;
+    }
+
+    /**
+     * Adds all the relation types found in the first pass to the ontology object.
+     */
+    private void addRelationTypes() {
+        this.relationTypes = new HashMap<>();
+        for (String uri : this.objectProperties) {
+            this.relationTypes.put(uri, this.ontology.addRelationType(StreamingInterpreter.localName(uri), uri));
+            this.progress.addType();
+        }
+        this.objectProperties = null;
+    }
+
+    /**
+     * Determines the individuals of the ontology and their direct types. Every
+     * subject with at least one known class as asserted type is an individual.
+     */
+    private void collectIndividuals() {
+        this.individuals = new HashMap<>();
+        for (Map.Entry<String, Set<String>> entry : this.assertedTypes.entrySet()) {
+            Set<InstanceType> types = new HashSet<>();
+            for (String iri : this.direct(entry.getValue())) {
+                types.add(this.types.get(iri));
+            }
+            if (!types.isEmpty()) {
+                this.individuals.put(entry.getKey(), types);
+            }
+        }
+        this.assertedTypes = null;
+        this.superClasses = null;
+    }
+
+    /**
+     * Creates all instances with their values and afterwards all relations
+     * between them.
+     */
+    private void addInstancesAndRelations() {
+        Map<String, Instance> instances = new HashMap<>();
+        for (Map.Entry<String, Set<InstanceType>> entry : this.individuals.entrySet()) {
+            this.progress.checkCancelled();
+            String uri = entry.getKey();
+            Set<Pair<ValueType, String>> vals = this.values.remove(uri);
+            instances.put(uri, this.ontology.addInstance(StreamingInterpreter.localName(uri), uri, entry.getValue(),
+                    null, (vals != null ? vals : new HashSet<>())));
+            this.progress.addInstance();
+        }
+        this.individuals = null;
+        this.values = null;
+
+        this.progress.enter(LoadProgress.Phase.RELATIONS);
+        for (Triple triple : this.relations) {
+            this.progress.checkCancelled();
+            String prop = triple.getPredicate().getURI();
+            Instance origin = instances.get(triple.getSubject().getURI());
+            Instance dest = instances.get(triple.getObject().getURI());
+            this.ontology.addRelation(this.relationTypes.get(prop), origin, dest);
+            this.progress.addRelation();
+        }
+        this.relations = null;
+    }
+
+    /**
+     * Filters a set of class IRIs down to the known classes which are not a
+     * superclass of another class in the set.
+     *
+     * @param iris the asserted classes, may be {@code null}
+     * @return the most specific known classes
+     */
+    private Set<String> direct(Set<String> iris) {
+        Set<String> known = new HashSet<>();
+        if (iris == null) {
+            return known;
+        }
+        for (String iri : iris) {
+            if (this.types.containsKey(iri)) {
+                known.add(iri);
+            }
+        }
+        Set<String> result = new HashSet<>(known);
+        for (String iri : known) {
+            for (String other : known) {
+                if (!iri.equals(other) && this.isSuperClass(other, iri, new HashSet<>())) {
+                    result.remove(other);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Checks if a class is a (transitive) superclass of another one.
+     *
+     * @param candidate the potential superclass
+     * @param iri       the class to start from
+     * @param visited   the classes already looked at
+     * @return whether candidate is a superclass of iri
+     */
+    private boolean isSuperClass(String candidate, String iri, Set<String> visited) {
+        Set<String> supers = this.superClasses.get(iri);
+        if ((supers == null) || !visited.add(iri)) {
+            return false;
+        }
+        for (String superClass : supers) {
+            if (superClass.equals(candidate) || this.isSuperClass(candidate, superClass, visited)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the local name of a URI, the same way Jena splits it.
+     *
+     * @param uri the uri
+     * @return the local name
+     */
+    private static String localName(String uri) {
+        return NodeFactory.createURI(uri).getLocalName();
+    }
+
+    /**
+     * First pass: collects prefixes, classes, properties, the class hierarchy and
+     * the asserted types of all resources.
+     */
+    private class SchemaSink extends StreamRDFBase {
+        @Override
+        public void prefix(String prefix, String iri) {
+            StreamingInterpreter.this.prefixes.put(prefix, iri);
+        }
+
+        @Override
+        public void triple(Triple triple) {
+            Node s = triple.getSubject();
+            Node p = triple.getPredicate();
+            Node o = triple.getObject();
+            if (!s.isURI() || !o.isURI()) {
+                return;
+            }
+            if (p.equals(StreamingInterpreter.TYPE)) {
+                if (o.equals(StreamingInterpreter.OWL_CLASS)) {
+                    StreamingInterpreter.this.classes.add(s.getURI());
+                } else if (o.equals(StreamingInterpreter.OBJECT_PROPERTY)) {
+                    StreamingInterpreter.this.objectProperties.add(s.getURI());
+                } else if (o.equals(StreamingInterpreter.DATATYPE_PROPERTY)) {
+                    StreamingInterpreter.this.datatypeProperties.add(s.getURI());
+                } else {
+                    StreamingInterpreter.this.assertedTypes.computeIfAbsent(s.getURI(), k -> new HashSet<>())
+                            .add(o.getURI());
+                }
+            } else if (p.equals(StreamingInterpreter.SUB_CLASS_OF)) {
+                StreamingInterpreter.this.superClasses.computeIfAbsent(s.getURI(), k -> new HashSet<>())
+                        .add(o.getURI());
+            }
+        }
+    }
+
+    /**
+     * Second pass: collects the values and relations of all individuals.
+     */
+    private class DataSink extends StreamRDFBase {
+        @Override
+        public void triple(Triple triple) {
+            Node s = triple.getSubject();
+            Node p = triple.getPredicate();
+            Node o = triple.getObject();
+            if (!s.isURI() || !StreamingInterpreter.this.individuals.containsKey(s.getURI())) {
+                return;
+            }
+            if (o.isLiteral()) {
+                ValueType type = StreamingInterpreter.this.valueTypes.get(p.getURI());
+                if (type != null) {
+                    StreamingInterpreter.this.values.computeIfAbsent(s.getURI(), k -> new HashSet<>())
+                            .add(StreamingInterpreter.this.ontology.getDictionary().value(type,
+                                    o.getLiteralLexicalForm()));
+                }
+            } else if (o.isURI() && StreamingInterpreter.this.relationTypes.containsKey(p.getURI())
+                    && StreamingInterpreter.this.individuals.containsKey(o.getURI())) {
+                StreamingInterpreter.this.relations.add(triple);
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+/*
+ * Copyright 2020 Anne Bernhart, Anja Hansen, Tobias Klumpp, Fabian Palitza,
+ * Florian Patzer, Friedrich Volz, Sandra Wolf
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package edu.kit.informatik.tolowiz.controller.interpretation;
+
+import java.nio.file.Path;
+
+import edu.kit.informatik.tolowiz.view.gui.ApplicationControllerInterface;
+
+/**
+ * Creates an RDF interpreter which streams the ontology file instead of loading
+ * it into an in-memory Jena model. Use this for very large ontologies.
+ */
+public class StreamingRDFInterpreterFactory extends InterpreterFactory {
+
+    @Override
+    public InterpreterInterface getInterpreter(Path filepath, ApplicationControllerInterface applicationController) {
+        return new StreamingInterpreter(filepath, applicationController);
+    }
+
+}
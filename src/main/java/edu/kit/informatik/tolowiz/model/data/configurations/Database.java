@@ -11,6 +11,8 @@ import java.nio.file.Path;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
 
 import org.javatuples.Pair;
 
@@ -31,6 +33,11 @@ public class Database implements DatabaseInterface {
      */
     private static final String STORAGE_DIRECTORY = "storage"; //$NON-NLS-1$
 
+    /**
+     * The directory where the ontology snapshots are stored
+     */
+    private static final String CACHE_DIRECTORY = "cache"; //$NON-NLS-1$
+
     /**
      * The FileSaver class to be used for saving the files.
      */
@@ -41,6 +48,11 @@ public class Database implements DatabaseInterface {
      */
     private Path directory;
 
+    /**
+     * The snapshots of interpreted ontologies.
+     */
+    private OntologyCache cache;
+
     /**
      * Default constructor.
      *
@@ -58,7 +70,7 @@ public class Database implements DatabaseInterface {
                 throw new InternalDatabaseException(e);
             }
         }
-
+        this.cache = new OntologyCache(programdir.resolve(Database.CACHE_DIRECTORY));
     }
 
     @Override
@@ -66,6 +78,17 @@ public class Database implements DatabaseInterface {
         return new Storage(this.filesaver, onto, this.directory);
     }
 
+    @Override
+    public Ontology getCachedOntology(Path file, String kind, Function<Set<String>, String> selectURI) {
+        return this.cache.get(file, kind, selectURI);
+    }
+
+    @Override
+    public void cacheOntology(Path file, String kind, Ontology onto, Set<String> candidates)
+            throws InternalDatabaseException {
+        this.cache.put(file, kind, onto, candidates);
+    }
+
     @Override
     public List<String> getStorageIDs() throws InternalDatabaseException {
         try (var stream = Files.newDirectoryStream(this.directory)) {
@@ -5,7 +5,10 @@
  */
 package edu.kit.informatik.tolowiz.model.data.configurations;
 
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
 
 import edu.kit.informatik.tolowiz.model.ontology.Ontology;
 
@@ -62,4 +65,33 @@ public interface DatabaseInterface {
      * @throws NoSuchEntryException      if the entry doesn't exist
      */
     public StorageInterface getStorageByName(String name) throws NoSuchEntryException, InternalDatabaseException;
+
+    /**
+     * Returns the ontology interpreted from a file the last time, if the file has
+     * not changed since. If its prefix had to be chosen, it is chosen again and
+     * the ontology is only returned for the same choice.
+     *
+     * @param file      the ontology file
+     * @param kind      the kind of interpreter, see
+     *                  {@link edu.kit.informatik.tolowiz.controller.interpretation.InterpreterFactory#getKind()}
+     * @param selectURI chooses the prefix of the ontology from a set of URIs
+     * @return the cached ontology, or {@code null} if the file has to be
+     *         interpreted
+     */
+    public Ontology getCachedOntology(Path file, String kind, Function<Set<String>, String> selectURI);
+
+    /**
+     * Caches the ontology interpreted from a file. The cached ontology belongs
+     * to the content the file had when {@link #getCachedOntology} did not find
+     * it, so it is not used if the file changed during the interpretation.
+     *
+     * @param file       the ontology file
+     * @param kind       the kind of interpreter the ontology was interpreted with
+     * @param onto       the interpreted ontology
+     * @param candidates the URIs the prefix of the ontology was chosen from, or
+     *                   an empty set if the file specifies it
+     * @throws InternalDatabaseException if an internal error occurs
+     */
+    public void cacheOntology(Path file, String kind, Ontology onto, Set<String> candidates)
+            throws InternalDatabaseException;
 }
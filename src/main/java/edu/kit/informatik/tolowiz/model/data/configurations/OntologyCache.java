@@ -0,0 +1,368 @@
+/*
+ * Copyright 2020 Anne Bernhart, Anja Hansen, Tobias Klumpp, Fabian Palitza,
+ * Florian Patzer, Friedrich Volz, Sandra Wolf
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package edu.kit.informatik.tolowiz.model.data.configurations;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.codec.digest.DigestUtils;
+
+import edu.kit.informatik.tolowiz.model.ontology.Ontology;
+
+/**
+ * Stores snapshots of interpreted ontologies, so that an unchanged ontology
+ * file does not have to be interpreted again.<br>
+ * <br>
+ * There is one snapshot file per ontology file and kind of interpreter, named
+ * after the hash of both. It starts with a header containing the modification
+ * time, size and content hash of the ontology file and the URIs its prefix was
+ * chosen from, followed by the compressed, serialized {@link Ontology}. A
+ * snapshot is used if modification time and size are unchanged, or if the
+ * content hash is still the same, and if the same prefix is chosen again. The
+ * header describes the file as it was when the snapshot was missed, before the
+ * file was interpreted, so a file that changes during the interpretation does
+ * not match its snapshot.<br>
+ * <br>
+ * The least recently used snapshots are deleted when there are more than
+ * {@link #MAX_SNAPSHOTS} or they are larger than {@link #MAX_SIZE} together.
+ */
+class OntologyCache {
+    /**
+     * Identifies snapshot files.
+     */
+    private static final int MAGIC = 0x544F4C4F;
+    /**
+     * The version of the snapshot format. Has to be increased whenever the
+     * interpreted ontologies change.
+     */
+    private static final int VERSION = 3;
+    /**
+     * The position of the modification time in the header.
+     */
+    private static final int MTIME_POSITION = 8;
+    /**
+     * The file ending of all snapshots
+     */
+    private static final String SUFFIX = ".bin"; //$NON-NLS-1$
+    /**
+     * The file ending of snapshots being written
+     */
+    private static final String TMP_SUFFIX = ".tmp"; //$NON-NLS-1$
+    /**
+     * The number of snapshots that are kept at most
+     */
+    private static final int MAX_SNAPSHOTS = 32;
+    /**
+     * The size in bytes all snapshots are allowed to have together
+     */
+    private static final long MAX_SIZE = 256L << 20;
+
+    /**
+     * The directory containing the snapshots.
+     */
+    private Path directory;
+    /**
+     * The state of the ontology files whose snapshot was missed, by snapshot
+     */
+    private Map<Path, FileState> missed = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a cache in the given directory.
+     *
+     * @param directory the directory of the cache
+     * @throws InternalDatabaseException if the directory can not be created
+     */
+    OntologyCache(Path directory) throws InternalDatabaseException {
+        this.directory = directory;
+        try {
+            Files.createDirectories(this.directory);
+        } catch (IOException e) {
+            throw new InternalDatabaseException(e);
+        }
+    }
+
+    /**
+     * Loads the snapshot of an ontology file. If the prefix of the ontology had
+     * to be chosen when it was interpreted, it is chosen again, and the snapshot
+     * is only used if the choice is the same.
+     *
+     * @param file      the ontology file
+     * @param kind      the kind of interpreter the ontology is interpreted with
+     * @param selectURI chooses the prefix of the ontology from a set of URIs
+     * @return the interpreted ontology, or {@code null} if there is no valid
+     *         snapshot for the current content of the file
+     */
+    Ontology get(Path file, String kind, Function<Set<String>, String> selectURI) {
+        Path snapshot = this.getSnapshot(file, kind);
+        Ontology ontology = this.load(snapshot, file, kind, selectURI);
+        if (ontology == null) {
+            // remembered for put, as the file may change while it is interpreted
+            try {
+                this.missed.put(snapshot, new FileState(file));
+            } catch (@SuppressWarnings("unused") IOException e) {
+                this.missed.remove(snapshot);
+            }
+        }
+        return ontology;
+    }
+
+    /**
+     * Loads a snapshot, see {@link #get(Path, String, Function)}.
+     *
+     * @param snapshot  the snapshot
+     * @param file      the ontology file
+     * @param kind      the kind of interpreter the ontology is interpreted with
+     * @param selectURI chooses the prefix of the ontology from a set of URIs
+     * @return the interpreted ontology, or {@code null} if the snapshot is
+     *         missing or not valid
+     */
+    private Ontology load(Path snapshot, Path file, String kind, Function<Set<String>, String> selectURI) {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(snapshot))) {
+            DataInputStream data = new DataInputStream(in);
+            if ((data.readInt() != OntologyCache.MAGIC) || (data.readInt() != OntologyCache.VERSION)) {
+                return null;
+            }
+            long mtime = data.readLong();
+            long size = data.readLong();
+            String hash = data.readUTF();
+            String path = data.readUTF();
+            String snapshotKind = data.readUTF();
+            Set<String> candidates = new TreeSet<>();
+            for (int i = data.readInt(); i > 0; i--) {
+                candidates.add(data.readUTF());
+            }
+            if (!path.equals(OntologyCache.normalize(file)) || !snapshotKind.equals(kind)
+                    || (size != Files.size(file))) {
+                return null;
+            }
+            long currentMtime = Files.getLastModifiedTime(file).toMillis();
+            if (mtime != currentMtime) {
+                if (!hash.equals(OntologyCache.hash(file))) {
+                    return null;
+                }
+                this.touch(snapshot, currentMtime);
+            } else {
+                Files.setLastModifiedTime(snapshot, FileTime.fromMillis(System.currentTimeMillis()));
+            }
+            Ontology ontology;
+            try (ObjectInputStream objects = new ObjectInputStream(
+                    new BufferedInputStream(new GZIPInputStream(in)))) {
+                ontology = (Ontology) objects.readObject();
+            }
+            // the prefix becomes part of every URI, so another choice needs another interpretation
+            if (!candidates.isEmpty()
+                    && !Objects.equals(ontology.getIRI(), selectURI.apply(Collections.unmodifiableSet(candidates)))) {
+                return null;
+            }
+            return ontology;
+        } catch (IOException | ClassNotFoundException | ClassCastException | StackOverflowError e) {
+            // a missing or broken snapshot is not an error, the file is interpreted again
+            return null;
+        }
+    }
+
+    /**
+     * Stores the snapshot of an ontology file. The file is described as it was
+     * seen by the last {@link #get(Path, String, Function)} that missed its
+     * snapshot, or as it is now if there was none. The snapshot is written to a
+     * temporary file first, so a failed write never leaves a broken snapshot.
+     * Afterwards, the least recently used snapshots are deleted if the cache is
+     * full.
+     *
+     * @param file       the ontology file
+     * @param kind       the kind of interpreter the ontology was interpreted with
+     * @param ontology   the interpreted ontology
+     * @param candidates the URIs the prefix of the ontology was chosen from, or
+     *                   an empty set if the file specifies it
+     * @throws InternalDatabaseException if the snapshot can not be written
+     */
+    void put(Path file, String kind, Ontology ontology, Set<String> candidates) throws InternalDatabaseException {
+        Path snapshot = this.getSnapshot(file, kind);
+        FileState state = this.missed.remove(snapshot);
+        Path tmp = null;
+        try {
+            if (state == null) {
+                state = new FileState(file);
+            }
+            tmp = Files.createTempFile(this.directory, snapshot.getFileName().toString(), OntologyCache.TMP_SUFFIX);
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp))) {
+                DataOutputStream data = new DataOutputStream(out);
+                data.writeInt(OntologyCache.MAGIC);
+                data.writeInt(OntologyCache.VERSION);
+                data.writeLong(state.mtime);
+                data.writeLong(state.size);
+                data.writeUTF(state.hash);
+                data.writeUTF(OntologyCache.normalize(file));
+                data.writeUTF(kind);
+                data.writeInt(candidates.size());
+                for (String candidate : candidates) {
+                    data.writeUTF(candidate);
+                }
+                data.flush();
+                ObjectOutputStream objects = new ObjectOutputStream(
+                        new BufferedOutputStream(new GZIPOutputStream(out)));
+                objects.writeObject(ontology);
+                objects.close();
+            }
+            Files.move(tmp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            OntologyCache.delete(tmp);
+            throw new InternalDatabaseException(e);
+        } catch (StackOverflowError e) {
+            OntologyCache.delete(tmp);
+            throw new InternalDatabaseException(new IOException("the ontology is nested too deeply", e)); //$NON-NLS-1$
+        }
+        this.evict();
+    }
+
+    /**
+     * Deletes the least recently used snapshots until there are at most
+     * {@link #MAX_SNAPSHOTS} which are at most {@link #MAX_SIZE} large together.
+     * The most recently used snapshot is always kept.
+     */
+    private void evict() {
+        Map<Path, BasicFileAttributes> attributes = new HashMap<>();
+        try (var stream = Files.newDirectoryStream(this.directory, "*" + OntologyCache.SUFFIX)) { //$NON-NLS-1$
+            for (Path snapshot : stream) {
+                attributes.put(snapshot, Files.readAttributes(snapshot, BasicFileAttributes.class));
+            }
+        } catch (@SuppressWarnings("unused") IOException e) {
+            // the cache is full for now, the next snapshot tries again
+            return;
+        }
+        List<Path> snapshots = new ArrayList<>(attributes.keySet());
+        snapshots.sort(Comparator.comparing((Path snapshot) -> attributes.get(snapshot).lastModifiedTime())
+                .reversed());
+        long total = 0;
+        for (int i = 0; i < snapshots.size(); i++) {
+            total += attributes.get(snapshots.get(i)).size();
+            if ((i > 0) && ((i >= OntologyCache.MAX_SNAPSHOTS) || (total > OntologyCache.MAX_SIZE))) {
+                OntologyCache.delete(snapshots.get(i));
+            }
+        }
+    }
+
+    /**
+     * Deletes a snapshot, ignoring failures.
+     *
+     * @param snapshot the snapshot, or {@code null}
+     */
+    private static void delete(Path snapshot) {
+        if (snapshot == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(snapshot);
+        } catch (@SuppressWarnings("unused") IOException e) {
+            // the snapshot is replaced or evicted again later
+        }
+    }
+
+    /**
+     * Updates the modification time stored in a snapshot whose file was touched
+     * but not changed.
+     *
+     * @param snapshot the snapshot
+     * @param mtime    the new modification time
+     * @throws IOException if the snapshot can not be written
+     */
+    private void touch(Path snapshot, long mtime) throws IOException {
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+            buffer.putLong(mtime).flip();
+            channel.write(buffer, OntologyCache.MTIME_POSITION);
+        }
+    }
+
+    /**
+     * Returns the snapshot file for an ontology file.
+     *
+     * @param file the ontology file
+     * @param kind the kind of interpreter
+     * @return the snapshot file
+     */
+    private Path getSnapshot(Path file, String kind) {
+        return this.directory.resolve(
+                DigestUtils.sha256Hex(OntologyCache.normalize(file) + '\n' + kind) + OntologyCache.SUFFIX);
+    }
+
+    /**
+     * Returns the normalized absolute path of a file.
+     *
+     * @param file the file
+     * @return the path as string
+     */
+    private static String normalize(Path file) {
+        return file.toAbsolutePath().normalize().toString();
+    }
+
+    /**
+     * Computes the hash of the content of a file.
+     *
+     * @param file the file
+     * @return the hash as hex string
+     * @throws IOException if the file can not be read
+     */
+    private static String hash(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return DigestUtils.sha256Hex(in);
+        }
+    }
+
+    /**
+     * The modification time, size and content hash of an ontology file at one
+     * point in time.
+     */
+    private static final class FileState {
+        private final long mtime;
+        private final long size;
+        private final String hash;
+
+        /**
+         * Reads the current state of a file.
+         *
+         * @param file the file
+         * @throws IOException if the file can not be read, or changed while it
+         *                     was read
+         */
+        FileState(Path file) throws IOException {
+            this.mtime = Files.getLastModifiedTime(file).toMillis();
+            this.size = Files.size(file);
+            this.hash = OntologyCache.hash(file);
+            if ((this.mtime != Files.getLastModifiedTime(file).toMillis()) || (this.size != Files.size(file))) {
+                throw new IOException("the file changed while it was read"); //$NON-NLS-1$
+            }
+        }
+    }
+}
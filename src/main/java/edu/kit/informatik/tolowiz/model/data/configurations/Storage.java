@@ -20,6 +20,8 @@ import java.nio.file.Paths;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.codec.DecoderException;
 import org.apache.commons.codec.binary.Hex;
@@ -27,7 +29,11 @@ import org.apache.commons.io.FilenameUtils;
 import org.javatuples.Pair;
 
 /**
- * Class implementing Storage interface with default database.
+ * Class implementing Storage interface with default database. The
+ * configurations do not contain their ontology, it is stored once for all of
+ * them in a directory of the storage. That directory also lists which
+ * ontology files the entries refer to, so that a file no entry refers to any
+ * more is deleted without reading the entries.
  *
  * @author Tobias Klumpp
  *
@@ -45,6 +51,24 @@ class Storage implements StorageInterface {
      * The name of the autosave file
      */
     private static final String AUTO_NAME = "autosave"; //$NON-NLS-1$
+    /**
+     * The name of the directory for the undo history, and the prefix of its
+     * files
+     */
+    private static final String HISTORY_NAME = "history"; //$NON-NLS-1$
+    /**
+     * The file ending of the files of the undo history
+     */
+    private static final String HISTORY_SUFFIX = ".gz"; //$NON-NLS-1$
+    /**
+     * The name of the directory for the ontology the configurations refer to
+     */
+    private static final String ONTOLOGY_NAME = "ontologies"; //$NON-NLS-1$
+    /**
+     * The files of the undo history created while the program runs, which
+     * belong to open tabs and must not be deleted with the left over ones
+     */
+    private static final Set<Path> HISTORY_FILES = ConcurrentHashMap.newKeySet();
     /**
      * The filesaver class to be used for saving files.
      *
@@ -88,6 +112,28 @@ class Storage implements StorageInterface {
                 throw new InternalDatabaseException(e);
             }
         }
+        this.deleteHistory();
+    }
+
+    /**
+     * Deletes the files of the undo history that were left over by earlier
+     * runs of the program. Errors are ignored, the files are tried again the
+     * next time.
+     */
+    private void deleteHistory() {
+        Path history = this.directory.resolve(Storage.HISTORY_NAME);
+        if (!Files.isDirectory(history)) {
+            return;
+        }
+        try (var stream = Files.newDirectoryStream(history)) {
+            for (Path file : stream) {
+                if (!Storage.HISTORY_FILES.contains(file)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            // only wastes space
+        }
     }
 
     /**
@@ -180,7 +226,8 @@ class Storage implements StorageInterface {
      */
     private void save(Path file, Configuration conf)
             throws IOException, IconDatabaseException {
-        this.filesaver.generateFile(file).exportConfiguration(conf);
+        this.filesaver.generateFile(file).exportConfiguration(conf,
+                this.directory.resolve(Storage.ONTOLOGY_NAME));
     }
 
     /**
@@ -193,17 +240,35 @@ class Storage implements StorageInterface {
      */
     private Configuration load(Path file)
             throws FileTypeException, IOException {
-        return this.filesaver.generateFile(file).importConfiguration();
+        return this.filesaver.generateFile(file)
+                .importConfiguration(this.directory.resolve(Storage.ONTOLOGY_NAME));
     }
 
     @Override
     public void deleteEntry(String name) throws NoSuchEntryException {
+        Path file = this.encode(name);
         try {
-            Files.delete(this.encode(name));
+            Files.delete(file);
         } catch (IOException e) {
             throw new NoSuchEntryException(e);
         }
+        this.releaseOntology(file);
+    }
 
+    /**
+     * Forgets the ontology an entry that was deleted or moved referred to, and
+     * deletes its file if no other entry refers to it. Errors are ignored, as
+     * the ontology is only kept longer then.
+     *
+     * @param file the file of the entry
+     */
+    private void releaseOntology(Path file) {
+        try {
+            this.filesaver.releaseOntology(file,
+                    this.directory.resolve(Storage.ONTOLOGY_NAME));
+        } catch (IOException e) {
+            // only wastes space
+        }
     }
 
     @Override
@@ -223,6 +288,20 @@ class Storage implements StorageInterface {
         }
     }
 
+    @Override
+    public Path createHistoryFile() throws InternalDatabaseException {
+        try {
+            Path history = this.directory.resolve(Storage.HISTORY_NAME);
+            Files.createDirectories(history);
+            Path file = Files.createTempFile(history, Storage.HISTORY_NAME,
+                    Storage.HISTORY_SUFFIX);
+            Storage.HISTORY_FILES.add(file);
+            return file;
+        } catch (IOException e) {
+            throw new InternalDatabaseException(e);
+        }
+    }
+
     @Override
     public boolean existsAutosave() {
         Path file = this.directory
@@ -252,7 +331,7 @@ class Storage implements StorageInterface {
             List<String> result = new LinkedList<>();
             while (it.hasNext()) {
                 var next = it.next();
-                if (!next.getFileName().toString()
+                if (!Files.isDirectory(next) && !next.getFileName().toString()
                         .equals(Storage.AUTO_NAME + Storage.CONF_SUFFIX)) {
                     result.add(Storage.decode(next));
                 }
@@ -341,11 +420,19 @@ class Storage implements StorageInterface {
     @Override
     public void renameEntry(String old, String newName)
             throws NoSuchEntryException {
+        Path source = this.encode(old);
+        Path target = this.encode(newName);
         try {
-            Files.move(this.encode(old), this.encode(newName));
+            // the ontology must stay referred to while the file is moved
+            this.filesaver.copyOntologyReference(source, target,
+                    this.directory.resolve(Storage.ONTOLOGY_NAME));
+            Files.move(source, target);
         } catch (IOException e) {
             throw new NoSuchEntryException(e);
         }
+        if (!source.equals(target)) {
+            this.releaseOntology(source);
+        }
     }
 
     @Override
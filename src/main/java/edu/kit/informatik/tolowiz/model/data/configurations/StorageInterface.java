@@ -7,6 +7,7 @@ package edu.kit.informatik.tolowiz.model.data.configurations;
 
 import edu.kit.informatik.tolowiz.model.visualization.Configuration;
 
+import java.nio.file.Path;
 import java.util.List;
 
 /**
@@ -100,4 +101,15 @@ public interface StorageInterface {
      */
     public boolean existsAutosave();
 
+    /**
+     * Creates a new empty file in this storage for spilling the undo history
+     * of a tab. The caller deletes it when it is no longer needed; files that
+     * are left over are deleted when the storage is opened by a later run of
+     * the program.
+     *
+     * @return the new file
+     * @throws InternalDatabaseException if the file can not be created
+     */
+    public Path createHistoryFile() throws InternalDatabaseException;
+
 }
@@ -5,23 +5,65 @@
  */
 package edu.kit.informatik.tolowiz.model.data.file;
 
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InvalidClassException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.io.ObjectStreamConstants;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
 
 import edu.kit.informatik.tolowiz.model.data.icons.IconDatabaseException;
+import edu.kit.informatik.tolowiz.model.ontology.Ontology;
 import edu.kit.informatik.tolowiz.model.visualization.Configuration;
 
 /**
- * Implementation for file interface used by filesaver.
+ * Implementation for file interface used by filesaver. Configurations are
+ * written in the binary format described by {@link ToloFormat}. Files written
+ * with Java serialization by earlier versions can still be read.
  *
  * @author Tobias Klumpp
  *
  */
 class ConfigurationFile implements ConfigurationFileInterface {
+    /**
+     * The file ending of ontology files
+     */
+    private static final String ONTOLOGY_SUFFIX = ".bin"; //$NON-NLS-1$
+    /**
+     * The file ending of ontology files being written
+     */
+    private static final String TMP_SUFFIX = ".tmp"; //$NON-NLS-1$
+    /**
+     * The name of the file in the directory of the ontologies that lists the
+     * ontology files each configuration file refers to
+     */
+    private static final String REFERENCES_NAME = "references.txt"; //$NON-NLS-1$
+    /**
+     * Held while ontology files or their references are written or deleted, so
+     * that no file is deleted between being written and being referred to
+     */
+    private static final Object ONTOLOGY_LOCK = new Object();
+
     /**
      * The path to the file.
      */
@@ -40,20 +82,278 @@ class ConfigurationFile implements ConfigurationFileInterface {
 
     @Override
     public void exportConfiguration(Configuration conf) throws IOException, IconDatabaseException {
-        try (ObjectOutputStream oout = new ObjectOutputStream(Files.newOutputStream(this.path))) {
-            oout.writeObject(conf);
-        } catch (IOException e) {
-            throw e;
+        // encoded completely first, so that the file is not touched if that fails
+        ConfigurationFile.write(this.path, new ToloWriter(conf).encode());
+    }
+
+    @Override
+    public void exportConfiguration(Configuration conf, Path ontologies) throws IOException, IconDatabaseException {
+        Ontology onto = conf.getOntology();
+        // the hash is remembered, so the ontology is only encoded if its file is missing
+        ByteBuffer[] ontology = null;
+        String hash = onto.getContentHash();
+        if (hash == null) {
+            ontology = ToloWriter.encodeOntology(onto);
+            hash = ConfigurationFile.hash(ontology);
+            onto.setContentHash(hash);
+        }
+        ByteBuffer[] content = new ToloWriter(conf).encode(hash);
+        Path file = ontologies.resolve(hash + ConfigurationFile.ONTOLOGY_SUFFIX);
+        synchronized (ConfigurationFile.ONTOLOGY_LOCK) {
+            if (!Files.exists(file)) {
+                if (!Files.isDirectory(ontologies)) {
+                    Files.createDirectory(ontologies);
+                }
+                if (ontology == null) {
+                    ontology = ToloWriter.encodeOntology(onto);
+                }
+                // moved into place when complete, as all configurations of it would be broken otherwise
+                Path tmp = Files.createTempFile(ontologies, hash, ConfigurationFile.TMP_SUFFIX);
+                try {
+                    ConfigurationFile.write(tmp, ontology);
+                    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    Files.deleteIfExists(tmp);
+                }
+            }
+            // the new reference is recorded first and the old one dropped last, so that
+            // a failure in between leaves an unused ontology file at worst
+            String name = this.path.getFileName().toString();
+            Map<String, Set<String>> references = ConfigurationFile.readReferences(ontologies);
+            if (references.computeIfAbsent(name, k -> new TreeSet<>()).add(hash)) {
+                ConfigurationFile.writeReferences(ontologies, references);
+            }
+            ConfigurationFile.write(this.path, content);
+            ConfigurationFile.dropReferences(ontologies, references, name, hash);
         }
     }
 
     @Override
     public Configuration importConfiguration() throws FileTypeException, IOException {
+        return this.importConfiguration(null);
+    }
+
+    @Override
+    public Configuration importConfiguration(Path ontologies) throws FileTypeException, IOException {
+        ByteBuffer content = ConfigurationFile.read(this.path);
+        if (ConfigurationFile.isSerialized(content)) {
+            return ConfigurationFile.importSerialized(content);
+        }
+        ToloReader reader = new ToloReader(content);
+        String hash = reader.readOntologyReference();
+        if (hash == null) {
+            return reader.read();
+        }
+        // the hash becomes part of a path, so it must not contain anything else
+        if ((ontologies == null) || !hash.matches("[0-9a-f]+")) { //$NON-NLS-1$
+            throw new FileTypeException(new IOException("The ontology of the file can not be found")); //$NON-NLS-1$
+        }
+        Ontology ontology;
+        try {
+            ontology = new ToloReader(
+                    ConfigurationFile.read(ontologies.resolve(hash + ConfigurationFile.ONTOLOGY_SUFFIX)))
+                            .readOntology();
+        } catch (NoSuchFileException e) {
+            // the file itself exists, but it is broken without its ontology
+            throw new FileTypeException(e);
+        }
+        return reader.read(ontology);
+    }
+
+    /**
+     * Forgets the ontology file a configuration file referred to, and deletes
+     * it if no other configuration file refers to it any more.
+     *
+     * @param file       the configuration file, which was deleted
+     * @param ontologies the directory of the ontologies
+     * @throws IOException if an IO error occurs
+     */
+    static void releaseOntology(Path file, Path ontologies) throws IOException {
+        synchronized (ConfigurationFile.ONTOLOGY_LOCK) {
+            ConfigurationFile.dropReferences(ontologies, ConfigurationFile.readReferences(ontologies),
+                    file.getFileName().toString(), null);
+        }
+    }
+
+    /**
+     * Lets a configuration file refer to the same ontology files as another
+     * one, before the other one is moved there.
+     *
+     * @param source     the configuration file
+     * @param target     the configuration file that also refers to them
+     * @param ontologies the directory of the ontologies
+     * @throws IOException if an IO error occurs
+     */
+    static void copyOntologyReference(Path source, Path target, Path ontologies) throws IOException {
+        synchronized (ConfigurationFile.ONTOLOGY_LOCK) {
+            Map<String, Set<String>> references = ConfigurationFile.readReferences(ontologies);
+            Set<String> hashes = references.get(source.getFileName().toString());
+            if ((hashes != null) && references
+                    .computeIfAbsent(target.getFileName().toString(), k -> new TreeSet<>()).addAll(hashes)) {
+                ConfigurationFile.writeReferences(ontologies, references);
+            }
+        }
+    }
+
+    /**
+     * Drops the references of a configuration file except one, and deletes the
+     * ontology files no configuration file refers to any more. Must be called
+     * holding {@link #ONTOLOGY_LOCK}.
+     *
+     * @param ontologies the directory of the ontologies
+     * @param references the references, as they were last written
+     * @param name       the name of the configuration file
+     * @param kept       the hash of the ontology that stays referred to, or
+     *                   {@code null} to drop all
+     * @throws IOException if an IO error occurs
+     */
+    private static void dropReferences(Path ontologies, Map<String, Set<String>> references, String name,
+            String kept) throws IOException {
+        Set<String> hashes = references.get(name);
+        if ((hashes == null) || ((kept != null) && hashes.equals(Set.of(kept)))) {
+            return;
+        }
+        Set<String> dropped = new HashSet<>(hashes);
+        dropped.remove(kept);
+        if (kept == null) {
+            references.remove(name);
+        } else {
+            hashes.retainAll(Set.of(kept));
+        }
+        ConfigurationFile.writeReferences(ontologies, references);
+        references.values().forEach(dropped::removeAll);
+        for (String hash : dropped) {
+            Files.deleteIfExists(ontologies.resolve(hash + ConfigurationFile.ONTOLOGY_SUFFIX));
+        }
+    }
+
+    /**
+     * Reads which ontology files the configuration files refer to. Each line
+     * holds the name of a configuration file and the hash of an ontology.
+     *
+     * @param ontologies the directory of the ontologies
+     * @return the hashes of the ontologies by the names of the configuration
+     *         files, empty if nothing was written yet
+     * @throws IOException if an IO error occurs
+     */
+    private static Map<String, Set<String>> readReferences(Path ontologies) throws IOException {
+        Map<String, Set<String>> references = new TreeMap<>();
+        Path file = ontologies.resolve(ConfigurationFile.REFERENCES_NAME);
+        if (Files.exists(file)) {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                int space = line.indexOf(' ');
+                if (space > 0) {
+                    references.computeIfAbsent(line.substring(0, space), k -> new TreeSet<>())
+                            .add(line.substring(space + 1));
+                }
+            }
+        }
+        return references;
+    }
+
+    /**
+     * Writes which ontology files the configuration files refer to. The file is
+     * replaced at once, so that it is never read incomplete.
+     *
+     * @param ontologies the directory of the ontologies
+     * @param references the hashes of the ontologies by the names of the
+     *                   configuration files
+     * @throws IOException if an IO error occurs
+     */
+    private static void writeReferences(Path ontologies, Map<String, Set<String>> references) throws IOException {
+        List<String> lines = new ArrayList<>();
+        references.forEach((name, hashes) -> hashes.forEach(hash -> lines.add(name + " " + hash))); //$NON-NLS-1$
+        Path tmp = Files.createTempFile(ontologies, ConfigurationFile.REFERENCES_NAME, ConfigurationFile.TMP_SUFFIX);
+        try {
+            Files.write(tmp, lines, StandardCharsets.UTF_8);
+            Files.move(tmp, ontologies.resolve(ConfigurationFile.REFERENCES_NAME),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Checks whether the content of a file was written with Java serialization.
+     *
+     * @param content the content
+     * @return {@code true} if it starts like a serialized object
+     */
+    private static boolean isSerialized(ByteBuffer content) {
+        return (content.remaining() >= Short.BYTES) && (content.getShort(0) == ObjectStreamConstants.STREAM_MAGIC);
+    }
+
+    /**
+     * Writes the content of a file through a channel.
+     *
+     * @param file    the file
+     * @param content the content
+     * @throws IOException if an IO error occurs
+     */
+    private static void write(Path file, ByteBuffer[] content) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (content[content.length - 1].hasRemaining()) {
+                channel.write(content);
+            }
+        }
+    }
+
+    /**
+     * Reads the whole content of a file through a channel.
+     *
+     * @param file the file
+     * @return the content, backed by an array
+     * @throws FileTypeException if the file is too large to be a configuration
+     * @throws IOException       if an IO error occurs
+     */
+    private static ByteBuffer read(Path file) throws FileTypeException, IOException {
+        ByteBuffer content;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new FileTypeException(new IOException("The file is too large")); //$NON-NLS-1$
+            }
+            content = ByteBuffer.allocate((int) size);
+            while (content.hasRemaining()) {
+                if (channel.read(content) < 0) {
+                    throw new EOFException();
+                }
+            }
+            content.flip();
+        }
+        return content;
+    }
+
+    /**
+     * Computes the hash of the content of a file.
+     *
+     * @param content the content, which is left unchanged
+     * @return the hash as hex string
+     */
+    private static String hash(ByteBuffer[] content) {
+        MessageDigest digest = DigestUtils.getSha256Digest();
+        for (ByteBuffer buffer : content) {
+            DigestUtils.updateDigest(digest, buffer.duplicate());
+        }
+        return Hex.encodeHexString(digest.digest());
+    }
+
+    /**
+     * Reads a configuration that was written with Java serialization.
+     *
+     * @param content the content of the file
+     * @return the configuration
+     * @throws FileTypeException if the file does not contain a configuration
+     * @throws IOException       if an IO error occurs
+     */
+    private static Configuration importSerialized(ByteBuffer content) throws FileTypeException, IOException {
         Configuration result;
-        try (ObjectInputStream oout = new ObjectInputStream(Files.newInputStream(this.path))) {
-            result = (Configuration) oout.readObject();
+        try (ObjectInputStream in = new ObjectInputStream(
+                new ByteArrayInputStream(content.array(), 0, content.limit()))) {
+            result = (Configuration) in.readObject();
         } catch (IOException e) {
-            if (e instanceof InvalidClassException || e instanceof java.io.StreamCorruptedException) {
+            if (e instanceof InvalidClassException || e instanceof StreamCorruptedException) {
                 throw new FileTypeException(e);
             }
             throw e;
@@ -6,6 +6,7 @@
 package edu.kit.informatik.tolowiz.model.data.file;
 
 import java.io.IOException;
+import java.nio.file.Path;
 
 import edu.kit.informatik.tolowiz.model.data.icons.IconDatabaseException;
 import edu.kit.informatik.tolowiz.model.visualization.Configuration;
@@ -27,6 +28,18 @@ public interface ConfigurationFileInterface {
      */
     public void exportConfiguration(Configuration conf) throws IOException, IconDatabaseException;
 
+    /**
+     * Export a configuration to the file without its ontology. The ontology is
+     * stored in the given directory instead, in a file named after the hash of
+     * its content, so that all configurations of the same ontology share it.
+     *
+     * @param conf       the configuration to be exported
+     * @param ontologies the directory of the ontologies
+     * @throws IOException           if an IO error occurs
+     * @throws IconDatabaseException if an icon database error occurs
+     */
+    public void exportConfiguration(Configuration conf, Path ontologies) throws IOException, IconDatabaseException;
+
     /**
      * Imports a configuration from the file
      *
@@ -35,4 +48,17 @@ public interface ConfigurationFileInterface {
      * @throws IOException       if an IO error occurs
      */
     public Configuration importConfiguration() throws FileTypeException, IOException;
+
+    /**
+     * Imports a configuration from the file, which may refer to an ontology
+     * stored in the given directory.
+     *
+     * @param ontologies the directory of the ontologies
+     * @return the configuration
+     * @throws FileTypeException if the file has a wrong format or its ontology
+     *                           is missing
+     * @throws IOException       if an IO error occurs
+     * @see #exportConfiguration(Configuration, Path)
+     */
+    public Configuration importConfiguration(Path ontologies) throws FileTypeException, IOException;
 }
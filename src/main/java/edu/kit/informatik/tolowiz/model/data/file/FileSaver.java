@@ -5,10 +5,12 @@
  */
 package edu.kit.informatik.tolowiz.model.data.file;
 
+import java.io.IOException;
 import java.nio.file.Path;
 
 /**
- * Default implementation for filesaver interface using Java serialization API
+ * Default implementation for filesaver interface writing configurations in the
+ * binary format of {@link ToloFormat}
  *
  * @author Tobias Klumpp
  *
@@ -26,4 +28,14 @@ public class FileSaver implements FileSaverInterface {
         return new ConfigurationFile(path);
     }
 
+    @Override
+    public void releaseOntology(Path file, Path ontologies) throws IOException {
+        ConfigurationFile.releaseOntology(file, ontologies);
+    }
+
+    @Override
+    public void copyOntologyReference(Path source, Path target, Path ontologies) throws IOException {
+        ConfigurationFile.copyOntologyReference(source, target, ontologies);
+    }
+
 }
@@ -5,6 +5,7 @@
  */
 package edu.kit.informatik.tolowiz.model.data.file;
 
+import java.io.IOException;
 import java.nio.file.Path;
 
 /**
@@ -24,4 +25,29 @@ public interface FileSaverInterface {
      * @return the file object
      */
     public abstract ConfigurationFileInterface generateFile(Path path);
+
+    /**
+     * Forgets the shared ontology file a deleted configuration file referred
+     * to, and deletes it if no other configuration file refers to it any more.
+     * Configuration files written with a directory of ontologies record their
+     * references there, and drop the references to older ontologies.
+     *
+     * @param file       the deleted configuration file
+     * @param ontologies the directory of the ontologies
+     * @throws IOException if an IO error occurs
+     */
+    public abstract void releaseOntology(Path file, Path ontologies) throws IOException;
+
+    /**
+     * Lets a configuration file refer to the same shared ontology files as
+     * another one. This has to be done before a configuration file is moved,
+     * and the moved file released afterwards.
+     *
+     * @param source     the configuration file
+     * @param target     the configuration file that also refers to them
+     * @param ontologies the directory of the ontologies
+     * @throws IOException if an IO error occurs
+     * @see #releaseOntology(Path, Path)
+     */
+    public abstract void copyOntologyReference(Path source, Path target, Path ontologies) throws IOException;
 }
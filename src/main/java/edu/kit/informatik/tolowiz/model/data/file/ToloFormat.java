@@ -0,0 +1,104 @@
+/*
+ * Copyright 2020 Anne Bernhart, Anja Hansen, Tobias Klumpp, Fabian Palitza,
+ * Florian Patzer, Friedrich Volz, Sandra Wolf
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package edu.kit.informatik.tolowiz.model.data.file;
+
+/**
+ * The binary format of configuration files.<br>
+ * <br>
+ * A file starts with the magic number and the version of the format, followed
+ * by sections. Every section starts with its id as one byte and the length of
+ * its content as an int. Readers skip sections they do not know, and the end of
+ * a section that a newer version of the same format may have added to it. The
+ * string table comes first, all other sections refer to strings by their
+ * number in it, starting with 1; 0 stands for {@code null}.<br>
+ * <br>
+ * Within a section, elements are written column by column: first the number of
+ * elements, then one property of all elements, then the next one. Counts and
+ * numbers are written as variable length ints, coordinates as doubles. Elements
+ * of the configuration are identified by the IRI or URI of their base in the
+ * ontology, so that elements that are not found are skipped. Files of earlier
+ * versions identify relation types by their name instead.<br>
+ * <br>
+ * Instead of the ontology section, a file may contain a reference to an
+ * ontology stored in a separate file of the same format, which only has the
+ * string table and the ontology section. The ontology is written in the order
+ * of the IRIs and URIs of its elements, so that the same ontology always
+ * results in the same file and can be referred to by the hash of its content.
+ *
+ * @see ToloWriter
+ * @see ToloReader
+ */
+final class ToloFormat {
+    /**
+     * Identifies configuration files, "TOLO".
+     */
+    static final int MAGIC = 0x544F4C4F;
+    /**
+     * The version of the format. Has to be increased whenever a reader of the
+     * previous version would read a file wrongly.
+     */
+    static final int VERSION = 1;
+
+    /**
+     * The strings all other sections refer to.
+     */
+    static final byte STRINGS = 1;
+    /**
+     * The value types, types, relation types, Instances and Relations of the
+     * ontology.
+     */
+    static final byte ONTOLOGY = 2;
+    /**
+     * The contents of the icons, each one only once.
+     */
+    static final byte ICONS = 3;
+    /**
+     * The handlers, and the icons, handlers and active values of the types.
+     */
+    static final byte TYPES = 4;
+    /**
+     * The styles, and the visibility and style of the relation types.
+     */
+    static final byte RELATION_TYPES = 5;
+    /**
+     * The marks of the groups and the Instances, each one only once.
+     */
+    static final byte MARKS = 6;
+    /**
+     * The names, marks and members of the groups.
+     */
+    static final byte GROUPS = 7;
+    /**
+     * The visibility, positions and marks of the Instances.
+     */
+    static final byte INSTANCES = 8;
+    /**
+     * The relation depth, the number of parallel relations and the camera.
+     */
+    static final byte SETTINGS = 9;
+    /**
+     * The hash of the content of the ontology file that contains the ontology
+     * section instead.
+     */
+    static final byte ONTOLOGY_REFERENCE = 10;
+
+    /**
+     * The flags of an Instance.
+     */
+    static final int VISIBLE = 1;
+    static final int HIDDEN = 2;
+    static final int POSITION = 4;
+    static final int DEFAULT_POSITION = 8;
+
+    /**
+     * The length of the header of the file and of a section.
+     */
+    static final int FILE_HEADER = 2 * Integer.BYTES;
+    static final int SECTION_HEADER = 1 + Integer.BYTES;
+
+    private ToloFormat() {
+    }
+}
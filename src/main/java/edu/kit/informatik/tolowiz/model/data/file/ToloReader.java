@@ -0,0 +1,553 @@
+/*
+ * Copyright 2020 Anne Bernhart, Anja Hansen, Tobias Klumpp, Fabian Palitza,
+ * Florian Patzer, Friedrich Volz, Sandra Wolf
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package edu.kit.informatik.tolowiz.model.data.file;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.javatuples.Pair;
+
+import edu.kit.informatik.tolowiz.model.data.icons.IconDatabase;
+import edu.kit.informatik.tolowiz.model.ontology.Instance;
+import edu.kit.informatik.tolowiz.model.ontology.InstanceType;
+import edu.kit.informatik.tolowiz.model.ontology.Ontology;
+import edu.kit.informatik.tolowiz.model.ontology.OntologyBuilder;
+import edu.kit.informatik.tolowiz.model.ontology.RelationType;
+import edu.kit.informatik.tolowiz.model.ontology.ValueType;
+import edu.kit.informatik.tolowiz.model.visualization.CameraConfiguration;
+import edu.kit.informatik.tolowiz.model.visualization.Color;
+import edu.kit.informatik.tolowiz.model.visualization.Configuration;
+import edu.kit.informatik.tolowiz.model.visualization.DefaultHandler;
+import edu.kit.informatik.tolowiz.model.visualization.Group;
+import edu.kit.informatik.tolowiz.model.visualization.InstanceConfiguration;
+import edu.kit.informatik.tolowiz.model.visualization.InstanceMark;
+import edu.kit.informatik.tolowiz.model.visualization.InstanceMark.InstanceShape;
+import edu.kit.informatik.tolowiz.model.visualization.InstanceMark.InstanceStroke;
+import edu.kit.informatik.tolowiz.model.visualization.InstanceTypeConfiguration;
+import edu.kit.informatik.tolowiz.model.visualization.Point;
+import edu.kit.informatik.tolowiz.model.visualization.RelationStyle;
+import edu.kit.informatik.tolowiz.model.visualization.RelationStyle.ArrowShape;
+import edu.kit.informatik.tolowiz.model.visualization.RelationStyle.RelationStroke;
+import edu.kit.informatik.tolowiz.model.visualization.RelationTypeConfiguration;
+
+/**
+ * Reads a configuration in the format of {@link ToloFormat}. The ontology is
+ * built again with an {@link OntologyBuilder}, or read from its own file if the
+ * configuration refers to one, and a new configuration of it is then set to
+ * the stored state.
+ */
+@SuppressWarnings("deprecation") // the camera is still part of the file
+final class ToloReader {
+    private final ByteBuffer file;
+    private final Map<Byte, ByteBuffer> sections = new HashMap<>();
+
+    /**
+     * The strings by their number, starting with 1.
+     */
+    private String[] strings;
+    private List<Pair<byte[], String>> icons;
+    private InstanceMark[] marks;
+
+    /**
+     * Creates a reader for the content of a file.
+     *
+     * @param file the content of the file, backed by an array
+     */
+    ToloReader(ByteBuffer file) {
+        this.file = file;
+    }
+
+    /**
+     * Checks whether the content of a file starts like a configuration file.
+     *
+     * @param file the content of the file
+     * @return {@code true} if the file has the magic number of the format
+     */
+    static boolean isToloFile(ByteBuffer file) {
+        return (file.remaining() >= Integer.BYTES) && (file.getInt(file.position()) == ToloFormat.MAGIC);
+    }
+
+    /**
+     * Reads the configuration together with its ontology.
+     *
+     * @return the configuration
+     * @throws FileTypeException if the file is not a configuration file, is
+     *                           broken or was written by a newer version of the
+     *                           format
+     */
+    Configuration read() throws FileTypeException {
+        return this.read(null);
+    }
+
+    /**
+     * Reads the configuration.
+     *
+     * @param ontology the ontology the file refers to, or {@code null} if the
+     *                 file contains its ontology
+     * @return the configuration
+     * @throws FileTypeException if the file is not a configuration file, is
+     *                           broken or was written by a newer version of the
+     *                           format
+     * @see #readOntologyReference()
+     */
+    Configuration read(Ontology ontology) throws FileTypeException {
+        try {
+            this.open();
+            Configuration configuration = new Configuration(
+                    (ontology == null) ? this.readOntology(this.section(ToloFormat.ONTOLOGY)) : ontology, null);
+            this.readIcons(this.section(ToloFormat.ICONS));
+            this.readTypes(this.section(ToloFormat.TYPES), configuration);
+            this.readRelationTypes(this.section(ToloFormat.RELATION_TYPES), configuration);
+            this.readMarks(this.section(ToloFormat.MARKS));
+            this.readGroups(this.section(ToloFormat.GROUPS), configuration);
+            this.readInstances(this.section(ToloFormat.INSTANCES), configuration);
+            this.readSettings(this.section(ToloFormat.SETTINGS), configuration);
+            return configuration;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException
+                | NegativeArraySizeException e) {
+            throw new FileTypeException(e);
+        }
+    }
+
+    /**
+     * Reads the ontology of a file that was written on its own.
+     *
+     * @return the ontology
+     * @throws FileTypeException if the file does not contain an ontology or is
+     *                           broken
+     */
+    Ontology readOntology() throws FileTypeException {
+        try {
+            this.open();
+            return this.readOntology(this.section(ToloFormat.ONTOLOGY));
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException
+                | NegativeArraySizeException e) {
+            throw new FileTypeException(e);
+        }
+    }
+
+    /**
+     * Reads the reference to the ontology of the configuration, if it is
+     * stored in a separate file.
+     *
+     * @return the hash of the content of the ontology file, or {@code null} if
+     *         the file contains its ontology
+     * @throws FileTypeException if the file is not a configuration file or is
+     *                           broken
+     */
+    String readOntologyReference() throws FileTypeException {
+        try {
+            this.open();
+            ByteBuffer section = this.sections.get(Byte.valueOf(ToloFormat.ONTOLOGY_REFERENCE));
+            return (section == null) ? null : this.readString(section.duplicate());
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException
+                | NegativeArraySizeException e) {
+            throw new FileTypeException(e);
+        }
+    }
+
+    /**
+     * Reads the header, finds the sections and reads the string table, unless
+     * that was done already.
+     *
+     * @throws FileTypeException if the file is not a file of the format or was
+     *                           written by a newer version of it
+     */
+    private void open() throws FileTypeException {
+        if (this.strings != null) {
+            return;
+        }
+        if (!ToloReader.isToloFile(this.file)) {
+            throw new FileTypeException(new IOException("The file is not a configuration file")); //$NON-NLS-1$
+        }
+        this.file.getInt();
+        if (this.file.getInt() > ToloFormat.VERSION) {
+            throw new FileTypeException(new IOException("The file was written by a newer version")); //$NON-NLS-1$
+        }
+        while (this.file.hasRemaining()) {
+            Byte id = Byte.valueOf(this.file.get());
+            int length = this.file.getInt();
+            this.sections.putIfAbsent(id, this.file.slice().limit(length));
+            this.file.position(this.file.position() + length);
+        }
+        this.readStrings(this.section(ToloFormat.STRINGS));
+    }
+
+    private ByteBuffer section(byte id) throws FileTypeException {
+        ByteBuffer section = this.sections.get(Byte.valueOf(id));
+        if (section == null) {
+            throw new FileTypeException(new IOException("The file lacks section " + id)); //$NON-NLS-1$
+        }
+        return section;
+    }
+
+    private void readStrings(ByteBuffer in) {
+        int size = ToloReader.readCount(in);
+        int[] lengths = ToloReader.readVarInts(in, size);
+        this.strings = new String[size + 1];
+        for (int i = 0; i < size; i++) {
+            this.strings[i + 1] = new String(in.array(), in.arrayOffset() + in.position(), lengths[i],
+                    StandardCharsets.UTF_8);
+            in.position(in.position() + lengths[i]);
+        }
+    }
+
+    private Ontology readOntology(ByteBuffer in) {
+        String iri = this.readString(in);
+        OntologyBuilder builder = new OntologyBuilder(iri, this.readString(in));
+
+        ValueType[] valueTypes = new ValueType[ToloReader.readCount(in)];
+        String[] names = this.readStrings(in, valueTypes.length);
+        for (int i = 0; i < valueTypes.length; i++) {
+            valueTypes[i] = builder.addValueType(names[i], this.readString(in));
+        }
+
+        InstanceType[] types = new InstanceType[ToloReader.readCount(in)];
+        names = this.readStrings(in, types.length);
+        for (int i = 0; i < types.length; i++) {
+            types[i] = builder.addType(names[i], this.readString(in));
+        }
+        int[] counts = ToloReader.readVarInts(in, types.length);
+        for (int i = 0; i < types.length; i++) {
+            for (int j = 0; j < counts[i]; j++) {
+                builder.addSuperType(types[i], types[ToloReader.readVarInt(in)]);
+            }
+        }
+        counts = ToloReader.readVarInts(in, types.length);
+        for (int i = 0; i < types.length; i++) {
+            for (int j = 0; j < counts[i]; j++) {
+                builder.addValue(types[i], valueTypes[ToloReader.readVarInt(in)]);
+            }
+        }
+
+        RelationType[] relationTypes = new RelationType[ToloReader.readCount(in)];
+        names = this.readStrings(in, relationTypes.length);
+        for (int i = 0; i < relationTypes.length; i++) {
+            relationTypes[i] = builder.addRelationType(names[i], this.readString(in));
+        }
+
+        Instance[] instances = new Instance[ToloReader.readCount(in)];
+        names = this.readStrings(in, instances.length);
+        String[] uris = this.readStrings(in, instances.length);
+        List<Set<InstanceType>> instanceTypes = new ArrayList<>(instances.length);
+        counts = ToloReader.readVarInts(in, instances.length);
+        for (int i = 0; i < instances.length; i++) {
+            Set<InstanceType> set = new HashSet<>();
+            for (int j = 0; j < counts[i]; j++) {
+                set.add(types[ToloReader.readVarInt(in)]);
+            }
+            instanceTypes.add(set);
+        }
+        counts = ToloReader.readVarInts(in, instances.length);
+        int total = 0;
+        for (int count : counts) {
+            total += count;
+        }
+        int[] valueNumbers = ToloReader.readVarInts(in, total);
+        for (int i = 0, value = 0; i < instances.length; i++) {
+            Set<Pair<ValueType, String>> values = new HashSet<>();
+            for (int j = 0; j < counts[i]; j++, value++) {
+                values.add(new Pair<>(valueTypes[valueNumbers[value]], this.readString(in)));
+            }
+            instances[i] = builder.addInstance(names[i], uris[i], instanceTypes.get(i), values);
+        }
+
+        int relations = ToloReader.readCount(in);
+        int[] relationType = ToloReader.readVarInts(in, relations);
+        int[] origin = ToloReader.readVarInts(in, relations);
+        int[] destination = ToloReader.readVarInts(in, relations);
+        for (int i = 0; i < relations; i++) {
+            String uri = this.readString(in);
+            if (uri == null) {
+                builder.addRelation(relationTypes[relationType[i]], instances[origin[i]], instances[destination[i]]);
+            } else {
+                builder.addRelation(uri, relationTypes[relationType[i]], instances[origin[i]],
+                        instances[destination[i]]);
+            }
+        }
+        return builder.build();
+    }
+
+    private void readIcons(ByteBuffer in) {
+        int size = ToloReader.readCount(in);
+        String[] filetypes = this.readStrings(in, size);
+        int[] lengths = ToloReader.readVarInts(in, size);
+        this.icons = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            byte[] content = new byte[lengths[i]];
+            in.get(content);
+            this.icons.add(new Pair<>(content, filetypes[i]));
+        }
+    }
+
+    private void readTypes(ByteBuffer in, Configuration configuration) {
+        DefaultHandler[] handlers = new DefaultHandler[ToloReader.readCount(in)];
+        String[] names = this.readStrings(in, handlers.length);
+        for (int i = 0; i < handlers.length; i++) {
+            String name = names[i];
+            // unknown handlers leave the default handler in place
+            handlers[i] = configuration.getHandlers().stream().filter(h -> h.getName().equals(name)).findFirst()
+                    .orElse(null);
+        }
+
+        InstanceTypeConfiguration[] types = new InstanceTypeConfiguration[ToloReader.readCount(in)];
+        String[] iris = this.readStrings(in, types.length);
+        for (int i = 0; i < types.length; i++) {
+            types[i] = configuration.getTypeByIRI(iris[i]);
+        }
+        for (InstanceTypeConfiguration type : types) {
+            int icon = ToloReader.readVarInt(in);
+            if (type != null) {
+                type.setIcon((icon == 0) ? null
+                        : IconDatabase.restoreIcon(type.getInstanceType(), this.icons.get(icon - 1).getValue0(),
+                                this.icons.get(icon - 1).getValue1()));
+            }
+        }
+        for (InstanceTypeConfiguration type : types) {
+            int handler = ToloReader.readVarInt(in);
+            if ((type != null) && (handler != 0) && (handlers[handler - 1] != null)) {
+                type.setHandler(handlers[handler - 1]);
+            }
+        }
+        int[] counts = ToloReader.readVarInts(in, types.length);
+        for (int i = 0; i < types.length; i++) {
+            for (int j = 0; j < counts[i]; j++) {
+                ValueType value = configuration.getValueTypeByURI(this.readString(in));
+                if ((types[i] != null) && (value != null)) {
+                    types[i].activateValue(value);
+                }
+            }
+        }
+    }
+
+    private void readRelationTypes(ByteBuffer in, Configuration configuration) {
+        RelationStyle[] styles = new RelationStyle[ToloReader.readCount(in)];
+        for (int i = 0; i < styles.length; i++) {
+            styles[i] = new RelationStyle();
+            styles[i].setColor(ToloReader.color(ToloReader.readVarInt(in)));
+        }
+        for (RelationStyle style : styles) {
+            style.setShape(ToloReader.constant(ArrowShape.values(), ToloReader.readVarInt(in)));
+        }
+        for (RelationStyle style : styles) {
+            style.setStroke(ToloReader.constant(RelationStroke.values(), ToloReader.readVarInt(in)));
+        }
+        for (RelationStyle style : styles) {
+            int reversed = ToloReader.readVarInt(in);
+            style.reverse((reversed == 0) ? null : Boolean.valueOf(reversed == 2));
+        }
+
+        RelationTypeConfiguration[] types = new RelationTypeConfiguration[ToloReader.readCount(in)];
+        String[] uris = this.readStrings(in, types.length);
+        for (int i = 0; i < types.length; i++) {
+            types[i] = configuration.getRelationTypeByURI(uris[i]);
+            if (types[i] == null) {
+                // written before relation types were identified by their URI
+                types[i] = configuration.getRelationTypeByName(uris[i]);
+            }
+        }
+        for (RelationTypeConfiguration type : types) {
+            boolean visible = ToloReader.readVarInt(in) != 0;
+            if (type == null) {
+                continue;
+            }
+            if (visible) {
+                type.show();
+            } else {
+                type.hide();
+            }
+        }
+        for (RelationTypeConfiguration type : types) {
+            int style = ToloReader.readVarInt(in);
+            if (type != null) {
+                type.setStyle((style == 0) ? null : styles[style - 1]);
+            }
+        }
+    }
+
+    private void readMarks(ByteBuffer in) {
+        this.marks = new InstanceMark[ToloReader.readCount(in)];
+        for (int i = 0; i < this.marks.length; i++) {
+            this.marks[i] = new InstanceMark(ToloReader.color(ToloReader.readVarInt(in)));
+        }
+        for (InstanceMark mark : this.marks) {
+            mark.setShape(ToloReader.constant(InstanceShape.values(), ToloReader.readVarInt(in)));
+        }
+        for (InstanceMark mark : this.marks) {
+            mark.setStroke(ToloReader.constant(InstanceStroke.values(), ToloReader.readVarInt(in)));
+        }
+    }
+
+    private void readGroups(ByteBuffer in, Configuration configuration) {
+        Group[] groups = new Group[ToloReader.readCount(in)];
+        String[] names = this.readStrings(in, groups.length);
+        for (int i = 0; i < groups.length; i++) {
+            groups[i] = new Group(names[i]);
+            // the Instances have to share the mark with their group
+            int number = ToloReader.readVarInt(in);
+            InstanceMark mark = this.marks[number];
+            groups[i].getMark().setColor(mark.getColor().orElse(null)).setShape(mark.getShape().orElse(null))
+                    .setStroke(mark.getStroke().orElse(null));
+            this.marks[number] = groups[i].getMark();
+            configuration.addGroup(groups[i]);
+        }
+        int[] counts = ToloReader.readVarInts(in, groups.length);
+        for (int i = 0; i < groups.length; i++) {
+            for (int j = 0; j < counts[i]; j++) {
+                InstanceConfiguration member = configuration.getInstanceByURI(this.readString(in));
+                if (member != null) {
+                    groups[i].addInstance(member);
+                }
+            }
+        }
+    }
+
+    private void readInstances(ByteBuffer in, Configuration configuration) {
+        InstanceConfiguration[] instances = new InstanceConfiguration[ToloReader.readCount(in)];
+        String[] uris = this.readStrings(in, instances.length);
+        for (int i = 0; i < instances.length; i++) {
+            instances[i] = configuration.getInstanceByURI(uris[i]);
+        }
+        byte[] flags = new byte[instances.length];
+        in.get(flags);
+        Point[] positions = ToloReader.readPoints(in, flags, ToloFormat.POSITION);
+        Point[] defaults = ToloReader.readPoints(in, flags, ToloFormat.DEFAULT_POSITION);
+        int[] counts = ToloReader.readVarInts(in, instances.length);
+        for (int i = 0; i < instances.length; i++) {
+            List<InstanceMark> marks = new ArrayList<>(counts[i]);
+            for (int j = 0; j < counts[i]; j++) {
+                marks.add(this.marks[ToloReader.readVarInt(in)]);
+            }
+            InstanceConfiguration instance = instances[i];
+            if (instance == null) {
+                continue;
+            }
+            if ((flags[i] & ToloFormat.VISIBLE) != 0) {
+                instance.show();
+            }
+            if ((flags[i] & ToloFormat.HIDDEN) != 0) {
+                configuration.getHiddenInstances().add(instance);
+            }
+            if (defaults[i] != null) {
+                instance.setDefaultPosition(defaults[i]);
+            }
+            instance.setPosition(positions[i]);
+            instance.setMarks(marks);
+        }
+    }
+
+    private void readSettings(ByteBuffer in, Configuration configuration) {
+        configuration.setDepth(ToloReader.readVarInt(in));
+        configuration.setMaxParallelRelations(ToloReader.readVarInt(in));
+        CameraConfiguration camera = configuration.getCameraConfiguration();
+        // the center is limited by the size, so it comes last
+        camera.setWidth(ToloReader.readVarInt(in));
+        camera.setHeight(ToloReader.readVarInt(in));
+        camera.setZoom(ToloReader.readVarInt(in));
+        camera.setCenter(new Point(in.getDouble(), in.getDouble()));
+    }
+
+    private String readString(ByteBuffer in) {
+        return this.strings[ToloReader.readVarInt(in)];
+    }
+
+    private String[] readStrings(ByteBuffer in, int size) {
+        String[] result = new String[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = this.readString(in);
+        }
+        return result;
+    }
+
+    /**
+     * Reads the points of the elements that have a flag set.
+     *
+     * @param in    the input
+     * @param flags the flags of the elements
+     * @param flag  the flag that tells whether an element has a point
+     * @return the points by element, {@code null} for those without
+     */
+    private static Point[] readPoints(ByteBuffer in, byte[] flags, int flag) {
+        Point[] points = new Point[flags.length];
+        for (int i = 0; i < flags.length; i++) {
+            if ((flags[i] & flag) != 0) {
+                points[i] = new Point(in.getDouble(), in.getDouble());
+            }
+        }
+        return points;
+    }
+
+    private static int readVarInt(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < Integer.SIZE; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("The number is too long"); //$NON-NLS-1$
+    }
+
+    /**
+     * Reads the number of elements that follow. Every element takes at least
+     * one byte, so a broken file can not make the reader allocate more than
+     * the file holds.
+     *
+     * @param in the input
+     * @return the number of elements
+     * @throws IllegalArgumentException if there are not as many bytes left
+     */
+    private static int readCount(ByteBuffer in) {
+        int count = ToloReader.readVarInt(in);
+        if ((count < 0) || (count > in.remaining())) {
+            throw new IllegalArgumentException("The number of elements is too large"); //$NON-NLS-1$
+        }
+        return count;
+    }
+
+    private static int[] readVarInts(ByteBuffer in, int size) {
+        int[] result = new int[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = ToloReader.readVarInt(in);
+        }
+        return result;
+    }
+
+    /**
+     * Unpacks a color.
+     *
+     * @param packed the red, green and blue part plus one, or 0
+     * @return the color, or {@code null} if there is none
+     */
+    private static Color color(int packed) {
+        if (packed == 0) {
+            return null;
+        }
+        int rgb = packed - 1;
+        return new Color((rgb >> 16) & 0xFF, (rgb >> 8) & 0xFF, rgb & 0xFF);
+    }
+
+    /**
+     * Gets an enum constant by its ordinal plus one.
+     *
+     * @param <E>       the enum type
+     * @param constants the constants of the enum
+     * @param number    the ordinal plus one, or 0
+     * @return the constant, or {@code null} for 0
+     */
+    private static <E extends Enum<E>> E constant(E[] constants, int number) {
+        return (number == 0) ? null : constants[number - 1];
+    }
+}
@@ -0,0 +1,490 @@
+/*
+ * Copyright 2020 Anne Bernhart, Anja Hansen, Tobias Klumpp, Fabian Palitza,
+ * Florian Patzer, Friedrich Volz, Sandra Wolf
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package edu.kit.informatik.tolowiz.model.data.file;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+import org.javatuples.Pair;
+
+import edu.kit.informatik.tolowiz.model.data.icons.IconDatabase;
+import edu.kit.informatik.tolowiz.model.data.icons.IconDatabaseException;
+import edu.kit.informatik.tolowiz.model.ontology.Instance;
+import edu.kit.informatik.tolowiz.model.ontology.InstanceType;
+import edu.kit.informatik.tolowiz.model.ontology.Ontology;
+import edu.kit.informatik.tolowiz.model.ontology.Relation;
+import edu.kit.informatik.tolowiz.model.ontology.RelationType;
+import edu.kit.informatik.tolowiz.model.ontology.ValueType;
+import edu.kit.informatik.tolowiz.model.visualization.CameraConfiguration;
+import edu.kit.informatik.tolowiz.model.visualization.Color;
+import edu.kit.informatik.tolowiz.model.visualization.Configuration;
+import edu.kit.informatik.tolowiz.model.visualization.DefaultHandler;
+import edu.kit.informatik.tolowiz.model.visualization.Group;
+import edu.kit.informatik.tolowiz.model.visualization.InstanceConfiguration;
+import edu.kit.informatik.tolowiz.model.visualization.InstanceMark;
+import edu.kit.informatik.tolowiz.model.visualization.InstanceTypeConfiguration;
+import edu.kit.informatik.tolowiz.model.visualization.Point;
+import edu.kit.informatik.tolowiz.model.visualization.RelationStyle;
+import edu.kit.informatik.tolowiz.model.visualization.RelationTypeConfiguration;
+
+/**
+ * Writes a configuration in the format of {@link ToloFormat}, with its ontology
+ * or with a reference to an ontology written on its own. All sections are built
+ * in memory first, as the string table that comes first is only complete
+ * afterwards, so they can be written to a channel at once.
+ */
+@SuppressWarnings("deprecation") // the camera is still part of the file
+final class ToloWriter {
+    private final Configuration configuration;
+
+    private final Map<String, Integer> stringNumbers = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+
+    /**
+     * The contents of the icons by their content and filetype, and the marks
+     * and styles by identity.
+     */
+    private final Map<Pair<ByteBuffer, String>, Integer> iconNumbers = new HashMap<>();
+    private final Numbering<InstanceMark> marks = new Numbering<>();
+    private final Numbering<RelationStyle> styles = new Numbering<>();
+
+    /**
+     * Creates a writer for a configuration.
+     *
+     * @param configuration the configuration to write, or {@code null} to
+     *                      write an ontology only
+     */
+    ToloWriter(Configuration configuration) {
+        this.configuration = configuration;
+    }
+
+    /**
+     * Encodes an ontology on its own, to be referred to by configurations.
+     *
+     * @param ontology the ontology
+     * @return the header and the sections of the file, to be written in this
+     *         order
+     * @throws IOException if the ontology refers to elements it does not
+     *                     contain
+     */
+    static ByteBuffer[] encodeOntology(Ontology ontology) throws IOException {
+        ToloWriter writer = new ToloWriter(null);
+        Section section = writer.writeOntology(ontology);
+        return ToloWriter.file(List.of(writer.writeStrings(), section));
+    }
+
+    /**
+     * Encodes the configuration together with its ontology.
+     *
+     * @return the header and the sections of the file, to be written in this
+     *         order
+     * @throws IOException           if the ontology refers to elements it does
+     *                               not contain
+     * @throws IconDatabaseException if the content of an icon can not be read
+     */
+    ByteBuffer[] encode() throws IOException, IconDatabaseException {
+        return this.encode(this.writeOntology(this.configuration.getOntology()));
+    }
+
+    /**
+     * Encodes the configuration without its ontology, which is referred to by
+     * the hash of the content of its own file instead.
+     *
+     * @param ontology the hash of the ontology file
+     * @return the header and the sections of the file, to be written in this
+     *         order
+     * @throws IconDatabaseException if the content of an icon can not be read
+     * @see #encodeOntology(Ontology)
+     */
+    ByteBuffer[] encode(String ontology) throws IconDatabaseException {
+        Section reference = new Section(ToloFormat.ONTOLOGY_REFERENCE);
+        reference.writeVarInt(this.string(ontology));
+        return this.encode(reference);
+    }
+
+    private ByteBuffer[] encode(Section ontology) throws IconDatabaseException {
+        Section types = this.writeTypes();
+        Section icons = this.writeIcons();
+        Section relationTypes = this.writeRelationTypes();
+        this.configuration.getGroups().forEach(g -> this.marks.number(g.getMark()));
+        this.configuration.getInstances().forEach(i -> i.getMarks().forEach(this.marks::number));
+        Section marks = this.writeMarks();
+        Section groups = this.writeGroups();
+        Section instances = this.writeInstances();
+        Section settings = this.writeSettings();
+        Section strings = this.writeStrings();
+        return ToloWriter.file(
+                List.of(strings, ontology, icons, types, relationTypes, marks, groups, instances, settings));
+    }
+
+    private static ByteBuffer[] file(List<Section> sections) {
+        List<ByteBuffer> buffers = new ArrayList<>();
+        buffers.add(ByteBuffer.allocate(ToloFormat.FILE_HEADER).putInt(ToloFormat.MAGIC)
+                .putInt(ToloFormat.VERSION).flip());
+        for (Section section : sections) {
+            buffers.add(section.header());
+            buffers.add(section.content());
+        }
+        return buffers.toArray(new ByteBuffer[buffers.size()]);
+    }
+
+    private Section writeStrings() {
+        Section section = new Section(ToloFormat.STRINGS);
+        List<byte[]> encoded = new ArrayList<>(this.strings.size());
+        section.writeVarInt(this.strings.size());
+        for (String string : this.strings) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            encoded.add(bytes);
+            section.writeVarInt(bytes.length);
+        }
+        encoded.forEach(section::writeBytes);
+        return section;
+    }
+
+    private Section writeOntology(Ontology ontology) throws IOException {
+        Section section = new Section(ToloFormat.ONTOLOGY);
+        section.writeVarInt(this.string(ontology.getIRI()));
+        section.writeVarInt(this.string(ontology.getName()));
+
+        Numbering<ValueType> valueTypes = new Numbering<>(
+                ToloWriter.sorted(ontology.getValueTypes(), ValueType::getURI));
+        section.writeVarInt(valueTypes.size());
+        section.writeColumn(valueTypes.elements, v -> this.string(v.getName()));
+        section.writeColumn(valueTypes.elements, v -> this.string(v.getURI()));
+
+        Numbering<InstanceType> types = new Numbering<>(
+                ToloWriter.sorted(ontology.getTypes(), InstanceType::getIRI));
+        section.writeVarInt(types.size());
+        section.writeColumn(types.elements, t -> this.string(t.getName()));
+        section.writeColumn(types.elements, t -> this.string(t.getIRI()));
+        section.writeColumn(types.elements, t -> t.getSuperTypes().size());
+        for (InstanceType type : types.elements) {
+            section.writeNumbers(ToloWriter.sorted(type.getSuperTypes(), InstanceType::getIRI), types);
+        }
+        section.writeColumn(types.elements, t -> t.getValues().size());
+        for (InstanceType type : types.elements) {
+            section.writeNumbers(ToloWriter.sorted(type.getValues(), ValueType::getURI), valueTypes);
+        }
+
+        Numbering<RelationType> relationTypes = new Numbering<>(
+                ToloWriter.sorted(ontology.getRelationTypes(), RelationType::getURI));
+        section.writeVarInt(relationTypes.size());
+        section.writeColumn(relationTypes.elements, t -> this.string(t.getName()));
+        section.writeColumn(relationTypes.elements, t -> this.string(t.getURI()));
+
+        Numbering<Instance> instances = new Numbering<>(
+                ToloWriter.sorted(ontology.getInstances(), Instance::getURI));
+        section.writeVarInt(instances.size());
+        section.writeColumn(instances.elements, i -> this.string(i.getName()));
+        section.writeColumn(instances.elements, i -> this.string(i.getURI()));
+        section.writeColumn(instances.elements, i -> i.getType().size());
+        for (Instance instance : instances.elements) {
+            section.writeNumbers(ToloWriter.sorted(instance.getType(), InstanceType::getIRI), types);
+        }
+        section.writeColumn(instances.elements, i -> i.getValues().size());
+        List<Pair<ValueType, String>> values = new ArrayList<>();
+        for (Instance instance : instances.elements) {
+            List<Pair<ValueType, String>> sorted = new ArrayList<>(instance.getValues());
+            sorted.sort(Comparator.comparing((Pair<ValueType, String> v) -> v.getValue0().getURI())
+                    .thenComparing(Pair::getValue1, Comparator.nullsFirst(Comparator.naturalOrder())));
+            values.addAll(sorted);
+        }
+        section.writeNumbers(values.stream().map(Pair::getValue0)::iterator, valueTypes);
+        section.writeColumn(values, v -> this.string(v.getValue1()));
+
+        List<Relation> relations = ToloWriter.sorted(ontology.getRelations(), Relation::getURI);
+        section.writeVarInt(relations.size());
+        section.writeNumbers(relations.stream().map(Relation::getRelationType)::iterator, relationTypes);
+        section.writeNumbers(relations.stream().map(Relation::getOrigin)::iterator, instances);
+        section.writeNumbers(relations.stream().map(Relation::getDestination)::iterator, instances);
+        // derived uris are derived again when reading
+        section.writeColumn(relations, r -> r.isDerived() ? 0 : this.string(r.getURI()));
+        return section;
+    }
+
+    private Section writeTypes() throws IconDatabaseException {
+        Section section = new Section(ToloFormat.TYPES);
+        List<InstanceTypeConfiguration> types = new ArrayList<>(this.configuration.getInstanceTypes());
+        Numbering<DefaultHandler> handlers = new Numbering<>(this.configuration.getHandlers());
+        types.stream().map(InstanceTypeConfiguration::getHandler).filter(h -> h != null).forEach(handlers::number);
+        section.writeVarInt(handlers.size());
+        section.writeColumn(handlers.elements, h -> this.string(h.getName()));
+
+        section.writeVarInt(types.size());
+        section.writeColumn(types, t -> this.string(t.getIRI()));
+        for (InstanceTypeConfiguration type : types) {
+            section.writeVarInt(this.icon(type));
+        }
+        section.writeColumn(types, t -> (t.getHandler() == null) ? 0 : (handlers.numbers.get(t.getHandler()) + 1));
+        section.writeColumn(types, t -> t.getActiveValues().size());
+        for (InstanceTypeConfiguration type : types) {
+            section.writeColumn(type.getActiveValues(), v -> this.string(v.getURI()));
+        }
+        return section;
+    }
+
+    private Section writeIcons() {
+        Section section = new Section(ToloFormat.ICONS);
+        List<Pair<ByteBuffer, String>> icons = new ArrayList<>(this.iconNumbers.keySet());
+        icons.sort((a, b) -> Integer.compare(this.iconNumbers.get(a), this.iconNumbers.get(b)));
+        section.writeVarInt(icons.size());
+        section.writeColumn(icons, i -> this.string(i.getValue1()));
+        section.writeColumn(icons, i -> i.getValue0().remaining());
+        icons.forEach(i -> section.writeBytes(i.getValue0().array()));
+        return section;
+    }
+
+    private Section writeRelationTypes() {
+        Section section = new Section(ToloFormat.RELATION_TYPES);
+        List<RelationTypeConfiguration> types = new ArrayList<>(this.configuration.getRelationTypes());
+        types.stream().map(RelationTypeConfiguration::getStyle).filter(s -> s != null)
+                .forEach(this.styles::number);
+        section.writeVarInt(this.styles.size());
+        section.writeColumn(this.styles.elements, s -> ToloWriter.color(s.getColor()));
+        section.writeColumn(this.styles.elements, s -> s.getShape().map(e -> e.ordinal() + 1).orElse(0));
+        section.writeColumn(this.styles.elements, s -> s.getStroke().map(e -> e.ordinal() + 1).orElse(0));
+        section.writeColumn(this.styles.elements,
+                s -> (s.isReversed() == null) ? 0 : (s.isReversed().booleanValue() ? 2 : 1));
+
+        section.writeVarInt(types.size());
+        section.writeColumn(types, t -> this.string(t.getURI()));
+        section.writeColumn(types, t -> t.isVisible() ? 1 : 0);
+        section.writeColumn(types, t -> (t.getStyle() == null) ? 0 : (this.styles.numbers.get(t.getStyle()) + 1));
+        return section;
+    }
+
+    private Section writeMarks() {
+        Section section = new Section(ToloFormat.MARKS);
+        section.writeVarInt(this.marks.size());
+        section.writeColumn(this.marks.elements, m -> ToloWriter.color(m.getColor()));
+        section.writeColumn(this.marks.elements, m -> m.getShape().map(e -> e.ordinal() + 1).orElse(0));
+        section.writeColumn(this.marks.elements, m -> m.getStroke().map(e -> e.ordinal() + 1).orElse(0));
+        return section;
+    }
+
+    private Section writeGroups() {
+        Section section = new Section(ToloFormat.GROUPS);
+        List<Group> groups = new ArrayList<>(this.configuration.getGroups());
+        section.writeVarInt(groups.size());
+        section.writeColumn(groups, g -> this.string(g.getName()));
+        section.writeColumn(groups, g -> this.marks.numbers.get(g.getMark()));
+        section.writeColumn(groups, g -> g.getInstances().size());
+        for (Group group : groups) {
+            section.writeColumn(group.getInstances(), i -> this.string(i.getURI()));
+        }
+        return section;
+    }
+
+    private Section writeInstances() {
+        Section section = new Section(ToloFormat.INSTANCES);
+        List<InstanceConfiguration> instances = new ArrayList<>(this.configuration.getInstances());
+        section.writeVarInt(instances.size());
+        section.writeColumn(instances, i -> this.string(i.getURI()));
+        for (InstanceConfiguration instance : instances) {
+            section.write((instance.isVisible() ? ToloFormat.VISIBLE : 0)
+                    | (this.configuration.getHiddenInstances().contains(instance) ? ToloFormat.HIDDEN : 0)
+                    | ((instance.getStoredPosition() != null) ? ToloFormat.POSITION : 0)
+                    | ((instance.getDefaultPosition() != null) ? ToloFormat.DEFAULT_POSITION : 0));
+        }
+        for (InstanceConfiguration instance : instances) {
+            section.writePoint(instance.getStoredPosition());
+        }
+        for (InstanceConfiguration instance : instances) {
+            section.writePoint(instance.getDefaultPosition());
+        }
+        section.writeColumn(instances, i -> i.getMarks().size());
+        for (InstanceConfiguration instance : instances) {
+            section.writeColumn(instance.getMarks(), this.marks.numbers::get);
+        }
+        return section;
+    }
+
+    private Section writeSettings() {
+        Section section = new Section(ToloFormat.SETTINGS);
+        section.writeVarInt(this.configuration.getDepth());
+        section.writeVarInt(this.configuration.getmaxParallelRelations());
+        CameraConfiguration camera = this.configuration.getCameraConfiguration();
+        section.writeVarInt(camera.getWidth());
+        section.writeVarInt(camera.getHeight());
+        section.writeVarInt(camera.getZoom());
+        section.writeDouble(camera.getCenter().getX());
+        section.writeDouble(camera.getCenter().getY());
+        return section;
+    }
+
+    /**
+     * Gets the number of a string in the string table, adding it if it is not
+     * there yet.
+     *
+     * @param string the string
+     * @return the number of the string, starting with 1, or 0 for {@code null}
+     */
+    private int string(String string) {
+        if (string == null) {
+            return 0;
+        }
+        return this.stringNumbers.computeIfAbsent(string, s -> {
+            this.strings.add(s);
+            return Integer.valueOf(this.strings.size());
+        }).intValue();
+    }
+
+    /**
+     * Gets the number of the icon of a type in the icon table, adding it if its
+     * content is not there yet.
+     *
+     * @param type the type
+     * @return the number of the icon, starting with 1, or 0 if the type has
+     *         none that can be stored
+     * @throws IconDatabaseException if the content of the icon can not be read
+     */
+    private int icon(InstanceTypeConfiguration type) throws IconDatabaseException {
+        Pair<byte[], String> content = IconDatabase.getContent(type.getIcon());
+        if (content == null) {
+            return 0;
+        }
+        return this.iconNumbers.computeIfAbsent(new Pair<>(ByteBuffer.wrap(content.getValue0()), content.getValue1()),
+                i -> Integer.valueOf(this.iconNumbers.size() + 1)).intValue();
+    }
+
+    /**
+     * Sorts elements of the ontology, so that the same ontology is always
+     * written the same way.
+     *
+     * @param <T>      the type of the elements
+     * @param elements the elements
+     * @param key      the IRI or URI of an element
+     * @return the elements in the order of their IRIs or URIs
+     */
+    private static <T> List<T> sorted(Collection<? extends T> elements, Function<? super T, String> key) {
+        List<T> result = new ArrayList<>(elements);
+        result.sort(Comparator.comparing(key));
+        return result;
+    }
+
+    /**
+     * Packs a color into an int.
+     *
+     * @param color the color
+     * @return the red, green and blue part plus one, or 0 if there is no color
+     */
+    private static int color(Optional<Color> color) {
+        return color.map(c -> ((c.getRed() << 16) | (c.getGreen() << 8) | c.getBlue()) + 1).orElse(0);
+    }
+
+    /**
+     * Numbers elements by identity, in the order they are added.
+     *
+     * @param <T> the type of the elements
+     */
+    private static final class Numbering<T> {
+        private final List<T> elements = new ArrayList<>();
+        private final Map<T, Integer> numbers = new IdentityHashMap<>();
+
+        Numbering() {
+        }
+
+        Numbering(Collection<? extends T> elements) {
+            elements.forEach(this::number);
+        }
+
+        int number(T element) {
+            return this.numbers.computeIfAbsent(element, e -> {
+                this.elements.add(e);
+                return Integer.valueOf(this.elements.size() - 1);
+            }).intValue();
+        }
+
+        int size() {
+            return this.elements.size();
+        }
+    }
+
+    /**
+     * The content of a section while it is built.
+     */
+    private static final class Section extends ByteArrayOutputStream {
+        private final byte id;
+
+        Section(byte id) {
+            super(1024);
+            this.id = id;
+        }
+
+        void writeVarInt(int value) {
+            int rest = value;
+            while ((rest & ~0x7F) != 0) {
+                this.write((rest & 0x7F) | 0x80);
+                rest >>>= 7;
+            }
+            this.write(rest);
+        }
+
+        void writeDouble(double value) {
+            long bits = Double.doubleToLongBits(value);
+            for (int shift = Long.SIZE - Byte.SIZE; shift >= 0; shift -= Byte.SIZE) {
+                this.write((int) (bits >>> shift));
+            }
+        }
+
+        /**
+         * Writes the coordinates of a point, or nothing if there is none.
+         *
+         * @param point the point, may be {@code null}
+         */
+        void writePoint(Point point) {
+            if (point != null) {
+                this.writeDouble(point.getX());
+                this.writeDouble(point.getY());
+            }
+        }
+
+        <T> void writeColumn(Iterable<T> elements, ToIntFunction<? super T> property) {
+            for (T element : elements) {
+                this.writeVarInt(property.applyAsInt(element));
+            }
+        }
+
+        /**
+         * Writes the numbers of elements that have to be known already.
+         *
+         * @param <T>       the type of the elements
+         * @param elements  the elements
+         * @param numbering the known elements
+         * @throws IOException if an element is not known, then the ontology
+         *                     refers to elements it does not contain
+         */
+        <T> void writeNumbers(Iterable<? extends T> elements, Numbering<T> numbering) throws IOException {
+            for (T element : elements) {
+                Integer number = numbering.numbers.get(element);
+                if (number == null) {
+                    throw new IOException("The ontology does not contain " + element); //$NON-NLS-1$
+                }
+                this.writeVarInt(number.intValue());
+            }
+        }
+
+        ByteBuffer header() {
+            return ByteBuffer.allocate(ToloFormat.SECTION_HEADER).put(this.id).putInt(this.count).flip();
+        }
+
+        ByteBuffer content() {
+            return ByteBuffer.wrap(this.buf, 0, this.count);
+        }
+    }
+}
@@ -74,6 +74,34 @@ class Icon implements IconInterface {
         this.path = path;
     }
 
+    /**
+     * Constructs an icon from its content, for example from a configuration
+     * file. It has no path until it is imported into the database.
+     *
+     * @param type     the instance type the icon is associated with
+     * @param content  the content of the file
+     * @param filetype the filetype
+     */
+    Icon(InstanceType type, byte[] content, String filetype) {
+        this.instanceType = type;
+        this.content = content;
+        this.filetype = filetype;
+    }
+
+    /**
+     * Imports this icon into the database, like a deserialized icon.
+     */
+    void importIntoDatabase() {
+        if (Icon.database == null) {
+            return;
+        }
+        try {
+            this.path = Icon.database.importIcon(this);
+        } catch (@SuppressWarnings("unused") IconDatabaseException e) {
+            // nothing here
+        }
+    }
+
     // XXX this static method is quite ugly but needed because icons are not
     // linked to an IconDatabase after deserialization
     /**
@@ -163,11 +191,7 @@ class Icon implements IconInterface {
 
     private void readObject(ObjectInputStream input) throws ClassNotFoundException, IOException {
         input.defaultReadObject();
-        try {
-            this.path = Icon.database.importIcon(this);
-        } catch (@SuppressWarnings("unused") IconDatabaseException e) {
-            // nothing here
-        }
+        this.importIntoDatabase();
     }
 
     private void writeObject(ObjectOutputStream output) throws IOException {
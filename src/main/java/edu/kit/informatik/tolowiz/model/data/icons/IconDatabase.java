@@ -69,6 +69,43 @@ public class IconDatabase implements IconDatabaseInterface {
         }
     }
 
+    /**
+     * Gets the content and the filetype of an icon, so that it can be stored
+     * outside of the database, for example in a configuration file.
+     *
+     * @param icon the icon
+     * @return the content and the filetype, or {@code null} if the icon does
+     * not come from an icon database
+     * @throws IconDatabaseException if the content can not be read
+     * @see #restoreIcon(InstanceType, byte[], String)
+     */
+    public static Pair<byte[], String> getContent(IconInterface icon)
+            throws IconDatabaseException {
+        if (!(icon instanceof Icon)) {
+            return null;
+        }
+        Icon stored = (Icon) icon;
+        return new Pair<>(stored.getContent(), stored.getFileType());
+    }
+
+    /**
+     * Restores an icon that was stored outside of the database. Like the icons
+     * of deserialized configurations, it is imported into the database that
+     * was created last, if the database does not have it yet.
+     *
+     * @param type the type the icon is associated with
+     * @param content the content of the icon
+     * @param filetype the filetype
+     * @return the icon
+     * @see #getContent(IconInterface)
+     */
+    public static IconInterface restoreIcon(InstanceType type, byte[] content,
+            String filetype) {
+        Icon icon = new Icon(type, content, filetype);
+        icon.importIntoDatabase();
+        return icon;
+    }
+
     private List<Icon> getAllByType(InstanceType type)
             throws IconDatabaseException {
         List<Icon> icons = new LinkedList<>();
@@ -0,0 +1,305 @@
+/*
+ * Copyright 2020 Anne Bernhart, Anja Hansen, Tobias Klumpp, Fabian Palitza,
+ * Florian Patzer, Friedrich Volz, Sandra Wolf
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package edu.kit.informatik.tolowiz.model.ontology;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A hash set that stores its elements in a single array with open addressing.
+ * Unlike a {@link java.util.HashSet} it needs no entry object per element, so
+ * the sets of large ontologies (the relations of every type and instance, the
+ * members of every type) take a fraction of the memory. Empty sets allocate no
+ * array at all.<br>
+ * <br>
+ * After deserialization, the elements are hashed once the whole object graph
+ * is read, since the elements of an ontology reference each other and may not
+ * be complete while the set is read. Lookups never change the set, so it can
+ * be read by several threads; like a {@link java.util.HashSet}, it is not
+ * thread-safe when it is modified.
+ *
+ * @param <E> the type of the elements
+ */
+final class CompactSet<E> extends AbstractSet<E> implements Serializable {
+    private static final long serialVersionUID = -2385406193476117408L;
+
+    /**
+     * Marks a slot whose element was removed, so that lookups probe past it.
+     */
+    private static final Object REMOVED = new Object();
+
+    private transient Object[] table;
+    private transient int size;
+    private transient int used;
+    private transient boolean hashed = true;
+    private transient int modCount;
+
+    /**
+     * Creates an empty set.
+     */
+    CompactSet() {
+    }
+
+    /**
+     * Creates a set containing the given elements.
+     *
+     * @param elements the elements
+     */
+    CompactSet(Collection<? extends E> elements) {
+        if (!elements.isEmpty()) {
+            this.table = new Object[CompactSet.capacityFor(elements.size())];
+        }
+        this.addAll(elements);
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return (o != null) && (this.size > 0) && (this.indexOf(o) >= 0);
+    }
+
+    @Override
+    public boolean add(E e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        this.ensureHashed();
+        if ((this.size > 0) && (this.indexOf(e) >= 0)) {
+            return false;
+        }
+        if ((this.table == null) || (((this.used + 1) * 4) > (this.table.length * 3))) {
+            this.rehash(CompactSet.capacityFor(this.size + 1));
+        }
+        int mask = this.table.length - 1;
+        int i = CompactSet.hash(e) & mask;
+        while ((this.table[i] != null) && (this.table[i] != CompactSet.REMOVED)) {
+            i = (i + 1) & mask;
+        }
+        if (this.table[i] == null) {
+            this.used++;
+        }
+        this.table[i] = e;
+        this.size++;
+        this.modCount++;
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if ((o == null) || (this.size == 0)) {
+            return false;
+        }
+        int i = this.indexOf(o);
+        if (i < 0) {
+            return false;
+        }
+        this.removeAt(i);
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        this.table = null;
+        this.size = 0;
+        this.used = 0;
+        this.hashed = true;
+        this.modCount++;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<>() {
+            // the table may be replaced by a rehash, but stays valid until the
+            // set is modified
+            private final Object[] tab = CompactSet.this.table;
+            private int next = this.advance(0);
+            private int last = -1;
+            private int expectedModCount = CompactSet.this.modCount;
+
+            private int advance(int from) {
+                int i = from;
+                while ((this.tab != null) && (i < this.tab.length)
+                        && ((this.tab[i] == null) || (this.tab[i] == CompactSet.REMOVED))) {
+                    i++;
+                }
+                return i;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return (this.tab != null) && (this.next < this.tab.length);
+            }
+
+            @SuppressWarnings("unchecked")
+            @Override
+            public E next() {
+                if (CompactSet.this.modCount != this.expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                this.last = this.next;
+                this.next = this.advance(this.next + 1);
+                return (E) this.tab[this.last];
+            }
+
+            @Override
+            public void remove() {
+                if (this.last < 0) {
+                    throw new IllegalStateException();
+                }
+                if (CompactSet.this.modCount != this.expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (CompactSet.this.table == this.tab) {
+                    CompactSet.this.removeAt(this.last);
+                } else {
+                    CompactSet.this.remove(this.tab[this.last]);
+                }
+                this.last = -1;
+                this.expectedModCount = CompactSet.this.modCount;
+            }
+        };
+    }
+
+    /**
+     * Finds the slot of an element.
+     *
+     * @param o the element
+     * @return the index of the slot, or -1 if the element is not in this set
+     */
+    private int indexOf(Object o) {
+        if (!this.hashed) {
+            // only while the object graph of the set is read
+            for (int i = 0; i < this.table.length; i++) {
+                Object current = this.table[i];
+                if ((current != null) && (current != CompactSet.REMOVED) && ((current == o) || current.equals(o))) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        int mask = this.table.length - 1;
+        int i = CompactSet.hash(o) & mask;
+        Object current;
+        while ((current = this.table[i]) != null) {
+            if ((current != CompactSet.REMOVED) && ((current == o) || current.equals(o))) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Removes the element of a slot.
+     *
+     * @param i the index of the slot
+     */
+    private void removeAt(int i) {
+        this.table[i] = CompactSet.REMOVED;
+        this.size--;
+        this.modCount++;
+        if (this.size == 0) {
+            this.table = null;
+            this.used = 0;
+            this.hashed = true;
+        }
+    }
+
+    /**
+     * Hashes the elements read by {@link #readObject}, once the object graph is
+     * complete or when the set is modified before.
+     */
+    private void ensureHashed() {
+        if (!this.hashed) {
+            this.hashed = true;
+            this.rehash(CompactSet.capacityFor(this.size));
+        }
+    }
+
+    /**
+     * Moves all elements into a new table, dropping removed slots. The old
+     * table is left untouched for running iterators.
+     *
+     * @param capacity the length of the new table, a power of two
+     */
+    private void rehash(int capacity) {
+        Object[] old = this.table;
+        this.table = new Object[capacity];
+        this.used = this.size;
+        if (old == null) {
+            return;
+        }
+        int mask = capacity - 1;
+        for (Object o : old) {
+            if ((o != null) && (o != CompactSet.REMOVED)) {
+                int i = CompactSet.hash(o) & mask;
+                while (this.table[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                this.table[i] = o;
+            }
+        }
+    }
+
+    /**
+     * @param elements the number of elements
+     * @return the smallest power of two that holds the elements at a load
+     *         factor of at most one half
+     */
+    private static int capacityFor(int elements) {
+        int capacity = 2;
+        while (capacity < (elements * 2)) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    /**
+     * @param o an element
+     * @return the spread hash code of the element
+     */
+    private static int hash(Object o) {
+        int h = o.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(this.size);
+        for (E e : this) {
+            out.writeObject(e);
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws ClassNotFoundException, IOException {
+        in.defaultReadObject();
+        int n = in.readInt();
+        this.size = n;
+        this.used = n;
+        this.hashed = (n == 0);
+        this.table = (n == 0 ? null : new Object[n]);
+        for (int i = 0; i < n; i++) {
+            this.table[i] = in.readObject();
+        }
+        if (n > 0) {
+            in.registerValidation(this::ensureHashed, 0);
+        }
+    }
+}
@@ -6,7 +6,6 @@
 package edu.kit.informatik.tolowiz.model.ontology;
 
 import java.io.Serializable;
-import java.util.HashSet;
 import java.util.Set;
 
 import org.javatuples.Pair;
@@ -46,8 +45,8 @@ public class Instance implements Serializable {
         this.name = name;
         this.uri = uri;
         this.types = types;
-        this.relations = (relations == null ? new HashSet<>() : relations);
-        this.values = (values == null ? new HashSet<>() : values);
+        this.relations = (relations == null ? new CompactSet<>() : relations);
+        this.values = (values == null ? new CompactSet<>() : values);
     }
 
     /**
@@ -59,8 +58,8 @@ public class Instance implements Serializable {
     Instance(String name, Set<InstanceType> types) {
         this.name = name;
         this.types = types;
-        this.relations = new HashSet<>();
-        this.values = new HashSet<>();
+        this.relations = new CompactSet<>();
+        this.values = new CompactSet<>();
     }
 
     @Override
@@ -163,6 +162,15 @@ public class Instance implements Serializable {
         this.relations.add(newRelation);
     }
 
+    /**
+     * Removes a relation that no longer concerns this instance.
+     *
+     * @param relation the relation that should be removed.
+     */
+    void removeRelation(Relation relation) {
+        this.relations.remove(relation);
+    }
+
     /**
      * Adds a new value and it's content.
      *
@@ -44,7 +44,7 @@ public class InstanceType implements Serializable {
         this.values = (values != null ? values : new HashSet<>());
         this.superTypes = (superTypes != null ? superTypes : new HashSet<>());
         this.subTypes = (subTypes != null ? subTypes : new HashSet<>());
-        this.instances = (instances != null ? instances : new HashSet<>());
+        this.instances = (instances != null ? instances : new CompactSet<>());
         this.iri = iri;
     }
 
@@ -156,6 +156,15 @@ public class InstanceType implements Serializable {
         this.instances.add(newInstance);
     }
 
+    /**
+     * Removes an instance from the type's set of instances
+     *
+     * @param instance The instance to remove.
+     */
+    void removeInstance(Instance instance) {
+        this.instances.remove(instance);
+    }
+
     /**
      * Adds a ValueType to this InstanceType. All Instances of this InstanceType
      * will have a value of this ValueType.
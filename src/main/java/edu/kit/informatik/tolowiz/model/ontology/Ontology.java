@@ -5,8 +5,14 @@
  */
 package edu.kit.informatik.tolowiz.model.ontology;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.javatuples.Pair;
@@ -29,6 +35,22 @@ public class Ontology implements Serializable {
     private String iri;
     private String name;
 
+    /**
+     * Indexes of the elements by their IRI or URI. They are rebuilt after
+     * deserialization.
+     */
+    private transient Map<String, InstanceType> typesByIRI;
+    private transient Map<String, Instance> instancesByURI;
+    private transient Map<String, ValueType> valueTypesByURI;
+    private transient Map<String, RelationType> relationTypesByURI;
+    private transient OntologyDictionary dictionary;
+    private transient TypeHierarchy hierarchy;
+    /**
+     * The hash of the saved content of this ontology, or {@code null} if it is
+     * not known. It is reset when changes are applied.
+     */
+    private transient String contentHash;
+
     /**
      * Create an ontology with the specific iri
      *
@@ -36,13 +58,55 @@ public class Ontology implements Serializable {
      * @param name of the Ontology file
      */
     public Ontology(String iri, String name) {
-        this.types = new HashSet<>();
-        this.instances = new HashSet<>();
-        this.valueTypes = new HashSet<>();
-        this.relations = new HashSet<>();
-        this.relationTypes = new HashSet<>();
+        this.types = new CompactSet<>();
+        this.instances = new CompactSet<>();
+        this.valueTypes = new CompactSet<>();
+        this.relations = new CompactSet<>();
+        this.relationTypes = new CompactSet<>();
         this.iri = iri;
         this.name = name;
+        this.dictionary = new OntologyDictionary();
+        this.index();
+    }
+
+    /**
+     * Create an ontology from elements which are already connected, used by the
+     * {@link OntologyBuilder}.
+     *
+     * @param iri           the iri of this Ontology derived from the file
+     * @param name          of the Ontology file
+     * @param types         all InstanceTypes
+     * @param instances     all Instances
+     * @param valueTypes    all ValueTypes
+     * @param relations     all Relations
+     * @param relationTypes all RelationTypes
+     * @param dictionary    the dictionary the elements were created with
+     */
+    Ontology(String iri, String name, Set<InstanceType> types, Set<Instance> instances, Set<ValueType> valueTypes,
+            Set<Relation> relations, Set<RelationType> relationTypes, OntologyDictionary dictionary) {
+        this.types = types;
+        this.instances = instances;
+        this.valueTypes = valueTypes;
+        this.relations = relations;
+        this.relationTypes = relationTypes;
+        this.iri = iri;
+        this.name = name;
+        this.dictionary = dictionary;
+        this.index();
+    }
+
+    /**
+     * Builds the indexes of all elements by their IRI or URI.
+     */
+    private void index() {
+        this.typesByIRI = new HashMap<>();
+        this.types.forEach(t -> this.typesByIRI.put(t.getIRI(), t));
+        this.instancesByURI = new HashMap<>();
+        this.instances.forEach(i -> this.instancesByURI.put(i.getURI(), i));
+        this.valueTypesByURI = new HashMap<>();
+        this.valueTypes.forEach(v -> this.valueTypesByURI.put(v.getURI(), v));
+        this.relationTypesByURI = new HashMap<>();
+        this.relationTypes.forEach(r -> this.relationTypesByURI.put(r.getURI(), r));
     }
 
     /**
@@ -79,37 +143,22 @@ public class Ontology implements Serializable {
      */
     public Instance addInstance(String name, String uri, Set<InstanceType> types, Set<Relation> relations,
             Set<Pair<ValueType, String>> values) {
-        Instance newInstance = new Instance(name, uri, types, relations, values);
+        Instance newInstance = new Instance(name, uri, this.dictionary.types(types), relations,
+                this.dictionary.values(values));
+        TypeHierarchy closure = this.getTypeHierarchy();
         for (InstanceType type : types) {
-            type.addInstance(newInstance);
             for (Pair<ValueType, String> pair : values) {
                 type.addValue(pair.getValue0());
             }
-            this.addInstanceToSuperTypes(newInstance, type);
+            for (InstanceType superType : closure.getClosure(type)) {
+                superType.addInstance(newInstance);
+            }
         }
         this.instances.add(newInstance);
+        this.instancesByURI.put(uri, newInstance);
         return newInstance;
     }
 
-    /**
-     * adds an Instance to the Instance-Set of all supertypes of this Instance
-     *
-     * @param ins  the instance
-     * @param type the direct supertype of the instance
-     */
-    private void addInstanceToSuperTypes(Instance ins, InstanceType type) {
-        Set<InstanceType> types = type.getSuperTypes();
-        for (InstanceType currentType : types) {
-            currentType.addInstance(ins);
-            for (Pair<ValueType, String> pair : ins.getValues()) {
-                type.addValue(pair.getValue0());
-            }
-            if (!currentType.getSuperTypes().isEmpty()) {
-                this.addInstanceToSuperTypes(ins, currentType);
-            }
-        }
-    }
-
     @Override
     public int hashCode() {
 
@@ -187,13 +236,98 @@ public class Ontology implements Serializable {
      * @return the newly created relation object
      */
     public Relation addRelation(String uri, RelationType type, Instance origin, Instance destination) {
-        Relation newRelation = new Relation(uri, type, origin, destination);
+        return this.addRelation(new Relation(uri, type, origin, destination));
+    }
+
+    /**
+     * Adds a new Relation to the ontology. Its uri is derived from the type and
+     * the uris of both instances, leaving out the iri of this ontology, and is
+     * not stored.
+     *
+     * @param type        the type of the new Relation
+     * @param origin      the Instance this Relation originates from
+     * @param destination the destination Instance of this Relation
+     * @return the newly created relation object
+     */
+    public Relation addRelation(RelationType type, Instance origin, Instance destination) {
+        return this.addRelation(new Relation(type, origin, destination, this.iri));
+    }
+
+    /**
+     * Registers a new Relation at the ontology, its type and its origin.
+     *
+     * @param newRelation the relation
+     * @return the relation
+     */
+    private Relation addRelation(Relation newRelation) {
         this.relations.add(newRelation);
-        type.addRelations(newRelation);
-        origin.addRelation(newRelation);
+        newRelation.getRelationType().addRelations(newRelation);
+        newRelation.getOrigin().addRelation(newRelation);
         return newRelation;
     }
 
+    /**
+     * Applies the changes of a new version of this ontology. The delta has to be
+     * computed against this ontology, see {@link OntologyDelta#between}. Added
+     * instances and relations are recreated with the types of this ontology, so
+     * all unchanged objects stay the same.
+     *
+     * @param delta the changes
+     * @return the changes as objects of this ontology
+     * @throws IllegalArgumentException if the schema of the ontology changed
+     */
+    public OntologyDelta applyDelta(OntologyDelta delta) {
+        if (delta.isSchemaChanged()) {
+            throw new IllegalArgumentException("the schema of the ontology changed"); //$NON-NLS-1$
+        }
+        this.contentHash = null;
+        for (Relation relation : delta.getRemovedRelations()) {
+            this.relations.remove(relation);
+            relation.getRelationType().removeRelation(relation);
+            relation.getOrigin().removeRelation(relation);
+        }
+        for (Instance instance : delta.getRemovedInstances()) {
+            this.instances.remove(instance);
+            this.instancesByURI.remove(instance.getURI());
+            for (InstanceType type : instance.getType()) {
+                this.removeInstanceFromTypes(instance, type);
+            }
+        }
+
+        List<Instance> addedInstances = new LinkedList<>();
+        for (Instance instance : delta.getAddedInstances()) {
+            Set<InstanceType> instanceTypes = new HashSet<>();
+            instance.getType().forEach(t -> instanceTypes.add(this.typesByIRI.get(t.getIRI())));
+            Set<Pair<ValueType, String>> values = new HashSet<>();
+            instance.getValues().forEach(v -> values.add(
+                    new Pair<>(this.valueTypesByURI.get(v.getValue0().getURI()), v.getValue1())));
+            Instance added = this.addInstance(instance.getName(), instance.getURI(), instanceTypes, null, values);
+            addedInstances.add(added);
+        }
+        List<Relation> addedRelations = new LinkedList<>();
+        for (Relation relation : delta.getAddedRelations()) {
+            RelationType type = this.relationTypesByURI.get(relation.getRelationType().getURI());
+            Instance origin = this.instancesByURI.get(relation.getOrigin().getURI());
+            Instance destination = this.instancesByURI.get(relation.getDestination().getURI());
+            addedRelations.add(relation.isDerived() ? this.addRelation(type, origin, destination)
+                    : this.addRelation(relation.getURI(), type, origin, destination));
+        }
+        return new OntologyDelta(delta.getRemovedInstances(), addedInstances, delta.getRemovedRelations(),
+                addedRelations, false);
+    }
+
+    /**
+     * removes an Instance from the Instance-Set of a type and all its supertypes
+     *
+     * @param ins  the instance
+     * @param type the type of the instance
+     */
+    private void removeInstanceFromTypes(Instance ins, InstanceType type) {
+        for (InstanceType superType : this.getTypeHierarchy().getClosure(type)) {
+            superType.removeInstance(ins);
+        }
+    }
+
     /**
      * Adds a new type of relation to the ontology.
      *
@@ -204,6 +338,7 @@ public class Ontology implements Serializable {
     public RelationType addRelationType(String name, String uri) {
         RelationType newRelationType = new RelationType(name, uri);
         this.relationTypes.add(newRelationType);
+        this.relationTypesByURI.put(uri, newRelationType);
         return newRelationType;
     }
 
@@ -221,6 +356,8 @@ public class Ontology implements Serializable {
             Set<InstanceType> subTypes, Set<Instance> instances, String iri) {
         InstanceType newType = new InstanceType(name, values, superTypes, subTypes, instances, iri);
         this.types.add(newType);
+        this.typesByIRI.put(iri, newType);
+        this.hierarchy = null;
         return newType;
     }
 
@@ -232,6 +369,7 @@ public class Ontology implements Serializable {
     public ValueType addValueType(String name, String uri) {
         ValueType newValueType = new ValueType(name, uri);
         this.valueTypes.add(newValueType);
+        this.valueTypesByURI.put(uri, newValueType);
         return newValueType;
     }
 
@@ -270,6 +408,38 @@ public class Ontology implements Serializable {
         return this.valueTypes;
     }
 
+    /**
+     * @param uri the uri of the instance
+     * @return the Instance with this uri, or {@code null} if there is none
+     */
+    public Instance getInstanceByURI(String uri) {
+        return this.instancesByURI.get(uri);
+    }
+
+    /**
+     * @param iri the iri of the type
+     * @return the InstanceType with this iri, or {@code null} if there is none
+     */
+    public InstanceType getTypeByIRI(String iri) {
+        return this.typesByIRI.get(iri);
+    }
+
+    /**
+     * @param uri the uri of the type
+     * @return the RelationType with this uri, or {@code null} if there is none
+     */
+    public RelationType getRelationTypeByURI(String uri) {
+        return this.relationTypesByURI.get(uri);
+    }
+
+    /**
+     * @param uri the uri of the type
+     * @return the ValueType with this uri, or {@code null} if there is none
+     */
+    public ValueType getValueTypeByURI(String uri) {
+        return this.valueTypesByURI.get(uri);
+    }
+
     /**
      * Adds a new subtype to the given type.
      *
@@ -288,6 +458,31 @@ public class Ontology implements Serializable {
      */
     public void addSuperType(InstanceType type, InstanceType superType) {
         type.addSuperType(superType);
+        this.hierarchy = null;
+    }
+
+    /**
+     * Returns the dictionary that shares the values and type sets of the
+     * instances of this ontology. After deserialization it only contains the
+     * elements added since.
+     *
+     * @return the dictionary
+     */
+    public OntologyDictionary getDictionary() {
+        return this.dictionary;
+    }
+
+    /**
+     * Returns the transitive closure of the type hierarchy. It is computed on
+     * the first call and again after types or supertypes were added.
+     *
+     * @return the closure of the type hierarchy
+     */
+    public TypeHierarchy getTypeHierarchy() {
+        if (this.hierarchy == null) {
+            this.hierarchy = new TypeHierarchy(this.types);
+        }
+        return this.hierarchy;
     }
 
     /**
@@ -299,4 +494,30 @@ public class Ontology implements Serializable {
         return this.iri;
     }
 
+    /**
+     * Returns the hash of the saved content of this ontology, as it was
+     * remembered by {@link #setContentHash(String)}.
+     *
+     * @return the hash, or {@code null} if it is not known or the ontology
+     *         changed since
+     */
+    public String getContentHash() {
+        return this.contentHash;
+    }
+
+    /**
+     * Remembers the hash of the saved content of this ontology, so that it does
+     * not have to be computed again every time the ontology is saved.
+     *
+     * @param contentHash the hash
+     */
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    private void readObject(ObjectInputStream in) throws ClassNotFoundException, IOException {
+        in.defaultReadObject();
+        this.dictionary = new OntologyDictionary();
+        this.index();
+    }
 }
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2020 Anne Bernhart, Anja Hansen, Tobias Klumpp, Fabian Palitza,
+ * Florian Patzer, Friedrich Volz, Sandra Wolf
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package edu.kit.informatik.tolowiz.model.ontology;
+
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.javatuples.Pair;
+
+/**
+ * Collects the elements of an ontology from any number of threads and freezes
+ * them into an {@link Ontology} afterwards.<br>
+ * <br>
+ * All add methods may be called concurrently. They only create the new objects
+ * and put them into concurrent collections; the connections between the
+ * objects (type hierarchy, members of types, relations of instances) are made
+ * by {@link #build()}, which has to be called once after all threads are
+ * done. The resulting ontology is the same as if all elements had been added
+ * to an {@link Ontology} one after the other.
+ */
+public class OntologyBuilder {
+    private final String iri;
+    private final String name;
+    private final ConcurrentMap<String, InstanceType> types = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ValueType> valueTypes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, RelationType> relationTypes = new ConcurrentHashMap<>();
+    private final Queue<Pair<InstanceType, InstanceType>> superTypes = new ConcurrentLinkedQueue<>();
+    private final Queue<Pair<InstanceType, ValueType>> typeValues = new ConcurrentLinkedQueue<>();
+    private final Queue<Instance> instances = new ConcurrentLinkedQueue<>();
+    private final Queue<Relation> relations = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean built = new AtomicBoolean(false);
+    private final OntologyDictionary dictionary = new OntologyDictionary();
+
+    /**
+     * Creates a builder for an ontology with the specific iri.
+     *
+     * @param iri  the iri of the Ontology derived from the file
+     * @param name of the Ontology file
+     */
+    public OntologyBuilder(String iri, String name) {
+        this.iri = iri;
+        this.name = name;
+    }
+
+    /**
+     * Adds a new type of instances. Adding a type with an iri that is already
+     * known returns the existing type.
+     *
+     * @param name the name of the type
+     * @param iri  the iri of the type
+     * @return the InstanceType object for this iri
+     */
+    public InstanceType addType(String name, String iri) {
+        this.checkNotBuilt();
+        return this.types.computeIfAbsent(iri, k -> new InstanceType(name, null, null, null, null, iri));
+    }
+
+    /**
+     * Adds a new type of values. Adding a type with a uri that is already known
+     * returns the existing type.
+     *
+     * @param name the name of the type
+     * @param uri  the uri of the type
+     * @return the ValueType object for this uri
+     */
+    public ValueType addValueType(String name, String uri) {
+        this.checkNotBuilt();
+        return this.valueTypes.computeIfAbsent(uri, k -> new ValueType(name, uri));
+    }
+
+    /**
+     * Adds a new type of relations. Adding a type with a uri that is already
+     * known returns the existing type.
+     *
+     * @param name the name of the type
+     * @param uri  the uri of the type
+     * @return the RelationType object for this uri
+     */
+    public RelationType addRelationType(String name, String uri) {
+        this.checkNotBuilt();
+        return this.relationTypes.computeIfAbsent(uri, k -> new RelationType(name, uri));
+    }
+
+    /**
+     * Registers a type as the direct supertype of another type. The supertype
+     * and subtype sets of both types are filled by {@link #build()}.
+     *
+     * @param type      the subtype
+     * @param superType the supertype
+     */
+    public void addSuperType(InstanceType type, InstanceType superType) {
+        this.checkNotBuilt();
+        this.superTypes.add(new Pair<>(type, superType));
+    }
+
+    /**
+     * Registers a type of values for a type of instances. Types get the values
+     * of their instances anyway, so this is only needed for values no instance
+     * has.
+     *
+     * @param type  the type of instances
+     * @param value the type of values
+     */
+    public void addValue(InstanceType type, ValueType value) {
+        this.checkNotBuilt();
+        this.typeValues.add(new Pair<>(type, value));
+    }
+
+    /**
+     * Adds a new Instance. It is added to the members of its types and their
+     * supertypes by {@link #build()}.
+     *
+     * @param name   the name of the new Instance
+     * @param uri    the uri
+     * @param types  the direct InstanceTypes of the new Instance
+     * @param values a Set of Pairs of ValueType and corresponding value as a
+     *               String
+     * @return the newly created Instance object
+     */
+    public Instance addInstance(String name, String uri, Set<InstanceType> types,
+            Set<Pair<ValueType, String>> values) {
+        this.checkNotBuilt();
+        Instance instance = new Instance(name, uri, this.dictionary.types(types), null,
+                this.dictionary.values(values));
+        this.instances.add(instance);
+        return instance;
+    }
+
+    /**
+     * Adds a new Relation. It is registered at its type and origin by
+     * {@link #build()}.
+     *
+     * @param uri         the uri of the relation
+     * @param type        the type of the new Relation
+     * @param origin      the Instance this Relation originates from
+     * @param destination the destination Instance of this Relation
+     * @return the newly created relation object
+     */
+    public Relation addRelation(String uri, RelationType type, Instance origin, Instance destination) {
+        this.checkNotBuilt();
+        Relation relation = new Relation(uri, type, origin, destination);
+        this.relations.add(relation);
+        return relation;
+    }
+
+    /**
+     * Adds a new Relation whose uri is derived from the type and the uris of
+     * both instances, see {@link Ontology#addRelation(RelationType, Instance,
+     * Instance)}. It is registered at its type and origin by {@link #build()}.
+     *
+     * @param type        the type of the new Relation
+     * @param origin      the Instance this Relation originates from
+     * @param destination the destination Instance of this Relation
+     * @return the newly created relation object
+     */
+    public Relation addRelation(RelationType type, Instance origin, Instance destination) {
+        this.checkNotBuilt();
+        Relation relation = new Relation(type, origin, destination, this.iri);
+        this.relations.add(relation);
+        return relation;
+    }
+
+    /**
+     * Returns the dictionary that shares the values and type sets of the added
+     * instances. It is handed over to the built ontology.
+     *
+     * @return the dictionary
+     */
+    public OntologyDictionary getDictionary() {
+        return this.dictionary;
+    }
+
+    /**
+     * Connects all added elements and freezes them into an ontology. Must only
+     * be called once, after all threads adding elements have finished.
+     *
+     * @return the ontology
+     * @throws IllegalStateException if the ontology was already built
+     */
+    public Ontology build() {
+        if (!this.built.compareAndSet(false, true)) {
+            throw new IllegalStateException("the ontology was already built"); //$NON-NLS-1$
+        }
+        for (Pair<InstanceType, InstanceType> pair : this.superTypes) {
+            pair.getValue0().addSuperType(pair.getValue1());
+            pair.getValue1().addSubType(pair.getValue0());
+        }
+        for (Pair<InstanceType, ValueType> pair : this.typeValues) {
+            pair.getValue0().addValue(pair.getValue1());
+        }
+        TypeHierarchy hierarchy = new TypeHierarchy(this.types.values());
+        for (Instance instance : this.instances) {
+            for (InstanceType type : instance.getType()) {
+                for (Pair<ValueType, String> pair : instance.getValues()) {
+                    type.addValue(pair.getValue0());
+                }
+                for (InstanceType superType : hierarchy.getClosure(type)) {
+                    superType.addInstance(instance);
+                }
+            }
+        }
+        for (Relation relation : this.relations) {
+            relation.getRelationType().addRelations(relation);
+            relation.getOrigin().addRelation(relation);
+        }
+        return new Ontology(this.iri, this.name, new CompactSet<>(this.types.values()),
+                new CompactSet<>(this.instances), new CompactSet<>(this.valueTypes.values()),
+                new CompactSet<>(this.relations), new CompactSet<>(this.relationTypes.values()), this.dictionary);
+    }
+
+    /**
+     * Makes sure no elements are added after the ontology was built.
+     *
+     * @throws IllegalStateException if the ontology was already built
+     */
+    private void checkNotBuilt() {
+        if (this.built.get()) {
+            throw new IllegalStateException("the ontology was already built"); //$NON-NLS-1$
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2020 Anne Bernhart, Anja Hansen, Tobias Klumpp, Fabian Palitza,
+ * Florian Patzer, Friedrich Volz, Sandra Wolf
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package edu.kit.informatik.tolowiz.model.ontology;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The difference between two versions of an ontology, compared by the URIs of
+ * their instances and relations.<br>
+ * <br>
+ * An instance counts as changed if its name, its types or its values differ; a
+ * changed instance is removed and added again. A relation counts as changed if
+ * its type or one of its ends differ. Deltas can only be applied if the schema
+ * (types, type hierarchy, value types and relation types) of both versions is
+ * the same, see {@link #isSchemaChanged()}.<br>
+ * <br>
+ * Deltas are computed with an {@link OntologyDigest} of the previous version,
+ * which can also be kept to compute the changes of later versions.
+ */
+public class OntologyDelta {
+    private final List<Instance> removedInstances;
+    private final List<Instance> addedInstances;
+    private final List<Relation> removedRelations;
+    private final List<Relation> addedRelations;
+    private final boolean schemaChanged;
+
+    /**
+     * Creates a delta.
+     *
+     * @param removedInstances the removed instances
+     * @param addedInstances   the added instances
+     * @param removedRelations the removed relations
+     * @param addedRelations   the added relations
+     * @param schemaChanged    whether the schema changed
+     */
+    OntologyDelta(List<Instance> removedInstances, List<Instance> addedInstances,
+            List<Relation> removedRelations, List<Relation> addedRelations, boolean schemaChanged) {
+        this.removedInstances = removedInstances;
+        this.addedInstances = addedInstances;
+        this.removedRelations = removedRelations;
+        this.addedRelations = addedRelations;
+        this.schemaChanged = schemaChanged;
+    }
+
+    /**
+     * Computes the changes from one version of an ontology to another.
+     *
+     * @param previous the previous version
+     * @param updated  the updated version
+     * @return the delta, containing the removed objects of the previous and the
+     *         added objects of the updated version
+     */
+    public static OntologyDelta between(Ontology previous, Ontology updated) {
+        return OntologyDigest.of(previous).changesTo(updated).resolve(previous);
+    }
+
+    /**
+     * Returns the instances that are no longer in the ontology.
+     *
+     * @return the removed instances
+     */
+    public List<Instance> getRemovedInstances() {
+        return Collections.unmodifiableList(this.removedInstances);
+    }
+
+    /**
+     * Returns the instances that are new in the ontology.
+     *
+     * @return the added instances
+     */
+    public List<Instance> getAddedInstances() {
+        return Collections.unmodifiableList(this.addedInstances);
+    }
+
+    /**
+     * Returns the relations that are no longer in the ontology. This includes
+     * all relations of removed instances.
+     *
+     * @return the removed relations
+     */
+    public List<Relation> getRemovedRelations() {
+        return Collections.unmodifiableList(this.removedRelations);
+    }
+
+    /**
+     * Returns the relations that are new in the ontology. This includes all
+     * relations of added instances.
+     *
+     * @return the added relations
+     */
+    public List<Relation> getAddedRelations() {
+        return Collections.unmodifiableList(this.addedRelations);
+    }
+
+    /**
+     * Returns whether types, value types or relation types changed. Such a delta
+     * can not be applied, the ontology has to be opened again.
+     *
+     * @return whether the schema changed
+     */
+    public boolean isSchemaChanged() {
+        return this.schemaChanged;
+    }
+
+    /**
+     * Returns whether both versions contain the same instances and relations.
+     *
+     * @return whether nothing changed
+     */
+    public boolean isEmpty() {
+        return this.removedInstances.isEmpty() && this.addedInstances.isEmpty()
+                && this.removedRelations.isEmpty() && this.addedRelations.isEmpty();
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2020 Anne Bernhart, Anja Hansen, Tobias Klumpp, Fabian Palitza,
+ * Florian Patzer, Friedrich Volz, Sandra Wolf
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package edu.kit.informatik.tolowiz.model.ontology;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.javatuples.Pair;
+
+/**
+ * Shares equal strings, values and type sets between the elements of an
+ * ontology. Large ontologies repeat the same literals (port numbers, protocol
+ * names) and the same combination of types for many instances; with the
+ * dictionary every distinct one is stored once.<br>
+ * <br>
+ * The shared objects stay shared when the ontology is serialized, since an
+ * object stream writes every object only once. The dictionary itself is not
+ * serialized. All methods may be called concurrently.
+ */
+public final class OntologyDictionary {
+    /**
+     * The estimated size of a string without its characters, in bytes.
+     */
+    private static final int STRING_SIZE = 40;
+    /**
+     * The estimated size of a pair, in bytes.
+     */
+    private static final int PAIR_SIZE = 24;
+    /**
+     * The estimated size of a set without its elements, in bytes.
+     */
+    private static final int SET_SIZE = 32;
+    /**
+     * The estimated size of an element of a set, in bytes.
+     */
+    private static final int ELEMENT_SIZE = 8;
+
+    private final ConcurrentMap<String, String> strings = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Pair<ValueType, String>, Pair<ValueType, String>> values = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Set<InstanceType>, Set<InstanceType>> typeSets = new ConcurrentHashMap<>();
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong savedBytes = new AtomicLong();
+
+    /**
+     * Returns the shared string equal to the given one.
+     *
+     * @param string a string, may be {@code null}
+     * @return the shared string, or {@code null} for {@code null}
+     */
+    public String intern(String string) {
+        if (string == null) {
+            return null;
+        }
+        this.lookups.incrementAndGet();
+        String shared = this.strings.putIfAbsent(string, string);
+        if (shared == null) {
+            return string;
+        }
+        this.hit(OntologyDictionary.STRING_SIZE + string.length());
+        return shared;
+    }
+
+    /**
+     * Returns the shared value of the given type and lexical form.
+     *
+     * @param type        the type of the value
+     * @param lexicalForm the lexical form of the value
+     * @return the shared pair of type and lexical form
+     */
+    public Pair<ValueType, String> value(ValueType type, String lexicalForm) {
+        return this.share(new Pair<>(type, lexicalForm));
+    }
+
+    /**
+     * Returns a set of the shared values equal to the given ones.
+     *
+     * @param values the values of an instance, may be {@code null}
+     * @return a new set containing the shared values
+     */
+    public Set<Pair<ValueType, String>> values(Set<Pair<ValueType, String>> values) {
+        Set<Pair<ValueType, String>> result = new CompactSet<>();
+        if (values != null) {
+            values.forEach(v -> result.add(this.share(v)));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the shared value equal to the given one.
+     *
+     * @param value a pair of type and lexical form
+     * @return the shared pair
+     */
+    private Pair<ValueType, String> share(Pair<ValueType, String> value) {
+        Pair<ValueType, String> shared = this.values.get(value);
+        if (shared == value) {
+            // already shared, e.g. by the interpreter
+            return shared;
+        }
+        this.lookups.incrementAndGet();
+        if (shared != null) {
+            this.hit(OntologyDictionary.PAIR_SIZE + OntologyDictionary.STRING_SIZE + value.getValue1().length());
+            return shared;
+        }
+        Pair<ValueType, String> copy = new Pair<>(value.getValue0(), this.intern(value.getValue1()));
+        shared = this.values.putIfAbsent(copy, copy);
+        return (shared != null ? shared : copy);
+    }
+
+    /**
+     * Returns the shared, unmodifiable set of types equal to the given one.
+     * Most instances of an ontology have one of a few combinations of types.
+     *
+     * @param types the types of an instance, may be {@code null}
+     * @return the shared set, or {@code null} for {@code null}
+     */
+    public Set<InstanceType> types(Set<InstanceType> types) {
+        if (types == null) {
+            return null;
+        }
+        this.lookups.incrementAndGet();
+        Set<InstanceType> shared = this.typeSets.get(types);
+        if (shared != null) {
+            this.hit(OntologyDictionary.SET_SIZE + (OntologyDictionary.ELEMENT_SIZE * types.size()));
+            return shared;
+        }
+        Set<InstanceType> copy = Collections.unmodifiableSet(new CompactSet<>(types));
+        shared = this.typeSets.putIfAbsent(copy, copy);
+        return (shared != null ? shared : copy);
+    }
+
+    /**
+     * Counts a lookup that found an existing object.
+     *
+     * @param bytes the estimated size of the object that is not stored again
+     */
+    private void hit(long bytes) {
+        this.hits.incrementAndGet();
+        this.savedBytes.addAndGet(bytes);
+    }
+
+    /**
+     * @return the number of lookups in this dictionary
+     */
+    public long getLookups() {
+        return this.lookups.get();
+    }
+
+    /**
+     * @return the number of lookups that returned an already stored object
+     */
+    public long getHits() {
+        return this.hits.get();
+    }
+
+    /**
+     * Returns an estimate of the memory saved by sharing objects, in bytes.
+     *
+     * @return the estimated number of bytes not used thanks to the dictionary
+     */
+    public long getSavedBytes() {
+        return this.savedBytes.get();
+    }
+
+    /**
+     * @return the number of distinct objects in this dictionary
+     */
+    public int size() {
+        return this.strings.size() + this.values.size() + this.typeSets.size();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d distinct of %d shared, about %d KiB saved", this.size(), //$NON-NLS-1$
+                this.getLookups(), this.getSavedBytes() / 1024);
+    }
+}
@@ -0,0 +1,284 @@
+/*
+ * Copyright 2020 Anne Bernhart, Anja Hansen, Tobias Klumpp, Fabian Palitza,
+ * Florian Patzer, Friedrich Volz, Sandra Wolf
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package edu.kit.informatik.tolowiz.model.ontology;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.javatuples.Pair;
+
+/**
+ * An immutable description of one version of an ontology, which the changes of
+ * a newer version can be computed against without reading the ontology
+ * again. Instances are described by their URI and a hash of their name, types
+ * and values, relations by their URI, their origin and a hash of their type and
+ * ends. The hashes have 64 bits, so that different versions of an instance
+ * practically never have the same hash.<br>
+ * <br>
+ * Only creating a digest reads its ontology. Afterwards it can be used on any
+ * thread, while the ontology changes.
+ *
+ * @see OntologyDelta#between
+ */
+public final class OntologyDigest {
+    /**
+     * The start value of the FNV-1a hash.
+     */
+    private static final long OFFSET = 0xcbf29ce484222325L;
+    /**
+     * The prime of the FNV-1a hash.
+     */
+    private static final long PRIME = 0x100000001b3L;
+
+    private final Set<String> schema;
+    private final Map<String, Long> instances;
+    private final Map<String, RelationEntry> relations;
+
+    /**
+     * Creates the digest of an ontology.
+     *
+     * @param ontology the ontology
+     */
+    private OntologyDigest(Ontology ontology) {
+        this.schema = OntologyDigest.schema(ontology);
+        this.instances = new HashMap<>();
+        ontology.getInstances().forEach(i -> this.instances.put(i.getURI(), OntologyDigest.hash(i)));
+        this.relations = new HashMap<>();
+        ontology.getRelations().forEach(r -> this.relations.put(r.getURI(),
+                new RelationEntry(r.getOrigin().getURI(), OntologyDigest.hash(r))));
+    }
+
+    /**
+     * Creates the digest of the current version of an ontology. The ontology
+     * must not change meanwhile.
+     *
+     * @param ontology the ontology
+     * @return the digest
+     */
+    public static OntologyDigest of(Ontology ontology) {
+        return new OntologyDigest(ontology);
+    }
+
+    /**
+     * Computes the changes from the described version of an ontology to
+     * another one. The removed instances and relations are only known by their
+     * URIs until the changes are resolved against the described ontology.
+     *
+     * @param updated the updated version, which must not change meanwhile
+     * @return the changes
+     */
+    public Changes changesTo(Ontology updated) {
+        boolean schemaChanged = !this.schema.equals(OntologyDigest.schema(updated));
+
+        Set<String> removedInstances = new HashSet<>(this.instances.keySet());
+        List<Instance> addedInstances = new LinkedList<>();
+        Set<String> unchanged = new HashSet<>();
+        for (Instance instance : updated.getInstances()) {
+            Long old = this.instances.get(instance.getURI());
+            if ((old != null) && (old.longValue() == OntologyDigest.hash(instance))) {
+                removedInstances.remove(instance.getURI());
+                unchanged.add(instance.getURI());
+            } else {
+                addedInstances.add(instance);
+            }
+        }
+
+        Map<String, String> removedRelations = new HashMap<>();
+        this.relations.forEach((uri, entry) -> removedRelations.put(uri, entry.origin));
+        List<Relation> addedRelations = new LinkedList<>();
+        for (Relation relation : updated.getRelations()) {
+            RelationEntry old = this.relations.get(relation.getURI());
+            if ((old != null) && (old.hash == OntologyDigest.hash(relation))
+                    && unchanged.contains(relation.getOrigin().getURI())
+                    && unchanged.contains(relation.getDestination().getURI())) {
+                removedRelations.remove(relation.getURI());
+            } else {
+                addedRelations.add(relation);
+            }
+        }
+
+        return new Changes(removedInstances, addedInstances, removedRelations, addedRelations, schemaChanged);
+    }
+
+    /**
+     * Hashes the name, the types and the values of an instance.
+     *
+     * @param instance the instance
+     * @return the hash
+     */
+    private static long hash(Instance instance) {
+        List<String> parts = new ArrayList<>();
+        instance.getType().forEach(t -> parts.add("T " + t.getIRI())); //$NON-NLS-1$
+        for (Pair<ValueType, String> value : instance.getValues()) {
+            parts.add("V " + value.getValue0().getURI() + " " + value.getValue1()); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        // the sets have no order
+        Collections.sort(parts);
+        long hash = OntologyDigest.hash(OntologyDigest.OFFSET, String.valueOf(instance.getName()));
+        for (String part : parts) {
+            hash = OntologyDigest.hash(hash, part);
+        }
+        return hash;
+    }
+
+    /**
+     * Hashes the type and the ends of a relation.
+     *
+     * @param relation the relation
+     * @return the hash
+     */
+    private static long hash(Relation relation) {
+        long hash = OntologyDigest.hash(OntologyDigest.OFFSET, relation.getRelationType().getURI());
+        hash = OntologyDigest.hash(hash, relation.getOrigin().getURI());
+        return OntologyDigest.hash(hash, relation.getDestination().getURI());
+    }
+
+    /**
+     * Continues a FNV-1a hash with a string and a separator.
+     *
+     * @param hash   the hash so far
+     * @param string the string
+     * @return the new hash
+     */
+    private static long hash(long hash, String string) {
+        long result = hash;
+        for (int i = 0; i < string.length(); i++) {
+            result = (result ^ string.charAt(i)) * OntologyDigest.PRIME;
+        }
+        return (result ^ '\n') * OntologyDigest.PRIME;
+    }
+
+    /**
+     * Describes the schema of an ontology by the identifiers of its types, their
+     * supertypes, the value types and the relation types.
+     *
+     * @param ontology the ontology
+     * @return the description
+     */
+    private static Set<String> schema(Ontology ontology) {
+        Set<String> schema = new HashSet<>();
+        for (InstanceType type : ontology.getTypes()) {
+            schema.add("T " + type.getIRI() + " " + type.getName()); //$NON-NLS-1$ //$NON-NLS-2$
+            for (InstanceType superType : type.getSuperTypes()) {
+                schema.add("S " + type.getIRI() + " " + superType.getIRI()); //$NON-NLS-1$ //$NON-NLS-2$
+            }
+        }
+        for (ValueType valueType : ontology.getValueTypes()) {
+            schema.add("V " + valueType.getURI() + " " + valueType.getName()); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        for (RelationType relationType : ontology.getRelationTypes()) {
+            schema.add("R " + relationType.getURI() + " " + relationType.getName()); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        return schema;
+    }
+
+    /**
+     * The description of a relation.
+     */
+    private static final class RelationEntry {
+        private final String origin;
+        private final long hash;
+
+        /**
+         * Creates the description of a relation.
+         *
+         * @param origin the URI of the origin
+         * @param hash   the hash of type and ends
+         */
+        RelationEntry(String origin, long hash) {
+            this.origin = origin;
+            this.hash = hash;
+        }
+    }
+
+    /**
+     * The changes from the version of an ontology described by a digest to
+     * another one. The added instances and relations are objects of the other
+     * version, the removed ones are only known by their URIs.
+     */
+    public static final class Changes {
+        private final Set<String> removedInstances;
+        private final List<Instance> addedInstances;
+        private final Map<String, String> removedRelations;
+        private final List<Relation> addedRelations;
+        private final boolean schemaChanged;
+
+        /**
+         * Creates changes.
+         *
+         * @param removedInstances the URIs of the removed instances
+         * @param addedInstances   the added instances
+         * @param removedRelations the URIs of the removed relations and their
+         *                         origins
+         * @param addedRelations   the added relations
+         * @param schemaChanged    whether the schema changed
+         */
+        Changes(Set<String> removedInstances, List<Instance> addedInstances, Map<String, String> removedRelations,
+                List<Relation> addedRelations, boolean schemaChanged) {
+            this.removedInstances = removedInstances;
+            this.addedInstances = addedInstances;
+            this.removedRelations = removedRelations;
+            this.addedRelations = addedRelations;
+            this.schemaChanged = schemaChanged;
+        }
+
+        /**
+         * Returns whether types, value types or relation types changed.
+         *
+         * @return whether the schema changed
+         * @see OntologyDelta#isSchemaChanged()
+         */
+        public boolean isSchemaChanged() {
+            return this.schemaChanged;
+        }
+
+        /**
+         * Returns whether both versions contain the same instances and
+         * relations.
+         *
+         * @return whether nothing changed
+         */
+        public boolean isEmpty() {
+            return this.removedInstances.isEmpty() && this.addedInstances.isEmpty()
+                    && this.removedRelations.isEmpty() && this.addedRelations.isEmpty();
+        }
+
+        /**
+         * Looks up the removed instances and relations in the ontology the
+         * digest was created of. This takes time proportional to the number of
+         * changes, not to the size of the ontology.
+         *
+         * @param previous the ontology the digest was created of, in the same
+         *                 version
+         * @return the delta, which can be applied to the ontology
+         */
+        public OntologyDelta resolve(Ontology previous) {
+            List<Instance> removed = new LinkedList<>();
+            for (String uri : this.removedInstances) {
+                Instance instance = previous.getInstanceByURI(uri);
+                if (instance != null) {
+                    removed.add(instance);
+                }
+            }
+            List<Relation> removedRelations = new LinkedList<>();
+            this.removedRelations.forEach((uri, origin) -> {
+                Instance instance = previous.getInstanceByURI(origin);
+                if (instance != null) {
+                    instance.getRelations().stream().filter(r -> uri.equals(r.getURI())).findAny()
+                            .ifPresent(removedRelations::add);
+                }
+            });
+            return new OntologyDelta(removed, this.addedInstances, removedRelations, this.addedRelations,
+                    this.schemaChanged);
+        }
+    }
+}
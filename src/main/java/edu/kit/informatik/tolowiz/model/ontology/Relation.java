@@ -5,6 +5,8 @@
  */
 package edu.kit.informatik.tolowiz.model.ontology;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 
 /**
@@ -17,7 +19,19 @@ import java.io.Serializable;
  */
 public class Relation implements Serializable {
     private static final long serialVersionUID = -3239766920088454801L;
+    /**
+     * The uri, or {@code null} if it is derived from the ends of the relation.
+     */
     private String uri;
+    /**
+     * The namespace that is left out of derived uris.
+     */
+    private String namespace;
+    /**
+     * The hash code of the uri, so that derived uris do not have to be built
+     * for hashing.
+     */
+    private int hash;
     private RelationType type;
     private Instance origin;
     private Instance destination;
@@ -35,11 +49,38 @@ public class Relation implements Serializable {
         this.type = type;
         this.origin = origin;
         this.destination = destination;
+        this.hash = ((uri == null) ? 0 : uri.hashCode());
+    }
+
+    /**
+     * Creates a relation whose uri is derived from its type and the uris of
+     * its ends, leaving out the namespace of the ontology. The uri is not
+     * stored but built again when it is requested, which saves a string per
+     * relation.
+     *
+     * @param type        the RelationType of this new Relation
+     * @param origin      the Instance, this Relation originates from
+     * @param destination the destination Instance of this Relation
+     * @param namespace   the namespace of the ontology, may be {@code null}
+     */
+    Relation(RelationType type, Instance origin, Instance destination, String namespace) {
+        this.type = type;
+        this.origin = origin;
+        this.destination = destination;
+        this.namespace = namespace;
+        this.hash = this.getURI().hashCode();
+    }
+
+    /**
+     * @return whether the uri of this relation is derived from its ends
+     */
+    public boolean isDerived() {
+        return (this.uri == null) && (this.type != null);
     }
 
     @Override
     public int hashCode() {
-        return ((this.uri == null) ? 0 : this.uri.hashCode());
+        return this.hash;
     }
 
     @Override
@@ -51,6 +92,9 @@ public class Relation implements Serializable {
             return false;
         }
         Relation other = (Relation) obj;
+        if (this.hash != other.hash) {
+            return false;
+        }
         if (this.destination == null) {
             if (other.destination != null) {
                 return false;
@@ -72,11 +116,13 @@ public class Relation implements Serializable {
         } else if (!this.type.equals(other.type)) {
             return false;
         }
-        if (this.uri == null) {
-            if (other.uri != null) {
+        String thisURI = this.getURI();
+        String otherURI = other.getURI();
+        if (thisURI == null) {
+            if (otherURI != null) {
                 return false;
             }
-        } else if (!this.uri.equals(other.uri)) {
+        } else if (!thisURI.equals(otherURI)) {
             return false;
         }
         return true;
@@ -107,6 +153,21 @@ public class Relation implements Serializable {
      * @return the uri of this Relation.
      */
     public String getURI() {
-        return this.uri;
+        if (!this.isDerived()) {
+            return this.uri;
+        }
+        String ends = this.origin.getURI() + "->" + this.destination.getURI(); //$NON-NLS-1$
+        if (this.namespace != null) {
+            ends = ends.replace(this.namespace, ""); //$NON-NLS-1$
+        }
+        return this.type.getURI() + ":" + ends; //$NON-NLS-1$
+    }
+
+    private void readObject(ObjectInputStream in) throws ClassNotFoundException, IOException {
+        in.defaultReadObject();
+        if (this.uri != null) {
+            // relations stored before the hash was kept
+            this.hash = this.uri.hashCode();
+        }
     }
 }
@@ -6,7 +6,6 @@
 package edu.kit.informatik.tolowiz.model.ontology;
 
 import java.io.Serializable;
-import java.util.HashSet;
 import java.util.Set;
 
 public class RelationType implements Serializable {
@@ -24,7 +23,7 @@ public class RelationType implements Serializable {
     RelationType(String name, String uri) {
         this.name = name;
         this.uri = uri;
-        this.relations = new HashSet<>();
+        this.relations = new CompactSet<>();
     }
 
     @Override
@@ -72,6 +71,13 @@ public class RelationType implements Serializable {
         this.relations.add(relation);
     }
 
+    /**
+     * @param relation the relation you want to remove
+     */
+    void removeRelation(Relation relation) {
+        this.relations.remove(relation);
+    }
+
     /**
      * @return the name of this RelationType.
      */
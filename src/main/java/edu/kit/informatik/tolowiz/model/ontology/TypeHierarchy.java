@@ -0,0 +1,114 @@
+/*
+ * Copyright 2020 Anne Bernhart, Anja Hansen, Tobias Klumpp, Fabian Palitza,
+ * Florian Patzer, Friedrich Volz, Sandra Wolf
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package edu.kit.informatik.tolowiz.model.ontology;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The transitive closure of the type hierarchy of an ontology. Every type gets
+ * an index, and the direct and indirect supertypes of every type are stored as
+ * a bit set, so that subtype and membership tests take constant time.<br>
+ * <br>
+ * The closure is a snapshot: it has to be computed again when types or
+ * supertypes are added. Cycles in the hierarchy are allowed.
+ */
+public final class TypeHierarchy {
+    private final InstanceType[] types;
+    private final Map<InstanceType, Integer> indexes;
+    private final BitSet[] superTypes;
+
+    /**
+     * Computes the closure of the hierarchy of the given types.
+     *
+     * @param types all types of an ontology
+     */
+    public TypeHierarchy(Collection<InstanceType> types) {
+        this.types = types.toArray(new InstanceType[0]);
+        this.indexes = new IdentityHashMap<>(this.types.length);
+        for (int i = 0; i < this.types.length; i++) {
+            this.indexes.put(this.types[i], i);
+        }
+        this.superTypes = new BitSet[this.types.length];
+        int[] open = new int[this.types.length];
+        for (int i = 0; i < this.types.length; i++) {
+            BitSet closure = new BitSet(this.types.length);
+            closure.set(i);
+            int size = 0;
+            open[size++] = i;
+            while (size > 0) {
+                for (InstanceType superType : this.types[open[--size]].getSuperTypes()) {
+                    Integer index = this.indexes.get(superType);
+                    if ((index != null) && !closure.get(index)) {
+                        closure.set(index);
+                        open[size++] = index;
+                    }
+                }
+            }
+            this.superTypes[i] = closure;
+        }
+    }
+
+    /**
+     * Returns a type with all its direct and indirect supertypes. Every type is
+     * contained once, even if it is reachable on several paths.
+     *
+     * @param type a type of the ontology
+     * @return the type and its supertypes, or just the type if it is unknown
+     */
+    public List<InstanceType> getClosure(InstanceType type) {
+        Integer index = this.indexes.get(type);
+        if (index == null) {
+            return List.of(type);
+        }
+        BitSet closure = this.superTypes[index];
+        List<InstanceType> result = new ArrayList<>(closure.cardinality());
+        for (int i = closure.nextSetBit(0); i >= 0; i = closure.nextSetBit(i + 1)) {
+            result.add(this.types[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Tells whether a type is the same as or a direct or indirect subtype of
+     * another one.
+     *
+     * @param type      the possible subtype
+     * @param superType the possible supertype
+     * @return {@code true} if instances of the type are instances of the
+     *         supertype
+     */
+    public boolean isSubTypeOf(InstanceType type, InstanceType superType) {
+        if (type == superType) {
+            return true;
+        }
+        Integer index = this.indexes.get(type);
+        Integer superIndex = this.indexes.get(superType);
+        return (index != null) && (superIndex != null) && this.superTypes[index].get(superIndex);
+    }
+
+    /**
+     * Tells whether an instance belongs to a type, directly or through one of
+     * the subtypes of the type.
+     *
+     * @param instance an instance
+     * @param type     a type
+     * @return {@code true} if one of the types of the instance is a subtype of
+     *         the given type
+     */
+    public boolean isInstanceOf(Instance instance, InstanceType type) {
+        for (InstanceType direct : instance.getType()) {
+            if (this.isSubTypeOf(direct, type)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
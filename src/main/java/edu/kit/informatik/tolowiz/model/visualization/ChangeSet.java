@@ -0,0 +1,186 @@
+/*
+ * Copyright 2020 Anne Bernhart, Anja Hansen, Tobias Klumpp, Fabian Palitza,
+ * Florian Patzer, Friedrich Volz, Sandra Wolf
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package edu.kit.informatik.tolowiz.model.visualization;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The changes of a {@link Configuration}: which Instances and relations
+ * changed, and in which way. Listeners receive one change set for every single
+ * change, or one for a whole batch of changes, and only need to update what is
+ * named in it.
+ *
+ * @see Configuration#batch(Runnable)
+ * @see ConfigurationListenerInterface#onChange(ChangeSet)
+ */
+public final class ChangeSet {
+
+    /**
+     * The ways in which an element of a configuration can change.
+     */
+    public enum Kind {
+        /**
+         * The element was shown or hidden.
+         */
+        VISIBILITY,
+        /**
+         * The Instance was moved.
+         */
+        POSITION,
+        /**
+         * The icon, marks, style or shown values of the element changed.
+         */
+        STYLE,
+        /**
+         * The Instance was added to or removed from a group.
+         */
+        GROUPS,
+        /**
+         * The element was added to the configuration.
+         */
+        ADDED,
+        /**
+         * The element was removed from the configuration.
+         */
+        REMOVED,
+        /**
+         * A setting of the whole configuration, such as the relation depth,
+         * changed. Such changes name no elements.
+         */
+        SETTINGS
+    }
+
+    private final Map<Kind, Set<InstanceConfiguration>> instances;
+    private final Map<Kind, Set<RelationConfiguration>> relations;
+    private final Set<Kind> kinds;
+
+    /**
+     * Creates an empty change set.
+     */
+    ChangeSet() {
+        this.instances = new EnumMap<>(Kind.class);
+        this.relations = new EnumMap<>(Kind.class);
+        this.kinds = EnumSet.noneOf(Kind.class);
+    }
+
+    /**
+     * Records a change of an Instance.
+     *
+     * @param kind the way the Instance changed
+     * @param instance the Instance
+     */
+    void add(Kind kind, InstanceConfiguration instance) {
+        this.kinds.add(kind);
+        this.instances.computeIfAbsent(kind, k -> ChangeSet.newSet())
+        .add(instance);
+    }
+
+    /**
+     * Records a change of a relation.
+     *
+     * @param kind the way the relation changed
+     * @param relation the relation
+     */
+    void add(Kind kind, RelationConfiguration relation) {
+        this.kinds.add(kind);
+        this.relations.computeIfAbsent(kind, k -> ChangeSet.newSet())
+        .add(relation);
+    }
+
+    /**
+     * Records a change that concerns no single element.
+     *
+     * @param kind the kind of change
+     */
+    void add(Kind kind) {
+        this.kinds.add(kind);
+    }
+
+    /**
+     * Gets all Instances that changed in any way.
+     *
+     * @return a new set of the changed Instances
+     */
+    public Set<InstanceConfiguration> getInstances() {
+        Set<InstanceConfiguration> result = ChangeSet.newSet();
+        this.instances.values().forEach(result::addAll);
+        return result;
+    }
+
+    /**
+     * Gets the Instances that changed in the given way.
+     *
+     * @param kind the way of change
+     * @return an unmodifiable set of these Instances
+     */
+    public Set<InstanceConfiguration> getInstances(Kind kind) {
+        return Collections.unmodifiableSet(
+                this.instances.getOrDefault(kind, Collections.emptySet()));
+    }
+
+    /**
+     * Gets all relations that changed in any way, including those that changed
+     * because one of their Instances did.
+     *
+     * @return a new set of the changed relations
+     */
+    public Set<RelationConfiguration> getRelations() {
+        Set<RelationConfiguration> result = ChangeSet.newSet();
+        this.relations.values().forEach(result::addAll);
+        return result;
+    }
+
+    /**
+     * Gets the relations that changed in the given way.
+     *
+     * @param kind the way of change
+     * @return an unmodifiable set of these relations
+     */
+    public Set<RelationConfiguration> getRelations(Kind kind) {
+        return Collections.unmodifiableSet(
+                this.relations.getOrDefault(kind, Collections.emptySet()));
+    }
+
+    /**
+     * Checks whether anything changed in the given way.
+     *
+     * @param kind the way of change
+     * @return {@code true} if an element or the configuration changed that way
+     */
+    public boolean contains(Kind kind) {
+        return this.kinds.contains(kind);
+    }
+
+    /**
+     * Checks whether anything changed.
+     *
+     * @return {@code true} if no Instance, relation or setting changed
+     */
+    public boolean isEmpty() {
+        return this.kinds.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return this.kinds + ": " + this.getInstances().size() + " instances, " //$NON-NLS-1$ //$NON-NLS-2$
+                + this.getRelations().size() + " relations changed"; //$NON-NLS-1$
+    }
+
+    /**
+     * Creates a set that compares its elements by identity.
+     *
+     * @param <T> the type of the elements
+     * @return a new, empty set
+     */
+    private static <T> Set<T> newSet() {
+        return Collections.newSetFromMap(new IdentityHashMap<>());
+    }
+}
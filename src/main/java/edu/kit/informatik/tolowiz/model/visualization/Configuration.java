@@ -8,20 +8,29 @@ package edu.kit.informatik.tolowiz.model.visualization;
 import edu.kit.informatik.tolowiz.model.data.icons.IconDatabaseException;
 import edu.kit.informatik.tolowiz.model.data.icons.IconDatabaseInterface;
 import edu.kit.informatik.tolowiz.model.data.icons.IconInterface;
+import edu.kit.informatik.tolowiz.model.ontology.Instance;
 import edu.kit.informatik.tolowiz.model.ontology.Ontology;
+import edu.kit.informatik.tolowiz.model.ontology.OntologyDelta;
+import edu.kit.informatik.tolowiz.model.ontology.Relation;
 import edu.kit.informatik.tolowiz.model.ontology.ValueType;
 
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
-import java.util.stream.Collectors;
 
 /**
  * This class represents a visualization configuration of a certain ontology.
@@ -128,6 +137,39 @@ public class Configuration implements Serializable, Cloneable {
 
     private transient List<ConfigurationListenerInterface> listeners;
 
+    /*
+     * Indexes for the lookups by IRI, URI or name. They are rebuilt by index()
+     * after cloning and deserialization.
+     */
+    private transient Map<String, InstanceTypeConfiguration> typesByIRI;
+    private transient Map<String, InstanceConfiguration> instancesByURI;
+    private transient Map<String, RelationTypeConfiguration> relationTypesByURI;
+    private transient Map<String, RelationTypeConfiguration> relationTypesByName;
+    private transient Map<String, ValueType> valueTypesByURI;
+    private transient Set<RelationConfiguration> relations;
+    private transient Set<InstanceConfiguration> hiddenView;
+
+    /**
+     * The neighborhood of the selected Instances, created on first use.
+     */
+    private transient Neighborhood neighborhood;
+
+    /**
+     * The number of open batches, and the changes since the outermost one was
+     * begun.
+     */
+    private transient int batches;
+    private transient ChangeSet changes;
+
+    /**
+     * The Instances by their index in the snapshots, their states as of the
+     * last snapshot, and the Instances that changed since then. Created by the
+     * first snapshot, and dropped when Instances are added or removed.
+     */
+    private transient List<InstanceConfiguration> indexed;
+    private transient PersistentVector<Snapshot.InstanceState> states;
+    private transient Set<InstanceConfiguration> dirty;
+
     /**
      * Constructor for a complete configuration from an ontology. This should be
      * the only contructor called externally, which will then contruct a
@@ -148,7 +190,8 @@ public class Configuration implements Serializable, Cloneable {
 
         ontology.getTypes().forEach(
                 t -> this.instanceTypes.add(new InstanceTypeConfiguration(t)));
-        this.instanceTypes.forEach(i -> i.initHierarchy(this.instanceTypes));
+        this.typesByIRI = Configuration.indexTypes(this.instanceTypes);
+        this.instanceTypes.forEach(i -> i.initHierarchy(this.typesByIRI));
 
         this.baseConfiguration = this.instanceTypes.stream()
                 .filter(itc -> itc.getSuperTypes().isEmpty()).findFirst()
@@ -156,14 +199,21 @@ public class Configuration implements Serializable, Cloneable {
 
         this.instances = new TreeSet<>();
         this.hiddenInstances = new TreeSet<>();
-        ontology.getInstances().forEach(i -> this.instances
-                .add(new InstanceConfiguration(i, this.instanceTypes)));
+        this.instancesByURI = new HashMap<>();
+        ontology.getInstances().forEach(i -> {
+            InstanceConfiguration ic = new InstanceConfiguration(i,
+                    this.typesByIRI);
+            this.instances.add(ic);
+            this.instancesByURI.put(ic.getURI(), ic);
+        });
+        InstanceTypeConfiguration.addMembers(this.instances);
 
         // thankfully I can just recreate all the relations here since there is
         // no
         // ordering
         ontology.getRelationTypes().forEach(t -> this.relationTypes
-                .add(new RelationTypeConfiguration(t, this.instances)));
+                .add(new RelationTypeConfiguration(t, this.instancesByURI)));
+        this.index();
 
         this.groups = new HashSet<>();
         this.handlers = new HashSet<>();
@@ -206,7 +256,9 @@ public class Configuration implements Serializable, Cloneable {
         other.instanceTypes = new HashSet<>(this.instanceTypes.size());
 
         this.instanceTypes.forEach(t -> other.instanceTypes.add(t.clone()));
-        other.instanceTypes.forEach(i -> i.initHierarchy(other.instanceTypes));
+        Map<String, InstanceTypeConfiguration> types = Configuration
+                .indexTypes(other.instanceTypes);
+        other.instanceTypes.forEach(i -> i.initHierarchy(types));
 
         other.baseConfiguration = other.instanceTypes.stream()
                 .filter(itc -> itc.getSuperTypes().isEmpty()).findFirst()
@@ -214,10 +266,14 @@ public class Configuration implements Serializable, Cloneable {
 
         other.instances = new TreeSet<>();
         other.hiddenInstances = new TreeSet<>();
-        this.getInstances().forEach(i -> other.instances
-                .add(i.cloneWithTypes(other.instanceTypes)));
+        Map<String, InstanceConfiguration> instances = new HashMap<>();
+        this.getInstances().forEach(i -> {
+            InstanceConfiguration copy = i.cloneWithTypes(types);
+            other.instances.add(copy);
+            instances.put(copy.getURI(), copy);
+        });
+        InstanceTypeConfiguration.addMembers(other.instances);
 
-        Set<InstanceConfiguration> instances = other.getInstances();
         other.relationTypes = new TreeSet<>();
         this.relationTypes.forEach(
                 a -> other.relationTypes.add(a.cloneWithInstances(instances)));
@@ -226,7 +282,8 @@ public class Configuration implements Serializable, Cloneable {
         this.groups.forEach(g -> {
             Group copiedGroup = g.clone();
             other.groups.add(copiedGroup); // clones the group
-            instances.stream().filter(copy -> g.getInstances().contains(copy))
+            g.getInstances().stream().map(i -> instances.get(i.getURI()))
+            .filter(copy -> copy != null)
             .forEach(copy -> copiedGroup.addInstance(copy)); // finds
             // and adds
             // copied
@@ -237,6 +294,10 @@ public class Configuration implements Serializable, Cloneable {
 
         other.camera = this.camera.clone();
         other.listeners = new LinkedList<>();
+        other.neighborhood = null;
+        other.batches = 0;
+        other.changes = null;
+        other.index();
         return other;
     }
 
@@ -281,6 +342,36 @@ public class Configuration implements Serializable, Cloneable {
         return this.groups;
     }
 
+    /**
+     * Adds a Group to this Configuration. ConfigurationListeners are notified
+     * that the groups changed.
+     *
+     * @param group the Group to add
+     * @return {@code true} if the Group was not yet part of this Configuration
+     */
+    public boolean addGroup(Group group) {
+        boolean added = this.groups.add(group);
+        if (added) {
+            this.batch(() -> this.changes.add(ChangeSet.Kind.GROUPS));
+        }
+        return added;
+    }
+
+    /**
+     * Removes a Group from this Configuration. Its members are not changed.
+     * ConfigurationListeners are notified that the groups changed.
+     *
+     * @param group the Group to remove
+     * @return {@code true} if the Group was part of this Configuration
+     */
+    public boolean removeGroup(Group group) {
+        boolean removed = this.groups.remove(group);
+        if (removed) {
+            this.batch(() -> this.changes.add(ChangeSet.Kind.GROUPS));
+        }
+        return removed;
+    }
+
     /**
      * Gets a collection of all Instances in this Configuration.
      *
@@ -299,10 +390,10 @@ public class Configuration implements Serializable, Cloneable {
      * Instances of Types that are not visible are not included
      *
      * @return A set of all InstanceConfigurations that are currently hidden
-     * from view.
+     * from view, which may be changed.
      */
     public Set<InstanceConfiguration> getHiddenInstances() {
-        return this.hiddenInstances;
+        return this.hiddenView;
     }
 
     /**
@@ -317,15 +408,15 @@ public class Configuration implements Serializable, Cloneable {
     }
 
     /**
-     * Gets a collection of all Relations in this Configuration.
+     * Gets a collection of all Relations in this Configuration. The collection
+     * is a view of the members of all relation types, so it is not copied and
+     * always up to date.
      *
-     * @return a set including all {@link RelationConfiguration}s in this
-     * Configuration.
+     * @return an unmodifiable set including all {@link RelationConfiguration}s
+     * in this Configuration.
      */
     public Set<RelationConfiguration> getRelations() {
-        return this.relationTypes.stream()
-                .flatMap(rtc -> rtc.getMembers().stream())
-                .collect(Collectors.toSet());
+        return this.relations;
     }
 
     /**
@@ -366,7 +457,10 @@ public class Configuration implements Serializable, Cloneable {
      */
     public void setDepth(int depth) {
         this.depth = depth;
-        this.changed();
+        if (this.neighborhood != null) {
+            this.neighborhood.refresh();
+        }
+        this.batch(() -> this.changes.add(ChangeSet.Kind.SETTINGS));
     }
 
     /**
@@ -378,6 +472,20 @@ public class Configuration implements Serializable, Cloneable {
         return this.depth;
     }
 
+    /**
+     * Gets the neighborhood of the selected Instances, which contains every
+     * Instance at most {@link #getDepth()} relations away from them. It is
+     * explored again when the depth or the relations change.
+     *
+     * @return the neighborhood of this configuration
+     */
+    public Neighborhood getNeighborhood() {
+        if (this.neighborhood == null) {
+            this.neighborhood = new Neighborhood(this);
+        }
+        return this.neighborhood;
+    }
+
     /**
      * Returns the ontology this configuration is associated with
      *
@@ -414,21 +522,42 @@ public class Configuration implements Serializable, Cloneable {
      * {@code null} if this IRI does not exist.
      */
     public InstanceTypeConfiguration getTypeByIRI(String iri) {
-        return this.instanceTypes.stream().filter(it -> it.getIRI().equals(iri))
-                .findFirst().orElse(null);
+        return this.typesByIRI.get(iri);
+    }
+
+    /**
+     * Gets an instance if the URI is known.
+     *
+     * @param uri The URI to search for
+     * @return An InstanceConfiguration with the correct URI, or {@code null}
+     * if this URI does not exist.
+     */
+    public InstanceConfiguration getInstanceByURI(String uri) {
+        return this.instancesByURI.get(uri);
     }
 
     /**
-     * Gets a RelationType if the name is known.
+     * Gets a RelationType if the name is known. Names need not be unique, if
+     * several types have the name, the first one in order is returned.
      *
      * @param name The name to search for
      * @return A RelationTypeConfiguration with the correct name, or
      * {@code null} if this name does not exist.
+     * @see #getRelationTypeByURI(String)
      */
     public RelationTypeConfiguration getRelationTypeByName(String name) {
-        return this.relationTypes.stream()
-                .filter(x -> x.getName().contentEquals(name)).findFirst()
-                .orElse(null);
+        return this.relationTypesByName.get(name);
+    }
+
+    /**
+     * Gets a RelationType if the URI is known.
+     *
+     * @param uri The URI to search for
+     * @return A RelationTypeConfiguration with the correct URI, or
+     * {@code null} if this URI does not exist.
+     */
+    public RelationTypeConfiguration getRelationTypeByURI(String uri) {
+        return this.relationTypesByURI.get(uri);
     }
 
     /**
@@ -439,11 +568,199 @@ public class Configuration implements Serializable, Cloneable {
      * not exist.
      */
     public ValueType getValueTypeByURI(String valueURI) {
-        return this.instanceTypes.stream()
-                .flatMap(x -> x.getAllValues().stream()) // stream all possible
-                // ValueTypes
-                .filter(v -> v.getURI().contentEquals(valueURI)).findFirst()
-                .orElse(null); // find a fitting or null
+        return this.valueTypesByURI.get(valueURI);
+    }
+
+    /**
+     * Applies the changes of a new version of the ontology to the ontology and
+     * to this configuration. Unchanged instances keep their position, marks,
+     * groups and visibility; added instances start hidden. The delta has to be
+     * computed against the ontology of this configuration.<br>
+     * Since clones share the ontology, other clones of this configuration are
+     * no longer consistent with it afterwards.
+     *
+     * @param delta the changes of the ontology
+     * @throws IllegalArgumentException if the schema of the ontology changed
+     * @see OntologyDelta#between
+     */
+    public void applyDelta(OntologyDelta delta) {
+        OntologyDelta applied = this.ontology.applyDelta(delta);
+        this.batch(() -> this.applyAppliedDelta(applied));
+    }
+
+    /**
+     * Applies the changes of the ontology to this configuration, within a
+     * batch.
+     *
+     * @param applied the changes that were applied to the ontology
+     */
+    private void applyAppliedDelta(OntologyDelta applied) {
+
+        Map<String, Set<String>> removedRelations = new HashMap<>();
+        applied.getRemovedRelations().forEach(r -> removedRelations
+                .computeIfAbsent(r.getRelationType().getURI(),
+                        k -> new HashSet<>())
+                .add(r.getURI()));
+        removedRelations.forEach((type, uris) -> this.getRelationTypeByURI(type)
+                .getMembers().removeIf(r -> {
+                    if (!uris.contains(r.getURI())) {
+                        return false;
+                    }
+                    r.getOrigin().removeRelation(r);
+                    r.getDestination().removeRelation(r);
+                    this.changes.add(ChangeSet.Kind.REMOVED, r);
+                    return true;
+                }));
+
+        for (Instance instance : applied.getRemovedInstances()) {
+            InstanceConfiguration removed = this.instancesByURI
+                    .remove(instance.getURI());
+            if (removed == null) {
+                continue;
+            }
+            new LinkedList<>(removed.getGroups())
+            .forEach(g -> g.removeInstance(removed));
+            InstanceTypeConfiguration.closureOf(removed.getTypes())
+            .forEach(t -> t.removeMember(removed));
+            this.instances.remove(removed);
+            this.hiddenInstances.remove(removed);
+            this.changes.add(ChangeSet.Kind.REMOVED, removed);
+        }
+
+        List<InstanceConfiguration> addedInstances = new LinkedList<>();
+        for (Instance instance : applied.getAddedInstances()) {
+            InstanceConfiguration added = new InstanceConfiguration(instance,
+                    this.typesByIRI);
+            added.setConfiguration(this);
+            this.instances.add(added);
+            this.instancesByURI.put(added.getURI(), added);
+            addedInstances.add(added);
+            this.changes.add(ChangeSet.Kind.ADDED, added);
+        }
+        InstanceTypeConfiguration.addMembers(addedInstances);
+        for (Relation relation : applied.getAddedRelations()) {
+            RelationTypeConfiguration type = this
+                    .getRelationTypeByURI(relation.getRelationType().getURI());
+            RelationConfiguration added = new RelationConfiguration(relation,
+                    type, this.instancesByURI);
+            added.setConfiguration(this);
+            type.getMembers().add(added);
+            this.changes.add(ChangeSet.Kind.ADDED, added);
+        }
+
+        if (this.neighborhood != null) {
+            this.neighborhood.refresh();
+        }
+        this.dropStates();
+    }
+
+    /**
+     * Takes a snapshot of the current state of this configuration, which can
+     * be restored later. The states of the Instances are shared with the
+     * previous snapshot, except for the Instances that changed since then, so
+     * taking a snapshot only costs as much as these changes.
+     *
+     * @return the snapshot
+     * @see #restore(Snapshot)
+     */
+    public Snapshot snapshot() {
+        PersistentVector<Snapshot.InstanceState> current = this.updateStates();
+        return new Snapshot(this, this.indexed, current);
+    }
+
+    /**
+     * Sets this configuration to the state of a snapshot. Only the Instances
+     * whose state differs are set again, and all changes are made in one
+     * batch.
+     *
+     * @param snapshot a snapshot of this configuration
+     * @throws IllegalArgumentException if the snapshot was taken before
+     * Instances were added or removed, or of another configuration
+     * @see #snapshot()
+     */
+    public void restore(Snapshot snapshot) {
+        if ((this.indexed == null) || (snapshot.getIndexed() != this.indexed)) {
+            throw new IllegalArgumentException(
+                    "The snapshot does not match the Instances of this configuration"); //$NON-NLS-1$
+        }
+        this.batch(() -> {
+            PersistentVector<Snapshot.InstanceState> current = this
+                    .updateStates();
+            PersistentVector<Snapshot.InstanceState> restored = snapshot
+                    .getStates();
+            snapshot.getSettings().restore(this);
+            current.forEachDifference(restored, i -> restored.get(i)
+                    .restore(this.indexed.get(i), this.hiddenView));
+            // the restored Instances are dirty now and will be compared with
+            // the states of the snapshot, which are kept if nothing differs
+            this.states = restored;
+        });
+    }
+
+    /**
+     * Brings the states of the Instances up to date. The first call stores
+     * all Instances, later calls only those that changed. A state is only
+     * replaced if it differs, so unchanged parts stay shared.
+     *
+     * @return the current states
+     */
+    private PersistentVector<Snapshot.InstanceState> updateStates() {
+        if (this.states == null) {
+            this.indexed = new ArrayList<>(this.instances);
+            List<Snapshot.InstanceState> initial = new ArrayList<>(
+                    this.indexed.size());
+            for (int i = 0; i < this.indexed.size(); i++) {
+                this.indexed.get(i).setIndex(i);
+                initial.add(this.stateOf(this.indexed.get(i)));
+            }
+            this.states = PersistentVector.of(initial);
+            this.dirty = Collections.newSetFromMap(new IdentityHashMap<>());
+            return this.states;
+        }
+        for (InstanceConfiguration instance : this.dirty) {
+            Snapshot.InstanceState state = this.stateOf(instance);
+            if (!state.isSameAs(this.states.get(instance.getIndex()))) {
+                this.states = this.states.set(instance.getIndex(), state);
+            }
+        }
+        this.dirty.clear();
+        return this.states;
+    }
+
+    /**
+     * Stores an Instance again with the next snapshot, if there is one.
+     *
+     * @param instance the changed Instance
+     */
+    private void markChanged(InstanceConfiguration instance) {
+        if (this.dirty != null) {
+            this.dirty.add(instance);
+        }
+    }
+
+    private Snapshot.InstanceState stateOf(InstanceConfiguration instance) {
+        return new Snapshot.InstanceState(instance,
+                this.hiddenInstances.contains(instance));
+    }
+
+    /**
+     * Gets the Instances by their index in the snapshots.
+     *
+     * @return the Instances, or {@code null} if no snapshot was taken since
+     * Instances were added or removed
+     */
+    List<InstanceConfiguration> getIndexed() {
+        return this.indexed;
+    }
+
+    /**
+     * Drops the states of the Instances, so that all earlier snapshots can no
+     * longer be restored.
+     */
+    private void dropStates() {
+        this.indexed = null;
+        this.states = null;
+        this.dirty = null;
     }
 
     /**
@@ -478,6 +795,125 @@ public class Configuration implements Serializable, Cloneable {
         this.listeners.remove(listener);
     }
 
+    /**
+     * Runs changes as one batch. The listeners of the changed Instances and
+     * relations are not notified one by one; instead, all
+     * ConfigurationListeners are notified once with a {@link ChangeSet} when
+     * the batch is over. Batches may be nested, then only the outermost one
+     * notifies.
+     *
+     * @param changes the changes to run
+     * @see ConfigurationListenerInterface#onChange(ChangeSet)
+     */
+    public void batch(Runnable changes) {
+        this.beginBatch();
+        try {
+            changes.run();
+        } finally {
+            this.commitBatch();
+        }
+    }
+
+    /**
+     * Begins a batch of changes, which has to be ended with
+     * {@link #commitBatch()}, even if the changes fail.
+     *
+     * @see #batch(Runnable)
+     */
+    public void beginBatch() {
+        if (this.batches++ == 0) {
+            this.changes = new ChangeSet();
+        }
+    }
+
+    /**
+     * Ends a batch of changes. If it is the outermost batch, all
+     * ConfigurationListeners are notified of the Instances and relations
+     * that changed, if any.
+     *
+     * @throws IllegalStateException if no batch was begun
+     * @see #batch(Runnable)
+     */
+    public void commitBatch() {
+        if (this.batches == 0) {
+            throw new IllegalStateException("No batch was begun"); //$NON-NLS-1$
+        }
+        if (--this.batches > 0) {
+            return;
+        }
+        ChangeSet committed = this.changes;
+        this.changes = null;
+        this.fireChange(committed);
+    }
+
+    /**
+     * Checks whether changes are currently collected in a batch.
+     *
+     * @return {@code true} if a batch was begun and not yet committed
+     */
+    public boolean isInBatch() {
+        return this.batches > 0;
+    }
+
+    /**
+     * Collects the change of an Instance if a batch is open. Otherwise, the
+     * ConfigurationListeners are notified of this single change right away.
+     * Either way, the Instance is stored again by the next snapshot.
+     *
+     * @param kind the way the Instance changed
+     * @param instance the changed Instance
+     * @return {@code true} if the change was collected, {@code false} if the
+     * listeners of the Instance have to be notified now
+     */
+    boolean deferChange(ChangeSet.Kind kind, InstanceConfiguration instance) {
+        this.markChanged(instance);
+        if (this.batches > 0) {
+            this.changes.add(kind, instance);
+            return true;
+        }
+        if ((this.listeners != null) && !this.listeners.isEmpty()) {
+            ChangeSet single = new ChangeSet();
+            single.add(kind, instance);
+            this.fireChange(single);
+        }
+        return false;
+    }
+
+    /**
+     * Collects the change of a Relation if a batch is open. Otherwise, the
+     * ConfigurationListeners are notified of this single change right away.
+     *
+     * @param kind the way the Relation changed
+     * @param relation the changed Relation
+     * @return {@code true} if the change was collected, {@code false} if the
+     * listeners of the Relation have to be notified now
+     */
+    boolean deferChange(ChangeSet.Kind kind, RelationConfiguration relation) {
+        if (this.batches > 0) {
+            this.changes.add(kind, relation);
+            return true;
+        }
+        if ((this.listeners != null) && !this.listeners.isEmpty()) {
+            ChangeSet single = new ChangeSet();
+            single.add(kind, relation);
+            this.fireChange(single);
+        }
+        return false;
+    }
+
+    /**
+     * Notifies all ConfigurationListeners of some changes, unless nothing
+     * changed.
+     *
+     * @param changed the changes
+     * @see ConfigurationListenerInterface#onChange(ChangeSet)
+     */
+    private void fireChange(ChangeSet changed) {
+        if (!changed.isEmpty() && (this.listeners != null)) {
+            this.listeners.forEach(l -> l.onChange(changed));
+        }
+    }
+
     /**
      * Indicates that the entire configuration was changed and should be
      * rebuild. All ConfigurationListeners will be notified.
@@ -491,9 +927,152 @@ public class Configuration implements Serializable, Cloneable {
         this.listeners.forEach(ConfigurationListenerInterface::onFullChange);
     }
 
+    /**
+     * Builds the indexes for the lookups from the types and instances.
+     */
+    private void index() {
+        this.typesByIRI = Configuration.indexTypes(this.instanceTypes);
+        this.instancesByURI = new HashMap<>();
+        this.instances.forEach(i -> {
+            this.instancesByURI.put(i.getURI(), i);
+            i.setConfiguration(this);
+        });
+        this.relationTypesByURI = new HashMap<>();
+        this.relationTypesByName = new HashMap<>();
+        this.relationTypes.forEach(t -> {
+            this.relationTypesByURI.put(t.getURI(), t);
+            this.relationTypesByName.putIfAbsent(t.getName(), t);
+            t.getMembers().forEach(r -> r.setConfiguration(this));
+        });
+        this.valueTypesByURI = new HashMap<>();
+        this.instanceTypes.forEach(t -> t.getAllValues()
+                .forEach(v -> this.valueTypesByURI.putIfAbsent(v.getURI(), v)));
+        this.relations = new RelationView();
+        this.hiddenView = new HiddenView();
+        this.dropStates();
+    }
+
+    /**
+     * A read-only view of the members of all relation types. Every relation
+     * belongs to exactly one type, so the members need not be copied.
+     */
+    private final class RelationView
+    extends AbstractSet<RelationConfiguration> {
+
+        @Override
+        public Iterator<RelationConfiguration> iterator() {
+            return Configuration.this.relationTypes.stream()
+                    .flatMap(rtc -> rtc.getMembers().stream()).iterator();
+        }
+
+        @Override
+        public int size() {
+            return Configuration.this.relationTypes.stream()
+                    .mapToInt(rtc -> rtc.getMembers().size()).sum();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof RelationConfiguration)) {
+                return false;
+            }
+            RelationTypeConfiguration type = ((RelationConfiguration) o)
+                    .getRelationType();
+            return (type != null) && (Configuration.this.relationTypesByURI
+                    .get(type.getURI()) == type)
+                    && type.getMembers().contains(o);
+        }
+    }
+
+    /**
+     * The hidden Instances. Changing them marks the Instances as changed for
+     * the next snapshot, as they are not notified of it.
+     */
+    private final class HiddenView extends AbstractSet<InstanceConfiguration> {
+
+        @Override
+        public Iterator<InstanceConfiguration> iterator() {
+            Iterator<InstanceConfiguration> it = Configuration.this.hiddenInstances
+                    .iterator();
+            return new Iterator<>() {
+                private InstanceConfiguration last;
+
+                @Override
+                public boolean hasNext() {
+                    return it.hasNext();
+                }
+
+                @Override
+                public InstanceConfiguration next() {
+                    this.last = it.next();
+                    return this.last;
+                }
+
+                @Override
+                public void remove() {
+                    it.remove();
+                    Configuration.this.markChanged(this.last);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return Configuration.this.hiddenInstances.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return Configuration.this.hiddenInstances.contains(o);
+        }
+
+        @Override
+        public boolean add(InstanceConfiguration instance) {
+            if (!Configuration.this.hiddenInstances.add(instance)) {
+                return false;
+            }
+            Configuration.this.markChanged(instance);
+            return true;
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (!Configuration.this.hiddenInstances.remove(o)) {
+                return false;
+            }
+            Configuration.this.markChanged((InstanceConfiguration) o);
+            return true;
+        }
+    }
+
+    /**
+     * Maps the given types by their IRI.
+     *
+     * @param types the types
+     * @return a map from the IRI of each type to the type
+     */
+    private static Map<String, InstanceTypeConfiguration> indexTypes(
+            Set<InstanceTypeConfiguration> types) {
+        Map<String, InstanceTypeConfiguration> result = new HashMap<>();
+        types.forEach(t -> result.put(t.getIRI(), t));
+        return result;
+    }
+
     private void readObject(ObjectInputStream in)
             throws ClassNotFoundException, IOException {
         in.defaultReadObject();
         this.listeners = new LinkedList<>();
+        // relation types serialized without their URI had unique names
+        this.relationTypes.stream().filter(t -> t.getURI() == null)
+        .forEach(t -> this.ontology.getRelationTypes().stream()
+                .filter(r -> r.getName().equals(t.getName())).findFirst()
+                .ifPresent(r -> t.setURI(r.getURI())));
+        this.index();
+        // all Instances are complete now, so the relations can be hashed and
+        // registered
+        this.relationTypes.forEach(t -> {
+            t.rehashMembers();
+            t.getMembers().forEach(RelationConfiguration::register);
+        });
     }
 }
@@ -7,10 +7,11 @@ package edu.kit.informatik.tolowiz.model.visualization;
 
 /**
  * This interface provides the means to identify objects that wish to be
- * informed of changes to a {@link Configuration}. Specifically, calls to this
- * interface mean that a great part of the Configuration has changed and the
- * visualization will have to be rebuild from scratch instead of updating a few
- * changed Instances.
+ * informed of changes to a {@link Configuration}. Calls to
+ * {@link #onFullChange()} mean that a great part of the Configuration has
+ * changed and the visualization will have to be rebuild from scratch, calls to
+ * {@link #onChange(ChangeSet)} name the changed elements, which can be updated
+ * one by one.
  *
  * @author Fabian Palitza
  * @version 1.0
@@ -27,4 +28,19 @@ public interface ConfigurationListenerInterface {
      * @see Configuration#changed()
      */
     public void onFullChange();
+
+    /**
+     * Called when Instances, relations or settings of the Configuration
+     * changed: once for every single change, or once at the end of a batch of
+     * changes. In a batch, the listeners of the changed Instances and relations
+     * are not notified. By default, the whole visualization is rebuilt as for
+     * {@link #onFullChange()}; listeners that can update single elements should
+     * override this.
+     *
+     * @param changes what changed, and in which way
+     * @see Configuration#batch(Runnable)
+     */
+    public default void onChange(ChangeSet changes) {
+        this.onFullChange();
+    }
 }
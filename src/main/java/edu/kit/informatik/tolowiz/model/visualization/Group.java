@@ -6,10 +6,14 @@
 package edu.kit.informatik.tolowiz.model.visualization;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.Predicate;
 
 /**
  * A group that holds multiple Instances.<br>
@@ -123,8 +127,38 @@ public class Group implements Serializable, Cloneable {
      */
     public void addInstance(InstanceConfiguration instance) {
         this.instances.add(instance);
-        instance.mark(this.instanceMark);
         instance.getGroups().add(this);
+        instance.mark(this.instanceMark);
+        instance.changed(ChangeSet.Kind.GROUPS);
+    }
+
+    /**
+     * Adds many Instances to this group at once. All changes are collected in
+     * one batch of their configuration, so listeners are notified only once.
+     * Instances that already are members are skipped.
+     *
+     * @param entries The InstanceConfigurations to add.
+     * @see Configuration#batch(Runnable)
+     */
+    public void addInstances(Collection<InstanceConfiguration> entries) {
+        List<InstanceConfiguration> added = new ArrayList<>(entries.size());
+        entries.stream().distinct().filter(i -> !this.instances.contains(i)).forEach(added::add);
+        Group.batch(added, () -> added.forEach(this::addInstance));
+    }
+
+    /**
+     * Adds all candidates that match the given condition to this group, for
+     * example all members of a type that have a certain value. Like
+     * {@link #addInstances(Collection)}, listeners are notified only once.
+     *
+     * @param candidates The InstanceConfigurations to choose from.
+     * @param condition  The condition an Instance has to meet to be added.
+     */
+    public void addInstancesIf(Collection<InstanceConfiguration> candidates,
+            Predicate<? super InstanceConfiguration> condition) {
+        List<InstanceConfiguration> matching = new ArrayList<>();
+        candidates.stream().filter(condition).forEach(matching::add);
+        this.addInstances(matching);
     }
 
     /**
@@ -134,8 +168,33 @@ public class Group implements Serializable, Cloneable {
      */
     public void removeInstance(InstanceConfiguration instance) {
         this.instances.remove(instance);
-        instance.unmark(this.instanceMark);
         instance.getGroups().remove(this);
+        instance.unmark(this.instanceMark);
+        instance.changed(ChangeSet.Kind.GROUPS);
+    }
+
+    /**
+     * Removes many Instances from this group at once. Listeners are notified
+     * only once. Instances that are not members are skipped.
+     *
+     * @param entries The InstanceConfigurations to remove.
+     */
+    public void removeInstances(Collection<InstanceConfiguration> entries) {
+        List<InstanceConfiguration> removed = new ArrayList<>(entries.size());
+        entries.stream().distinct().filter(this.instances::contains).forEach(removed::add);
+        Group.batch(removed, () -> removed.forEach(this::removeInstance));
+    }
+
+    /**
+     * Removes all members that match the given condition from this group.
+     * Listeners are notified only once.
+     *
+     * @param condition The condition an Instance has to meet to be removed.
+     */
+    public void removeInstancesIf(Predicate<? super InstanceConfiguration> condition) {
+        List<InstanceConfiguration> matching = new ArrayList<>();
+        this.instances.stream().filter(condition).forEach(matching::add);
+        this.removeInstances(matching);
     }
 
     /**
@@ -177,7 +236,8 @@ public class Group implements Serializable, Cloneable {
     }
 
     /**
-     * Sets the mark for this group and applies it to every member.
+     * Sets the mark for this group and applies it to every member. Listeners
+     * are notified only once.
      *
      * @param m The InstanceMark to use.
      */
@@ -191,7 +251,7 @@ public class Group implements Serializable, Cloneable {
         if (!m.getStroke().isEmpty()) {
             this.instanceMark.setStroke(m.getStroke().get());
         }
-        this.instances.forEach(i -> i.mark(this.instanceMark));
+        Group.batch(this.instances, () -> this.instances.forEach(i -> i.mark(this.instanceMark)));
     }
 
     /**
@@ -199,13 +259,16 @@ public class Group implements Serializable, Cloneable {
      * removes the previous style from all members.
      */
     public void clear() {
-        this.clearMarks();
-        Iterator<InstanceConfiguration> it = this.instances.iterator();
-        while (it.hasNext()) {
-            var instance = it.next();
-            instance.getGroups().remove(this);
-            it.remove();
-        }
+        Group.batch(this.instances, () -> {
+            this.clearMarks();
+            Iterator<InstanceConfiguration> it = this.instances.iterator();
+            while (it.hasNext()) {
+                var instance = it.next();
+                instance.getGroups().remove(this);
+                instance.changed(ChangeSet.Kind.GROUPS);
+                it.remove();
+            }
+        });
     }
 
     /**
@@ -213,7 +276,24 @@ public class Group implements Serializable, Cloneable {
      * previous style from all members.
      */
     public void clearMarks() {
-        this.instances.forEach(i -> i.unmark(this.instanceMark));
-        this.instanceMark = new InstanceMark();
+        Group.batch(this.instances, () -> this.instances.forEach(i -> i.unmark(this.instanceMark)));
+        this.instanceMark.setColor(null).setShape(null).setStroke(null);
+    }
+
+    /**
+     * Runs changes of the given Instances as one batch of their configuration.
+     * If they belong to no configuration, the changes are just run.
+     *
+     * @param instances The Instances that change.
+     * @param changes   The changes to run.
+     */
+    private static void batch(Collection<InstanceConfiguration> instances, Runnable changes) {
+        Configuration configuration = instances.stream().map(InstanceConfiguration::getConfiguration)
+                .filter(Objects::nonNull).findFirst().orElse(null);
+        if (configuration == null) {
+            changes.run();
+        } else {
+            configuration.batch(changes);
+        }
     }
 }
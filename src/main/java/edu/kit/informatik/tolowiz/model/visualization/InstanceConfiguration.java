@@ -12,9 +12,12 @@ import edu.kit.informatik.tolowiz.model.ontology.ValueType;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
@@ -96,55 +99,71 @@ implements Serializable, Comparable<InstanceConfiguration>, Cloneable {
      * @transient
      */
     private transient List<InstanceListenerInterface> listeners;
-    private transient List<RelationConfiguration> relations;
+
+    /**
+     * The relations starting and ending in this Instance. They are registered
+     * by the relations themselves, and the lists are only created for the
+     * first relation.
+     *
+     * @transient
+     */
+    private transient List<RelationConfiguration> outgoing;
+    private transient List<RelationConfiguration> incoming;
+
+    /**
+     * The configuration this Instance belongs to, which may collect its
+     * changes in a batch. Set by the configuration.
+     *
+     * @transient
+     */
+    private transient Configuration configuration;
+
+    /**
+     * The position of this Instance in the snapshots of its configuration.
+     * Set by the configuration.
+     *
+     * @transient
+     * @see Configuration#snapshot()
+     */
+    private transient int index;
     private Point defPos;
 
     /**
      * Generates a new InstanceConfiguration based on an instance and a
-     * supertype.
+     * supertype. It is not yet added to the members of its types, see
+     * {@link InstanceTypeConfiguration#addMembers}.
      *
      * @param base The Instance to base this InstanceConfiguration on
-     * @param instanceTypes The other InstanceTypeConfigurations
+     * @param instanceTypes The other InstanceTypeConfigurations by their IRI
      */
     InstanceConfiguration(Instance base,
-            Set<InstanceTypeConfiguration> instanceTypes) {
+            Map<String, InstanceTypeConfiguration> instanceTypes) {
         this.instance = base;
         this.name = base.getName();
 
-        this.types = new TreeSet<>(); // for each known type, check if it's a
-        // supertype for the base instance
-        instanceTypes.stream()
-        .filter(itc -> base.getType().stream()
-                .filter(it -> it.getIRI().equals(itc.getIRI()))
-                .findFirst().orElse(null) != null)
-        .forEach(itc -> { // and add it if it is
-            LinkedList<InstanceTypeConfiguration> supertypes = new LinkedList<>();
-            supertypes.add(itc);
-            while (!supertypes.isEmpty()) {
-                InstanceTypeConfiguration t = supertypes.pop();
-                t.getMembers().add(this);
-                supertypes.addAll(t.getSuperTypes());
-            }
-            this.types.add(itc);
-        });
+        this.types = new TreeSet<>(); // look up the known type for each type
+        // of the base instance
+        base.getType().stream().map(it -> instanceTypes.get(it.getIRI()))
+        .filter(itc -> itc != null)
+        .forEach(this.types::add); // and add it if it is known
         this.visible = false;
         this.groups = new HashSet<>();
         this.marks = new LinkedList<>();
-        this.relations = new LinkedList<>();
         this.listeners = new LinkedList<>();
     }
 
     /**
      * Clones an InstanceConfiguration. It is necessary to know all the types in
-     * the type hierarchy of it.
+     * the type hierarchy of it. Like a new InstanceConfiguration, the copy is
+     * not yet added to the members of its types.
      *
-     * @param instanceTypes a set of InstanceTypeConfigurations needed to create
-     * the copy
+     * @param instanceTypes the InstanceTypeConfigurations needed to create the
+     * copy by their IRI
      * @return a new InstanceConfiguration which will be equal to, but not the
      * same object as this.
      */
     InstanceConfiguration cloneWithTypes(
-            Set<InstanceTypeConfiguration> instanceTypes) {
+            Map<String, InstanceTypeConfiguration> instanceTypes) {
         Object otherObject = null;
         try {
             otherObject = super.clone();
@@ -156,22 +175,15 @@ implements Serializable, Comparable<InstanceConfiguration>, Cloneable {
         other.name = this.name;
         other.types = new TreeSet<>(); // find the known types which are also
         // types of the this object
-        instanceTypes.stream().filter(itc -> this.types.contains(itc))
-        .forEach(itc -> {
-            LinkedList<InstanceTypeConfiguration> supertypes = new LinkedList<>();
-            supertypes.add(itc);
-            while (!supertypes.isEmpty()) {
-                InstanceTypeConfiguration t = supertypes.pop();
-                t.getMembers().add(other);
-                supertypes.addAll(t.getSuperTypes());
-            }
-            other.types.add(itc);
-        });
+        this.types.stream().map(t -> instanceTypes.get(t.getIRI()))
+        .filter(itc -> itc != null).forEach(other.types::add);
         other.visible = this.visible;
         other.groups = new HashSet<>();
         other.marks = new LinkedList<>(this.marks);
         other.listeners = new LinkedList<>();
-        other.relations = new LinkedList<>();
+        other.configuration = null;
+        other.outgoing = null;
+        other.incoming = null;
         other.defPos = (this.defPos != null ? this.defPos.clone() : null);
         other.pos = (this.pos != null ? this.pos.clone() : null);
         return other;
@@ -234,6 +246,23 @@ implements Serializable, Comparable<InstanceConfiguration>, Cloneable {
         return this.types;
     }
 
+    /**
+     * Tells whether this Instance belongs to a type, directly or through one
+     * of the subtypes of the type.
+     *
+     * @param type the type
+     * @return {@code true} if one of the types of this Instance is the given
+     * type or one of its subtypes
+     */
+    public boolean isOfType(InstanceTypeConfiguration type) {
+        for (InstanceTypeConfiguration t : this.types) {
+            if (t.isSubTypeOf(type)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Adds this Instance to a {@link Group}. An Instance can be part of
      * multiple groups at a time.
@@ -283,7 +312,9 @@ implements Serializable, Comparable<InstanceConfiguration>, Cloneable {
     public void show() {
         if (!this.visible) {
             this.visible = true;
-            this.changed();
+            InstanceTypeConfiguration.closureOf(this.types)
+                    .forEach(t -> t.memberVisibilityChanged(this, true));
+            this.changed(ChangeSet.Kind.VISIBILITY);
         }
     }
 
@@ -298,7 +329,9 @@ implements Serializable, Comparable<InstanceConfiguration>, Cloneable {
     public void hide() {
         if (this.visible) {
             this.visible = false;
-            this.changed();
+            InstanceTypeConfiguration.closureOf(this.types)
+                    .forEach(t -> t.memberVisibilityChanged(this, false));
+            this.changed(ChangeSet.Kind.VISIBILITY);
         }
     }
 
@@ -349,9 +382,7 @@ implements Serializable, Comparable<InstanceConfiguration>, Cloneable {
                 (a, b) -> a.getRelationType().getName()
                 .compareTo(b.getRelationType().getName()));
 
-        this.relations.stream()
-        .filter(rel -> rel.getOrigin().getName().equals(this.getName()))
-        .forEach(sortedRelations::add);
+        sortedRelations.addAll(this.getOutgoingRelations());
         for (var r : sortedRelations) {
             results.add(new Pair<>(r.getRelationType().getName(),
                     r.getDestination().getName()));
@@ -422,7 +453,7 @@ implements Serializable, Comparable<InstanceConfiguration>, Cloneable {
     public void mark(InstanceMark style) {
         this.marks.remove(style);
         this.marks.addLast(style);
-        this.changed();
+        this.changed(ChangeSet.Kind.STYLE);
     }
 
     /**
@@ -432,7 +463,19 @@ implements Serializable, Comparable<InstanceConfiguration>, Cloneable {
      */
     public void unmark(InstanceMark style) {
         this.marks.remove(style);
-        this.changed();
+        this.changed(ChangeSet.Kind.STYLE);
+    }
+
+    /**
+     * Replaces all marks of this Instance. The last mark of the list overrides
+     * the others, like after calling {@link #mark} for each mark in order.
+     *
+     * @param styles the marks to apply
+     * @see #getMarks()
+     */
+    public void setMarks(List<InstanceMark> styles) {
+        this.marks = new LinkedList<>(styles);
+        this.changed(ChangeSet.Kind.STYLE);
     }
 
     /**
@@ -454,7 +497,17 @@ implements Serializable, Comparable<InstanceConfiguration>, Cloneable {
      */
     public void restoreDefaultPosition() {
         this.pos = this.defPos;
-        this.changed();
+        this.changed(ChangeSet.Kind.POSITION);
+    }
+
+    /**
+     * Looks up the default position of this instance, which
+     * {@link #restoreDefaultPosition()} goes back to.
+     *
+     * @return the default position, or {@code null} if there is none
+     */
+    public Point getDefaultPosition() {
+        return this.defPos;
     }
 
     /**
@@ -507,7 +560,7 @@ implements Serializable, Comparable<InstanceConfiguration>, Cloneable {
      */
     public void setPosition(Point p) {
         this.pos = p;
-        this.changed();
+        this.changed(ChangeSet.Kind.POSITION);
     }
 
     /**
@@ -540,31 +593,188 @@ implements Serializable, Comparable<InstanceConfiguration>, Cloneable {
     /**
      * Indicates that this object was changed.<br>
      * This could be called from this class or from
-     * {@link InstanceTypeConfiguration#changed()}. All registered listeners
-     * will be notified of the change via
-     * {@link InstanceListenerInterface#onChange()}.
+     * {@link InstanceTypeConfiguration#changed(ChangeSet.Kind)}. All registered
+     * listeners will be notified of the change via
+     * {@link InstanceListenerInterface#onChange()}, unless a batch of the
+     * configuration is open, which then collects the change. The relations of
+     * this Instance change with it if it was shown, hidden or moved.
+     *
+     * @param kind the way this Instance changed
+     * @see Configuration#batch(Runnable)
+     */
+    protected void changed(ChangeSet.Kind kind) {
+        if ((this.configuration == null)
+                || !this.configuration.deferChange(kind, this)) {
+            this.listeners.forEach(InstanceListenerInterface::onChange);
+        }
+        if ((kind == ChangeSet.Kind.VISIBILITY)
+                || (kind == ChangeSet.Kind.POSITION)) {
+            this.getOutgoingRelations().forEach(r -> r.changed(kind));
+            this.getIncomingRelations().forEach(r -> r.changed(kind));
+        }
+    }
+
+    /**
+     * Gets the types of this Instance with all their direct and indirect
+     * supertypes.
+     *
+     * @return an unmodifiable set of all types this Instance is a member of
      */
-    protected void changed() {
-        this.listeners.forEach(InstanceListenerInterface::onChange);
-        assert (this.relations != null);
-        this.relations.forEach(RelationConfiguration::changed);
+    public Set<InstanceTypeConfiguration> getAllTypes() {
+        return Collections.unmodifiableSet(
+                InstanceTypeConfiguration.closureOf(this.types));
     }
 
     /**
-     * Adds a relation to the list of all relations concerning this instance.
+     * Sets the configuration this Instance belongs to.
      *
-     * @param relation The RelationConfiguration to add.
+     * @param configuration the configuration
+     */
+    void setConfiguration(Configuration configuration) {
+        this.configuration = configuration;
+    }
+
+    /**
+     * Gets the configuration this Instance belongs to.
+     *
+     * @return the configuration, or {@code null} if it was not set
      */
+    Configuration getConfiguration() {
+        return this.configuration;
+    }
+
+    /**
+     * Sets the position of this Instance in the snapshots of its
+     * configuration.
+     *
+     * @param index the index
+     */
+    void setIndex(int index) {
+        this.index = index;
+    }
 
+    /**
+     * Gets the position of this Instance in the snapshots of its
+     * configuration.
+     *
+     * @return the index, which is only valid while the snapshots are
+     */
+    int getIndex() {
+        return this.index;
+    }
+
+    /**
+     * Gets the relations starting in this Instance.
+     *
+     * @return an unmodifiable list of all relations with this Instance as
+     * origin
+     */
+    public List<RelationConfiguration> getOutgoingRelations() {
+        return InstanceConfiguration.view(this.outgoing);
+    }
+
+    /**
+     * Gets the relations of one type starting in this Instance.
+     *
+     * @param type the type of the relations
+     * @return a new list of the relations of the type with this Instance as
+     * origin
+     */
+    public List<RelationConfiguration> getOutgoingRelations(
+            RelationTypeConfiguration type) {
+        return InstanceConfiguration.filter(this.outgoing, type);
+    }
+
+    /**
+     * Gets the relations ending in this Instance.
+     *
+     * @return an unmodifiable list of all relations with this Instance as
+     * destination
+     */
+    public List<RelationConfiguration> getIncomingRelations() {
+        return InstanceConfiguration.view(this.incoming);
+    }
+
+    /**
+     * Gets the relations of one type ending in this Instance.
+     *
+     * @param type the type of the relations
+     * @return a new list of the relations of the type with this Instance as
+     * destination
+     */
+    public List<RelationConfiguration> getIncomingRelations(
+            RelationTypeConfiguration type) {
+        return InstanceConfiguration.filter(this.incoming, type);
+    }
+
+    /**
+     * Adds a relation to the relations concerning this instance. It is called
+     * once by the relation for its origin and its destination each.
+     *
+     * @param relation The RelationConfiguration to add.
+     */
     void addRelation(RelationConfiguration relation) {
-        this.relations.add(relation);
+        if (relation.getOrigin() == this) {
+            if (this.outgoing == null) {
+                this.outgoing = new ArrayList<>(2);
+            }
+            this.outgoing.add(relation);
+        }
+        if (relation.getDestination() == this) {
+            if (this.incoming == null) {
+                this.incoming = new ArrayList<>(2);
+            }
+            this.incoming.add(relation);
+        }
+    }
+
+    /**
+     * Removes a relation from the relations concerning this instance.
+     *
+     * @param relation The RelationConfiguration to remove.
+     */
+    void removeRelation(RelationConfiguration relation) {
+        if (this.outgoing != null) {
+            this.outgoing.remove(relation);
+        }
+        if (this.incoming != null) {
+            this.incoming.remove(relation);
+        }
+    }
+
+    /**
+     * @param relations some relations, may be {@code null}
+     * @return an unmodifiable view of the relations
+     */
+    private static List<RelationConfiguration> view(
+            List<RelationConfiguration> relations) {
+        return (relations != null ? Collections.unmodifiableList(relations)
+                : Collections.emptyList());
+    }
+
+    /**
+     * @param relations some relations, may be {@code null}
+     * @param type a type
+     * @return a new list of the relations of the type
+     */
+    private static List<RelationConfiguration> filter(
+            List<RelationConfiguration> relations,
+            RelationTypeConfiguration type) {
+        List<RelationConfiguration> result = new ArrayList<>();
+        if (relations != null) {
+            for (RelationConfiguration relation : relations) {
+                if (relation.getRelationType() == type) {
+                    result.add(relation);
+                }
+            }
+        }
+        return result;
     }
 
     private void readObject(ObjectInputStream in)
             throws ClassNotFoundException, IOException {
         in.defaultReadObject();
         this.listeners = new LinkedList<>();
-        this.relations = new LinkedList<>();
     }
 
 }
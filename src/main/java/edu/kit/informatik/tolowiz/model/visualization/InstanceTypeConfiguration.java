@@ -10,6 +10,15 @@ import edu.kit.informatik.tolowiz.model.ontology.InstanceType;
 import edu.kit.informatik.tolowiz.model.ontology.ValueType;
 
 import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
@@ -103,6 +112,19 @@ public class InstanceTypeConfiguration implements Serializable,
      */
     private DefaultHandler handler;
 
+    /**
+     * This type and all its direct and indirect supertypes. It is computed on
+     * first use, after the hierarchy is complete.
+     */
+    private transient Set<InstanceTypeConfiguration> closure;
+
+    /**
+     * The number of visible members, kept up to date by the members. It is
+     * counted again on first use after deserialization.
+     */
+    private transient int visibleMembers;
+    private transient boolean counted;
+
     /**
      * Constructs a new InstanceTypeConfiguration for a type. It will have
      * standard values.
@@ -120,6 +142,7 @@ public class InstanceTypeConfiguration implements Serializable,
         this.supertypes = new TreeSet<>();
         this.members = new TreeSet<>();
         this.subtypes = new TreeSet<>();
+        this.counted = true;
     }
 
     /**
@@ -152,9 +175,12 @@ public class InstanceTypeConfiguration implements Serializable,
         other.supertypes = new TreeSet<>();
         // construct member set, fill it later
         other.members = new TreeSet<>();
+        other.visibleMembers = 0;
+        other.counted = true;
 
         // construct subtypes and add them
         other.subtypes = new TreeSet<>();
+        other.closure = null;
         return other;
     }
 
@@ -190,19 +216,120 @@ public class InstanceTypeConfiguration implements Serializable,
      * constructors, since we need a full set of all types to actually
      * initialize the hierarchy.
      *
-     * @param otherTypes A set of all InstanceTypeConfigurations
+     * @param otherTypes All InstanceTypeConfigurations by their IRI
      */
-    void initHierarchy(Set<InstanceTypeConfiguration> otherTypes) {
+    void initHierarchy(Map<String, InstanceTypeConfiguration> otherTypes) {
         this.instanceType.getSuperTypes().stream() // transforms the supertypes
                 // set into the instanceTypes
-                .map(it -> otherTypes.stream()
-                        .filter(itc -> itc.getIRI().equals(it.getIRI()))
-                        .findFirst().orElse(null))
+                .map(it -> otherTypes.get(it.getIRI()))
                 .filter(a -> a != null).forEach(a -> { // and adds them if they
                     // are not null
                     this.supertypes.add(a);
                     a.subtypes.add(this);
                 });
+        this.closure = null;
+    }
+
+    /**
+     * Returns this type with all its direct and indirect supertypes. Every
+     * type is contained once, even if it is reachable on several paths.
+     *
+     * @return the transitive closure of the supertypes, including this type
+     */
+    Set<InstanceTypeConfiguration> getClosure() {
+        if (this.closure == null) {
+            Set<InstanceTypeConfiguration> result = new HashSet<>();
+            Deque<InstanceTypeConfiguration> open = new ArrayDeque<>();
+            result.add(this);
+            open.push(this);
+            while (!open.isEmpty()) {
+                for (InstanceTypeConfiguration t : open.pop().supertypes) {
+                    if (result.add(t)) {
+                        open.push(t);
+                    }
+                }
+            }
+            this.closure = result;
+        }
+        return this.closure;
+    }
+
+    /**
+     * Tells whether this type is the same as or a direct or indirect subtype
+     * of another type.
+     *
+     * @param type the possible supertype
+     * @return {@code true} if members of this type are members of the other
+     */
+    public boolean isSubTypeOf(InstanceTypeConfiguration type) {
+        return this.getClosure().contains(type);
+    }
+
+    /**
+     * Adds Instances to the members of their types and of all supertypes of
+     * these. The Instances are grouped by type first, so that the members of
+     * every type are added at once.
+     *
+     * @param instances the new Instances
+     */
+    static void addMembers(Collection<InstanceConfiguration> instances) {
+        Map<InstanceTypeConfiguration, List<InstanceConfiguration>> byType = new HashMap<>();
+        for (InstanceConfiguration instance : instances) {
+            for (InstanceTypeConfiguration t : InstanceTypeConfiguration
+                    .closureOf(instance.getTypes())) {
+                byType.computeIfAbsent(t, k -> new ArrayList<>()).add(instance);
+            }
+        }
+        byType.forEach((type, members) -> {
+            for (InstanceConfiguration member : members) {
+                if (type.members.add(member) && member.isVisible()) {
+                    type.visibleMembers++;
+                }
+            }
+        });
+    }
+
+    /**
+     * Removes an Instance from the members of this type.
+     *
+     * @param member the Instance to remove
+     */
+    void removeMember(InstanceConfiguration member) {
+        if (this.members.remove(member) && member.isVisible()) {
+            this.visibleMembers--;
+        }
+    }
+
+    /**
+     * Returns the given types with all their direct and indirect supertypes.
+     *
+     * @param types the direct types of an Instance
+     * @return every type the Instance is a member of
+     */
+    static Set<InstanceTypeConfiguration> closureOf(
+            Collection<InstanceTypeConfiguration> types) {
+        if (types.size() == 1) {
+            return types.iterator().next().getClosure();
+        }
+        // types shared by several direct types are contained once
+        Set<InstanceTypeConfiguration> result = new HashSet<>();
+        for (InstanceTypeConfiguration t : types) {
+            result.addAll(t.getClosure());
+        }
+        return result;
+    }
+
+    /**
+     * Called by an Instance of this type whose visibility changed.
+     *
+     * @param member the Instance
+     * @param visible the new visibility of the Instance
+     */
+    void memberVisibilityChanged(InstanceConfiguration member,
+            boolean visible) {
+        if (this.counted && this.members.contains(member)) {
+            this.visibleMembers += (visible ? 1 : -1);
+        }
     }
 
     /**
@@ -218,12 +345,12 @@ public class InstanceTypeConfiguration implements Serializable,
     /**
      * Gets the members of this type. Includes members of all subtypes.
      *
-     * @return a collection of InstanceConfigurations of this type or it's
-     * subtypes.
+     * @return an unmodifiable collection of InstanceConfigurations of this
+     * type or it's subtypes.
      * @see #getDirectMembers()
      */
     public SortedSet<InstanceConfiguration> getMembers() {
-        return this.members;
+        return Collections.unmodifiableSortedSet(this.members);
     }
 
     /**
@@ -246,12 +373,15 @@ public class InstanceTypeConfiguration implements Serializable,
      * invisible is no members are visible.
      */
     public TypeVisibility isVisible() {
-        int visibleMembers = (int) this.members.stream()
-                .filter(InstanceConfiguration::isVisible).count();
+        if (!this.counted) {
+            this.visibleMembers = (int) this.members.stream()
+                    .filter(InstanceConfiguration::isVisible).count();
+            this.counted = true;
+        }
 
-        if (visibleMembers == this.members.size()) {
+        if (this.visibleMembers == this.members.size()) {
             return TypeVisibility.YES;
-        } else if (visibleMembers == 0) {
+        } else if (this.visibleMembers == 0) {
             return TypeVisibility.NO;
         } else {
             return TypeVisibility.PARTIAL;
@@ -301,7 +431,7 @@ public class InstanceTypeConfiguration implements Serializable,
      */
     public void setHandler(DefaultHandler handler) {
         this.handler = handler;
-        this.changed();
+        this.changed(ChangeSet.Kind.POSITION);
     }
 
     /**
@@ -361,9 +491,11 @@ public class InstanceTypeConfiguration implements Serializable,
      */
     public void activateValue(ValueType type) {
         if (this.instanceType.getValues().contains(type)) {
+            // values may have been added to the type by a delta
+            this.allTypes.add(type);
             this.activeTypes.add(type);
         }
-        this.changed();
+        this.changed(ChangeSet.Kind.STYLE);
     }
 
     /**
@@ -375,7 +507,7 @@ public class InstanceTypeConfiguration implements Serializable,
      */
     public void deactivateValue(ValueType type) {
         this.activeTypes.remove(type);
-        this.changed();
+        this.changed(ChangeSet.Kind.STYLE);
     }
 
     /**
@@ -404,7 +536,7 @@ public class InstanceTypeConfiguration implements Serializable,
      */
     public void setIcon(IconInterface icon) {
         this.icon = icon;
-        this.changed();
+        this.changed(ChangeSet.Kind.STYLE);
     }
 
     /**
@@ -423,10 +555,11 @@ public class InstanceTypeConfiguration implements Serializable,
      * their {@link InstanceListenerInterface ChangeListeners} need to be
      * notified.
      *
-     * @see InstanceConfiguration#changed()
+     * @param kind the way the members changed
+     * @see InstanceConfiguration#changed(ChangeSet.Kind)
      */
-    private void changed() {
-        this.members.forEach(InstanceConfiguration::changed);
+    private void changed(ChangeSet.Kind kind) {
+        this.members.forEach(m -> m.changed(kind));
     }
 
     /**
@@ -476,24 +609,15 @@ public class InstanceTypeConfiguration implements Serializable,
      * @return the visibility
      */
     public TypeVisibility getAllValuesShown() {
-        boolean yes = true;
-        boolean no = true;
-        for (var x : this.getAllValues()) {
-            if (this.activeTypes.contains(x)) {
-                no = false;
-            } else {
-                yes = false;
-            }
-        }
-
-        if (yes && !no) {
+        // the active values are always a subset of all values
+        if (this.allTypes.isEmpty()) {
+            return TypeVisibility.INDEFINITE;
+        } else if (this.activeTypes.size() == this.allTypes.size()) {
             return TypeVisibility.YES;
-        } else if (no && !yes) {
+        } else if (this.activeTypes.isEmpty()) {
             return TypeVisibility.NO;
-        } else if (!no && !yes) {
-            return TypeVisibility.PARTIAL;
         } else {
-            return TypeVisibility.INDEFINITE;
+            return TypeVisibility.PARTIAL;
         }
     }
 }
@@ -11,7 +11,6 @@ import java.util.function.BinaryOperator;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collector;
-import java.util.stream.Collectors;
 
 /**
  * @author Tobias Klumpp, Fabian Palitza
@@ -45,13 +44,12 @@ public class InterfaceHandler extends DefaultHandler {
 
     @Override
     public Point calculatePosition(InstanceConfiguration instance) {
-        Set<RelationConfiguration> relations = this.configuration.getRelations();
-        Point origin = relations.stream().filter(rel -> rel.getDestination().equals(instance))
+        Point origin = instance.getIncomingRelations().stream()
                 // finds the (single) relation with target instance
                 .findFirst().orElseThrow().getOrigin().getStoredPosition();
         // and gets the origin position.
 
-        Point destination = relations.stream().filter(rel -> rel.getOrigin().equals(instance))
+        Point destination = instance.getOutgoingRelations().stream()
                 .map(rel -> rel.getDestination().getStoredPosition()).collect(PointAverage.average());
 
         double dx = (origin.getX() - destination.getX());
@@ -76,8 +74,7 @@ public class InterfaceHandler extends DefaultHandler {
         }
         Boolean incomingRelationsMatch = instanceType.getDirectMembers().stream() // finds all Relations ending in each
                                                                                   // instance
-                .map(instance -> this.configuration.getRelations().stream()
-                        .filter(rel -> rel.getDestination().equals(instance)).collect(Collectors.toList()))
+                .map(InstanceConfiguration::getIncomingRelations)
                 .allMatch(list -> (list.size() == 1) && !list.get(0).getOrigin().getTypes().contains(instanceType));
         if (!incomingRelationsMatch) {
             return false;
@@ -0,0 +1,357 @@
+/*
+ * Copyright 2020 Anne Bernhart, Anja Hansen, Tobias Klumpp, Fabian Palitza,
+ * Florian Patzer, Friedrich Volz, Sandra Wolf
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package edu.kit.informatik.tolowiz.model.visualization;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The part of a configuration around some selected Instances, the seeds. It
+ * contains every Instance that is at most {@link Configuration#getDepth()}
+ * relations away from a seed, in either direction, and the relations on these
+ * paths. Relations between the same two Instances are collapsed into a
+ * {@link Bundle} if there are more than
+ * {@link Configuration#getmaxParallelRelations()} of them.<br>
+ * <br>
+ * The neighborhood of every seed is explored once when the seed is added and
+ * remembered, so adding or removing a seed only takes time proportional to its
+ * own neighborhood, not to the size of the configuration.
+ *
+ * @see Configuration#getNeighborhood()
+ */
+public class Neighborhood {
+
+    private final Configuration configuration;
+
+    /**
+     * The explored neighborhood of each seed.
+     */
+    private final Map<InstanceConfiguration, Ball> seeds;
+
+    /**
+     * How many seeds reach each Instance or relation of the neighborhood.
+     */
+    private final Map<InstanceConfiguration, Integer> instances;
+    private final Map<RelationConfiguration, Integer> relations;
+
+    /**
+     * The relations of the neighborhood by the two Instances they connect.
+     */
+    private final Map<Endpoints, List<RelationConfiguration>> parallel;
+
+    /**
+     * Creates an empty neighborhood.
+     *
+     * @param configuration the configuration to explore
+     */
+    Neighborhood(Configuration configuration) {
+        this.configuration = configuration;
+        this.seeds = new LinkedHashMap<>();
+        this.instances = new IdentityHashMap<>();
+        this.relations = new IdentityHashMap<>();
+        this.parallel = new HashMap<>();
+    }
+
+    /**
+     * Adds a seed and its surroundings to this neighborhood.
+     *
+     * @param seed an Instance of the configuration
+     * @return {@code false} if the Instance already was a seed
+     */
+    public boolean addSeed(InstanceConfiguration seed) {
+        if (this.seeds.containsKey(seed)) {
+            return false;
+        }
+        Ball ball = this.explore(seed);
+        this.seeds.put(seed, ball);
+        ball.instances.forEach(i -> this.instances.merge(i, 1, Integer::sum));
+        for (RelationConfiguration relation : ball.relations) {
+            if (this.relations.merge(relation, 1, Integer::sum) == 1) {
+                this.parallel.computeIfAbsent(new Endpoints(relation),
+                        k -> new ArrayList<>(1)).add(relation);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Removes a seed and everything only it reached from this neighborhood.
+     *
+     * @param seed a seed of this neighborhood
+     * @return {@code false} if the Instance was no seed
+     */
+    public boolean removeSeed(InstanceConfiguration seed) {
+        Ball ball = this.seeds.remove(seed);
+        if (ball == null) {
+            return false;
+        }
+        ball.instances.forEach(i -> this.instances
+                .computeIfPresent(i, (k, count) -> (count > 1 ? count - 1 : null)));
+        for (RelationConfiguration relation : ball.relations) {
+            if (this.relations.computeIfPresent(relation,
+                    (k, count) -> (count > 1 ? count - 1 : null)) == null) {
+                Endpoints endpoints = new Endpoints(relation);
+                List<RelationConfiguration> list = this.parallel.get(endpoints);
+                list.remove(relation);
+                if (list.isEmpty()) {
+                    this.parallel.remove(endpoints);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Replaces all seeds. Seeds that stay are not explored again.
+     *
+     * @param newSeeds the new seeds
+     */
+    public void setSeeds(Collection<InstanceConfiguration> newSeeds) {
+        Set<InstanceConfiguration> keep = Collections
+                .newSetFromMap(new IdentityHashMap<>());
+        keep.addAll(newSeeds);
+        new ArrayList<>(this.seeds.keySet()).stream()
+        .filter(s -> !keep.contains(s)).forEach(this::removeSeed);
+        newSeeds.forEach(this::addSeed);
+    }
+
+    /**
+     * Explores all neighborhoods again, for example after the depth or the
+     * relations of the configuration changed. Seeds that are no longer part of
+     * the configuration are dropped.
+     */
+    public void refresh() {
+        List<InstanceConfiguration> old = new ArrayList<>(this.seeds.keySet());
+        this.seeds.clear();
+        this.instances.clear();
+        this.relations.clear();
+        this.parallel.clear();
+        old.stream()
+        .filter(s -> this.configuration.getInstanceByURI(s.getURI()) == s)
+        .forEach(this::addSeed);
+    }
+
+    /**
+     * Gets the seeds of this neighborhood.
+     *
+     * @return an unmodifiable set of the seeds
+     */
+    public Set<InstanceConfiguration> getSeeds() {
+        return Collections.unmodifiableSet(this.seeds.keySet());
+    }
+
+    /**
+     * Gets the Instances of this neighborhood, including the seeds.
+     *
+     * @return an unmodifiable set of all Instances close to a seed
+     */
+    public Set<InstanceConfiguration> getInstances() {
+        return Collections.unmodifiableSet(this.instances.keySet());
+    }
+
+    /**
+     * Checks whether an Instance is part of this neighborhood.
+     *
+     * @param instance an Instance
+     * @return {@code true} if the Instance is close to a seed
+     */
+    public boolean contains(InstanceConfiguration instance) {
+        return this.instances.containsKey(instance);
+    }
+
+    /**
+     * Gets the relations of this neighborhood that are displayed on their
+     * own, because there are at most
+     * {@link Configuration#getmaxParallelRelations()} relations between their
+     * Instances.
+     *
+     * @return a new list of the relations that are not bundled
+     */
+    public List<RelationConfiguration> getRelations() {
+        int max = this.configuration.getmaxParallelRelations();
+        List<RelationConfiguration> result = new ArrayList<>();
+        this.parallel.values().stream().filter(list -> list.size() <= max)
+        .forEach(result::addAll);
+        return result;
+    }
+
+    /**
+     * Gets the bundles of parallel relations, that is relations between two
+     * Instances that have more than
+     * {@link Configuration#getmaxParallelRelations()} relations between them.
+     *
+     * @return a new list of the bundles of this neighborhood
+     */
+    public List<Bundle> getBundles() {
+        int max = this.configuration.getmaxParallelRelations();
+        List<Bundle> result = new ArrayList<>();
+        this.parallel.values().stream().filter(list -> list.size() > max)
+        .forEach(list -> result.add(new Bundle(list)));
+        return result;
+    }
+
+    /**
+     * Gets the bundle a relation belongs to, that is the bundle of all
+     * relations of this neighborhood between the same two Instances.
+     *
+     * @param relation a relation of the configuration
+     * @return the bundle, or {@code null} if there are at most
+     *         {@link Configuration#getmaxParallelRelations()} relations
+     *         between its Instances
+     */
+    public Bundle getBundle(RelationConfiguration relation) {
+        List<RelationConfiguration> list = this.parallel.get(new Endpoints(relation));
+        if ((list == null) || (list.size() <= this.configuration.getmaxParallelRelations())) {
+            return null;
+        }
+        return new Bundle(list);
+    }
+
+    /**
+     * Finds everything at most {@link Configuration#getDepth()} relations away
+     * from a seed by a breadth-first search in both directions.
+     *
+     * @param seed the seed
+     * @return the Instances and relations found
+     */
+    private Ball explore(InstanceConfiguration seed) {
+        int depth = this.configuration.getDepth();
+        Ball ball = new Ball();
+        Map<InstanceConfiguration, Integer> distances = new IdentityHashMap<>();
+        Deque<InstanceConfiguration> open = new ArrayDeque<>();
+        distances.put(seed, 0);
+        open.add(seed);
+        while (!open.isEmpty()) {
+            InstanceConfiguration current = open.poll();
+            ball.instances.add(current);
+            int distance = distances.get(current);
+            if (distance >= depth) {
+                continue;
+            }
+            for (RelationConfiguration relation : current.getOutgoingRelations()) {
+                this.visit(ball, distances, open, relation, current);
+            }
+            for (RelationConfiguration relation : current.getIncomingRelations()) {
+                if (relation.getOrigin() != current) { // loops are outgoing too
+                    this.visit(ball, distances, open, relation, current);
+                }
+            }
+        }
+        return ball;
+    }
+
+    /**
+     * Follows a relation during the search. Every relation is added once, by
+     * the Instance closer to the seed, or by its origin if both are equally
+     * close.
+     *
+     * @param ball the Instances and relations found so far
+     * @param distances the distances of the Instances found so far
+     * @param open the Instances still to visit
+     * @param relation the relation
+     * @param current the Instance the relation is followed from
+     */
+    private void visit(Ball ball, Map<InstanceConfiguration, Integer> distances,
+            Deque<InstanceConfiguration> open, RelationConfiguration relation,
+            InstanceConfiguration current) {
+        int distance = distances.get(current);
+        InstanceConfiguration other = (relation.getOrigin() == current
+                ? relation.getDestination() : relation.getOrigin());
+        Integer known = distances.get(other);
+        if ((known == null) || (known > distance)
+                || ((known == distance) && (relation.getOrigin() == current))) {
+            ball.relations.add(relation);
+        }
+        if (known == null) {
+            distances.put(other, distance + 1);
+            open.add(other);
+        }
+    }
+
+    /**
+     * The Instances and relations reached from one seed.
+     */
+    private static final class Ball {
+        private final List<InstanceConfiguration> instances = new ArrayList<>();
+        private final List<RelationConfiguration> relations = new ArrayList<>();
+    }
+
+    /**
+     * The two Instances of a relation, regardless of its direction.
+     */
+    private static final class Endpoints {
+        private final InstanceConfiguration first;
+        private final InstanceConfiguration second;
+
+        private Endpoints(RelationConfiguration relation) {
+            this.first = relation.getOrigin();
+            this.second = relation.getDestination();
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(this.first)
+                    ^ System.identityHashCode(this.second);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Endpoints)) {
+                return false;
+            }
+            Endpoints other = (Endpoints) obj;
+            return ((this.first == other.first) && (this.second == other.second))
+                    || ((this.first == other.second) && (this.second == other.first));
+        }
+    }
+
+    /**
+     * Several parallel relations between two Instances that are displayed as
+     * one.
+     */
+    public static final class Bundle {
+        private final InstanceConfiguration first;
+        private final InstanceConfiguration second;
+        private final List<RelationConfiguration> relations;
+
+        private Bundle(List<RelationConfiguration> relations) {
+            // the same Instance comes first as long as the first relation stays
+            this.first = relations.get(0).getOrigin();
+            this.second = relations.get(0).getDestination();
+            this.relations = Collections.unmodifiableList(new ArrayList<>(relations));
+        }
+
+        /**
+         * @return one of the two Instances connected by the bundle
+         */
+        public InstanceConfiguration getFirst() {
+            return this.first;
+        }
+
+        /**
+         * @return the other Instance connected by the bundle
+         */
+        public InstanceConfiguration getSecond() {
+            return this.second;
+        }
+
+        /**
+         * @return the relations in this bundle, in either direction
+         */
+        public List<RelationConfiguration> getRelations() {
+            return this.relations;
+        }
+    }
+}
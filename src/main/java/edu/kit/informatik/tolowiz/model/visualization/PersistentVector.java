@@ -0,0 +1,171 @@
+/*
+ * Copyright 2020 Anne Bernhart, Anja Hansen, Tobias Klumpp, Fabian Palitza,
+ * Florian Patzer, Friedrich Volz, Sandra Wolf
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package edu.kit.informatik.tolowiz.model.visualization;
+
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * An immutable list of fixed size, stored as a tree with 32 children per
+ * node. Setting an element copies only the path from the root to it, so the
+ * new list shares all other nodes with the old one. Two lists derived from
+ * each other can be compared by skipping all nodes they share.
+ *
+ * @param <T> the type of the elements
+ */
+final class PersistentVector<T> {
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << PersistentVector.BITS;
+    private static final int MASK = PersistentVector.WIDTH - 1;
+
+    private final int size;
+
+    /**
+     * How far an index has to be shifted to get the child of the root. It is 0
+     * if the root holds the elements.
+     */
+    private final int shift;
+    private final Object[] root;
+
+    private PersistentVector(int size, int shift, Object[] root) {
+        this.size = size;
+        this.shift = shift;
+        this.root = root;
+    }
+
+    /**
+     * Creates a list of the given elements.
+     *
+     * @param <T>      the type of the elements
+     * @param elements the elements, which should allow fast access by index
+     * @return a new list
+     */
+    static <T> PersistentVector<T> of(List<? extends T> elements) {
+        int shift = 0;
+        while ((1L << (shift + PersistentVector.BITS)) < elements.size()) {
+            shift += PersistentVector.BITS;
+        }
+        return new PersistentVector<>(elements.size(), shift,
+                PersistentVector.build(elements, 0, shift));
+    }
+
+    private static Object[] build(List<?> elements, int offset, int shift) {
+        if (shift == 0) {
+            Object[] leaf = new Object[Math.min(PersistentVector.WIDTH,
+                    elements.size() - offset)];
+            for (int i = 0; i < leaf.length; i++) {
+                leaf[i] = elements.get(offset + i);
+            }
+            return leaf;
+        }
+        int span = 1 << shift;
+        int children = Math.min(PersistentVector.WIDTH,
+                ((elements.size() - offset) + span - 1) / span);
+        Object[] node = new Object[children];
+        for (int i = 0; i < children; i++) {
+            node[i] = PersistentVector.build(elements, offset + (i * span),
+                    shift - PersistentVector.BITS);
+        }
+        return node;
+    }
+
+    /**
+     * Gets the number of elements.
+     *
+     * @return the size of this list
+     */
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * Gets an element.
+     *
+     * @param index the index of the element
+     * @return the element
+     * @throws IndexOutOfBoundsException if the index is not in this list
+     */
+    @SuppressWarnings("unchecked")
+    T get(int index) {
+        Object[] node = this.leaf(index);
+        return (T) node[index & PersistentVector.MASK];
+    }
+
+    /**
+     * Creates a list with one element replaced.
+     *
+     * @param index   the index of the element
+     * @param element the new element
+     * @return the new list, or this list if it already holds the element
+     * @throws IndexOutOfBoundsException if the index is not in this list
+     */
+    PersistentVector<T> set(int index, T element) {
+        if (this.leaf(index)[index & PersistentVector.MASK] == element) {
+            return this;
+        }
+        return new PersistentVector<>(this.size, this.shift,
+                PersistentVector.set(this.root, this.shift, index, element));
+    }
+
+    private static Object[] set(Object[] node, int shift, int index,
+            Object element) {
+        Object[] copy = node.clone();
+        if (shift == 0) {
+            copy[index & PersistentVector.MASK] = element;
+        } else {
+            int child = (index >>> shift) & PersistentVector.MASK;
+            copy[child] = PersistentVector.set((Object[]) node[child],
+                    shift - PersistentVector.BITS, index, element);
+        }
+        return copy;
+    }
+
+    /**
+     * Calls an action for every index at which this and the other list hold
+     * different elements, compared by identity. Nodes that both lists share
+     * are skipped, so this only takes time proportional to the differences if
+     * the lists were derived from each other.
+     *
+     * @param other  a list of the same size
+     * @param action the action to call with the index
+     * @throws IllegalArgumentException if the other list has another size
+     */
+    void forEachDifference(PersistentVector<T> other, IntConsumer action) {
+        if (other.size != this.size) {
+            throw new IllegalArgumentException("The lists differ in size"); //$NON-NLS-1$
+        }
+        PersistentVector.diff(this.root, other.root, this.shift, 0, action);
+    }
+
+    private static void diff(Object[] a, Object[] b, int shift, int offset,
+            IntConsumer action) {
+        if (a == b) {
+            return;
+        }
+        for (int i = 0; i < a.length; i++) {
+            if (shift == 0) {
+                if (a[i] != b[i]) {
+                    action.accept(offset + i);
+                }
+            } else {
+                PersistentVector.diff((Object[]) a[i], (Object[]) b[i],
+                        shift - PersistentVector.BITS, offset + (i << shift),
+                        action);
+            }
+        }
+    }
+
+    private Object[] leaf(int index) {
+        if ((index < 0) || (index >= this.size)) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        Object[] node = this.root;
+        for (int level = this.shift; level > 0; level -= PersistentVector.BITS) {
+            node = (Object[]) node[(index >>> level) & PersistentVector.MASK];
+        }
+        return node;
+    }
+}
@@ -12,9 +12,8 @@ import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.Set;
-import java.util.stream.Stream;
 
 /**
  * Used to get all style configuration information about relations. Each object
@@ -64,30 +63,31 @@ public class RelationConfiguration implements Serializable, Cloneable {
     private transient List<RelationListenerInterface> listeners;
     private boolean initialized;
 
+    /**
+     * The configuration this Relation belongs to, which may collect its
+     * changes in a batch. Set by the configuration.
+     *
+     * @transient
+     */
+    private transient Configuration configuration;
+
     /**
      * Creates a new Relation a Relation to base on and parent type.
      *
      * @param base the Relation this is based on
      * @param type The RelationTypeConfiguration this belongs to
-     * @param instances The configuration
+     * @param instances The instances of the configuration by their URI
      */
     public RelationConfiguration(Relation base, RelationTypeConfiguration type,
-            Set<InstanceConfiguration> instances) {
-        Stream<InstanceConfiguration> str = instances.stream();
-        this.instance1 = str
-                .filter(a -> base.getOrigin().getURI().equals(a.getURI()))
-                .findFirst().orElse(null);
+            Map<String, InstanceConfiguration> instances) {
+        this.instance1 = instances.get(base.getOrigin().getURI());
         assert (this.instance1 != null);
-        this.instance1.addRelation(this);
-        str = instances.stream();
-        this.instance2 = str
-                .filter(a -> base.getDestination().getURI().equals(a.getURI()))
-                .findFirst().orElse(null);
+        this.instance2 = instances.get(base.getDestination().getURI());
         assert (this.instance2 != null);
-        this.instance2.addRelation(this);
         this.type = type;
         this.listeners = new LinkedList<>();
         this.uri = base.getURI();
+        this.register();
     }
 
     @Override
@@ -115,13 +115,13 @@ public class RelationConfiguration implements Serializable, Cloneable {
      * Clones a relationConfiguration with the given instances.
      *
      * @param type the cloned type
-     * @param instances the cloned instances to use
+     * @param instances the cloned instances to use by their URI
      * @return a new RelationConfiguration, which will be equal to, but not the
      * same object as this.
      */
     public RelationConfiguration cloneWithInstances(
             RelationTypeConfiguration type,
-            Set<InstanceConfiguration> instances) {
+            Map<String, InstanceConfiguration> instances) {
         Object otherObject = null;
         try {
             otherObject = super.clone();
@@ -131,17 +131,14 @@ public class RelationConfiguration implements Serializable, Cloneable {
         RelationConfiguration other = (RelationConfiguration) otherObject;
         other.type = type;
         other.listeners = new LinkedList<>();
+        other.configuration = null;
         other.uri = this.uri;
-        Stream<InstanceConfiguration> str = instances.stream();
-        other.instance1 = str.filter(i -> this.instance1.equals(i)).findFirst()
-                .orElse(null);
+        other.instance1 = instances.get(this.instance1.getURI());
         assert (other.instance1 != null);
-        other.instance1.addRelation(other);
-        str = instances.stream();
-        other.instance2 = str.filter(i -> this.instance2.equals(i)).findFirst()
-                .orElse(null);
+        other.instance2 = instances.get(this.instance2.getURI());
         assert (other.instance2 != null);
-        other.instance2.addRelation(other);
+        other.initialized = false;
+        other.register();
         return other;
     }
 
@@ -226,12 +223,23 @@ public class RelationConfiguration implements Serializable, Cloneable {
      */
     public void addListener(RelationListenerInterface listener) {
         assert (this.listeners != null);
+        this.register();
+        this.listeners.add(listener);
+    }
+
+    /**
+     * Registers this Relation with its origin and destination, unless it is
+     * already registered. After deserialization, this is done by the
+     * {@link Configuration} once all Instances are read.
+     */
+    void register() {
         if (!this.initialized) {
             this.instance1.addRelation(this);
-            this.instance2.addRelation(this);
+            if (this.instance2 != this.instance1) {
+                this.instance2.addRelation(this);
+            }
             this.initialized = true;
         }
-        this.listeners.add(listener);
     }
 
     /**
@@ -247,20 +255,46 @@ public class RelationConfiguration implements Serializable, Cloneable {
     }
 
     /**
-     * Indicates that this object was changed.<br>
-     * This could be called from this class or from
-     * {@link RelationTypeConfiguration#changed()}. All registered listeners
-     * will be notified of the change via
-     * {@link RelationListenerInterface#onChange()}.
+     * Indicates that this object was changed in an unknown way.
+     *
+     * @see #changed(ChangeSet.Kind)
      */
     void changed() {
+        this.changed(ChangeSet.Kind.STYLE);
+    }
+
+    /**
+     * Indicates that this object was changed.<br>
+     * This could be called from this class, from its Instances or from
+     * {@link RelationTypeConfiguration#changed(ChangeSet.Kind)}. All
+     * registered listeners will be notified of the change via
+     * {@link RelationListenerInterface#onChange()}, unless a batch of the
+     * configuration is open, which then collects the change.
+     *
+     * @param kind the way this Relation changed
+     * @see Configuration#batch(Runnable)
+     */
+    void changed(ChangeSet.Kind kind) {
         assert (this.listeners != null);
         for (RelationListenerInterface x : this.listeners) {
             assert (x != null);
         }
+        if ((this.configuration != null)
+                && this.configuration.deferChange(kind, this)) {
+            return;
+        }
         this.listeners.forEach(RelationListenerInterface::onChange);
     }
 
+    /**
+     * Sets the configuration this Relation belongs to.
+     *
+     * @param configuration the configuration
+     */
+    void setConfiguration(Configuration configuration) {
+        this.configuration = configuration;
+    }
+
     private void readObject(ObjectInputStream in)
             throws ClassNotFoundException, IOException {
         in.defaultReadObject();
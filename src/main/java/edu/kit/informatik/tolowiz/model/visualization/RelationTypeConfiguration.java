@@ -6,7 +6,9 @@
 package edu.kit.informatik.tolowiz.model.visualization;
 
 import java.io.Serializable;
+import java.util.Comparator;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 
@@ -51,6 +53,15 @@ public class RelationTypeConfiguration implements Serializable, Cloneable, Compa
      */
     private String name;
 
+    /**
+     * The URI of the RelationType, which tells types with the same name apart.
+     * It is {@code null} in configurations serialized before it was added,
+     * until the Configuration sets it.
+     *
+     * @serial
+     */
+    private String uri;
+
     /**
      * The style used to display relations of this type.
      *
@@ -63,10 +74,11 @@ public class RelationTypeConfiguration implements Serializable, Cloneable, Compa
      * Creates a new RelationTypeConfiguration based on a RelationType
      *
      * @param base      the type to base this Configuration on.
-     * @param instances the instances to search
+     * @param instances the instances of the configuration by their URI
      */
-    RelationTypeConfiguration(RelationType base, Set<InstanceConfiguration> instances) {
+    RelationTypeConfiguration(RelationType base, Map<String, InstanceConfiguration> instances) {
         this.name = base.getName();
+        this.uri = base.getURI();
         this.style = new RelationStyle();
         this.members = new HashSet<>();
         base.getRelations().stream().forEach(a -> this.members.add(new RelationConfiguration(a, this, instances)));
@@ -76,11 +88,11 @@ public class RelationTypeConfiguration implements Serializable, Cloneable, Compa
     /**
      * Clones this RelationTypeConfiguration
      *
-     * @param instances The cloned instances to use
+     * @param instances The cloned instances to use by their URI
      * @return a RelationTypeConfiguration which will be equal to, but not the same
      *         object as this.
      */
-    RelationTypeConfiguration cloneWithInstances(Set<InstanceConfiguration> instances) {
+    RelationTypeConfiguration cloneWithInstances(Map<String, InstanceConfiguration> instances) {
         Object otherObject = null;
         try {
             otherObject = super.clone();
@@ -89,6 +101,7 @@ public class RelationTypeConfiguration implements Serializable, Cloneable, Compa
         }
         RelationTypeConfiguration other = (RelationTypeConfiguration) otherObject;
         other.name = this.name;
+        other.uri = this.uri;
         other.style = this.style;
         other.members = new HashSet<>();
         this.members.forEach(r -> other.members.add(r.cloneWithInstances(other, instances)));
@@ -110,13 +123,17 @@ public class RelationTypeConfiguration implements Serializable, Cloneable, Compa
             return false;
         }
         RelationTypeConfiguration other = (RelationTypeConfiguration) obj;
-        return Objects.equals(this.name, other.name);
+        return Objects.equals(this.name, other.name) && Objects.equals(this.uri, other.uri);
     }
 
 
     @Override
     public int compareTo(RelationTypeConfiguration other) {
-        return this.name.compareTo(other.name);
+        int result = this.name.compareTo(other.name);
+        if (result != 0) {
+            return result;
+        }
+        return Objects.compare(this.uri, other.uri, Comparator.nullsFirst(Comparator.naturalOrder()));
     }
 
     /**
@@ -128,6 +145,24 @@ public class RelationTypeConfiguration implements Serializable, Cloneable, Compa
         return this.name;
     }
 
+    /**
+     * Gets the URI of this type.
+     *
+     * @return the URI of the RelationType
+     */
+    public String getURI() {
+        return this.uri;
+    }
+
+    /**
+     * Sets the URI of a type that was serialized without it.
+     *
+     * @param uri the URI of the RelationType
+     */
+    void setURI(String uri) {
+        this.uri = uri;
+    }
+
     /**
      * Gets the members of this RelationType.
      *
@@ -137,6 +172,15 @@ public class RelationTypeConfiguration implements Serializable, Cloneable, Compa
         return this.members;
     }
 
+    /**
+     * Rebuilds the set of members after deserialization. The hash codes of the
+     * members depend on their Instances, which may not have been complete when
+     * the set was read.
+     */
+    void rehashMembers() {
+        this.members = new HashSet<>(this.members);
+    }
+
     /**
      * Checks if this type of relations is visible in the current configuration.<br>
      * This does not necessarily imply that all members are visible, since some
@@ -165,7 +209,7 @@ public class RelationTypeConfiguration implements Serializable, Cloneable, Compa
     public void show() {
         if (!this.visible) {
             this.visible = true;
-            this.changed();
+            this.changed(ChangeSet.Kind.VISIBILITY);
         }
     }
 
@@ -183,7 +227,7 @@ public class RelationTypeConfiguration implements Serializable, Cloneable, Compa
     public void hide() {
         if (this.visible) {
             this.visible = false;
-            this.changed();
+            this.changed(ChangeSet.Kind.VISIBILITY);
         }
     }
 
@@ -207,7 +251,7 @@ public class RelationTypeConfiguration implements Serializable, Cloneable, Compa
      */
     public void setStyle(RelationStyle style) {
         this.style = style;
-        this.changed();
+        this.changed(ChangeSet.Kind.STYLE);
     }
 
     /**
@@ -216,9 +260,10 @@ public class RelationTypeConfiguration implements Serializable, Cloneable, Compa
      * This means that all members could potentially have been changed, and their
      * {@link RelationListenerInterface ChangeListeners} need to be notified.
      *
-     * @see RelationConfiguration#changed()
+     * @param kind the way the members changed
+     * @see RelationConfiguration#changed(ChangeSet.Kind)
      */
-    private void changed() {
-        this.members.forEach(RelationConfiguration::changed);
+    private void changed(ChangeSet.Kind kind) {
+        this.members.forEach(m -> m.changed(kind));
     }
 }
@@ -0,0 +1,444 @@
+/*
+ * Copyright 2020 Anne Bernhart, Anja Hansen, Tobias Klumpp, Fabian Palitza,
+ * Florian Patzer, Friedrich Volz, Sandra Wolf
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package edu.kit.informatik.tolowiz.model.visualization;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.ToIntFunction;
+
+import edu.kit.informatik.tolowiz.model.data.icons.IconInterface;
+import edu.kit.informatik.tolowiz.model.ontology.ValueType;
+import edu.kit.informatik.tolowiz.model.visualization.InstanceMark.InstanceShape;
+import edu.kit.informatik.tolowiz.model.visualization.InstanceMark.InstanceStroke;
+
+/**
+ * The state of a {@link Configuration} at one point in time: visibility,
+ * position, marks and groups of every Instance, the icons, handlers and active
+ * values of the types, the visibility and style of the relation types, the
+ * groups with their marks, and the relation depth.<br>
+ * <br>
+ * The states of the Instances are kept in a {@link PersistentVector} that
+ * later snapshots share, except for the Instances that changed in between.
+ * Taking a snapshot therefore only costs as much as the changes since the last
+ * one, and restoring one only touches the Instances that differ.
+ *
+ * @see Configuration#snapshot()
+ * @see Configuration#restore(Snapshot)
+ */
+public final class Snapshot {
+
+    /**
+     * The Instances by their index in the states. The configuration creates a
+     * new list whenever Instances are added or removed, so snapshots with
+     * another list can not be restored.
+     */
+    private final List<InstanceConfiguration> indexed;
+    private final PersistentVector<InstanceState> states;
+    private final Settings settings;
+
+    /**
+     * Takes a snapshot of a configuration.
+     *
+     * @param configuration the configuration
+     * @param indexed the Instances by their index in the states
+     * @param states the current states of the Instances
+     */
+    Snapshot(Configuration configuration, List<InstanceConfiguration> indexed,
+            PersistentVector<InstanceState> states) {
+        this.indexed = indexed;
+        this.states = states;
+        this.settings = new Settings(configuration);
+    }
+
+    /**
+     * Gets the Instances by their index in the states.
+     *
+     * @return the list of the configuration the snapshot was taken of
+     */
+    List<InstanceConfiguration> getIndexed() {
+        return this.indexed;
+    }
+
+    /**
+     * Gets the states of the Instances.
+     *
+     * @return the states by the index of the Instances
+     */
+    PersistentVector<InstanceState> getStates() {
+        return this.states;
+    }
+
+    /**
+     * Gets everything but the states of the Instances.
+     *
+     * @return the settings of the configuration
+     */
+    Settings getSettings() {
+        return this.settings;
+    }
+
+    /**
+     * Compares two lists of marks by identity, as different marks may be
+     * equal.
+     *
+     * @param a the first list
+     * @param b the second list
+     * @return {@code true} if both lists hold the same marks in the same order
+     */
+    private static boolean sameMarks(List<InstanceMark> a,
+            List<InstanceMark> b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        Iterator<InstanceMark> itA = a.iterator();
+        Iterator<InstanceMark> itB = b.iterator();
+        while (itA.hasNext()) {
+            if (itA.next() != itB.next()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The immutable state of an Instance.
+     */
+    static final class InstanceState {
+        private final boolean visible;
+        private final boolean hidden;
+        private final Point position;
+        private final List<InstanceMark> marks;
+        private final Set<Group> groups;
+
+        /**
+         * Stores the current state of an Instance.
+         *
+         * @param instance the Instance
+         * @param hidden whether the Instance was hidden on its own
+         */
+        InstanceState(InstanceConfiguration instance, boolean hidden) {
+            this.visible = instance.isVisible();
+            this.hidden = hidden;
+            this.position = instance.getStoredPosition();
+            this.marks = List.copyOf(instance.getMarks());
+            this.groups = Set.copyOf(instance.getGroups());
+        }
+
+        /**
+         * Reads a state written by {@link #write}.
+         *
+         * @param in the input to read from
+         * @param groups the groups by the numbers that were written
+         * @param marks the marks by the numbers that were written
+         * @throws IOException if the state can not be read
+         */
+        InstanceState(DataInput in, List<Group> groups,
+                List<InstanceMark> marks) throws IOException {
+            byte flags = in.readByte();
+            this.visible = (flags & 1) != 0;
+            this.hidden = (flags & 2) != 0;
+            this.position = ((flags & 4) != 0)
+                    ? new Point(in.readDouble(), in.readDouble())
+                    : null;
+            List<InstanceMark> readMarks = new ArrayList<>();
+            for (int i = in.readInt(); i > 0; i--) {
+                readMarks.add(marks.get(in.readInt()));
+            }
+            this.marks = List.copyOf(readMarks);
+            Set<Group> readGroups = new HashSet<>();
+            for (int i = in.readInt(); i > 0; i--) {
+                readGroups.add(groups.get(in.readInt()));
+            }
+            this.groups = Set.copyOf(readGroups);
+        }
+
+        /**
+         * Writes this state. Groups and marks must stay the same objects, so
+         * only numbers are written for them, which the caller has to keep.
+         *
+         * @param out the output to write to
+         * @param groups gives the number of a group
+         * @param marks gives the number of a mark
+         * @throws IOException if the state can not be written
+         */
+        void write(DataOutput out, ToIntFunction<Group> groups,
+                ToIntFunction<InstanceMark> marks) throws IOException {
+            out.writeByte((this.visible ? 1 : 0) | (this.hidden ? 2 : 0)
+                    | ((this.position != null) ? 4 : 0));
+            if (this.position != null) {
+                out.writeDouble(this.position.getX());
+                out.writeDouble(this.position.getY());
+            }
+            out.writeInt(this.marks.size());
+            for (InstanceMark mark : this.marks) {
+                out.writeInt(marks.applyAsInt(mark));
+            }
+            out.writeInt(this.groups.size());
+            for (Group group : this.groups) {
+                out.writeInt(groups.applyAsInt(group));
+            }
+        }
+
+        /**
+         * Checks whether two states are the same.
+         *
+         * @param other the other state
+         * @return {@code true} if restoring either would change nothing
+         */
+        boolean isSameAs(InstanceState other) {
+            return (this.visible == other.visible)
+                    && (this.hidden == other.hidden)
+                    && Objects.equals(this.position, other.position)
+                    && Snapshot.sameMarks(this.marks, other.marks)
+                    && this.groups.equals(other.groups);
+        }
+
+        /**
+         * Sets an Instance to this state. Only what differs is set.
+         *
+         * @param instance the Instance
+         * @param hiddenInstances the Instances of the configuration that are
+         * hidden on their own
+         */
+        void restore(InstanceConfiguration instance,
+                Set<InstanceConfiguration> hiddenInstances) {
+            if (this.visible) {
+                instance.show();
+            } else {
+                instance.hide();
+            }
+            if (this.hidden) {
+                hiddenInstances.add(instance);
+            } else {
+                hiddenInstances.remove(instance);
+            }
+            if (!Objects.equals(instance.getStoredPosition(), this.position)) {
+                instance.setPosition(this.position);
+            }
+            if (!this.groups.equals(instance.getGroups())) {
+                new HashSet<>(instance.getGroups()).stream()
+                .filter(g -> !this.groups.contains(g))
+                .forEach(g -> g.removeInstance(instance));
+                this.groups.stream()
+                .filter(g -> !instance.getGroups().contains(g))
+                .forEach(g -> g.addInstance(instance));
+            }
+            if (!Snapshot.sameMarks(this.marks, instance.getMarks())) {
+                instance.setMarks(this.marks);
+            }
+        }
+    }
+
+    /**
+     * Everything but the states of the Instances, which is small compared to
+     * them, so it is copied completely.
+     */
+    static final class Settings {
+        private final Map<InstanceTypeConfiguration, TypeState> types;
+        private final Map<RelationTypeConfiguration, RelationTypeState> relationTypes;
+        private final Map<Group, MarkState> groups;
+        private final int depth;
+        private final int maxParallelRelations;
+
+        /**
+         * Stores the current settings of a configuration.
+         *
+         * @param configuration the configuration
+         */
+        Settings(Configuration configuration) {
+            this.types = new HashMap<>();
+            configuration.getInstanceTypes()
+            .forEach(t -> this.types.put(t, new TypeState(t)));
+            this.relationTypes = new HashMap<>();
+            configuration.getRelationTypes().forEach(
+                    t -> this.relationTypes.put(t, new RelationTypeState(t)));
+            this.groups = new HashMap<>();
+            configuration.getGroups()
+            .forEach(g -> this.groups.put(g, new MarkState(g.getMark())));
+            this.depth = configuration.getDepth();
+            this.maxParallelRelations = configuration.getmaxParallelRelations();
+        }
+
+        /**
+         * Checks whether two settings are the same.
+         *
+         * @param other the other settings
+         * @return {@code true} if restoring either would change nothing
+         */
+        boolean isSameAs(Settings other) {
+            return (this.depth == other.depth)
+                    && (this.maxParallelRelations == other.maxParallelRelations)
+                    && this.types.equals(other.types)
+                    && this.relationTypes.equals(other.relationTypes)
+                    && this.groups.equals(other.groups);
+        }
+
+        /**
+         * Sets a configuration to these settings. Groups come first, as the
+         * Instances may have to be added to them again.
+         *
+         * @param configuration the configuration the settings were taken of
+         */
+        void restore(Configuration configuration) {
+            new HashSet<>(configuration.getGroups()).stream()
+            .filter(g -> !this.groups.containsKey(g))
+            .forEach(configuration::removeGroup);
+            this.groups.forEach((g, mark) -> {
+                configuration.addGroup(g);
+                if (mark.restore(g.getMark())) {
+                    g.getInstances()
+                    .forEach(i -> i.changed(ChangeSet.Kind.STYLE));
+                }
+            });
+            this.types.forEach((t, state) -> state.restore(t));
+            this.relationTypes.forEach((t, state) -> state.restore(t));
+            if (configuration.getDepth() != this.depth) {
+                configuration.setDepth(this.depth);
+            }
+            if (configuration
+                    .getmaxParallelRelations() != this.maxParallelRelations) {
+                configuration
+                .setMaxParallelRelations(this.maxParallelRelations);
+            }
+        }
+    }
+
+    /**
+     * The state of the mark of a group.
+     */
+    private static final class MarkState {
+        private final Color color;
+        private final InstanceShape shape;
+        private final InstanceStroke stroke;
+
+        MarkState(InstanceMark mark) {
+            this.color = mark.getColor().orElse(null);
+            this.shape = mark.getShape().orElse(null);
+            this.stroke = mark.getStroke().orElse(null);
+        }
+
+        boolean restore(InstanceMark mark) {
+            if (this.equals(new MarkState(mark))) {
+                return false;
+            }
+            mark.setColor(this.color).setShape(this.shape)
+            .setStroke(this.stroke);
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.color, this.shape, this.stroke);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof MarkState)) {
+                return false;
+            }
+            MarkState other = (MarkState) obj;
+            return Objects.equals(this.color, other.color)
+                    && (this.shape == other.shape)
+                    && (this.stroke == other.stroke);
+        }
+    }
+
+    /**
+     * The state of a type of Instances.
+     */
+    private static final class TypeState {
+        private final IconInterface icon;
+        private final DefaultHandler handler;
+        private final Set<ValueType> activeValues;
+
+        TypeState(InstanceTypeConfiguration type) {
+            this.icon = type.getIcon();
+            this.handler = type.getHandler();
+            this.activeValues = new TreeSet<>(type.getActiveValues());
+        }
+
+        void restore(InstanceTypeConfiguration type) {
+            if (type.getIcon() != this.icon) {
+                type.setIcon(this.icon);
+            }
+            if (type.getHandler() != this.handler) {
+                type.setHandler(this.handler);
+            }
+            if (!type.getActiveValues().equals(this.activeValues)) {
+                new TreeSet<>(type.getActiveValues()).stream()
+                .filter(v -> !this.activeValues.contains(v))
+                .forEach(type::deactivateValue);
+                this.activeValues.stream()
+                .filter(v -> !type.getActiveValues().contains(v))
+                .forEach(type::activateValue);
+            }
+        }
+
+        @Override
+        public int hashCode() {
+            return this.activeValues.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof TypeState)) {
+                return false;
+            }
+            TypeState other = (TypeState) obj;
+            return (this.icon == other.icon) && (this.handler == other.handler)
+                    && this.activeValues.equals(other.activeValues);
+        }
+    }
+
+    /**
+     * The state of a type of relations.
+     */
+    private static final class RelationTypeState {
+        private final boolean visible;
+        private final RelationStyle style;
+
+        RelationTypeState(RelationTypeConfiguration type) {
+            this.visible = type.isVisible();
+            this.style = type.getStyle();
+        }
+
+        void restore(RelationTypeConfiguration type) {
+            if (this.visible) {
+                type.show();
+            } else {
+                type.hide();
+            }
+            if (type.getStyle() != this.style) {
+                type.setStyle(this.style);
+            }
+        }
+
+        @Override
+        public int hashCode() {
+            return Boolean.hashCode(this.visible);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof RelationTypeState)) {
+                return false;
+            }
+            RelationTypeState other = (RelationTypeState) obj;
+            return (this.visible == other.visible)
+                    && (this.style == other.style);
+        }
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright 2020 Anne Bernhart, Anja Hansen, Tobias Klumpp, Fabian Palitza,
+ * Florian Patzer, Friedrich Volz, Sandra Wolf
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package edu.kit.informatik.tolowiz.model.visualization;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The changes of a {@link Configuration} between two of its snapshots, which
+ * can be applied in both directions. Only the states of the Instances that
+ * differ are kept, and the settings of the types and groups only if they
+ * differ.<br>
+ * <br>
+ * As the states of the Instances make up most of a transition, they can be
+ * written out and released to free memory, and read back before the
+ * transition is applied. The groups and marks of the Instances must stay the
+ * same objects, so they are kept in memory and only referred to by number.
+ */
+public final class Transition {
+    private final List<InstanceConfiguration> indexed;
+    private final Snapshot.Settings settingsBefore;
+    private final Snapshot.Settings settingsAfter;
+    private final int size;
+
+    /**
+     * The indices of the changed Instances, and their states before and after,
+     * or {@code null} while they are released.
+     */
+    private int[] changed;
+    private Snapshot.InstanceState[] before;
+    private Snapshot.InstanceState[] after;
+
+    /**
+     * The groups and marks the written states refer to by number.
+     */
+    private List<Group> groups;
+    private List<InstanceMark> marks;
+
+    private Transition(Snapshot before, Snapshot after) {
+        this.indexed = before.getIndexed();
+        if (before.getSettings().isSameAs(after.getSettings())) {
+            this.settingsBefore = null;
+            this.settingsAfter = null;
+        } else {
+            this.settingsBefore = before.getSettings();
+            this.settingsAfter = after.getSettings();
+        }
+        List<Integer> indices = new ArrayList<>();
+        before.getStates().forEachDifference(after.getStates(), i -> {
+            if (!before.getStates().get(i).isSameAs(after.getStates().get(i))) {
+                indices.add(Integer.valueOf(i));
+            }
+        });
+        this.size = indices.size();
+        this.changed = new int[this.size];
+        this.before = new Snapshot.InstanceState[this.size];
+        this.after = new Snapshot.InstanceState[this.size];
+        for (int i = 0; i < this.size; i++) {
+            this.changed[i] = indices.get(i).intValue();
+            this.before[i] = before.getStates().get(this.changed[i]);
+            this.after[i] = after.getStates().get(this.changed[i]);
+        }
+    }
+
+    /**
+     * Gets the changes between two snapshots of the same configuration.
+     *
+     * @param before the earlier snapshot
+     * @param after the later snapshot
+     * @return the changes from the earlier to the later snapshot
+     * @throws IllegalArgumentException if Instances were added or removed
+     * between the snapshots
+     */
+    public static Transition between(Snapshot before, Snapshot after) {
+        if (before.getIndexed() != after.getIndexed()) {
+            throw new IllegalArgumentException(
+                    "The snapshots differ in their Instances"); //$NON-NLS-1$
+        }
+        return new Transition(before, after);
+    }
+
+    /**
+     * Gets the number of Instances that changed.
+     *
+     * @return the number of changed Instances
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Checks whether nothing changed.
+     *
+     * @return {@code true} if applying this transition would change nothing
+     */
+    public boolean isEmpty() {
+        return (this.size == 0) && (this.settingsAfter == null);
+    }
+
+    /**
+     * Checks whether the states of the Instances were released and have to be
+     * read back before this transition can be applied.
+     *
+     * @return {@code true} if the states are not in memory
+     */
+    public boolean isReleased() {
+        return this.changed == null;
+    }
+
+    /**
+     * Sets a configuration from the earlier to the later state.
+     *
+     * @param configuration the configuration the snapshots were taken of
+     * @throws IllegalArgumentException if Instances were added to or removed
+     * from the configuration since
+     * @throws IllegalStateException if the states of the Instances were
+     * released
+     */
+    public void apply(Configuration configuration) {
+        this.apply(configuration, this.settingsAfter, this.after);
+    }
+
+    /**
+     * Sets a configuration from the later back to the earlier state.
+     *
+     * @param configuration the configuration the snapshots were taken of
+     * @throws IllegalArgumentException if Instances were added to or removed
+     * from the configuration since
+     * @throws IllegalStateException if the states of the Instances were
+     * released
+     */
+    public void revert(Configuration configuration) {
+        this.apply(configuration, this.settingsBefore, this.before);
+    }
+
+    private void apply(Configuration configuration, Snapshot.Settings settings,
+            Snapshot.InstanceState[] states) {
+        if (configuration.getIndexed() != this.indexed) {
+            throw new IllegalArgumentException(
+                    "The transition does not match the Instances of this configuration"); //$NON-NLS-1$
+        }
+        if (this.isReleased()) {
+            throw new IllegalStateException(
+                    "The states of the Instances were not read back"); //$NON-NLS-1$
+        }
+        configuration.batch(() -> {
+            if (settings != null) {
+                settings.restore(configuration);
+            }
+            for (int i = 0; i < this.size; i++) {
+                states[i].restore(this.indexed.get(this.changed[i]),
+                        configuration.getHiddenInstances());
+            }
+        });
+    }
+
+    /**
+     * Writes the states of the changed Instances, so that they can be
+     * released.
+     *
+     * @param out the output to write to
+     * @throws IOException if writing fails
+     * @throws IllegalStateException if the states were released
+     * @see #release()
+     * @see #read(DataInput)
+     */
+    public void write(DataOutput out) throws IOException {
+        if (this.isReleased()) {
+            throw new IllegalStateException(
+                    "The states of the Instances were released"); //$NON-NLS-1$
+        }
+        List<Group> groupTable = new ArrayList<>();
+        List<InstanceMark> markTable = new ArrayList<>();
+        Map<Group, Integer> groupNumbers = new IdentityHashMap<>();
+        Map<InstanceMark, Integer> markNumbers = new IdentityHashMap<>();
+        out.writeInt(this.size);
+        for (int i = 0; i < this.size; i++) {
+            out.writeInt(this.changed[i]);
+            for (Snapshot.InstanceState state : List.of(this.before[i],
+                    this.after[i])) {
+                state.write(out,
+                        g -> Transition.number(groupTable, groupNumbers, g),
+                        m -> Transition.number(markTable, markNumbers, m));
+            }
+        }
+        this.groups = groupTable;
+        this.marks = markTable;
+    }
+
+    /**
+     * Drops the states of the changed Instances from memory, after they were
+     * written completely.
+     *
+     * @throws IllegalStateException if the states were not written or are
+     * already released
+     * @see #write(DataOutput)
+     */
+    public void release() {
+        if (this.isReleased() || (this.groups == null)) {
+            throw new IllegalStateException(
+                    "The states of the Instances were not written"); //$NON-NLS-1$
+        }
+        this.changed = null;
+        this.before = null;
+        this.after = null;
+    }
+
+    /**
+     * Reads back the states of the changed Instances after they were
+     * released.
+     *
+     * @param in the input to read from, which holds what
+     * {@link #write(DataOutput)} wrote
+     * @throws IOException if reading fails, then the states stay released
+     * @throws IllegalStateException if the states were not released
+     */
+    public void read(DataInput in) throws IOException {
+        if (!this.isReleased()) {
+            throw new IllegalStateException(
+                    "The states of the Instances were not released"); //$NON-NLS-1$
+        }
+        if (in.readInt() != this.size) {
+            throw new IOException("The states do not belong to this transition"); //$NON-NLS-1$
+        }
+        int[] readChanged = new int[this.size];
+        Snapshot.InstanceState[] readBefore = new Snapshot.InstanceState[this.size];
+        Snapshot.InstanceState[] readAfter = new Snapshot.InstanceState[this.size];
+        for (int i = 0; i < this.size; i++) {
+            readChanged[i] = in.readInt();
+            readBefore[i] = new Snapshot.InstanceState(in, this.groups,
+                    this.marks);
+            readAfter[i] = new Snapshot.InstanceState(in, this.groups,
+                    this.marks);
+        }
+        this.changed = readChanged;
+        this.before = readBefore;
+        this.after = readAfter;
+        this.groups = null;
+        this.marks = null;
+    }
+
+    private static <T> int number(List<T> table, Map<T, Integer> numbers,
+            T object) {
+        return numbers.computeIfAbsent(object, o -> {
+            table.add(o);
+            return Integer.valueOf(table.size() - 1);
+        }).intValue();
+    }
+}
@@ -5,9 +5,18 @@
  */
 package edu.kit.informatik.tolowiz.view.graph;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.stream.Collectors;
 
+import org.graphstream.graph.Edge;
 import org.graphstream.graph.implementations.MultiGraph;
 import org.graphstream.ui.fx_viewer.FxDefaultView;
 import org.graphstream.ui.fx_viewer.FxViewer;
@@ -19,9 +28,11 @@ import org.graphstream.ui.view.GraphRenderer;
 import org.graphstream.ui.view.camera.Camera;
 
 import edu.kit.informatik.tolowiz.model.visualization.CameraListenerInterface;
+import edu.kit.informatik.tolowiz.model.visualization.ChangeSet;
 import edu.kit.informatik.tolowiz.model.visualization.Configuration;
 import edu.kit.informatik.tolowiz.model.visualization.ConfigurationListenerInterface;
 import edu.kit.informatik.tolowiz.model.visualization.InstanceConfiguration;
+import edu.kit.informatik.tolowiz.model.visualization.Neighborhood;
 import edu.kit.informatik.tolowiz.model.visualization.Point;
 import edu.kit.informatik.tolowiz.model.visualization.RelationConfiguration;
 import edu.kit.informatik.tolowiz.view.gui.JavaFxViewInterface;
@@ -57,6 +68,22 @@ public class Graph extends FxDefaultView
      */
     private Set<ToloNode> allNodes;
 
+    /**
+     * The nodes and edges by the Instance or Relation they show, to update
+     * them after a batch of changes.
+     */
+    private Map<InstanceConfiguration, ToloNode> nodesByInstance;
+    private Map<RelationConfiguration, ToloEdge> edgesByRelation;
+
+    /**
+     * The ids of the GraphStream edges drawn for the bundles of the
+     * neighborhood with the relations whose edges they replace, and the seeds
+     * of the neighborhood the bundles were drawn for.
+     */
+    private Map<String, List<RelationConfiguration>> bundleEdges = new HashMap<>();
+    private Set<RelationConfiguration> bundled = Collections.newSetFromMap(new IdentityHashMap<>());
+    private Set<InstanceConfiguration> bundleSeeds = Collections.newSetFromMap(new IdentityHashMap<>());
+
     /**
      * The GraphStream graph object.
      */
@@ -162,15 +189,19 @@ public class Graph extends FxDefaultView
                                 // configuration
 
         this.allNodes = new HashSet<>();
+        this.nodesByInstance = new IdentityHashMap<>();
         for (InstanceConfiguration ic : conf.getInstances()) {
             ToloNode node = new ToloNode(this, ic);
             this.allNodes.add(node);
+            this.nodesByInstance.put(ic, node);
         }
 
         this.allEdges = new HashSet<>();
+        this.edgesByRelation = new IdentityHashMap<>();
         for (RelationConfiguration rc : conf.getRelations()) {
             ToloEdge edge = new ToloEdge(this, rc);
             this.allEdges.add(edge);
+            this.edgesByRelation.put(rc, edge);
         }
 
         this.paint();
@@ -211,10 +242,185 @@ public class Graph extends FxDefaultView
     public void onFullChange() {
         this.runLater(() -> {
             this.build();
+            this.drawBundles();
             this.viewInterface.refresh();
         });
     }
 
+    /**
+     * A listener as to when single elements of the configuration changed, at
+     * once or in a batch. Removed and added Instances and Relations are removed
+     * from or added to the GraphStream graph, and only the nodes and edges of the
+     * changed ones are rebuilt. The view is refreshed once.
+     *
+     * @param changes the Instances and Relations that changed
+     */
+    @Override
+    public void onChange(ChangeSet changes) {
+        this.runLater(() -> {
+            changes.getRelations(ChangeSet.Kind.REMOVED).forEach(this::removeEdge);
+            changes.getInstances(ChangeSet.Kind.REMOVED).forEach(this::removeNode);
+            changes.getInstances(ChangeSet.Kind.ADDED).forEach(this::addNode);
+            changes.getRelations(ChangeSet.Kind.ADDED).forEach(this::addEdge);
+            changes.getInstances().stream().map(this.nodesByInstance::get).filter(Objects::nonNull)
+                    .forEach(ToloNode::build);
+            changes.getRelations().stream().map(this.edgesByRelation::get).filter(Objects::nonNull)
+                    .forEach(ToloEdge::build);
+            this.drawBundles(changes);
+            this.viewInterface.refresh(changes);
+        });
+    }
+
+    /**
+     * Draws every bundle of parallel relations of the neighborhood as one edge
+     * labelled with the number of its relations, and hides the edges of these
+     * relations. Edges of relations that are no longer bundled are built again.
+     */
+    private void drawBundles() {
+        Neighborhood neighborhood = this.getConfiguration().getNeighborhood();
+        this.bundleEdges.keySet().stream().filter(id -> this.visualizedGraph.getEdge(id) != null)
+                .forEach(this.visualizedGraph::removeEdge);
+        this.bundleEdges.clear();
+        Set<RelationConfiguration> previous = this.bundled;
+        this.bundled = Collections.newSetFromMap(new IdentityHashMap<>());
+        neighborhood.getBundles().forEach(this::drawBundle);
+        previous.stream().filter(r -> !this.bundled.contains(r)).map(this.edgesByRelation::get)
+                .filter(Objects::nonNull).forEach(ToloEdge::build);
+        this.bundleSeeds.clear();
+        this.bundleSeeds.addAll(neighborhood.getSeeds());
+    }
+
+    /**
+     * Draws the bundles of the neighborhood again that contain a changed
+     * relation. Shown, hidden or moved Instances change their relations with
+     * them, so this covers the bundles between changed Instances. All bundles
+     * are drawn again if the neighborhood was explored again, that is if a
+     * setting, the seeds or the Instances and relations of the configuration
+     * changed.
+     *
+     * @param changes the Instances and Relations that changed
+     */
+    private void drawBundles(ChangeSet changes) {
+        Neighborhood neighborhood = this.getConfiguration().getNeighborhood();
+        if (changes.contains(ChangeSet.Kind.SETTINGS) || changes.contains(ChangeSet.Kind.ADDED)
+                || changes.contains(ChangeSet.Kind.REMOVED)
+                || (this.bundleSeeds.size() != neighborhood.getSeeds().size())
+                || !this.bundleSeeds.containsAll(neighborhood.getSeeds())) {
+            this.drawBundles();
+            return;
+        }
+        Map<String, Neighborhood.Bundle> touched = new HashMap<>();
+        changes.getRelations().stream().map(neighborhood::getBundle).filter(Objects::nonNull)
+                .forEach(b -> touched.putIfAbsent(Graph.bundleID(b), b));
+        List<RelationConfiguration> previous = new ArrayList<>();
+        touched.keySet().forEach(id -> {
+            List<RelationConfiguration> relations = this.bundleEdges.remove(id);
+            if (relations != null) {
+                if (this.visualizedGraph.getEdge(id) != null) {
+                    this.visualizedGraph.removeEdge(id);
+                }
+                relations.forEach(this.bundled::remove);
+                previous.addAll(relations);
+            }
+        });
+        touched.values().forEach(this::drawBundle);
+        previous.stream().filter(r -> !this.bundled.contains(r)).map(this.edgesByRelation::get)
+                .filter(Objects::nonNull).forEach(ToloEdge::build);
+    }
+
+    /**
+     * Draws a bundle as one edge labelled with the number of its visible
+     * relations and hides the edges of these relations. Nothing is drawn if
+     * none of them is visible.
+     *
+     * @param bundle the bundle
+     */
+    private void drawBundle(Neighborhood.Bundle bundle) {
+        List<ToloEdge> edges = bundle.getRelations().stream().filter(RelationConfiguration::isVisible)
+                .map(this.edgesByRelation::get).filter(Objects::nonNull).collect(Collectors.toList());
+        if (edges.isEmpty()) {
+            return;
+        }
+        String id = Graph.bundleID(bundle);
+        Edge edge = this.visualizedGraph.addEdge(id, String.valueOf(bundle.getFirst().getURI()),
+                String.valueOf(bundle.getSecond().getURI()), false);
+        edge.setAttribute("ui.label", edges.size() + " relations");
+        edge.setAttribute("ui.style", "size: 3px; fill-color: rgb(0,0,0); text-background-mode: rounded-box;");
+        List<RelationConfiguration> relations = new ArrayList<>(edges.size());
+        edges.forEach(e -> {
+            e.hideBundled();
+            relations.add(e.getRelation());
+        });
+        this.bundled.addAll(relations);
+        this.bundleEdges.put(id, relations);
+    }
+
+    /**
+     * Returns the id of the GraphStream edge of a bundle.
+     *
+     * @param bundle the bundle
+     * @return the id
+     */
+    private static String bundleID(Neighborhood.Bundle bundle) {
+        return "bundle " + bundle.getFirst().getURI() + " " + bundle.getSecond().getURI();
+    }
+
+    /**
+     * Adds a node for an Instance that was added to the configuration.
+     *
+     * @param instance the new Instance
+     */
+    private void addNode(InstanceConfiguration instance) {
+        ToloNode node = new ToloNode(this, instance);
+        String nodeID = String.valueOf(instance.getURI());
+        this.visualizedGraph.addNode(nodeID);
+        node.setGsNode(nodeID);
+        this.allNodes.add(node);
+        this.nodesByInstance.put(instance, node);
+    }
+
+    /**
+     * Removes the node of an Instance that was removed from the configuration.
+     *
+     * @param instance the removed Instance
+     */
+    private void removeNode(InstanceConfiguration instance) {
+        ToloNode node = this.nodesByInstance.remove(instance);
+        if (node != null) {
+            this.allNodes.remove(node);
+            if (this.visualizedGraph.getNode(node.getGsNode().getId()) != null) {
+                this.visualizedGraph.removeNode(node.getGsNode().getId());
+            }
+        }
+    }
+
+    /**
+     * Adds an edge for a Relation that was added to the configuration.
+     *
+     * @param relation the new Relation
+     */
+    private void addEdge(RelationConfiguration relation) {
+        ToloEdge edge = new ToloEdge(this, relation);
+        this.visualizedGraph.addEdge(relation.getURI(), String.valueOf(relation.getOrigin().getURI()),
+                String.valueOf(relation.getDestination().getURI()), true);
+        edge.setGsEdge(relation.getURI());
+        this.allEdges.add(edge);
+        this.edgesByRelation.put(relation, edge);
+    }
+
+    /**
+     * Removes the edge of a Relation that was removed from the configuration.
+     *
+     * @param relation the removed Relation
+     */
+    private void removeEdge(RelationConfiguration relation) {
+        ToloEdge edge = this.edgesByRelation.remove(relation);
+        if (edge != null) {
+            this.allEdges.remove(edge);
+            edge.remove();
+        }
+    }
+
     /**
      * Is used when a change concerns the majority of the elements of a graph (e.g.
      * restoring standard view) and it has to be shown with a completely new
@@ -223,10 +429,7 @@ public class Graph extends FxDefaultView
      * notification comes from the onFullChange() method.
      */
     private void build() {
-        this.visualizedGraph = new MultiGraph("embedded");
-        this.visualizedGraph.setAttribute("ui.quality");
-        this.visualizedGraph.setAttribute("ui.antialias");
-
+        // the graph stays the one the viewer shows, so that edges can be added
         this.allNodes.forEach(n -> n.build());
         this.allEdges.forEach(e -> e.build());
     }
@@ -6,6 +6,7 @@
 package edu.kit.informatik.tolowiz.view.graph;
 
 import java.util.Set;
+import java.util.function.Predicate;
 
 import edu.kit.informatik.tolowiz.model.data.icons.IconInterface;
 import edu.kit.informatik.tolowiz.model.ontology.ValueType;
@@ -57,6 +58,14 @@ public interface GraphControllerInterface {
      */
     public void showInstance(InstanceConfiguration node);
 
+    /**
+     * Shows the node of an instance and all nodes at most the relation depth
+     * away from it.
+     *
+     * @param node The node whose neighborhood should be visualized.
+     */
+    public void showNeighborhood(InstanceConfiguration node);
+
     /**
      * Hides the node of a single instance of the graph.
      *
@@ -182,6 +191,41 @@ public interface GraphControllerInterface {
      */
     public void removeFromGroup(Group g, InstanceConfiguration instance);
 
+    /**
+     * Adds many instances to an already existing Group at once.
+     *
+     * @param g         The group
+     * @param instances The instances that will be added.
+     */
+    public void addAllToGroup(Group g, Set<InstanceConfiguration> instances);
+
+    /**
+     * Removes many instances from an already existing Group at once.
+     *
+     * @param g         The group
+     * @param instances The instances that will be removed.
+     */
+    public void removeAllFromGroup(Group g, Set<InstanceConfiguration> instances);
+
+    /**
+     * Adds all members of a type that meet a condition to an already existing
+     * Group, for example all instances with a certain value.
+     *
+     * @param g         The group
+     * @param type      The type of instance whose members are candidates.
+     * @param condition The condition an instance has to meet to be added.
+     */
+    public void addMatchingToGroup(Group g, InstanceTypeConfiguration type,
+            Predicate<InstanceConfiguration> condition);
+
+    /**
+     * Changes the mark of a Group and of all its instances.
+     *
+     * @param g    The group
+     * @param mark The new mark of the group.
+     */
+    public void setGroupMark(Group g, InstanceMark mark);
+
     /**
      * Selects a type of value so that it will be shown for a selected instance of a
      * certain type of instance in the data area.
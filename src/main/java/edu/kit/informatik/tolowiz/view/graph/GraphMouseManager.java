@@ -46,6 +46,7 @@ public class GraphMouseManager extends FxMouseManager {
     private ContextMenu contextMenuCurrent = new ContextMenu(); // the currently shown context menu
     private MenuItem menuItemValues = new MenuItem("Show Values");
     private MenuItem menuItemHide = new MenuItem("Hide Instance");
+    private MenuItem menuItemNeighborhood = new MenuItem("Show Neighborhood");
     private MenuItem menuItemShow = new MenuItem("Show Total Graph");
 
     private Menu addToGroup = new Menu("Add To Group ");
@@ -109,7 +110,8 @@ public class GraphMouseManager extends FxMouseManager {
 
         this.changeMark.getItems().addAll(this.changeStroke, this.changeShape, this.changeColor);
 
-        this.contextMenuNode.getItems().addAll(this.menuItemValues, this.menuItemHide, this.changeMark);
+        this.contextMenuNode.getItems().addAll(this.menuItemValues, this.menuItemHide, this.changeMark,
+                this.menuItemNeighborhood);
 
     }
 
@@ -179,6 +181,12 @@ public class GraphMouseManager extends FxMouseManager {
                     this.graph.getViewInterface().refresh();
                 });
 
+                this.menuItemNeighborhood.setOnAction((mouseevent) -> {
+                    this.graph.getController().showNeighborhood(current.getInstance());
+                    // the shown Instances leave the list of hidden ones
+                    this.graph.getViewInterface().hideInstance(this.graph.getConfiguration());
+                });
+
                 this.strokeNone.setOnAction(mouseevent -> {
                     InstanceMark mark = new InstanceMark(InstanceMark.InstanceStroke.NONE);
                     this.graph.getController().markInstance(current.getInstance(), mark);
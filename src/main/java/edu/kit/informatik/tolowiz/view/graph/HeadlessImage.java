@@ -0,0 +1,664 @@
+/*
+ * Copyright 2020 Anne Bernhart, Anja Hansen, Tobias Klumpp, Fabian Palitza,
+ * Florian Patzer, Friedrich Volz, Sandra Wolf
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package edu.kit.informatik.tolowiz.view.graph;
+
+import java.awt.BasicStroke;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Rectangle2D;
+import java.awt.geom.RoundRectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import javax.imageio.ImageIO;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.MultiGraph;
+import org.graphstream.ui.graphicGraph.GraphPosLengthUtils;
+import org.graphstream.ui.layout.Layout;
+import org.graphstream.ui.layout.springbox.implementations.SpringBox;
+
+import edu.kit.informatik.tolowiz.controller.ImageFiletype;
+import edu.kit.informatik.tolowiz.model.data.icons.IconDatabaseException;
+import edu.kit.informatik.tolowiz.model.data.icons.IconInterface;
+import edu.kit.informatik.tolowiz.model.visualization.Color;
+import edu.kit.informatik.tolowiz.model.visualization.Configuration;
+import edu.kit.informatik.tolowiz.model.visualization.InstanceConfiguration;
+import edu.kit.informatik.tolowiz.model.visualization.InstanceMark;
+import edu.kit.informatik.tolowiz.model.visualization.InstanceMark.InstanceShape;
+import edu.kit.informatik.tolowiz.model.visualization.InstanceMark.InstanceStroke;
+import edu.kit.informatik.tolowiz.model.visualization.Point;
+import edu.kit.informatik.tolowiz.model.visualization.RelationConfiguration;
+import edu.kit.informatik.tolowiz.model.visualization.RelationStyle;
+import edu.kit.informatik.tolowiz.model.visualization.RelationStyle.ArrowShape;
+import edu.kit.informatik.tolowiz.model.visualization.RelationStyle.RelationStroke;
+
+/**
+ * An image of a configuration that is drawn without a screen, so it can be
+ * exported on machines where JavaFX can not be started. Raster images and PDF
+ * documents are drawn with Java2D, SVG images are written directly.<br>
+ * <br>
+ * Instances without a position, e.g. in a configuration that was never shown,
+ * are placed with the spring layout of GraphStream. Instances with a position
+ * keep it.
+ */
+public class HeadlessImage implements ImageInterface {
+    /**
+     * The size of an instance in pixels, as in the graph.
+     */
+    static final int NODE_SIZE = 40;
+    /**
+     * The space around the graph in pixels.
+     */
+    private static final int MARGIN = 60;
+    /**
+     * The maximal number of steps of the layout.
+     */
+    private static final int LAYOUT_STEPS = 5000;
+    private static final java.awt.Color BACKGROUND = java.awt.Color.WHITE;
+    private static final java.awt.Color NODE_FILL = new java.awt.Color(230, 230, 230);
+
+    private final Configuration conf;
+    private final int width;
+    private final int height;
+
+    /**
+     * Creates an image of a configuration.
+     *
+     * @param conf   the configuration
+     * @param width  the width of the image in pixels
+     * @param height the height of the image in pixels
+     */
+    public HeadlessImage(Configuration conf, int width, int height) {
+        this.conf = conf;
+        this.width = width;
+        this.height = height;
+    }
+
+    @Override
+    public void export(Path file, ImageFiletype type) throws ImageWriteException {
+        if (type == ImageFiletype.SVG) {
+            this.exportSVG(file);
+            return;
+        }
+        try {
+            if (!ImageIO.write(this.render(), type.toString().toLowerCase(Locale.ROOT), file.toFile())) {
+                throw new IOException("no image writer for " + type); //$NON-NLS-1$
+            }
+        } catch (IOException e) {
+            throw new ImageWriteException(e);
+        }
+    }
+
+    @Override
+    public void exportSVG(Path file) throws ImageWriteException {
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write(String.format(Locale.ROOT,
+                    "<?xml version=\"1.0\" encoding=\"UTF-8\"?>%n" //$NON-NLS-1$
+                            + "<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"%d\" height=\"%d\"" //$NON-NLS-1$
+                            + " viewBox=\"0 0 %d %d\" font-family=\"sans-serif\" font-size=\"12\">%n" //$NON-NLS-1$
+                            + "<rect width=\"100%%\" height=\"100%%\" fill=\"white\"/>%n", //$NON-NLS-1$
+                    this.width, this.height, this.width, this.height));
+            SvgCanvas canvas = new SvgCanvas();
+            this.draw(canvas);
+            out.write(canvas.toString());
+            out.write("</svg>\n"); //$NON-NLS-1$
+        } catch (IOException e) {
+            throw new ImageWriteException(e);
+        }
+    }
+
+    @Override
+    public void exportPDF(Path file) throws ImageWriteException {
+        try (PDDocument pdDoc = new PDDocument()) {
+            PDPage pdPage = new PDPage(new PDRectangle(this.width, this.height));
+            pdDoc.addPage(pdPage);
+            PDImageXObject pdImage = LosslessFactory.createFromImage(pdDoc, this.render());
+            try (PDPageContentStream contentStream = new PDPageContentStream(pdDoc, pdPage)) {
+                contentStream.drawImage(pdImage, 0, 0, this.width, this.height);
+            }
+            pdDoc.save(file.toFile());
+        } catch (IOException e) {
+            throw new ImageWriteException(e);
+        }
+    }
+
+    @Override
+    public void print() throws ImageWriteException {
+        throw new ImageWriteException("printing is not supported in batch mode"); //$NON-NLS-1$
+    }
+
+    /**
+     * Draws the configuration into a raster image.
+     *
+     * @return the image
+     */
+    BufferedImage render() {
+        BufferedImage image = new BufferedImage(this.width, this.height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.setColor(HeadlessImage.BACKGROUND);
+            g.fillRect(0, 0, this.width, this.height);
+            g.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 12));
+            this.draw(new GraphicsCanvas(g));
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    /**
+     * Draws all visible relations and instances, relations first so they lie
+     * below the instances.
+     *
+     * @param canvas the canvas to draw on
+     */
+    private void draw(Canvas canvas) {
+        List<InstanceConfiguration> visible = this.conf.getInstances().stream()
+                .filter(InstanceConfiguration::isVisible).collect(Collectors.toList());
+        List<RelationConfiguration> relations = this.conf.getRelations().stream()
+                .filter(RelationConfiguration::isVisible).collect(Collectors.toList());
+        Map<InstanceConfiguration, double[]> positions = this.toPixels(this.layout(visible, relations));
+
+        for (RelationConfiguration relation : relations) {
+            double[] from = positions.get(relation.getOrigin());
+            double[] to = positions.get(relation.getDestination());
+            RelationStyle style = relation.getCurrentStyle();
+            if (Boolean.TRUE.equals(style.isReversed())) {
+                double[] swap = from;
+                from = to;
+                to = swap;
+            }
+            canvas.edge(from, to, HeadlessImage.toAwt(style.getColor()),
+                    style.getStroke().orElse(RelationStroke.PLAIN), style.getShape().orElse(ArrowShape.NONE),
+                    relation.getRelationType().getName());
+        }
+        for (InstanceConfiguration instance : visible) {
+            InstanceMark mark = instance.getEffectiveMark();
+            canvas.node(positions.get(instance), mark.getShape().orElse(InstanceShape.BOX),
+                    HeadlessImage.toAwt(mark.getColor()), mark.getStroke().orElse(InstanceStroke.NONE),
+                    HeadlessImage.iconPath(instance), instance.getName());
+        }
+    }
+
+    /**
+     * Determines the positions of the visible instances in graph coordinates.
+     * Instances without a position are placed by a spring layout, the others
+     * are fixed in it.
+     *
+     * @param instances the visible instances
+     * @param relations the visible relations
+     * @return the positions
+     */
+    private Map<InstanceConfiguration, Point> layout(List<InstanceConfiguration> instances,
+            List<RelationConfiguration> relations) {
+        Map<InstanceConfiguration, Point> positions = new HashMap<>();
+        for (InstanceConfiguration instance : instances) {
+            instance.getPosition().ifPresent(p -> positions.put(instance, p));
+        }
+        if (positions.size() == instances.size()) {
+            return positions;
+        }
+
+        MultiGraph graph = new MultiGraph("headless"); //$NON-NLS-1$
+        // a fixed seed, so that the same configuration always looks the same
+        Layout layout = new SpringBox(false, new Random(0));
+        graph.addSink(layout);
+        layout.addAttributeSink(graph);
+        for (InstanceConfiguration instance : instances) {
+            Node node = graph.addNode(instance.getURI());
+            Point p = positions.get(instance);
+            if (p != null) {
+                node.setAttribute("xyz", p.getX(), p.getY(), 0); //$NON-NLS-1$
+                node.setAttribute("layout.frozen"); //$NON-NLS-1$
+            }
+        }
+        for (RelationConfiguration relation : relations) {
+            graph.addEdge(relation.getURI(), relation.getOrigin().getURI(), relation.getDestination().getURI(),
+                    true);
+        }
+        for (int step = 0; (step < HeadlessImage.LAYOUT_STEPS)
+                && (layout.getStabilization() < layout.getStabilizationLimit()); step++) {
+            layout.compute();
+        }
+        graph.removeSink(layout);
+        layout.removeAttributeSink(graph);
+
+        for (InstanceConfiguration instance : instances) {
+            if (!positions.containsKey(instance)) {
+                double[] xyz = GraphPosLengthUtils.nodePosition(graph.getNode(instance.getURI()));
+                positions.put(instance, new Point(xyz[0], xyz[1]));
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * Scales graph coordinates to the image, keeping the aspect ratio. The y axis
+     * of the graph points up, the one of the image down.
+     *
+     * @param positions the positions in graph coordinates
+     * @return the positions in pixels
+     */
+    private Map<InstanceConfiguration, double[]> toPixels(Map<InstanceConfiguration, Point> positions) {
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (Point p : positions.values()) {
+            minX = Math.min(minX, p.getX());
+            minY = Math.min(minY, p.getY());
+            maxX = Math.max(maxX, p.getX());
+            maxY = Math.max(maxY, p.getY());
+        }
+        double spanX = Math.max(maxX - minX, 1e-9);
+        double spanY = Math.max(maxY - minY, 1e-9);
+        double scale = Math.min((this.width - (2.0 * HeadlessImage.MARGIN)) / spanX,
+                (this.height - (2.0 * HeadlessImage.MARGIN)) / spanY);
+        double offsetX = (this.width - (scale * (maxX - minX))) / 2;
+        double offsetY = (this.height - (scale * (maxY - minY))) / 2;
+
+        Map<InstanceConfiguration, double[]> pixels = new HashMap<>();
+        for (Map.Entry<InstanceConfiguration, Point> entry : positions.entrySet()) {
+            Point p = entry.getValue();
+            pixels.put(entry.getKey(), new double[] { offsetX + (scale * (p.getX() - minX)),
+                    this.height - (offsetY + (scale * (p.getY() - minY))) });
+        }
+        return pixels;
+    }
+
+    /**
+     * Converts a color of the model, black if it is not set.
+     *
+     * @param color the color
+     * @return the AWT color
+     */
+    private static java.awt.Color toAwt(Optional<Color> color) {
+        return color.map(c -> new java.awt.Color(c.getRed(), c.getGreen(), c.getBlue()))
+                .orElse(java.awt.Color.BLACK);
+    }
+
+    /**
+     * Returns the file of the icon of an instance.
+     *
+     * @param instance the instance
+     * @return the icon file, or {@code null} if there is none
+     */
+    private static Path iconPath(InstanceConfiguration instance) {
+        IconInterface icon = instance.getIcon();
+        if (icon == null) {
+            return null;
+        }
+        try {
+            Path path = icon.getPath();
+            return Files.isReadable(path) ? path : null;
+        } catch (IconDatabaseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the outline of an instance.
+     *
+     * @param shape the shape of the instance
+     * @param x     the x coordinate of the center
+     * @param y     the y coordinate of the center
+     * @return the outline
+     */
+    static Shape outline(InstanceShape shape, double x, double y) {
+        double r = HeadlessImage.NODE_SIZE / 2.0;
+        switch (shape) {
+        case CIRCLE:
+            return new Ellipse2D.Double(x - r, y - r, 2 * r, 2 * r);
+        case ROUNDED_BOX:
+            return new RoundRectangle2D.Double(x - r, y - r, 2 * r, 2 * r, r / 2, r / 2);
+        case DIAMOND:
+            Path2D diamond = new Path2D.Double();
+            diamond.moveTo(x, y - r);
+            diamond.lineTo(x + r, y);
+            diamond.lineTo(x, y + r);
+            diamond.lineTo(x - r, y);
+            diamond.closePath();
+            return diamond;
+        case CROSS:
+            double t = r / 3;
+            Path2D cross = new Path2D.Double();
+            cross.moveTo(x - t, y - r);
+            cross.lineTo(x + t, y - r);
+            cross.lineTo(x + t, y - t);
+            cross.lineTo(x + r, y - t);
+            cross.lineTo(x + r, y + t);
+            cross.lineTo(x + t, y + t);
+            cross.lineTo(x + t, y + r);
+            cross.lineTo(x - t, y + r);
+            cross.lineTo(x - t, y + t);
+            cross.lineTo(x - r, y + t);
+            cross.lineTo(x - r, y - t);
+            cross.lineTo(x - t, y - t);
+            cross.closePath();
+            return cross;
+        case BOX:
+        default:
+            return new Rectangle2D.Double(x - r, y - r, 2 * r, 2 * r);
+        }
+    }
+
+    /**
+     * Returns the dash pattern of a stroke.
+     *
+     * @param dashes whether the stroke is dashed
+     * @param dots   whether the stroke is dotted
+     * @return the dash pattern, or {@code null} for a plain stroke
+     */
+    private static float[] dashes(boolean dashes, boolean dots) {
+        if (dashes) {
+            return new float[] { 8, 4 };
+        }
+        if (dots) {
+            return new float[] { 2, 3 };
+        }
+        return null;
+    }
+
+    /**
+     * Something the configuration can be drawn on.
+     */
+    private interface Canvas {
+        /**
+         * Draws a relation.
+         *
+         * @param from   the center of the origin
+         * @param to     the center of the destination
+         * @param color  the color
+         * @param stroke the stroke, dashed or dotted if set so
+         * @param arrow  the arrow at the destination
+         * @param label  the label in the middle
+         */
+        void edge(double[] from, double[] to, java.awt.Color color, RelationStroke stroke, ArrowShape arrow,
+                String label);
+
+        /**
+         * Draws an instance.
+         *
+         * @param at     the center
+         * @param shape  the shape
+         * @param color  the color of the outline
+         * @param stroke the outline
+         * @param icon   the icon file, may be {@code null}
+         * @param label  the label below the instance
+         */
+        void node(double[] at, InstanceShape shape, java.awt.Color color, InstanceStroke stroke, Path icon,
+                String label);
+    }
+
+    /**
+     * Draws with Java2D.
+     */
+    private static final class GraphicsCanvas implements Canvas {
+        private final Graphics2D g;
+        private final Map<Path, BufferedImage> icons = new HashMap<>();
+
+        /**
+         * Creates the canvas.
+         *
+         * @param g the graphics to draw with
+         */
+        GraphicsCanvas(Graphics2D g) {
+            this.g = g;
+        }
+
+        @Override
+        public void edge(double[] from, double[] to, java.awt.Color color, RelationStroke stroke, ArrowShape arrow,
+                String label) {
+            this.g.setColor(color);
+            this.g.setStroke(new BasicStroke(1.5f, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER, 10,
+                    HeadlessImage.dashes(stroke == RelationStroke.DASHES, stroke == RelationStroke.DOTS), 0));
+            this.g.draw(new Line2D.Double(from[0], from[1], to[0], to[1]));
+            if (arrow != ArrowShape.NONE) {
+                this.g.fill(GraphicsCanvas.arrowHead(from, to));
+            }
+            this.label(label, (from[0] + to[0]) / 2, (from[1] + to[1]) / 2);
+        }
+
+        @Override
+        public void node(double[] at, InstanceShape shape, java.awt.Color color, InstanceStroke stroke, Path icon,
+                String label) {
+            Shape outline = HeadlessImage.outline(shape, at[0], at[1]);
+            this.g.setColor(HeadlessImage.NODE_FILL);
+            this.g.fill(outline);
+            BufferedImage image = this.icon(icon);
+            if (image != null) {
+                int size = HeadlessImage.NODE_SIZE;
+                this.g.drawImage(image, (int) (at[0] - (size / 2.0)), (int) (at[1] - (size / 2.0)), size, size,
+                        null);
+            }
+            if (stroke != InstanceStroke.NONE) {
+                this.g.setColor(color);
+                this.g.setStroke(new BasicStroke(2f, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER, 10,
+                        HeadlessImage.dashes(stroke == InstanceStroke.DASHES, stroke == InstanceStroke.DOTS), 0));
+                this.g.draw(outline);
+            }
+            this.label(label, at[0], at[1] + (HeadlessImage.NODE_SIZE / 2.0) + 14);
+        }
+
+        /**
+         * Draws a label centered on a point, on a white background.
+         *
+         * @param text the label
+         * @param x    the x coordinate of the center
+         * @param y    the baseline
+         */
+        private void label(String text, double x, double y) {
+            FontMetrics metrics = this.g.getFontMetrics();
+            int w = metrics.stringWidth(text);
+            this.g.setColor(HeadlessImage.BACKGROUND);
+            this.g.fillRect((int) (x - (w / 2.0)) - 2, (int) y - metrics.getAscent(), w + 4, metrics.getHeight());
+            this.g.setColor(java.awt.Color.BLACK);
+            this.g.drawString(text, (float) (x - (w / 2.0)), (float) y);
+        }
+
+        /**
+         * Loads an icon once per canvas.
+         *
+         * @param file the icon file, may be {@code null}
+         * @return the icon, or {@code null} if it can not be read
+         */
+        private BufferedImage icon(Path file) {
+            if (file == null) {
+                return null;
+            }
+            return this.icons.computeIfAbsent(file, f -> {
+                try {
+                    return ImageIO.read(f.toFile());
+                } catch (IOException e) {
+                    return null;
+                }
+            });
+        }
+
+        /**
+         * Returns an arrow head touching the outline of the destination.
+         *
+         * @param from the center of the origin
+         * @param to   the center of the destination
+         * @return the arrow head
+         */
+        private static Shape arrowHead(double[] from, double[] to) {
+            double angle = Math.atan2(to[1] - from[1], to[0] - from[0]);
+            double tipX = to[0] - (Math.cos(angle) * (HeadlessImage.NODE_SIZE / 2.0));
+            double tipY = to[1] - (Math.sin(angle) * (HeadlessImage.NODE_SIZE / 2.0));
+            Path2D head = new Path2D.Double();
+            head.moveTo(tipX, tipY);
+            head.lineTo(tipX - (12 * Math.cos(angle - 0.4)), tipY - (12 * Math.sin(angle - 0.4)));
+            head.lineTo(tipX - (12 * Math.cos(angle + 0.4)), tipY - (12 * Math.sin(angle + 0.4)));
+            head.closePath();
+            return head;
+        }
+    }
+
+    /**
+     * Collects SVG elements.
+     */
+    private static final class SvgCanvas implements Canvas {
+        private final StringBuilder svg = new StringBuilder();
+
+        @Override
+        public void edge(double[] from, double[] to, java.awt.Color color, RelationStroke stroke, ArrowShape arrow,
+                String label) {
+            this.svg.append(String.format(Locale.ROOT,
+                    "<line x1=\"%.1f\" y1=\"%.1f\" x2=\"%.1f\" y2=\"%.1f\" stroke=\"%s\" stroke-width=\"1.5\"%s/>%n", //$NON-NLS-1$
+                    from[0], from[1], to[0], to[1], SvgCanvas.rgb(color),
+                    SvgCanvas.dashArray(stroke == RelationStroke.DASHES, stroke == RelationStroke.DOTS)));
+            if (arrow != ArrowShape.NONE) {
+                this.svg.append(String.format(Locale.ROOT, "<path d=\"%s\" fill=\"%s\"/>%n", //$NON-NLS-1$
+                        SvgCanvas.path(GraphicsCanvas.arrowHead(from, to)), SvgCanvas.rgb(color)));
+            }
+            this.label(label, (from[0] + to[0]) / 2, (from[1] + to[1]) / 2);
+        }
+
+        @Override
+        public void node(double[] at, InstanceShape shape, java.awt.Color color, InstanceStroke stroke, Path icon,
+                String label) {
+            String outline = SvgCanvas.path(HeadlessImage.outline(shape, at[0], at[1]));
+            this.svg.append(String.format(Locale.ROOT, "<path d=\"%s\" fill=\"%s\"/>%n", outline, //$NON-NLS-1$
+                    SvgCanvas.rgb(HeadlessImage.NODE_FILL)));
+            if (icon != null) {
+                try {
+                    String mime = "image/" + FilenameUtils.getExtension(icon.toString()).toLowerCase(Locale.ROOT); //$NON-NLS-1$
+                    double r = HeadlessImage.NODE_SIZE / 2.0;
+                    this.svg.append(String.format(Locale.ROOT,
+                            "<image x=\"%.1f\" y=\"%.1f\" width=\"%d\" height=\"%d\" href=\"data:%s;base64,%s\"/>%n", //$NON-NLS-1$
+                            at[0] - r, at[1] - r, HeadlessImage.NODE_SIZE, HeadlessImage.NODE_SIZE, mime,
+                            Base64.getEncoder().encodeToString(Files.readAllBytes(icon))));
+                } catch (@SuppressWarnings("unused") IOException e) {
+                    // draw the instance without its icon
+                }
+            }
+            if (stroke != InstanceStroke.NONE) {
+                this.svg.append(String.format(Locale.ROOT,
+                        "<path d=\"%s\" fill=\"none\" stroke=\"%s\" stroke-width=\"2\"%s/>%n", outline, //$NON-NLS-1$
+                        SvgCanvas.rgb(color),
+                        SvgCanvas.dashArray(stroke == InstanceStroke.DASHES, stroke == InstanceStroke.DOTS)));
+            }
+            this.label(label, at[0], at[1] + (HeadlessImage.NODE_SIZE / 2.0) + 14);
+        }
+
+        @Override
+        public String toString() {
+            return this.svg.toString();
+        }
+
+        /**
+         * Adds a centered label.
+         *
+         * @param text the label
+         * @param x    the x coordinate of the center
+         * @param y    the baseline
+         */
+        private void label(String text, double x, double y) {
+            this.svg.append(String.format(Locale.ROOT,
+                    "<text x=\"%.1f\" y=\"%.1f\" text-anchor=\"middle\" stroke=\"white\" stroke-width=\"3\"" //$NON-NLS-1$
+                            + " paint-order=\"stroke\">%s</text>%n", //$NON-NLS-1$
+                    x, y, SvgCanvas.escape(text)));
+        }
+
+        /**
+         * Converts a shape into SVG path data.
+         *
+         * @param shape the shape
+         * @return the path data
+         */
+        private static String path(Shape shape) {
+            StringBuilder d = new StringBuilder();
+            double[] coords = new double[6];
+            for (PathIterator i = shape.getPathIterator(null); !i.isDone(); i.next()) {
+                switch (i.currentSegment(coords)) {
+                case PathIterator.SEG_MOVETO:
+                    d.append(String.format(Locale.ROOT, "M%.1f %.1f ", coords[0], coords[1])); //$NON-NLS-1$
+                    break;
+                case PathIterator.SEG_LINETO:
+                    d.append(String.format(Locale.ROOT, "L%.1f %.1f ", coords[0], coords[1])); //$NON-NLS-1$
+                    break;
+                case PathIterator.SEG_QUADTO:
+                    d.append(String.format(Locale.ROOT, "Q%.1f %.1f %.1f %.1f ", coords[0], coords[1], //$NON-NLS-1$
+                            coords[2], coords[3]));
+                    break;
+                case PathIterator.SEG_CUBICTO:
+                    d.append(String.format(Locale.ROOT, "C%.1f %.1f %.1f %.1f %.1f %.1f ", coords[0], //$NON-NLS-1$
+                            coords[1], coords[2], coords[3], coords[4], coords[5]));
+                    break;
+                default:
+                    d.append("Z "); //$NON-NLS-1$
+                    break;
+                }
+            }
+            return d.toString().strip();
+        }
+
+        /**
+         * Returns the dash attribute of a stroke.
+         *
+         * @param dashes whether the stroke is dashed
+         * @param dots   whether the stroke is dotted
+         * @return the attribute, empty for a plain stroke
+         */
+        private static String dashArray(boolean dashes, boolean dots) {
+            float[] pattern = HeadlessImage.dashes(dashes, dots);
+            if (pattern == null) {
+                return ""; //$NON-NLS-1$
+            }
+            return String.format(Locale.ROOT, " stroke-dasharray=\"%.0f %.0f\"", pattern[0], pattern[1]); //$NON-NLS-1$
+        }
+
+        /**
+         * Formats a color for SVG.
+         *
+         * @param color the color
+         * @return the color as rgb() value
+         */
+        private static String rgb(java.awt.Color color) {
+            return "rgb(" + color.getRed() + "," + color.getGreen() + "," + color.getBlue() + ")"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+        }
+
+        /**
+         * Escapes text for XML.
+         *
+         * @param text the text
+         * @return the escaped text
+         */
+        private static String escape(String text) {
+            return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+        }
+    }
+}
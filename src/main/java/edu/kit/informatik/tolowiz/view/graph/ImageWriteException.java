@@ -26,4 +26,13 @@ public class ImageWriteException extends Exception {
     ImageWriteException(Exception cause) {
         super(cause);
     }
+
+    /**
+     * Creates a new exception for an image that can not be written at all.
+     *
+     * @param message the reason
+     */
+    ImageWriteException(String message) {
+        super(message);
+    }
 }
@@ -12,20 +12,19 @@ import org.graphstream.ui.spriteManager.Sprite;
 
 import edu.kit.informatik.tolowiz.model.visualization.Color;
 import edu.kit.informatik.tolowiz.model.visualization.RelationConfiguration;
-import edu.kit.informatik.tolowiz.model.visualization.RelationListenerInterface;
 import edu.kit.informatik.tolowiz.model.visualization.RelationStyle.ArrowShape;
 import edu.kit.informatik.tolowiz.model.visualization.RelationStyle.RelationStroke;
 
 /**
  * Models an edge in the {@link Graph} that visualizes the ontology. <br>
  * An edge visualizes a relation, a node visualizes an instance. <br>
- * Refreshes when changes in the visualization of that relation object are made.
+ * It is rebuilt by the graph when the relation changes.
  * Has an GraphStream Edge attribute.
  *
  * @author Anja
  * @version 1.0
  */
-class ToloEdge implements RelationListenerInterface {
+class ToloEdge {
 
     /**
      * The configuration the edge representing the relation should be visualized
@@ -51,8 +50,7 @@ class ToloEdge implements RelationListenerInterface {
     private Sprite label;
 
     /**
-     * Constructor. Registers itself as listener for the changes in the
-     * visualization of the edge it represents.
+     * Constructor.
      *
      * @param graph    The graph the edge belongs to.
      * @param relation How the edge should be visualized.
@@ -60,7 +58,6 @@ class ToloEdge implements RelationListenerInterface {
     ToloEdge(Graph graph, RelationConfiguration relation) {
         this.graph = graph;
         this.relation = relation;
-        relation.addListener(this);
     }
 
     /**
@@ -96,21 +93,16 @@ class ToloEdge implements RelationListenerInterface {
     }
 
     /**
-     * Gets new information about the visualization of a relation out of the model
-     * and refreshes it.
-     *
-     * Use this method for nothing else but as a listener, especially not for
-     * initially building the object, as the view will also be refreshed and
-     * therefore an infinite loop may occur.
-     *
-     * @see RelationListenerInterface
+     * Removes the GraphStream edge and its label from the graph, for example
+     * because the relation was removed from the ontology.
      */
-    @Override
-    public void onChange() {
-        this.graph.runLater(() -> {
-            this.build();
-            this.graph.viewRefresh();
-        });
+    void remove() {
+        if (this.label != null) {
+            this.graph.getSpriteManager().removeSprite(this.label.getId());
+        }
+        if ((this.gsEdge != null) && (this.graph.getVisualizedGraph().getEdge(this.gsEdge.getId()) != null)) {
+            this.graph.getVisualizedGraph().removeEdge(this.gsEdge.getId());
+        }
     }
 
     /**
@@ -124,6 +116,15 @@ class ToloEdge implements RelationListenerInterface {
         this.gsEdge.setAttribute("ui.style", this.changeRelationTypeSymbol() + "visibility-mode: normal;");
     }
 
+    /**
+     * Hides the edge because its relation is drawn as part of a bundle of
+     * parallel relations. It is shown again by the next {@link #build()}.
+     */
+    void hideBundled() {
+        this.gsEdge.setAttribute("ui.hide");
+        this.label.setAttribute("ui.hide");
+    }
+
     /**
      * Shows or hides the edge in the visualization.
      */
@@ -13,7 +13,6 @@ import edu.kit.informatik.tolowiz.model.data.icons.IconDatabaseException;
 import edu.kit.informatik.tolowiz.model.data.icons.IconInterface;
 import edu.kit.informatik.tolowiz.model.visualization.Color;
 import edu.kit.informatik.tolowiz.model.visualization.InstanceConfiguration;
-import edu.kit.informatik.tolowiz.model.visualization.InstanceListenerInterface;
 import edu.kit.informatik.tolowiz.model.visualization.InstanceMark.InstanceShape;
 import edu.kit.informatik.tolowiz.model.visualization.InstanceMark.InstanceStroke;
 import edu.kit.informatik.tolowiz.model.visualization.InstanceTypeConfiguration;
@@ -22,13 +21,13 @@ import edu.kit.informatik.tolowiz.model.visualization.Point;
 /**
  * Models a node in the {@link Graph} that visualizes the ontology. <br>
  * A node visualizes an instance, an edge visualizes a relation. <br>
- * Refreshes when changes in the visualization of that instance object are made.
+ * It is rebuilt by the graph when the instance changes.
  *
  * @author Anja
  * @version 1.0
  */
 
-class ToloNode implements InstanceListenerInterface {
+class ToloNode {
 
     /**
      * The configuration the node representing the instance should be visualized
@@ -49,15 +48,13 @@ class ToloNode implements InstanceListenerInterface {
     private Graph graph;
 
     /**
-     * Constructor. Registers itself as listener for the changes in the
-     * visualization of the instance it represents.
+     * Constructor.
      *
      * @param graph    The graph the node belongs to.
      * @param instance How the node should be visualized.
      */
     ToloNode(Graph graph, InstanceConfiguration instance) {
         this.instance = instance;
-        instance.addListener(this);
         this.graph = graph;
     }
 
@@ -79,25 +76,6 @@ class ToloNode implements InstanceListenerInterface {
         return this.gsNode;
     }
 
-    /**
-     * Gets new information about the visualization of an instance out of the model
-     * and refreshes it. Only gets a notification that something has changed but
-     * does not know what exactly.
-     *
-     * Use this method for nothing else but as a listener, especially not for
-     * initially building the object, as the view will also be refreshed and
-     * therefore an infinite loop may occur.
-     *
-     * @see InstanceListenerInterface
-     */
-    @Override
-    public void onChange() {
-        this.graph.runLater(() -> {
-            this.build();
-            this.graph.viewRefresh();
-        });
-
-    }
 
     /**
      * Refreshes the visual representation according to the current status in the
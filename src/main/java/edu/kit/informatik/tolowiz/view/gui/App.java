@@ -8,7 +8,10 @@ package edu.kit.informatik.tolowiz.view.gui;
 import edu.kit.informatik.tolowiz.controller.ApplicationController;
 import edu.kit.informatik.tolowiz.controller.ImageFiletype;
 import edu.kit.informatik.tolowiz.controller.UndoException;
+import edu.kit.informatik.tolowiz.controller.interpretation.InterpreterFactory;
+import edu.kit.informatik.tolowiz.controller.interpretation.LoadProgress;
 import edu.kit.informatik.tolowiz.controller.interpretation.RDFInterpreterFactory;
+import edu.kit.informatik.tolowiz.controller.interpretation.StreamingRDFInterpreterFactory;
 import edu.kit.informatik.tolowiz.model.data.configurations.Database;
 import edu.kit.informatik.tolowiz.model.data.configurations.InternalDatabaseException;
 import edu.kit.informatik.tolowiz.model.data.configurations.NoSuchEntryException;
@@ -20,6 +23,7 @@ import edu.kit.informatik.tolowiz.model.data.icons.IconDatabaseInterface;
 import edu.kit.informatik.tolowiz.model.data.icons.IconInterface;
 import edu.kit.informatik.tolowiz.model.ontology.InstanceType;
 import edu.kit.informatik.tolowiz.model.ontology.ValueType;
+import edu.kit.informatik.tolowiz.model.visualization.ChangeSet;
 import edu.kit.informatik.tolowiz.model.visualization.Color;
 import edu.kit.informatik.tolowiz.model.visualization.Configuration;
 import edu.kit.informatik.tolowiz.model.visualization.DefaultHandler;
@@ -43,6 +47,9 @@ import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -52,6 +59,9 @@ import org.graphstream.ui.fx_viewer.FxViewer;
 import org.graphstream.ui.javafx.FxGraphRenderer;
 import org.javatuples.Pair;
 
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.concurrent.Task;
@@ -72,6 +82,7 @@ import javafx.scene.control.Label;
 import javafx.scene.control.Menu;
 import javafx.scene.control.MenuButton;
 import javafx.scene.control.MenuItem;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.RadioMenuItem;
 import javafx.scene.control.ScrollPane;
@@ -104,6 +115,7 @@ import javafx.scene.web.WebView;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import javafx.util.Callback;
+import javafx.util.Duration;
 
 /**
  * Class starting the program. Also serves as the event handler class which is
@@ -545,8 +557,11 @@ public class App extends Application implements JavaFxViewInterface {
         } catch (IOException | IconDatabaseException e) {
             this.showError(e);
         }
+        InterpreterFactory interpreter = (Boolean.getBoolean("tolowiz.streaming") //$NON-NLS-1$
+                ? new StreamingRDFInterpreterFactory()
+                : new RDFInterpreterFactory());
         this.controller = new ApplicationController(this, this.filesaver,
-                this.database, new RDFInterpreterFactory(), this.iconDatabase);
+                this.database, interpreter, this.iconDatabase);
         assert (this.controller != null);
         this.setFileChooserImpConf();
         this.setFileChooserExpConf();
@@ -704,6 +719,77 @@ public class App extends Application implements JavaFxViewInterface {
         });
     }
 
+    @Override
+    public void showProgress(LoadProgress loadProgress) {
+        this.runLater(() -> {
+            StackPane pane = this.progress;
+            if (pane == null || !this.stackPane.getChildren().contains(pane)) {
+                // the loading has already finished
+                return;
+            }
+            ProgressBar bar = new ProgressBar(ProgressIndicator.INDETERMINATE_PROGRESS);
+            bar.setStyle(" -fx-accent: #b200ff;");
+            bar.setPrefWidth(300);
+            Label status = new Label();
+            Label counts = new Label();
+            Button cancel = new Button("Cancel");
+            cancel.setOnAction(event -> {
+                loadProgress.cancel();
+                cancel.setDisable(true);
+            });
+            VBox box = new VBox(6, bar, status, counts, cancel);
+            box.setAlignment(Pos.CENTER);
+            pane.getChildren().setAll(box);
+
+            Timeline timeline = new Timeline();
+            timeline.getKeyFrames().add(new KeyFrame(Duration.millis(200), event -> {
+                if (!this.stackPane.getChildren().contains(pane)) {
+                    timeline.stop();
+                    return;
+                }
+                double fraction = loadProgress.getFractionRead();
+                bar.setProgress(fraction < 0 ? ProgressIndicator.INDETERMINATE_PROGRESS : fraction);
+                status.setText(App.describePhase(loadProgress));
+                counts.setText(String.format(Locale.ROOT,
+                        "%,d triples, %,d types, %,d instances, %,d relations",
+                        loadProgress.getTriples(), loadProgress.getTypes(),
+                        loadProgress.getInstances(), loadProgress.getRelations()));
+            }));
+            timeline.setCycleCount(Animation.INDEFINITE);
+            timeline.play();
+        });
+    }
+
+    /**
+     * Describes the current step of loading an ontology, including how much of
+     * the file has been read.
+     *
+     * @param loadProgress the progress of the interpreter
+     * @return the description
+     */
+    private static String describePhase(LoadProgress loadProgress) {
+        if (loadProgress.isCancelled()) {
+            return "Cancelling...";
+        }
+        String read = String.format(Locale.ROOT, "%.1f of %.1f MB",
+                loadProgress.getBytesRead() / 1e6,
+                loadProgress.getTotalBytes() / 1e6);
+        switch (loadProgress.getPhase()) {
+        case PARSING:
+            return "Reading file: " + read;
+        case TYPES:
+            return "Creating types";
+        case INSTANCES:
+            return "Creating instances: " + read;
+        case RELATIONS:
+            return "Creating relations";
+        case DONE:
+            return "Opening tab";
+        default:
+            return "Opening file";
+        }
+    }
+
     private void handleKey(KeyEvent event) {
         if (this.tab != null) {
             this.tab.getGraph().handleArrowKeys(event);
@@ -1370,9 +1456,9 @@ public class App extends Application implements JavaFxViewInterface {
      * the state of the checkbox.
      */
     private void checkRelationType(CheckBoxTreeItem<String> checkBox,
-            String name) {
+            String uri) {
         RelationTypeConfiguration rtc = this.tab.getGraph().getConfiguration()
-                .getRelationTypeByName(name);
+                .getRelationTypeByURI(uri);
         if ((!checkBox.isIndeterminate()) && checkBox.isSelected()) {
             this.graphController.showRelationType(rtc);
         } else {
@@ -1655,7 +1741,16 @@ public class App extends Application implements JavaFxViewInterface {
 
     private void setFileChooserOnto() {
         this.fileChooserOnto.setTitle("Open Ontology");
+        List<String> patterns = new LinkedList<>();
+        for (String extension : List.of("rdf", "owl", "ttl", "nt", "nq",
+                "jsonld", "trdf", "rt")) {
+            patterns.add("*." + extension);
+            for (String compression : List.of("gz", "bz2", "xz")) {
+                patterns.add("*." + extension + "." + compression);
+            }
+        }
         this.fileChooserOnto.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("Ontology", patterns),
                 new FileChooser.ExtensionFilter("RDF/XML", "*.rdf", "*.owl"),
                 new FileChooser.ExtensionFilter("RDF", "*.rdf"),
                 new FileChooser.ExtensionFilter("OWL", "*.owl"));
@@ -2182,10 +2277,10 @@ public class App extends Application implements JavaFxViewInterface {
                     event -> {
                         event.consume();
                         if (this.eventsActive) {
-                            this.checkRelationType(current, rtc.getName());
+                            this.checkRelationType(current, rtc.getURI());
                         }
                     });
-            this.relationTreeItems.put(rtc.getName(), current);
+            this.relationTreeItems.put(rtc.getURI(), current);
         }
 
         treeView.setCellFactory(
@@ -2552,7 +2647,7 @@ public class App extends Application implements JavaFxViewInterface {
     }
 
     private void markGroup(Group group, InstanceMark mark) {
-        group.setMark(mark);
+        this.graphController.setGroupMark(group, mark);
     }
 
     private void showGroup(Group group) {
@@ -2656,10 +2751,91 @@ public class App extends Application implements JavaFxViewInterface {
                 .getConfiguration().getRelationTypes()) {
             this.refreshCheckbox(x);
         }
+        this.refreshRootRelationsCheckbox(conf);
+        for (InstanceTypeConfiguration x : this.tab.getGraph()
+                .getConfiguration().getInstanceTypes()) {
+            this.refreshCheckboxValue(x);
+            for (ValueType y : x.getAllValues()) {
+                this.refreshCheckboxValueType(x, y);
+            }
+        }
+        this.setDetailArea(this.tab);
+        this.setConfigurationArea(this.tab);
+        this.runLater(() -> {
+            this.setHiddenInstances(conf);
+            this.setGroupsTab();
+        });
+        this.eventsActive = true;
+    }
+
+    @Override
+    public void refresh(ChangeSet changes) {
+        if (changes.contains(ChangeSet.Kind.ADDED)
+                || changes.contains(ChangeSet.Kind.REMOVED)) {
+            // types, values and hidden instances may all have changed
+            this.refresh();
+            return;
+        }
+        this.eventsActive = false;
+        Configuration conf = this.tab.getGraph().getConfiguration();
+        this.setMenu();
+        Set<InstanceConfiguration> visibility = changes
+                .getInstances(ChangeSet.Kind.VISIBILITY);
+        Set<InstanceConfiguration> style = changes
+                .getInstances(ChangeSet.Kind.STYLE);
+        this.typesOf(visibility).forEach(this::refreshCheckbox);
+        for (InstanceTypeConfiguration x : this.typesOf(style)) {
+            if (this.valueTreeItems.containsKey(x.getIRI())) {
+                this.refreshCheckboxValue(x);
+                for (ValueType y : x.getAllValues()) {
+                    this.refreshCheckboxValueType(x, y);
+                }
+            }
+        }
+        Set<RelationTypeConfiguration> relationTypes = changes
+                .getRelations(ChangeSet.Kind.VISIBILITY).stream()
+                .map(r -> r.getRelationType())
+                .filter(t -> this.relationTreeItems.containsKey(t.getURI()))
+                .collect(Collectors.toSet());
+        if (!relationTypes.isEmpty()) {
+            relationTypes.forEach(this::refreshCheckbox);
+            this.refreshRootRelationsCheckbox(conf);
+        }
+        this.setDetailArea(this.tab);
+        if (changes.contains(ChangeSet.Kind.SETTINGS)) {
+            this.setConfigurationArea(this.tab);
+        }
+        this.runLater(() -> {
+            if (!visibility.isEmpty()) {
+                this.setHiddenInstances(conf);
+            }
+            if (changes.contains(ChangeSet.Kind.GROUPS)) {
+                this.setGroupsTab();
+            }
+        });
+        this.eventsActive = true;
+    }
+
+    /**
+     * Collects the types of some instances that have a checkbox in the types
+     * tab.
+     *
+     * @param instances the instances
+     * @return the types of the instances with all their supertypes
+     */
+    private Set<InstanceTypeConfiguration> typesOf(
+            Set<InstanceConfiguration> instances) {
+        Set<InstanceTypeConfiguration> result = new HashSet<>();
+        instances.forEach(i -> result.addAll(i.getAllTypes()));
+        return result.stream()
+                .filter(t -> this.treeItems.containsKey(t.getIRI()))
+                .collect(Collectors.toSet());
+    }
+
+    private void refreshRootRelationsCheckbox(Configuration conf) {
         boolean checked = true;
         boolean unchecked = true;
-        for (RelationTypeConfiguration x : this.tab.getGraph()
-                .getConfiguration().getRelationTypes()) {
+        for (RelationTypeConfiguration x : conf.getRelationTypes()) {
             if (x.isVisible()) {
                 unchecked = false;
             } else {
@@ -2678,20 +2854,6 @@ public class App extends Application implements JavaFxViewInterface {
 
             this.rootRelationsCheckbox.setIndeterminate(true);
         }
-        for (InstanceTypeConfiguration x : this.tab.getGraph()
-                .getConfiguration().getInstanceTypes()) {
-            this.refreshCheckboxValue(x);
-            for (ValueType y : x.getAllValues()) {
-                this.refreshCheckboxValueType(x, y);
-            }
-        }
-        this.setDetailArea(this.tab);
-        this.setConfigurationArea(this.tab);
-        this.runLater(() -> {
-            this.setHiddenInstances(conf);
-            this.setGroupsTab();
-        });
-        this.eventsActive = true;
     }
 
     /**
@@ -2748,7 +2910,7 @@ public class App extends Application implements JavaFxViewInterface {
     }
 
     private void refreshCheckbox(RelationTypeConfiguration rtc) {
-        var current = this.relationTreeItems.get(rtc.getName());
+        var current = this.relationTreeItems.get(rtc.getURI());
         if (rtc.isVisible()) {
             current.setIndeterminate(false);
             current.setSelected(true);
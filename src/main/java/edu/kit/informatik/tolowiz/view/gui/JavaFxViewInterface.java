@@ -7,6 +7,7 @@ package edu.kit.informatik.tolowiz.view.gui;
 
 import edu.kit.informatik.tolowiz.model.data.icons.IconInterface;
 import edu.kit.informatik.tolowiz.model.ontology.InstanceType;
+import edu.kit.informatik.tolowiz.model.visualization.ChangeSet;
 import edu.kit.informatik.tolowiz.model.visualization.Configuration;
 import edu.kit.informatik.tolowiz.model.visualization.InstanceConfiguration;
 
@@ -40,6 +41,16 @@ public interface JavaFxViewInterface extends ViewInterface {
      */
     public void refresh();
 
+    /**
+     * Refreshes the parts of the view that show the given changes. By default,
+     * the full view is refreshed.
+     *
+     * @param changes the changes of the configuration
+     */
+    public default void refresh(ChangeSet changes) {
+        this.refresh();
+    }
+
     /**
      * Gets the default icon for a certain type.
      *
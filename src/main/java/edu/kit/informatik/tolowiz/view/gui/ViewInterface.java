@@ -7,6 +7,7 @@ package edu.kit.informatik.tolowiz.view.gui;
 
 import java.util.Set;
 
+import edu.kit.informatik.tolowiz.controller.interpretation.LoadProgress;
 import edu.kit.informatik.tolowiz.model.visualization.Configuration;
 import edu.kit.informatik.tolowiz.view.graph.GraphControllerInterface;
 
@@ -56,4 +57,12 @@ public interface ViewInterface {
      */
     public abstract void selectUri(Set<String> uris);
 
+    /**
+     * Shows the progress of an ontology that is being loaded, and lets the user
+     * cancel the loading. May be called from any thread.
+     *
+     * @param progress the progress of the interpreter loading the ontology
+     */
+    public abstract void showProgress(LoadProgress progress);
+
 }
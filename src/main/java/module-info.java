@@ -15,7 +15,7 @@ module edu.kit.informatik.tolowiz {
     requires transitive javafx.graphics;
     requires javafx.fxml;
     requires javafx.web;
-    // requires transitive java.desktop;
+    requires java.desktop;
     requires javatuples;
     requires org.apache.jena.core;
     requires transitive gs.core;
@@ -27,6 +27,8 @@ module edu.kit.informatik.tolowiz {
     requires org.apache.pdfbox;
     requires org.apache.commons.collections4;
     requires org.apache.commons.codec;
+    requires org.apache.commons.compress;
+    requires org.tukaani.xz;
     // requires org.mockito;
 
     // opens edu.kit.informatik.tolowiz to javafx.fxml;
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2020 Anne Bernhart, Anja Hansen, Tobias Klumpp, Fabian Palitza,
+ * Florian Patzer, Friedrich Volz, Sandra Wolf
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package edu.kit.informatik.tolowiz.controller;
+
+import java.awt.image.BufferedImage;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import javax.imageio.ImageIO;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link BatchLauncher}
+ */
+class BatchLauncherTest {
+    private static final String ONTOLOGY = "testOntologyMedium.rdf";
+    private static final String NO_INSTANCE_ONTOLOGY = "testOntologyNoInstance.owl";
+
+    private Path dir = Paths.get(System.getProperty("user.home")).resolve(".tolowiz");
+    private Path input = this.dir.resolve("input");
+    private Path output = this.dir.resolve("output");
+    private PrintStream log = new PrintStream(NullOutputStream.NULL_OUTPUT_STREAM);
+
+    /**
+     * @throws Exception if file system problems occured
+     */
+    @BeforeEach
+    void setUp() throws Exception {
+        System.setProperty("java.awt.headless", "true");
+        FileUtils.deleteDirectory(this.dir.toFile());
+        Files.createDirectories(this.input);
+        for (String name : new String[] { BatchLauncherTest.ONTOLOGY, BatchLauncherTest.NO_INSTANCE_ONTOLOGY }) {
+            try (InputStream in = this.getClass().getResourceAsStream("interpretation/" + name);
+                    OutputStream out = Files.newOutputStream(this.input.resolve(name))) {
+                IOUtils.copy(in, out);
+            }
+        }
+        Files.writeString(this.input.resolve("notes.txt"), "not an ontology");
+    }
+
+    /**
+     * @throws Exception if file system problems occured
+     */
+    @AfterEach
+    void tearDown() throws Exception {
+        FileUtils.deleteDirectory(this.dir.toFile());
+    }
+
+    /**
+     * Tests that all ontologies of a directory are rendered, and nothing else.
+     */
+    @Test
+    void testDirectory() {
+        BatchLauncher launcher = new BatchLauncher(new String[] { "--format", "svg", "--output",
+                this.output.toString(), "--threads", "2", this.input.toString() }, this.log);
+        Assertions.assertEquals(0, launcher.run());
+        Assertions.assertTrue(Files.exists(this.output.resolve("testOntologyMedium.svg")));
+        Assertions.assertTrue(Files.exists(this.output.resolve("testOntologyNoInstance.svg")));
+        Assertions.assertFalse(Files.exists(this.output.resolve("notes.svg")));
+    }
+
+    /**
+     * Tests that a raster image of the requested size is written.
+     *
+     * @throws Exception if the image can not be read
+     */
+    @Test
+    void testPng() throws Exception {
+        BatchLauncher launcher = new BatchLauncher(new String[] { "-W", "400", "-H", "300",
+                this.input.resolve(BatchLauncherTest.ONTOLOGY).toString() }, this.log);
+        Assertions.assertEquals(0, launcher.run());
+        BufferedImage image = ImageIO.read(this.input.resolve("testOntologyMedium.png").toFile());
+        Assertions.assertEquals(400, image.getWidth());
+        Assertions.assertEquals(300, image.getHeight());
+    }
+
+    /**
+     * Tests that missing files are counted as failures.
+     */
+    @Test
+    void testMissingFile() {
+        BatchLauncher launcher = new BatchLauncher(
+                new String[] { "-f", "pdf", this.input.resolve("missing.rdf").toString() }, this.log);
+        Assertions.assertEquals(1, launcher.run());
+    }
+
+    /**
+     * Tests that invalid arguments are rejected.
+     */
+    @Test
+    void testInvalidArguments() {
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new BatchLauncher(new String[] {}, this.log));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new BatchLauncher(new String[] { "-f", "bmp", "x.rdf" }, this.log));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new BatchLauncher(new String[] { "-t", "0", "x.rdf" }, this.log));
+    }
+}
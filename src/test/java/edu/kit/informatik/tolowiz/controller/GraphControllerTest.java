@@ -397,6 +397,49 @@ public class GraphControllerTest {
         this.config.getRelationTypes().forEach(r -> Assertions.assertEquals(new RelationStyle(), r.getStyle()));
     }
 
+    /**
+     * Tests that restoring the standard view is undone as a single operation,
+     * which brings back every mark and style.
+     *
+     * @throws UndoException if undo or redo is not possible
+     */
+    @Test
+    public void testUndoRestoreView() throws UndoException {
+        InstanceMark im = new InstanceMark(InstanceShape.BOX);
+        this.config.getInstances().forEach(i -> this.objectToTest.markInstance(i, im));
+        RelationStyle rs = new RelationStyle();
+        rs.setShape(ArrowShape.CIRCLE);
+        this.config.getRelationTypes().forEach(r -> this.objectToTest.changeRelationTypeSymbol(r, rs));
+
+        this.objectToTest.restoreStandardView();
+        this.tabCont.undo();
+        this.config.getInstances().forEach(i -> Assertions.assertTrue(i.getMarks().contains(im)));
+        this.config.getRelationTypes().forEach(r -> Assertions.assertSame(rs, r.getStyle()));
+        this.tabCont.redo();
+        this.config.getInstances().forEach(i -> Assertions.assertEquals(0, i.getMarks().size()));
+        this.config.getRelationTypes().forEach(r -> Assertions.assertEquals(new RelationStyle(), r.getStyle()));
+    }
+
+    /**
+     * Tests that showing a neighborhood is undone together with adding its
+     * seed.
+     *
+     * @throws UndoException if undo or redo is not possible
+     */
+    @Test
+    public void testUndoShowNeighborhood() throws UndoException {
+        InstanceConfiguration seed = this.config.getInstances().stream().findAny().get();
+        this.objectToTest.showNeighborhood(seed);
+        Assertions.assertTrue(this.config.getNeighborhood().getSeeds().contains(seed));
+        Assertions.assertTrue(seed.isVisible());
+        this.tabCont.undo();
+        Assertions.assertTrue(this.config.getNeighborhood().getSeeds().isEmpty());
+        Assertions.assertFalse(seed.isVisible());
+        this.tabCont.redo();
+        Assertions.assertTrue(this.config.getNeighborhood().getSeeds().contains(seed));
+        Assertions.assertTrue(seed.isVisible());
+    }
+
     /**
      * @throws IOException if an error occurs
      */
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2020 Anne Bernhart, Anja Hansen, Tobias Klumpp, Fabian Palitza,
+ * Florian Patzer, Friedrich Volz, Sandra Wolf
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package edu.kit.informatik.tolowiz.controller;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link OntologyWatcher}
+ */
+class OntologyWatcherTest {
+    private static final long DEBOUNCE = 200;
+    private static final long TIMEOUT = 5000;
+
+    private Path dir = Paths.get(System.getProperty("user.home")).resolve(".tolowiz");
+    private Path file = this.dir.resolve("watched.rdf");
+    private List<Path> reported = new CopyOnWriteArrayList<>();
+    private OntologyWatcher watcher;
+
+    /**
+     * @throws Exception if an exception occurs
+     */
+    @BeforeEach
+    void setUp() throws Exception {
+        FileUtils.deleteDirectory(this.dir.toFile());
+        Files.createDirectory(this.dir);
+        Files.writeString(this.file, "0");
+        this.watcher = new OntologyWatcher(this.reported::add, OntologyWatcherTest.DEBOUNCE);
+    }
+
+    /**
+     * @throws Exception if an exception occurs
+     */
+    @AfterEach
+    void tearDown() throws Exception {
+        this.watcher.close();
+        FileUtils.deleteDirectory(this.dir.toFile());
+    }
+
+    /**
+     * Tests that a burst of changes is reported once.
+     *
+     * @throws Exception if an exception occurs
+     */
+    @Test
+    void testDebounce() throws Exception {
+        this.watcher.register(this.file);
+        for (int i = 1; i <= 5; i++) {
+            Files.writeString(this.file, Integer.toString(i));
+            Thread.sleep(OntologyWatcherTest.DEBOUNCE / 4);
+        }
+        long end = System.currentTimeMillis() + OntologyWatcherTest.TIMEOUT;
+        while (this.reported.isEmpty() && (System.currentTimeMillis() < end)) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(OntologyWatcherTest.DEBOUNCE * 2);
+        Assertions.assertEquals(List.of(OntologyWatcher.normalize(this.file)), this.reported);
+    }
+
+    /**
+     * Tests that other files in the same directory are not reported.
+     *
+     * @throws Exception if an exception occurs
+     */
+    @Test
+    void testOtherFile() throws Exception {
+        this.watcher.register(this.file);
+        Files.writeString(this.dir.resolve("other.rdf"), "1");
+        Thread.sleep(OntologyWatcherTest.DEBOUNCE * 3);
+        Assertions.assertTrue(this.reported.isEmpty());
+    }
+
+    /**
+     * Tests that a file is only watched until it was unregistered as often as it
+     * was registered.
+     *
+     * @throws Exception if an exception occurs
+     */
+    @Test
+    void testUnregister() throws Exception {
+        this.watcher.register(this.file);
+        this.watcher.register(this.file);
+        this.watcher.unregister(this.file);
+        this.watcher.unregister(this.file);
+        Files.writeString(this.file, "1");
+        Thread.sleep(OntologyWatcherTest.DEBOUNCE * 3);
+        Assertions.assertTrue(this.reported.isEmpty());
+    }
+}
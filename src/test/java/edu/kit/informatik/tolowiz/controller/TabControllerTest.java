@@ -18,7 +18,6 @@ import org.javatuples.Pair;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
-import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mockito;
@@ -30,6 +29,9 @@ import edu.kit.informatik.tolowiz.model.data.file.FileSaver;
 import edu.kit.informatik.tolowiz.model.data.icons.IconDatabase;
 import edu.kit.informatik.tolowiz.model.ontology.Ontology;
 import edu.kit.informatik.tolowiz.model.visualization.Configuration;
+import edu.kit.informatik.tolowiz.model.visualization.InstanceConfiguration;
+import edu.kit.informatik.tolowiz.model.visualization.InstanceMark;
+import edu.kit.informatik.tolowiz.model.visualization.Point;
 import edu.kit.informatik.tolowiz.view.graph.GraphControllerInterface;
 import edu.kit.informatik.tolowiz.view.graph.GraphInterface;
 import edu.kit.informatik.tolowiz.view.graph.ImageInterface;
@@ -170,23 +172,24 @@ class TabControllerTest {
     }
 
     /**
-     * Test method for {@link TabController#doOperation()}.
+     * Test method for {@link TabController#doOperation(Command)}.
      *
      * @throws Exception if an error occurs
      *
      */
     @Test
     void testDoOperation() throws Exception {
-        this.tabCont.doOperation();
-        Ontology secondOnt = new RDFInterpreterFactory().getInterpreter(this.onto2, this.cont).buildOntology();
-        Configuration second = new Configuration(secondOnt, this.icons);
-        this.tab.showGraph(second);
+        InstanceConfiguration instance = this.tabCont.getConfig().getInstances().first();
+        boolean visible = instance.isVisible();
+        this.tabCont.doOperation(new ChangeCommand(visible ? instance::hide : instance::show));
+        Assertions.assertNotEquals(visible, instance.isVisible());
+        Assertions.assertTrue(this.tabCont.isUndoPossible());
         this.tabCont.undo();
-        this.tabCont.exportConfiguration(this.export, true);
-        Configuration loaded = this.fileSaver.generateFile(this.export).importConfiguration();
-
-        Assertions.assertTrue(loaded.getOntology().getIRI().equals(this.conf.getOntology().getIRI()));
-        Assertions.assertTrue(!loaded.getOntology().getIRI().equals(second.getOntology().getIRI()));
+        Assertions.assertEquals(visible, instance.isVisible());
+        Assertions.assertTrue(this.tabCont.isRedoPossible());
+        this.tabCont.redo();
+        Assertions.assertNotEquals(visible, instance.isVisible());
+        Mockito.verify(this.tab, Mockito.never()).showGraph(ArgumentMatchers.any());
     }
 
     /**
@@ -321,19 +324,23 @@ class TabControllerTest {
      *
      * @throws Exception if an error occurs
      */
-    @Disabled
     @Test
     void testRedo() throws Exception {
-        this.tabCont.doOperation();
-        Assertions.assertTrue(!this.tabCont.getConfig().getInstances().iterator().next().isVisible());
+        GraphController graphController = new GraphController(this.tabCont);
+        InstanceConfiguration instance = this.tabCont.getConfig().getInstances().first();
+        InstanceMark mark = new InstanceMark();
+        this.tabCont.doOperations(() -> {
+            graphController.moveNodeTo(instance, 1, 2);
+            graphController.markInstance(instance, mark);
+        });
         this.tabCont.undo();
+        Assertions.assertFalse(this.tabCont.isUndoPossible());
+        Assertions.assertTrue(instance.getMarks().isEmpty());
         this.tabCont.redo();
-        this.tabCont.exportConfiguration(this.export, true);
-
-        Configuration loaded = this.fileSaver.generateFile(this.export).importConfiguration();
-
-        Assertions.assertTrue(!loaded.getOntology().getIRI().equals(this.conf.getOntology().getIRI()));
-        Assertions.assertTrue(this.tabCont.getConfig().getInstances().iterator().next().isVisible());
+        Assertions.assertFalse(this.tabCont.isRedoPossible());
+        Assertions.assertEquals(new Point(1, 2), instance.getStoredPosition());
+        Assertions.assertSame(mark, instance.getMarks().get(0));
+        Assertions.assertThrows(UndoException.class, () -> this.tabCont.redo());
     }
 
     /**
@@ -356,24 +363,22 @@ class TabControllerTest {
      *
      * @throws Exception if an error occurs
      */
-    @Disabled
     @Test
     void testUndo() throws Exception {
-        this.tabCont.doOperation();
-        Ontology secondOnt = new RDFInterpreterFactory().getInterpreter(this.onto2, this.cont).buildOntology();
-        Configuration second = new Configuration(secondOnt, this.icons);
-        this.tab.showGraph(second);
-        this.tabCont.exportConfiguration(this.export, true);
-        Configuration loaded = this.fileSaver.generateFile(this.export).importConfiguration();
-        System.out.println(loaded.getOntology().getIRI());
-        System.out.println(second.getOntology().getIRI());
-        Assertions.assertTrue(loaded.getOntology().getIRI().equals(second.getOntology().getIRI()));
-        this.tabCont.undo();
-        this.tabCont.exportConfiguration(this.export, true);
-        loaded = this.fileSaver.generateFile(this.export).importConfiguration();
+        GraphController graphController = new GraphController(this.tabCont);
+        InstanceConfiguration instance = this.tabCont.getConfig().getInstances().first();
+        Point position = instance.getStoredPosition();
+        graphController.moveNodeTo(instance, 1, 2);
+        graphController.createNewGroup("group", instance);
+        Assertions.assertEquals(1, this.tabCont.getConfig().getGroups().size());
 
-        Assertions.assertTrue(loaded.getOntology().getIRI().equals(this.conf.getOntology().getIRI()));
-        Assertions.assertTrue(!loaded.getOntology().getIRI().equals(second.getOntology().getIRI()));
+        this.tabCont.undo();
+        Assertions.assertTrue(this.tabCont.getConfig().getGroups().isEmpty());
+        Assertions.assertTrue(instance.getGroups().isEmpty());
+        Assertions.assertTrue(instance.getMarks().isEmpty());
+        this.tabCont.undo();
+        Assertions.assertSame(position, instance.getStoredPosition());
+        Assertions.assertThrows(UndoException.class, () -> this.tabCont.undo());
     }
 
     /**
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2020 Anne Bernhart, Anja Hansen, Tobias Klumpp, Fabian Palitza,
+ * Florian Patzer, Friedrich Volz, Sandra Wolf
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package edu.kit.informatik.tolowiz.controller;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import edu.kit.informatik.tolowiz.model.data.configurations.StorageInterface;
+import edu.kit.informatik.tolowiz.model.ontology.InstanceType;
+import edu.kit.informatik.tolowiz.model.ontology.OntologyBuilder;
+import edu.kit.informatik.tolowiz.model.visualization.Configuration;
+import edu.kit.informatik.tolowiz.model.visualization.Group;
+import edu.kit.informatik.tolowiz.model.visualization.InstanceConfiguration;
+import edu.kit.informatik.tolowiz.model.visualization.InstanceMark;
+import edu.kit.informatik.tolowiz.model.visualization.InstanceMark.InstanceShape;
+import edu.kit.informatik.tolowiz.model.visualization.Point;
+import edu.kit.informatik.tolowiz.model.visualization.Snapshot;
+
+@SuppressWarnings("nls")
+class UndoHistoryTest {
+    private static final String NS = "http://tolowiz.test/history#";
+
+    private Path dir;
+    private StorageInterface storage;
+    private Configuration conf;
+    private List<InstanceConfiguration> instances;
+
+    /**
+     * @throws Exception if the directory can not be created
+     */
+    @BeforeEach
+    void setUp() throws Exception {
+        this.dir = Files.createTempDirectory("tolowiz");
+        this.storage = Mockito.mock(StorageInterface.class);
+        Mockito.when(this.storage.createHistoryFile())
+                .thenAnswer(i -> Files.createTempFile(this.dir, "history", ".gz"));
+        OntologyBuilder builder = new OntologyBuilder(UndoHistoryTest.NS, "history");
+        InstanceType thing = builder.addType("Thing", UndoHistoryTest.NS + "Thing");
+        for (int i = 0; i < 50; i++) {
+            builder.addInstance("device" + i, UndoHistoryTest.NS + "device" + i, new HashSet<>(Set.of(thing)),
+                    new HashSet<>());
+        }
+        this.conf = new Configuration(builder.build(), null);
+        this.instances = new ArrayList<>(this.conf.getInstances());
+    }
+
+    private void run(UndoHistory history, Runnable change) {
+        Command command = new ChangeCommand(change);
+        Snapshot before = this.conf.snapshot();
+        this.conf.batch(command::execute);
+        history.add(command, before);
+    }
+
+    private long files() throws IOException {
+        try (Stream<Path> files = Files.list(this.dir)) {
+            return files.count();
+        }
+    }
+
+    /**
+     * Tests that operations beyond the memory are spilled to files and read
+     * back when undone.
+     *
+     * @throws Exception if the test fails
+     */
+    @Test
+    void testSpill() throws Exception {
+        UndoHistory history = new UndoHistory(this.conf, this.storage, 10, 0);
+        InstanceConfiguration moved = this.instances.get(7);
+        Point start = moved.getStoredPosition();
+        InstanceMark mark = new InstanceMark(InstanceShape.BOX);
+        this.run(history, () -> moved.setPosition(new Point(1, 1)));
+        this.run(history, () -> moved.setPosition(new Point(2, 2)));
+        this.run(history, () -> this.instances.get(40).mark(mark));
+        Assertions.assertEquals(3, this.files());
+        Assertions.assertEquals(0, history.getMemory());
+
+        history.undo();
+        Assertions.assertTrue(this.instances.get(40).getMarks().isEmpty());
+        history.undo();
+        Assertions.assertEquals(new Point(1, 1), moved.getStoredPosition());
+        history.undo();
+        Assertions.assertEquals(start, moved.getStoredPosition());
+        Assertions.assertFalse(history.canUndo());
+        Assertions.assertEquals(0, this.files());
+
+        history.redo();
+        history.redo();
+        history.redo();
+        Assertions.assertEquals(new Point(2, 2), moved.getStoredPosition());
+        Assertions.assertSame(mark, this.instances.get(40).getMarks().get(0));
+        Assertions.assertEquals(3, this.files());
+    }
+
+    /**
+     * Tests that the groups of spilled operations stay the same objects.
+     *
+     * @throws Exception if the test fails
+     */
+    @Test
+    void testSpillGroups() throws Exception {
+        UndoHistory history = new UndoHistory(this.conf, this.storage, 10, 0);
+        Group group = new Group("group");
+        group.setMark(new InstanceMark(InstanceShape.BOX));
+        InstanceConfiguration member = this.instances.get(3);
+        this.run(history, () -> group.addInstance(member));
+        this.run(history, () -> group.removeInstance(member));
+
+        history.undo();
+        Assertions.assertEquals(Set.of(group), member.getGroups());
+        Assertions.assertSame(group.getMark(), member.getMarks().get(0));
+        history.undo();
+        Assertions.assertTrue(member.getGroups().isEmpty());
+        Assertions.assertTrue(member.getMarks().isEmpty());
+    }
+
+    /**
+     * Tests that creating a group is undone by the transition of the operation
+     * and redone by its command.
+     *
+     * @throws Exception if the test fails
+     */
+    @Test
+    void testGroup() throws Exception {
+        UndoHistory history = new UndoHistory(this.conf, this.storage, 10, Long.MAX_VALUE);
+        Group group = new Group("group");
+        InstanceConfiguration member = this.instances.get(5);
+        this.run(history, () -> {
+            this.conf.addGroup(group);
+            group.addInstance(member);
+        });
+
+        history.undo();
+        Assertions.assertFalse(this.conf.getGroups().contains(group));
+        Assertions.assertTrue(member.getGroups().isEmpty());
+        history.redo();
+        Assertions.assertTrue(this.conf.getGroups().contains(group));
+        Assertions.assertEquals(Set.of(group), member.getGroups());
+    }
+
+    /**
+     * Tests that only the newest operations are kept.
+     *
+     * @throws Exception if the test fails
+     */
+    @Test
+    void testMaxEntries() throws Exception {
+        UndoHistory history = new UndoHistory(this.conf, this.storage, 2, Long.MAX_VALUE);
+        InstanceConfiguration moved = this.instances.get(0);
+        for (int i = 1; i <= 3; i++) {
+            Point p = new Point(i, i);
+            this.run(history, () -> moved.setPosition(p));
+        }
+        Assertions.assertEquals(0, this.files());
+        Assertions.assertTrue(history.getMemory() > 0);
+        history.undo();
+        history.undo();
+        Assertions.assertFalse(history.canUndo());
+        Assertions.assertEquals(new Point(1, 1), moved.getStoredPosition());
+        Assertions.assertThrows(UndoException.class, history::undo);
+    }
+
+    /**
+     * Tests that operations are dropped if they can not be spilled.
+     *
+     * @throws Exception if the test fails
+     */
+    @Test
+    void testNoStorage() throws Exception {
+        UndoHistory history = new UndoHistory(this.conf, null, 10, 0);
+        InstanceConfiguration moved = this.instances.get(0);
+        this.run(history, () -> moved.setPosition(new Point(1, 1)));
+        Assertions.assertFalse(history.canUndo());
+    }
+
+    /**
+     * @throws IOException if the directory can not be deleted
+     */
+    @AfterEach
+    void tearDown() throws IOException {
+        FileUtils.deleteDirectory(this.dir.toFile());
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2020 Anne Bernhart, Anja Hansen, Tobias Klumpp, Fabian Palitza,
+ * Florian Patzer, Friedrich Volz, Sandra Wolf
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package edu.kit.informatik.tolowiz.controller.interpretation;
+
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.jena.ontology.DatatypeProperty;
+import org.apache.jena.ontology.Individual;
+import org.apache.jena.ontology.ObjectProperty;
+import org.apache.jena.ontology.OntClass;
+import org.apache.jena.ontology.OntModel;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.RDFNode;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import edu.kit.informatik.tolowiz.model.ontology.Ontology;
+import edu.kit.informatik.tolowiz.model.ontology.RelationType;
+import edu.kit.informatik.tolowiz.model.ontology.ValueType;
+
+/**
+ * Compares the old per-individual and per-property extraction of values and
+ * relations with the {@link PropertyIndex}. Only run with the benchmark
+ * profile: {@code mvn test -P benchmark}.
+ */
+@Tag("benchmark")
+public class InterpreterBenchmarkTest {
+    private static final String ONTOLOGY = "testOntologyMedium.rdf";
+    private static final String NS = "http://tolowiz.test/synthetic#";
+    private static final int INDIVIDUALS = 50000;
+    private static final int DATATYPE_PROPERTIES = 20;
+    private static final int OBJECT_PROPERTIES = 10;
+    private static final int VALUES_PER_INDIVIDUAL = 15;
+    private static final int RELATIONS_PER_INDIVIDUAL = 4;
+
+    private Map<DatatypeProperty, ValueType> valueTypes = new HashMap<>();
+    private Map<ObjectProperty, RelationType> relationTypes = new HashMap<>();
+
+    /**
+     * Benchmarks the medium test ontology.
+     */
+    @Test
+    void benchmarkMedium() {
+        OntModel model = ModelFactory.createOntologyModel();
+        InputStream stream = this.getClass().getResourceAsStream(InterpreterBenchmarkTest.ONTOLOGY);
+        model.read(stream, null);
+        this.compare("testOntologyMedium", model, 50);
+    }
+
+    /**
+     * Benchmarks a generated ontology with about one million triples.
+     */
+    @Test
+    void benchmarkSynthetic() {
+        OntModel model = ModelFactory.createOntologyModel();
+        OntClass cls = model.createClass(InterpreterBenchmarkTest.NS + "Device");
+        DatatypeProperty[] data = new DatatypeProperty[InterpreterBenchmarkTest.DATATYPE_PROPERTIES];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = model.createDatatypeProperty(InterpreterBenchmarkTest.NS + "value" + i);
+        }
+        ObjectProperty[] obj = new ObjectProperty[InterpreterBenchmarkTest.OBJECT_PROPERTIES];
+        for (int i = 0; i < obj.length; i++) {
+            obj[i] = model.createObjectProperty(InterpreterBenchmarkTest.NS + "relation" + i);
+        }
+        Individual[] individuals = new Individual[InterpreterBenchmarkTest.INDIVIDUALS];
+        for (int i = 0; i < individuals.length; i++) {
+            individuals[i] = model.createIndividual(InterpreterBenchmarkTest.NS + "device" + i, cls);
+        }
+        for (int i = 0; i < individuals.length; i++) {
+            for (int v = 0; v < InterpreterBenchmarkTest.VALUES_PER_INDIVIDUAL; v++) {
+                individuals[i].addProperty(data[(i + v) % data.length], "port" + ((i * v) % 1024));
+            }
+            for (int r = 0; r < InterpreterBenchmarkTest.RELATIONS_PER_INDIVIDUAL; r++) {
+                individuals[i].addProperty(obj[(i + r) % obj.length], individuals[(i + r + 1) % individuals.length]);
+            }
+        }
+        this.compare("synthetic (" + model.getBaseModel().size() + " triples)", model, 1);
+    }
+
+    /**
+     * Runs both extraction strategies and prints their timings.
+     *
+     * @param name   the name of the benchmark
+     * @param model  the model to extract from
+     * @param rounds the number of measured rounds
+     */
+    private void compare(String name, OntModel model, int rounds) {
+        Ontology ontology = new Ontology(InterpreterBenchmarkTest.NS, name);
+        this.valueTypes.clear();
+        this.relationTypes.clear();
+        model.listDatatypeProperties().toList()
+                .forEach(p -> this.valueTypes.put(p, ontology.addValueType(p.getLocalName(), p.getURI())));
+        model.listObjectProperties().toList()
+                .forEach(p -> this.relationTypes.put(p, ontology.addRelationType(p.getLocalName(), p.getURI())));
+        List<Individual> individuals = model.listIndividuals().toList();
+
+        long naive = 0;
+        long indexed = 0;
+        int naiveCount = 0;
+        int indexedCount = 0;
+        for (int i = 0; i < rounds; i++) {
+            long start = System.nanoTime();
+            naiveCount = this.naive(individuals);
+            naive += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            PropertyIndex index = new PropertyIndex(model, this.valueTypes, this.relationTypes,
+                    ontology.getDictionary());
+            indexedCount = 0;
+            for (Individual ind : individuals) {
+                indexedCount += index.getValues(ind.asNode()).size() + index.getRelations(ind.asNode()).size();
+            }
+            indexed += System.nanoTime() - start;
+        }
+        System.out.println("Benchmark " + name + ": per-property scan " + (naive / rounds / 1000000)
+                + " ms, indexed pass " + (indexed / rounds / 1000000) + " ms");
+        Assertions.assertEquals(naiveCount, indexedCount);
+    }
+
+    /**
+     * The extraction as it was done before the index: one lookup per individual
+     * and property.
+     *
+     * @param individuals the individuals
+     * @return the number of values and relations found
+     */
+    private int naive(List<Individual> individuals) {
+        int count = 0;
+        for (Individual ind : individuals) {
+            Set<String> values = new HashSet<>();
+            for (DatatypeProperty prop : this.valueTypes.keySet()) {
+                for (RDFNode val : ind.listPropertyValues(prop).toList()) {
+                    values.add(prop.getURI() + val.asLiteral().getLexicalForm());
+                }
+            }
+            count += values.size();
+            for (ObjectProperty prop : this.relationTypes.keySet()) {
+                count += ind.listPropertyValues(prop).toList().size();
+            }
+        }
+        return count;
+    }
+}
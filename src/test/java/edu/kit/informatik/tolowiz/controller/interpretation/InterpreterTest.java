@@ -125,6 +125,62 @@ public class InterpreterTest {
         Assertions.assertTrue(onto1.equals(onto2) && (onto1.hashCode() == onto2.hashCode()));
     }
 
+    /**
+     * tests whether the parallelism of the interpreter changes the resulting
+     * ontology object
+     *
+     * @throws OntologyFileException if the file can not be interpreted
+     * @throws FileNotFoundException if the file is missing
+     */
+    @Test
+    void testParallelismDeterminism() throws OntologyFileException, FileNotFoundException {
+        RDFInterpreterFactory single = new RDFInterpreterFactory(1);
+        RDFInterpreterFactory multi = new RDFInterpreterFactory(4);
+        Assertions.assertEquals(1, single.getParallelism());
+        Assertions.assertEquals(4, multi.getParallelism());
+        Ontology onto1 = single.getInterpreter(this.onto, this.cont).buildOntology();
+        Ontology onto2 = multi.getInterpreter(this.onto, this.cont).buildOntology();
+        Assertions.assertEquals(onto1, onto2);
+        Assertions.assertEquals(onto1.getNumberOfRelations(), onto2.getNumberOfRelations());
+    }
+
+    /**
+     * tests if an invalid parallelism is rejected
+     */
+    @Test
+    void testInvalidParallelism() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new RDFInterpreterFactory(0));
+    }
+
+    /**
+     * tests if the progress counts everything that ends up in the ontology
+     *
+     * @throws OntologyFileException if the file can not be interpreted
+     * @throws FileNotFoundException if the file is missing
+     */
+    @Test
+    void testProgress() throws OntologyFileException, FileNotFoundException {
+        Interpreter inti = new Interpreter(this.onto, this.cont);
+        Ontology ontology = inti.buildOntology();
+        LoadProgress progress = inti.getProgress();
+        Assertions.assertEquals(LoadProgress.Phase.DONE, progress.getPhase());
+        Assertions.assertEquals(Files.size(this.onto), progress.getTotalBytes());
+        Assertions.assertTrue(progress.getBytesRead() > 0);
+        Assertions.assertTrue(progress.getTriples() > 0);
+        Assertions.assertEquals(ontology.getNumberOfInstances(), progress.getInstances());
+        Assertions.assertEquals(ontology.getNumberOfRelations(), progress.getRelations());
+    }
+
+    /**
+     * tests if a cancelled interpretation stops with the matching exception
+     */
+    @Test
+    void testCancel() {
+        Interpreter inti = new Interpreter(this.onto, this.cont);
+        inti.getProgress().cancel();
+        Assertions.assertThrows(InterpretationCancelledException.class, () -> inti.buildOntology());
+    }
+
     /**
      * cleans up after tests
      * 
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2020 Anne Bernhart, Anja Hansen, Tobias Klumpp, Fabian Palitza,
+ * Florian Patzer, Friedrich Volz, Sandra Wolf
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package edu.kit.informatik.tolowiz.controller.interpretation;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
+import org.apache.commons.compress.compressors.xz.XZCompressorOutputStream;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.system.StreamRDFBase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.kit.informatik.tolowiz.controller.ApplicationController;
+import edu.kit.informatik.tolowiz.model.ontology.Ontology;
+
+/**
+ * Test for {@link RDFSource}
+ */
+public class RDFSourceTest {
+    private static final String ONTOLOGY = "testOntologyMedium.rdf";
+    private ApplicationController cont = new ApplicationController(null, null, null, null, null);
+    private Path dir = Paths.get(System.getProperty("user.home")).resolve(".tolowiz");
+    private Path onto = this.dir.resolve(RDFSourceTest.ONTOLOGY);
+    private Ontology expected;
+    private Model model;
+
+    /**
+     * @throws Exception if file system problems occured
+     */
+    @BeforeEach
+    void setup() throws Exception {
+        FileUtils.deleteDirectory(this.dir.toFile());
+        Files.createDirectory(this.dir);
+        try (InputStream in = this.getClass().getResourceAsStream(RDFSourceTest.ONTOLOGY);
+                OutputStream out = Files.newOutputStream(this.onto)) {
+            IOUtils.copy(in, out);
+        }
+        this.expected = new Interpreter(this.onto, this.cont).buildOntology();
+        this.model = ModelFactory.createDefaultModel();
+        RDFDataMgr.read(this.model, this.onto.toString(), Lang.RDFXML);
+    }
+
+    /**
+     * @throws Exception if file system problems occured
+     */
+    @AfterEach
+    void tearDown() throws Exception {
+        FileUtils.deleteDirectory(this.dir.toFile());
+    }
+
+    /**
+     * tests if cancelling stops the parser at the next triple
+     *
+     * @throws Exception if file system problems occured
+     */
+    @Test
+    void testCancel() throws Exception {
+        LoadProgress progress = new LoadProgress();
+        try (RDFSource source = RDFSource.open(this.onto, progress)) {
+            Assertions.assertEquals(Files.size(this.onto), progress.getTotalBytes());
+            Assertions.assertThrows(RuntimeException.class, () -> source.parse(new StreamRDFBase() {
+                @Override
+                public void triple(Triple triple) {
+                    progress.cancel();
+                }
+            }));
+        }
+        Assertions.assertEquals(1, progress.getTriples());
+    }
+
+    /**
+     * tests if gzip compressed RDF/XML is interpreted like the uncompressed file
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testGzip() throws Exception {
+        Path file = this.dir.resolve("testOntologyMedium.rdf.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+            Files.copy(this.onto, out);
+        }
+        Assertions.assertEquals(this.expected, new Interpreter(file, this.cont).buildOntology());
+        Assertions.assertEquals(this.expected, new StreamingInterpreter(file, this.cont).buildOntology());
+    }
+
+    /**
+     * tests if xz compressed Turtle is interpreted like the RDF/XML file
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testTurtleXz() throws Exception {
+        Path file = this.dir.resolve("testOntologyMedium.ttl.xz");
+        try (OutputStream out = new XZCompressorOutputStream(Files.newOutputStream(file))) {
+            RDFDataMgr.write(out, this.model, Lang.TURTLE);
+        }
+        Assertions.assertEquals(this.expected, new Interpreter(file, this.cont).buildOntology());
+    }
+
+    /**
+     * tests if the syntax is detected from the content if the file extension is
+     * unknown
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testDetectTurtle() throws Exception {
+        Path file = this.dir.resolve("testOntologyMedium.bz2");
+        try (OutputStream out = new BZip2CompressorOutputStream(Files.newOutputStream(file))) {
+            RDFDataMgr.write(out, this.model, Lang.TURTLE);
+        }
+        try (RDFSource source = RDFSource.open(file)) {
+            Assertions.assertEquals(Lang.TURTLE, source.getLang());
+        }
+        Assertions.assertEquals(this.expected, new Interpreter(file, this.cont).buildOntology());
+    }
+
+    /**
+     * tests if N-Triples and N-Quads are told apart by their content
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testDetectQuads() throws Exception {
+        Path triples = this.dir.resolve("triples.data");
+        Files.writeString(triples, "<http://a> <http://b> <http://c> .\n");
+        try (RDFSource source = RDFSource.open(triples)) {
+            Assertions.assertEquals(Lang.TURTLE, source.getLang());
+        }
+        Path quads = this.dir.resolve("quads.data");
+        Files.writeString(quads, "<http://a> <http://b> <http://c> <http://g> .\n");
+        try (RDFSource source = RDFSource.open(quads)) {
+            Assertions.assertEquals(Lang.NQUADS, source.getLang());
+        }
+    }
+
+    /**
+     * tests if a truncated compressed file is reported as not interpretable
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testTruncated() throws Exception {
+        Path file = this.dir.resolve("testOntologyMedium.rdf.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+            Files.copy(this.onto, out);
+        }
+        byte[] content = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(content, content.length / 2));
+        Assertions.assertThrows(OntologyFileException.class,
+                () -> new Interpreter(file, this.cont).buildOntology());
+    }
+
+    /**
+     * tests if the name of the ontology does not contain any extension
+     */
+    @Test
+    void testBaseName() {
+        Assertions.assertEquals("network", RDFSource.getBaseName(Paths.get("network.ttl.gz")));
+        Assertions.assertEquals("network", RDFSource.getBaseName(Paths.get("network.owl")));
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2020 Anne Bernhart, Anja Hansen, Tobias Klumpp, Fabian Palitza,
+ * Florian Patzer, Friedrich Volz, Sandra Wolf
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package edu.kit.informatik.tolowiz.controller.interpretation;
+
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.apache.commons.io.IOUtils;
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.kit.informatik.tolowiz.controller.ApplicationController;
+import edu.kit.informatik.tolowiz.model.ontology.Ontology;
+
+public class StreamingInterpreterTest {
+    private static final String ONTOLOGY = "testOntologyMedium.rdf";
+    private static final String NO_INSTANCE_ONTOLOGY = "testOntologyNoInstance.owl";
+    private ApplicationController cont = new ApplicationController(null, null, null, null, null);
+    private Path dir = Paths.get(System.getProperty("user.home")).resolve(".tolowiz");
+    private Path onto = this.dir.resolve(StreamingInterpreterTest.ONTOLOGY);
+    private Path noInstanceOnto = this.dir.resolve(StreamingInterpreterTest.NO_INSTANCE_ONTOLOGY);
+
+    /**
+     * Guarantees that all Tests have the same prerequisite
+     *
+     * @throws Exception if file system problems occured
+     */
+    @BeforeEach
+    void setup() throws Exception {
+        if (Files.exists(this.dir)) {
+            FileUtils.deleteDirectory(this.dir.toFile());
+
+        }
+        Files.createDirectory(this.dir);
+        try (InputStream in1 = this.getClass().getResourceAsStream(StreamingInterpreterTest.ONTOLOGY);
+                OutputStream out1 = Files.newOutputStream(this.onto);) {
+            IOUtils.copy(in1, out1);
+        }
+        try (InputStream in2 = this.getClass().getResourceAsStream(StreamingInterpreterTest.NO_INSTANCE_ONTOLOGY);
+                OutputStream out2 = Files.newOutputStream(this.noInstanceOnto);) {
+            IOUtils.copy(in2, out2);
+        }
+    }
+
+    /**
+     * tests if an ontology file without any instances is interpreted correctly
+     *
+     * @throws Exception if the file can not be interpreted
+     */
+    @Test
+    void testNoInstance() throws Exception {
+        Ontology ontology = new StreamingInterpreter(this.noInstanceOnto, this.cont).buildOntology();
+        Assertions.assertEquals(0, ontology.getNumberOfInstances());
+    }
+
+    /**
+     * tests if the streaming interpreter finds the same elements as the model
+     * based one
+     *
+     * @throws OntologyFileException if the file can not be interpreted
+     * @throws FileNotFoundException if the file is missing
+     */
+    @Test
+    void testSameAsInterpreter() throws OntologyFileException, FileNotFoundException {
+        Ontology streamed = new StreamingInterpreter(this.onto, this.cont).buildOntology();
+        Ontology loaded = new Interpreter(this.onto, this.cont).buildOntology();
+        Assertions.assertEquals(loaded.getIRI(), streamed.getIRI());
+        Assertions.assertEquals(loaded.getNumberOfInstances(), streamed.getNumberOfInstances());
+        Assertions.assertEquals(loaded.getNumberOfRelations(), streamed.getNumberOfRelations());
+        Assertions.assertEquals(loaded.getRelationTypes(), streamed.getRelationTypes());
+        Assertions.assertEquals(loaded.getValueTypes(), streamed.getValueTypes());
+    }
+
+    /**
+     * tests if a missing file is reported
+     */
+    @Test
+    void testMissingFile() {
+        StreamingInterpreter inti = new StreamingInterpreter(this.dir.resolve("missing.rdf"), this.cont);
+        Assertions.assertThrows(FileNotFoundException.class, () -> inti.buildOntology());
+    }
+
+    /**
+     * tests if the progress counts everything that ends up in the ontology
+     *
+     * @throws OntologyFileException if the file can not be interpreted
+     * @throws FileNotFoundException if the file is missing
+     */
+    @Test
+    void testProgress() throws OntologyFileException, FileNotFoundException {
+        StreamingInterpreter inti = new StreamingInterpreter(this.onto, this.cont);
+        Ontology ontology = inti.buildOntology();
+        LoadProgress progress = inti.getProgress();
+        Assertions.assertEquals(LoadProgress.Phase.DONE, progress.getPhase());
+        Assertions.assertTrue(progress.getFractionRead() > 0);
+        Assertions.assertTrue(progress.getTriples() > 0);
+        Assertions.assertEquals(ontology.getNumberOfInstances(), progress.getInstances());
+        Assertions.assertEquals(ontology.getNumberOfRelations(), progress.getRelations());
+    }
+
+    /**
+     * cleans up after tests
+     *
+     * @throws Exception if file system problems occured
+     */
+    @AfterEach
+    void tearDown() throws Exception {
+        FileUtils.deleteDirectory(this.dir.toFile());
+    }
+
+}
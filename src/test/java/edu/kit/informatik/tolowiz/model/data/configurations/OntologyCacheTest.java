@@ -0,0 +1,221 @@
+/*
+ * Copyright 2020 Anne Bernhart, Anja Hansen, Tobias Klumpp, Fabian Palitza,
+ * Florian Patzer, Friedrich Volz, Sandra Wolf
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package edu.kit.informatik.tolowiz.model.data.configurations;
+
+import edu.kit.informatik.tolowiz.controller.ApplicationController;
+import edu.kit.informatik.tolowiz.controller.interpretation.RDFInterpreterFactory;
+import edu.kit.informatik.tolowiz.model.ontology.Ontology;
+import edu.kit.informatik.tolowiz.view.gui.ApplicationControllerInterface;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link OntologyCache}
+ */
+class OntologyCacheTest {
+    /**
+     * The kind of interpreter
+     */
+    private static final String KIND = "test";
+    /**
+     * Another URI the prefix can be chosen as
+     */
+    private static final String OTHER_URI = "http://example.org/other";
+
+    /**
+     * The program directory
+     */
+    private Path dir = Paths.get(System.getProperty("user.home"))
+            .resolve(".tolowiz");
+    /**
+     * The ontology file
+     */
+    private Path file = this.dir.resolve("testOntologyAnne.rdf");
+    /**
+     * The interpreted ontology
+     */
+    private Ontology onto;
+    /**
+     * The cache
+     */
+    private OntologyCache cache;
+
+    private ApplicationControllerInterface cont = new ApplicationController(
+            null, null, null, null, null);
+
+    /**
+     * @throws Exception if an exception occurs
+     */
+    @BeforeEach
+    void setUp() throws Exception {
+        FileUtils.deleteDirectory(this.dir.toFile());
+        Files.createDirectory(this.dir);
+        try (InputStream in = this.getClass()
+                .getResourceAsStream("testOntologyAnne.rdf");
+                OutputStream out = Files.newOutputStream(this.file);) {
+            IOUtils.copy(in, out);
+        }
+        this.onto = new RDFInterpreterFactory()
+                .getInterpreter(this.file, this.cont).buildOntology();
+        this.cache = new OntologyCache(this.dir.resolve("cache"));
+    }
+
+    /**
+     * @throws Exception if an exception occurs
+     */
+    @AfterEach
+    void tearDown() throws Exception {
+        FileUtils.deleteDirectory(this.dir.toFile());
+    }
+
+    /**
+     * Fails if a prefix is chosen for an ontology that specifies it.
+     *
+     * @param uris the URIs
+     * @return nothing
+     */
+    private String fail(Set<String> uris) {
+        return Assertions.fail("no prefix has to be chosen from " + uris);
+    }
+
+    /**
+     * Tests that there is no snapshot for an unknown file.
+     */
+    @Test
+    void testMiss() {
+        Assertions.assertNull(this.cache.get(this.file, OntologyCacheTest.KIND, this::fail));
+    }
+
+    /**
+     * Tests that a stored snapshot equals the interpreted ontology.
+     *
+     * @throws Exception if an exception occurs
+     */
+    @Test
+    void testHit() throws Exception {
+        this.cache.put(this.file, OntologyCacheTest.KIND, this.onto, Set.of());
+        Assertions.assertEquals(this.onto, this.cache.get(this.file, OntologyCacheTest.KIND, this::fail));
+    }
+
+    /**
+     * Tests that a snapshot is still used if the file was only touched.
+     *
+     * @throws Exception if an exception occurs
+     */
+    @Test
+    void testTouched() throws Exception {
+        this.cache.put(this.file, OntologyCacheTest.KIND, this.onto, Set.of());
+        Files.setLastModifiedTime(this.file, FileTime.fromMillis(
+                Files.getLastModifiedTime(this.file).toMillis() + 10000));
+        Assertions.assertEquals(this.onto, this.cache.get(this.file, OntologyCacheTest.KIND, this::fail));
+        Assertions.assertEquals(this.onto, this.cache.get(this.file, OntologyCacheTest.KIND, this::fail));
+    }
+
+    /**
+     * Tests that a snapshot is not used after the file changed.
+     *
+     * @throws Exception if an exception occurs
+     */
+    @Test
+    void testChanged() throws Exception {
+        this.cache.put(this.file, OntologyCacheTest.KIND, this.onto, Set.of());
+        Files.writeString(this.file, "<!-- changed -->",
+                StandardOpenOption.APPEND);
+        Assertions.assertNull(this.cache.get(this.file, OntologyCacheTest.KIND, this::fail));
+    }
+
+    /**
+     * Tests that a snapshot is not used if the file changed while it was
+     * interpreted.
+     *
+     * @throws Exception if an exception occurs
+     */
+    @Test
+    void testChangedWhileInterpreted() throws Exception {
+        Assertions.assertNull(this.cache.get(this.file, OntologyCacheTest.KIND, this::fail));
+        Files.writeString(this.file, "<!-- changed -->",
+                StandardOpenOption.APPEND);
+        this.cache.put(this.file, OntologyCacheTest.KIND, this.onto, Set.of());
+        Assertions.assertNull(this.cache.get(this.file, OntologyCacheTest.KIND, this::fail));
+    }
+
+    /**
+     * Tests that a broken snapshot is ignored.
+     *
+     * @throws Exception if an exception occurs
+     */
+    @Test
+    void testBroken() throws Exception {
+        this.cache.put(this.file, OntologyCacheTest.KIND, this.onto, Set.of());
+        try (var stream = Files.newDirectoryStream(this.dir.resolve("cache"))) {
+            for (Path snapshot : stream) {
+                Files.write(snapshot, new byte[] {1, 2, 3});
+            }
+        }
+        Assertions.assertNull(this.cache.get(this.file, OntologyCacheTest.KIND, this::fail));
+    }
+
+    /**
+     * Tests that a snapshot is only used by the kind of interpreter it was
+     * created with.
+     *
+     * @throws Exception if an exception occurs
+     */
+    @Test
+    void testOtherKind() throws Exception {
+        this.cache.put(this.file, OntologyCacheTest.KIND, this.onto, Set.of());
+        Assertions.assertNull(this.cache.get(this.file, "other", this::fail));
+        Assertions.assertEquals(this.onto, this.cache.get(this.file, OntologyCacheTest.KIND, this::fail));
+    }
+
+    /**
+     * Tests that a snapshot whose prefix was chosen is only used if the same
+     * prefix is chosen again.
+     *
+     * @throws Exception if an exception occurs
+     */
+    @Test
+    void testChosenPrefix() throws Exception {
+        Set<String> candidates = Set.of(this.onto.getIRI(), OntologyCacheTest.OTHER_URI);
+        this.cache.put(this.file, OntologyCacheTest.KIND, this.onto, candidates);
+        Assertions.assertEquals(this.onto, this.cache.get(this.file, OntologyCacheTest.KIND, uris -> {
+            Assertions.assertEquals(candidates, uris);
+            return this.onto.getIRI();
+        }));
+        Assertions.assertNull(this.cache.get(this.file, OntologyCacheTest.KIND, uris -> OntologyCacheTest.OTHER_URI));
+    }
+
+    /**
+     * Tests that the least recently used snapshots are deleted when the cache is
+     * full.
+     *
+     * @throws Exception if an exception occurs
+     */
+    @Test
+    void testEvict() throws Exception {
+        for (int i = 0; i < 40; i++) {
+            this.cache.put(this.file, OntologyCacheTest.KIND + i, this.onto, Set.of());
+        }
+        try (var stream = Files.list(this.dir.resolve("cache"))) {
+            Assertions.assertTrue(stream.count() < 40);
+        }
+        Assertions.assertEquals(this.onto, this.cache.get(this.file, OntologyCacheTest.KIND + 39, this::fail));
+    }
+}
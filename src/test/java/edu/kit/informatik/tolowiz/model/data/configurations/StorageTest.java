@@ -13,6 +13,7 @@ import edu.kit.informatik.tolowiz.model.ontology.Ontology;
 import edu.kit.informatik.tolowiz.model.visualization.Configuration;
 import edu.kit.informatik.tolowiz.view.gui.ApplicationControllerInterface;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Files;
@@ -286,6 +287,84 @@ class StorageTest {
         });
     }
 
+    /**
+     * Tests that opening a storage deletes the files of the undo history left
+     * over by earlier runs, but not those of this run.
+     *
+     * @throws Exception if an exception occurs
+     */
+    @Test
+    void testHistoryFiles() throws Exception {
+        Path file = this.storage.createHistoryFile();
+        Path leftOver = file.resolveSibling("history0.gz");
+        Files.createFile(leftOver);
+        new Storage(new FileSaver(), this.onto, this.parent);
+        Assertions.assertTrue(Files.exists(file));
+        Assertions.assertFalse(Files.exists(leftOver));
+    }
+
+    /**
+     * Tests that all entries share one file of their ontology.
+     *
+     * @throws Exception if an exception occurs
+     */
+    @Test
+    void testSharedOntology() throws Exception {
+        this.storage.addEntry("Example", this.conf);
+        this.storage.addEntry("Example2", this.conf);
+        this.storage.autosave(this.conf);
+        Path ontologies = this.parent.resolve(Paths.get("0"))
+                .resolve("ontologies");
+        Assertions.assertEquals(1, StorageTest.countOntologies(ontologies));
+        Assertions.assertEquals(this.conf.getInstances().size(),
+                this.storage.getEntry("Example2").getInstances().size());
+        Assertions.assertEquals(this.onto.getIRI(),
+                this.storage.getAutosaveEntry().getOntology().getIRI());
+
+        FileUtils.deleteDirectory(ontologies.toFile());
+        Assertions.assertThrows(InternalDatabaseException.class,
+                () -> this.storage.getEntry("Example"));
+    }
+
+    /**
+     * Tests that ontology files no entry refers to are deleted, also after an
+     * entry was saved with another ontology or renamed.
+     *
+     * @throws Exception if an exception occurs
+     */
+    @Test
+    void testUnusedOntology() throws Exception {
+        this.storage.addEntry("Example", this.conf);
+        this.storage.addEntry("Example2", this.conf);
+        Path ontologies = this.parent.resolve(Paths.get("0"))
+                .resolve("ontologies");
+        String hash = this.onto.getContentHash();
+        // saved with another hash, as if the ontology had changed
+        this.onto.setContentHash("00");
+        this.storage.addEntry("Example", this.conf);
+        Assertions.assertEquals(2, StorageTest.countOntologies(ontologies));
+        this.storage.renameEntry("Example2", "Example3");
+        this.storage.deleteEntry("Example");
+        Assertions.assertTrue(Files.exists(ontologies.resolve(hash + ".bin")));
+        Assertions.assertEquals(1, StorageTest.countOntologies(ontologies));
+        Assertions.assertNotNull(this.storage.getEntry("Example3"));
+        this.storage.deleteEntry("Example3");
+        Assertions.assertEquals(0, StorageTest.countOntologies(ontologies));
+    }
+
+    /**
+     * Counts the ontology files in a directory.
+     *
+     * @param ontologies the directory
+     * @return the number of ontology files
+     * @throws IOException if the directory can not be listed
+     */
+    private static long countOntologies(Path ontologies) throws IOException {
+        try (var stream = Files.list(ontologies)) {
+            return stream.filter(p -> p.toString().endsWith(".bin")).count();
+        }
+    }
+
     /**
      * Tests the name of the ontology
      * @throws Exception if something goes wrong
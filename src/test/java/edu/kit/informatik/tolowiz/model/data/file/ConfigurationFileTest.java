@@ -12,6 +12,8 @@ import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
@@ -22,7 +24,14 @@ import org.junit.jupiter.api.Test;
 
 import edu.kit.informatik.tolowiz.controller.ApplicationController;
 import edu.kit.informatik.tolowiz.controller.interpretation.RDFInterpreterFactory;
+import edu.kit.informatik.tolowiz.model.visualization.Color;
 import edu.kit.informatik.tolowiz.model.visualization.Configuration;
+import edu.kit.informatik.tolowiz.model.visualization.Group;
+import edu.kit.informatik.tolowiz.model.visualization.InstanceConfiguration;
+import edu.kit.informatik.tolowiz.model.visualization.InstanceMark;
+import edu.kit.informatik.tolowiz.model.visualization.Point;
+import edu.kit.informatik.tolowiz.model.visualization.RelationStyle;
+import edu.kit.informatik.tolowiz.model.visualization.RelationTypeConfiguration;
 
 /**
  * Test for {@link ConfigurationFile}
@@ -121,4 +130,80 @@ class ConfigurationFileTest {
 
     }
 
+    /**
+     * Tests that positions, marks, groups, hidden Instances, relation styles
+     * and settings are the same after exporting and importing.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testRoundTrip() throws Exception {
+        List<InstanceConfiguration> instances = new ArrayList<>(this.conf.getInstances());
+        InstanceConfiguration moved = instances.get(0);
+        InstanceConfiguration hidden = instances.get(instances.size() - 1);
+        moved.setPosition(new Point(12.5, -3));
+        InstanceMark mark = new InstanceMark(new Color(10, 20, 30));
+        moved.mark(mark);
+        hidden.mark(mark);
+        this.conf.getHiddenInstances().add(hidden);
+        Group group = new Group("group", moved);
+        group.setMark(new InstanceMark(InstanceMark.InstanceShape.BOX));
+        this.conf.addGroup(group);
+        RelationTypeConfiguration relationType = this.conf.getRelationTypes().first();
+        RelationStyle style = new RelationStyle();
+        style.setStroke(RelationStyle.RelationStroke.DOTS);
+        style.reverse(Boolean.TRUE);
+        relationType.setStyle(style);
+        this.conf.setDepth(3);
+        this.conf.setMaxParallelRelations(5);
+
+        this.configFile.exportConfiguration(this.conf);
+        Configuration read = this.configFile.importConfiguration();
+        Assertions.assertEquals(this.conf.getInstances().size(), read.getInstances().size());
+        InstanceConfiguration readMoved = read.getInstanceByURI(moved.getURI());
+        InstanceConfiguration readHidden = read.getInstanceByURI(hidden.getURI());
+        Assertions.assertEquals(new Point(12.5, -3), readMoved.getStoredPosition());
+        Assertions.assertEquals(moved.getMarks(), readMoved.getMarks());
+        Assertions.assertSame(readMoved.getMarks().get(0), readHidden.getMarks().get(0));
+        Assertions.assertTrue(read.getHiddenInstances().contains(readHidden));
+        Assertions.assertEquals(1, read.getGroups().size());
+        Group readGroup = read.getGroups().iterator().next();
+        Assertions.assertEquals("group", readGroup.getName());
+        Assertions.assertEquals(group.getMark(), readGroup.getMark());
+        Assertions.assertTrue(readGroup.getInstances().contains(readMoved));
+        RelationStyle readStyle = read.getRelationTypeByURI(relationType.getURI()).getStyle();
+        Assertions.assertEquals(style.getStroke(), readStyle.getStroke());
+        Assertions.assertTrue(readStyle.isReversed().booleanValue());
+        Assertions.assertEquals(3, read.getDepth());
+        Assertions.assertEquals(5, read.getmaxParallelRelations());
+    }
+
+    /**
+     * Test method for
+     * {@link ConfigurationFile#exportConfiguration(Configuration, Path)}.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testExportWithoutOntology() throws Exception {
+        Path ontologies = this.dir.resolve("ontologies");
+        this.configFile.exportConfiguration(this.conf);
+        long size = Files.size(this.loc);
+        this.configFile.exportConfiguration(this.conf, ontologies);
+        Assertions.assertNotNull(this.conf.getOntology().getContentHash());
+        this.configFile.exportConfiguration(this.conf, ontologies);
+        Assertions.assertTrue(Files.size(this.loc) < size);
+        try (var stream = Files.list(ontologies)) {
+            Assertions.assertEquals(1, stream.count());
+        }
+
+        Configuration read = this.configFile.importConfiguration(ontologies);
+        Assertions.assertEquals(this.conf.getInstances().size(), read.getInstances().size());
+        Assertions.assertEquals(this.conf.getOntology().getRelations().size(),
+                read.getOntology().getRelations().size());
+        Assertions.assertThrows(FileTypeException.class, () -> this.configFile.importConfiguration());
+        FileUtils.cleanDirectory(ontologies.toFile());
+        Assertions.assertThrows(FileTypeException.class, () -> this.configFile.importConfiguration(ontologies));
+    }
+
 }
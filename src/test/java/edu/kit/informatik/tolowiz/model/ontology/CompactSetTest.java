@@ -0,0 +1,150 @@
+/*
+ * Copyright 2020 Anne Bernhart, Anja Hansen, Tobias Klumpp, Fabian Palitza,
+ * Florian Patzer, Friedrich Volz, Sandra Wolf
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package edu.kit.informatik.tolowiz.model.ontology;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.Field;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class CompactSetTest {
+
+    /**
+     * tests adding, finding and removing many elements
+     */
+    @Test
+    public void testAddRemove() {
+        Set<String> set = new CompactSet<>();
+        Set<String> expected = new HashSet<>();
+        for (int i = 0; i < 10000; i++) {
+            Assertions.assertTrue(set.add("element" + i));
+            expected.add("element" + i);
+        }
+        Assertions.assertFalse(set.add("element5"));
+        for (int i = 0; i < 10000; i += 3) {
+            Assertions.assertTrue(set.remove("element" + i));
+            expected.remove("element" + i);
+        }
+        Assertions.assertFalse(set.remove("element0"));
+        Assertions.assertEquals(expected, set);
+        Assertions.assertEquals(expected.size(), set.size());
+        Assertions.assertTrue(set.contains("element1"));
+        Assertions.assertFalse(set.contains("element3"));
+    }
+
+    /**
+     * tests removing elements while iterating
+     */
+    @Test
+    public void testIteratorRemove() {
+        Set<Integer> set = new CompactSet<>();
+        for (int i = 0; i < 100; i++) {
+            set.add(i);
+        }
+        for (Iterator<Integer> it = set.iterator(); it.hasNext();) {
+            if ((it.next() % 2) == 0) {
+                it.remove();
+            }
+        }
+        Assertions.assertEquals(50, set.size());
+        set.forEach(i -> Assertions.assertEquals(1, i % 2));
+        Assertions.assertFalse(set.contains(42));
+    }
+
+    /**
+     * tests that a serialized set can be read and used again
+     *
+     * @throws Exception if serialization fails
+     */
+    @Test
+    public void testSerialization() throws Exception {
+        Set<String> set = new CompactSet<>();
+        for (int i = 0; i < 100; i++) {
+            set.add("element" + i);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(set);
+        }
+        Set<?> read;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            read = (Set<?>) in.readObject();
+        }
+        Assertions.assertEquals(set, read);
+        Assertions.assertTrue(read.contains("element99"));
+        Assertions.assertTrue(read.remove("element0"));
+        Assertions.assertEquals(99, read.size());
+    }
+
+    /**
+     * tests that a read set is hashed when reading completes, so that lookups do
+     * not change it
+     *
+     * @throws Exception if serialization fails
+     */
+    @Test
+    public void testLookupAfterSerialization() throws Exception {
+        Set<Integer> set = new CompactSet<>();
+        for (int i = 0; i < 100; i++) {
+            set.add(i * 7919);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(set);
+        }
+        Set<?> read;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            read = (Set<?>) in.readObject();
+        }
+        Field hashed = CompactSet.class.getDeclaredField("hashed");
+        hashed.setAccessible(true);
+        Assertions.assertTrue(hashed.getBoolean(read));
+        Assertions.assertTrue(read.contains(7919));
+    }
+
+    /**
+     * tests that the sets of an ontology survive serialization, although its
+     * elements reference each other
+     *
+     * @throws Exception if serialization fails
+     */
+    @Test
+    public void testOntologySerialization() throws Exception {
+        OntologyBuilder builder = new OntologyBuilder("iri", "onto");
+        InstanceType type = builder.addType("type", "iri#type");
+        RelationType relationType = builder.addRelationType("rel", "iri#rel");
+        Set<InstanceType> types = new HashSet<>();
+        types.add(type);
+        Instance a = builder.addInstance("a", "iri#a", types, new HashSet<>());
+        Instance b = builder.addInstance("b", "iri#b", types, new HashSet<>());
+        builder.addRelation("iri#ab", relationType, a, b);
+        builder.addRelation("iri#ba", relationType, b, a);
+        Ontology ontology = builder.build();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(ontology);
+        }
+        Ontology read;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            read = (Ontology) in.readObject();
+        }
+        Instance readA = read.getInstanceByURI("iri#a");
+        InstanceType readType = read.getTypeByIRI("iri#type");
+        Assertions.assertTrue(readA.getType().contains(readType));
+        Assertions.assertTrue(readType.getInstances().contains(readA));
+        Assertions.assertEquals(1, readA.getRelations().size());
+        Assertions.assertTrue(read.getRelationTypeByURI("iri#rel").getRelations()
+                .containsAll(readA.getRelations()));
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2020 Anne Bernhart, Anja Hansen, Tobias Klumpp, Fabian Palitza,
+ * Florian Patzer, Friedrich Volz, Sandra Wolf
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package edu.kit.informatik.tolowiz.model.ontology;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import org.javatuples.Pair;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class OntologyBuilderTest {
+    private static final String IRI = "http://tolowiz.test/builder";
+    private OntologyBuilder builder;
+    private InstanceType thing;
+    private InstanceType device;
+    private InstanceType server;
+    private ValueType port;
+    private RelationType connected;
+
+    /**
+     * Creates a small type hierarchy: server is a device is a thing.
+     */
+    @BeforeEach
+    void setup() {
+        this.builder = new OntologyBuilder(OntologyBuilderTest.IRI, "builder");
+        this.thing = this.builder.addType("owl:Thing", OntologyBuilderTest.IRI + "#owl:Thing");
+        this.device = this.builder.addType("Device", OntologyBuilderTest.IRI + "#Device");
+        this.server = this.builder.addType("Server", OntologyBuilderTest.IRI + "#Server");
+        this.builder.addSuperType(this.device, this.thing);
+        this.builder.addSuperType(this.server, this.device);
+        this.port = this.builder.addValueType("port", OntologyBuilderTest.IRI + "#port");
+        this.connected = this.builder.addRelationType("connected", OntologyBuilderTest.IRI + "#connected");
+    }
+
+    /**
+     * tests if instances and relations added from many threads all end up in the
+     * ontology
+     */
+    @Test
+    void testConcurrentInsertion() {
+        int count = 10000;
+        Instance[] instances = new Instance[count];
+        IntStream.range(0, count).parallel().forEach(i -> {
+            Set<InstanceType> types = new HashSet<>();
+            types.add(this.server);
+            Set<Pair<ValueType, String>> values = new HashSet<>();
+            values.add(new Pair<>(this.port, Integer.toString(i)));
+            instances[i] = this.builder.addInstance("server" + i, OntologyBuilderTest.IRI + "#server" + i, types,
+                    values);
+        });
+        IntStream.range(0, count).parallel().forEach(i -> this.builder.addRelation(
+                OntologyBuilderTest.IRI + "#r" + i, this.connected, instances[i], instances[(i + 1) % count]));
+        Ontology ontology = this.builder.build();
+
+        Assertions.assertEquals(count, ontology.getNumberOfInstances());
+        Assertions.assertEquals(count, ontology.getNumberOfRelations());
+        Assertions.assertEquals(count, this.server.getInstances().size());
+        Assertions.assertEquals(count, this.device.getInstances().size());
+        Assertions.assertEquals(count, this.thing.getInstances().size());
+        Assertions.assertEquals(count, this.connected.getRelations().size());
+        Assertions.assertTrue(this.server.getValues().contains(this.port));
+        Assertions.assertEquals(1, instances[0].getRelations().size());
+    }
+
+    /**
+     * tests if the builder creates the same object graph as adding the elements
+     * to an ontology directly
+     */
+    @Test
+    void testSameAsOntology() {
+        Set<InstanceType> types = new HashSet<>();
+        types.add(this.server);
+        this.builder.addInstance("server", OntologyBuilderTest.IRI + "#server", types, new HashSet<>());
+        Ontology built = this.builder.build();
+
+        Ontology direct = new Ontology(OntologyBuilderTest.IRI, "builder");
+        InstanceType thing = direct.addType("owl:Thing", null, null, null, null,
+                OntologyBuilderTest.IRI + "#owl:Thing");
+        InstanceType device = direct.addType("Device", null, null, null, null, OntologyBuilderTest.IRI + "#Device");
+        InstanceType server = direct.addType("Server", null, null, null, null, OntologyBuilderTest.IRI + "#Server");
+        direct.addSuperType(device, thing);
+        direct.addSubType(thing, device);
+        direct.addSuperType(server, device);
+        direct.addSubType(device, server);
+        direct.addValueType("port", OntologyBuilderTest.IRI + "#port");
+        direct.addRelationType("connected", OntologyBuilderTest.IRI + "#connected");
+        Set<InstanceType> directTypes = new HashSet<>();
+        directTypes.add(server);
+        direct.addInstance("server", OntologyBuilderTest.IRI + "#server", directTypes, null, new HashSet<>());
+
+        Assertions.assertEquals(direct, built);
+        Assertions.assertTrue(this.device.getSubTypes().contains(this.server));
+    }
+
+    /**
+     * tests if the builder can not be used after the ontology was built
+     */
+    @Test
+    void testBuildOnce() {
+        this.builder.build();
+        Assertions.assertThrows(IllegalStateException.class, () -> this.builder.build());
+        Assertions.assertThrows(IllegalStateException.class, () -> this.builder.addType("a", "b"));
+    }
+
+    /**
+     * tests if types with the same iri are only created once
+     */
+    @Test
+    void testSameType() {
+        Assertions.assertSame(this.device, this.builder.addType("Device", OntologyBuilderTest.IRI + "#Device"));
+    }
+}
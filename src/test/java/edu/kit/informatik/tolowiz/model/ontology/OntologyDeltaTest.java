@@ -0,0 +1,179 @@
+/*
+ * Copyright 2020 Anne Bernhart, Anja Hansen, Tobias Klumpp, Fabian Palitza,
+ * Florian Patzer, Friedrich Volz, Sandra Wolf
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package edu.kit.informatik.tolowiz.model.ontology;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.javatuples.Pair;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class OntologyDeltaTest {
+    private static final String IRI = "http://tolowiz.test/delta";
+
+    /**
+     * Builds an ontology with a server type and servers connected in a chain.
+     *
+     * @param names    the names of the servers
+     * @param port     the port value of the first server
+     * @param withLink whether a link type exists
+     * @return the ontology
+     */
+    static Ontology build(String[] names, String port, boolean withLink) {
+        OntologyBuilder builder = new OntologyBuilder(OntologyDeltaTest.IRI, "delta");
+        InstanceType thing = builder.addType("owl:Thing", OntologyDeltaTest.IRI + "#owl:Thing");
+        InstanceType server = builder.addType("Server", OntologyDeltaTest.IRI + "#Server");
+        builder.addSuperType(server, thing);
+        ValueType portType = builder.addValueType("port", OntologyDeltaTest.IRI + "#port");
+        RelationType connected = builder.addRelationType("connected", OntologyDeltaTest.IRI + "#connected");
+        if (withLink) {
+            builder.addRelationType("link", OntologyDeltaTest.IRI + "#link");
+        }
+        Map<String, Instance> instances = new HashMap<>();
+        for (String name : names) {
+            Set<InstanceType> types = new HashSet<>();
+            types.add(server);
+            Set<Pair<ValueType, String>> values = new HashSet<>();
+            values.add(new Pair<>(portType, name.equals(names[0]) ? port : "80"));
+            instances.put(name, builder.addInstance(name, OntologyDeltaTest.IRI + "#" + name, types, values));
+        }
+        for (int i = 1; i < names.length; i++) {
+            builder.addRelation(OntologyDeltaTest.IRI + "#" + names[i - 1] + "-" + names[i], connected,
+                    instances.get(names[i - 1]), instances.get(names[i]));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns the instance with a name.
+     *
+     * @param ontology the ontology
+     * @param name     the name
+     * @return the instance
+     */
+    private static Instance get(Ontology ontology, String name) {
+        return ontology.getInstances().stream().filter(i -> i.getName().equals(name)).findFirst().orElseThrow();
+    }
+
+    /**
+     * tests if two equal versions have an empty delta
+     */
+    @Test
+    void testUnchanged() {
+        OntologyDelta delta = OntologyDelta.between(OntologyDeltaTest.build(new String[] {"a", "b"}, "22", false),
+                OntologyDeltaTest.build(new String[] {"a", "b"}, "22", false));
+        Assertions.assertTrue(delta.isEmpty());
+        Assertions.assertFalse(delta.isSchemaChanged());
+    }
+
+    /**
+     * tests if added and removed instances and their relations are found
+     */
+    @Test
+    void testAddedAndRemoved() {
+        OntologyDelta delta = OntologyDelta.between(
+                OntologyDeltaTest.build(new String[] {"a", "b", "c"}, "22", false),
+                OntologyDeltaTest.build(new String[] {"a", "b", "d"}, "22", false));
+        Assertions.assertEquals(1, delta.getRemovedInstances().size());
+        Assertions.assertEquals("c", delta.getRemovedInstances().get(0).getName());
+        Assertions.assertEquals(1, delta.getAddedInstances().size());
+        Assertions.assertEquals("d", delta.getAddedInstances().get(0).getName());
+        Assertions.assertEquals(1, delta.getRemovedRelations().size());
+        Assertions.assertEquals(1, delta.getAddedRelations().size());
+    }
+
+    /**
+     * tests if an instance with a changed value is replaced together with its
+     * relations
+     */
+    @Test
+    void testChangedValue() {
+        OntologyDelta delta = OntologyDelta.between(
+                OntologyDeltaTest.build(new String[] {"a", "b", "c"}, "22", false),
+                OntologyDeltaTest.build(new String[] {"a", "b", "c"}, "443", false));
+        Assertions.assertEquals(1, delta.getRemovedInstances().size());
+        Assertions.assertEquals(1, delta.getAddedInstances().size());
+        Assertions.assertEquals(1, delta.getRemovedRelations().size());
+        Assertions.assertEquals(1, delta.getAddedRelations().size());
+    }
+
+    /**
+     * tests if changes computed against a digest resolve to the objects of the
+     * described ontology
+     */
+    @Test
+    void testDigest() {
+        Ontology previous = OntologyDeltaTest.build(new String[] {"a", "b", "c"}, "22", false);
+        OntologyDigest digest = OntologyDigest.of(previous);
+        OntologyDigest.Changes changes = digest
+                .changesTo(OntologyDeltaTest.build(new String[] {"a", "b", "d"}, "22", false));
+        Assertions.assertFalse(changes.isEmpty());
+        Assertions.assertFalse(changes.isSchemaChanged());
+
+        OntologyDelta delta = changes.resolve(previous);
+        Assertions.assertEquals(1, delta.getRemovedInstances().size());
+        Assertions.assertSame(OntologyDeltaTest.get(previous, "c"), delta.getRemovedInstances().get(0));
+        Assertions.assertEquals(1, delta.getRemovedRelations().size());
+        Assertions.assertSame(OntologyDeltaTest.get(previous, "b").getRelations().iterator().next(),
+                delta.getRemovedRelations().get(0));
+        Assertions.assertTrue(digest.changesTo(OntologyDeltaTest.build(new String[] {"a", "b", "c"}, "22", false))
+                .isEmpty());
+    }
+
+    /**
+     * tests if a new relation type is detected as schema change and can not be
+     * applied
+     */
+    @Test
+    void testSchemaChanged() {
+        Ontology previous = OntologyDeltaTest.build(new String[] {"a"}, "22", false);
+        OntologyDelta delta = OntologyDelta.between(previous,
+                OntologyDeltaTest.build(new String[] {"a"}, "22", true));
+        Assertions.assertTrue(delta.isSchemaChanged());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> previous.applyDelta(delta));
+    }
+
+    /**
+     * tests if applying a delta results in the updated ontology while unchanged
+     * instances stay the same objects
+     */
+    @Test
+    void testApply() {
+        Ontology previous = OntologyDeltaTest.build(new String[] {"a", "b", "c"}, "22", false);
+        Ontology updated = OntologyDeltaTest.build(new String[] {"a", "b", "d"}, "443", false);
+        Instance b = OntologyDeltaTest.get(previous, "b");
+
+        OntologyDelta applied = previous.applyDelta(OntologyDelta.between(previous, updated));
+
+        Assertions.assertEquals(updated, previous);
+        Assertions.assertSame(b, OntologyDeltaTest.get(previous, "b"));
+        Assertions.assertEquals(3, previous.getNumberOfInstances());
+        Assertions.assertEquals(2, previous.getNumberOfRelations());
+        InstanceType server = b.getType().iterator().next();
+        Assertions.assertEquals(3, server.getInstances().size());
+        Assertions.assertEquals(3, server.getSuperTypes().iterator().next().getInstances().size());
+        Assertions.assertTrue(server.getInstances().containsAll(applied.getAddedInstances()));
+        Assertions.assertEquals(1, OntologyDeltaTest.get(previous, "a").getRelations().size());
+        Assertions.assertEquals(1, b.getRelations().size());
+        Assertions.assertEquals("d", b.getRelations().iterator().next().getDestination().getName());
+        Assertions.assertTrue(OntologyDelta.between(previous, updated).isEmpty());
+    }
+
+    /**
+     * tests if applying a delta forgets the hash of the saved ontology
+     */
+    @Test
+    void testApplyResetsHash() {
+        Ontology previous = OntologyDeltaTest.build(new String[] {"a", "b", "c"}, "22", false);
+        Ontology updated = OntologyDeltaTest.build(new String[] {"a", "b", "d"}, "443", false);
+        previous.setContentHash("00");
+        previous.applyDelta(OntologyDelta.between(previous, updated));
+        Assertions.assertNull(previous.getContentHash());
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2020 Anne Bernhart, Anja Hansen, Tobias Klumpp, Fabian Palitza,
+ * Florian Patzer, Friedrich Volz, Sandra Wolf
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package edu.kit.informatik.tolowiz.model.ontology;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.javatuples.Pair;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class OntologyDictionaryTest {
+    private OntologyDictionary dictionary;
+    private ValueType port;
+
+    /**
+     * setup methods
+     */
+    @BeforeEach
+    public void buildObjects() {
+        this.dictionary = new OntologyDictionary();
+        this.port = new ValueType("port", "iri#port");
+    }
+
+    /**
+     * tests whether equal strings are shared
+     */
+    @Test
+    public void testIntern() {
+        String first = this.dictionary.intern(new String("http"));
+        String second = this.dictionary.intern(new String("http"));
+        Assertions.assertSame(first, second);
+        Assertions.assertNull(this.dictionary.intern(null));
+        Assertions.assertEquals(1, this.dictionary.getHits());
+        Assertions.assertTrue(this.dictionary.getSavedBytes() > 0);
+    }
+
+    /**
+     * tests whether equal values are shared, also inside value sets
+     */
+    @Test
+    public void testValues() {
+        Pair<ValueType, String> first = this.dictionary.value(this.port, new String("80"));
+        Assertions.assertSame(first, this.dictionary.value(this.port, new String("80")));
+        Assertions.assertNotSame(first, this.dictionary.value(this.port, "443"));
+
+        Set<Pair<ValueType, String>> values = new HashSet<>();
+        values.add(new Pair<>(this.port, new String("80")));
+        Set<Pair<ValueType, String>> shared = this.dictionary.values(values);
+        Assertions.assertEquals(values, shared);
+        Assertions.assertSame(first, shared.iterator().next());
+        Assertions.assertTrue(this.dictionary.values(null).isEmpty());
+    }
+
+    /**
+     * tests whether instances with the same types share one set of types
+     */
+    @Test
+    public void testTypes() {
+        OntologyBuilder builder = new OntologyBuilder("iri", "onto");
+        InstanceType server = builder.addType("Server", "iri#Server");
+        Set<InstanceType> types = new HashSet<>();
+        types.add(server);
+        Instance a = builder.addInstance("a", "iri#a", types, new HashSet<>());
+        Instance b = builder.addInstance("b", "iri#b", new HashSet<>(types), new HashSet<>());
+        Assertions.assertSame(a.getType(), b.getType());
+        Assertions.assertEquals(types, a.getType());
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> a.getType().clear());
+        Assertions.assertNull(this.dictionary.types(null));
+        Assertions.assertTrue(builder.getDictionary().getHits() > 0);
+    }
+}
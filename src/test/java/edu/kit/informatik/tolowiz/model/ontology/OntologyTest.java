@@ -62,6 +62,26 @@ public class OntologyTest {
         Assertions.assertTrue(vals.equals(onto.getValueTypes()));
     }
 
+    /**
+     * tests the lookups by iri and uri
+     */
+    @Test
+    void testLookups() {
+        Ontology onto = new Ontology("uri.test.Ontology", "onto");
+        ValueType val = onto.addValueType("val1", "uri.test.Ontology#val1");
+        RelationType rel = onto.addRelationType("rel", "uri.test.Ontology#rel");
+        InstanceType type = onto.addType("type", new HashSet<>(), new HashSet<>(), new HashSet<>(), new HashSet<>(),
+                "uri.test.Ontology#type");
+        Set<InstanceType> types = new HashSet<>();
+        types.add(type);
+        Instance ins = onto.addInstance("ins", "uri.test.Ontology#ins", types, new HashSet<>(), new HashSet<>());
+        Assertions.assertSame(val, onto.getValueTypeByURI("uri.test.Ontology#val1"));
+        Assertions.assertSame(rel, onto.getRelationTypeByURI("uri.test.Ontology#rel"));
+        Assertions.assertSame(type, onto.getTypeByIRI("uri.test.Ontology#type"));
+        Assertions.assertSame(ins, onto.getInstanceByURI("uri.test.Ontology#ins"));
+        Assertions.assertNull(onto.getInstanceByURI("uri.test.Ontology#type"));
+    }
+
     /**
      * tests equals emthod
      */
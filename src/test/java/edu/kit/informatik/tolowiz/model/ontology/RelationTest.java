@@ -59,4 +59,18 @@ public class RelationTest {
         Assertions.assertTrue(this.dest.equals(this.r.getDestination()));
     }
 
+    /**
+     * tests whether a derived URI matches the one the interpreter used to store
+     */
+    @Test
+    public void testDerivedURI() {
+        Instance a = new Instance("a", "http://onto#a", this.it, null, null);
+        Instance b = new Instance("b", "http://onto#b", this.it, null, null);
+        this.r = new Relation(this.rt, a, b, "http://onto#");
+        Assertions.assertEquals("iri:a->b", this.r.getURI());
+        Relation stored = new Relation("iri:a->b", this.rt, a, b);
+        Assertions.assertEquals(stored, this.r);
+        Assertions.assertEquals(stored.hashCode(), this.r.hashCode());
+    }
+
 }
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2020 Anne Bernhart, Anja Hansen, Tobias Klumpp, Fabian Palitza,
+ * Florian Patzer, Friedrich Volz, Sandra Wolf
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package edu.kit.informatik.tolowiz.model.ontology;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class TypeHierarchyTest {
+    private OntologyBuilder builder;
+    private InstanceType thing;
+    private InstanceType device;
+    private InstanceType network;
+    private InstanceType router;
+
+    /**
+     * setup methods, builds a diamond: a router is a device and a network
+     */
+    @BeforeEach
+    public void buildObjects() {
+        this.builder = new OntologyBuilder("iri", "onto");
+        this.thing = this.builder.addType("Thing", "iri#Thing");
+        this.device = this.builder.addType("Device", "iri#Device");
+        this.network = this.builder.addType("Network", "iri#Network");
+        this.router = this.builder.addType("Router", "iri#Router");
+        this.builder.addSuperType(this.device, this.thing);
+        this.builder.addSuperType(this.network, this.thing);
+        this.builder.addSuperType(this.router, this.device);
+        this.builder.addSuperType(this.router, this.network);
+    }
+
+    /**
+     * tests whether the closure contains every supertype once
+     */
+    @Test
+    public void testClosure() {
+        Ontology ontology = this.builder.build();
+        List<InstanceType> closure = ontology.getTypeHierarchy().getClosure(this.router);
+        Assertions.assertEquals(4, closure.size());
+        Assertions.assertEquals(Set.of(this.thing, this.device, this.network, this.router), new HashSet<>(closure));
+        Assertions.assertEquals(List.of(this.thing), ontology.getTypeHierarchy().getClosure(this.thing));
+    }
+
+    /**
+     * tests the subtype and membership queries
+     */
+    @Test
+    public void testQueries() {
+        Set<InstanceType> types = new HashSet<>();
+        types.add(this.router);
+        Instance r = this.builder.addInstance("r", "iri#r", types, new HashSet<>());
+        Ontology ontology = this.builder.build();
+        TypeHierarchy hierarchy = ontology.getTypeHierarchy();
+        Assertions.assertTrue(hierarchy.isSubTypeOf(this.router, this.thing));
+        Assertions.assertTrue(hierarchy.isSubTypeOf(this.device, this.device));
+        Assertions.assertFalse(hierarchy.isSubTypeOf(this.device, this.network));
+        Assertions.assertTrue(hierarchy.isInstanceOf(r, this.network));
+        for (InstanceType type : ontology.getTypes()) {
+            Assertions.assertTrue(type.getInstances().contains(r));
+        }
+    }
+
+    /**
+     * tests whether a cycle in the hierarchy is handled
+     */
+    @Test
+    public void testCycle() {
+        this.builder.addSuperType(this.thing, this.router);
+        Ontology ontology = this.builder.build();
+        TypeHierarchy hierarchy = ontology.getTypeHierarchy();
+        Assertions.assertTrue(hierarchy.isSubTypeOf(this.thing, this.device));
+        Assertions.assertEquals(4, hierarchy.getClosure(this.device).size());
+    }
+
+    /**
+     * tests whether the closure of an ontology follows added supertypes
+     */
+    @Test
+    public void testAddedSuperType() {
+        Ontology ontology = new Ontology("iri", "onto");
+        InstanceType a = ontology.addType("A", null, null, null, null, "iri#A");
+        InstanceType b = ontology.addType("B", null, null, null, null, "iri#B");
+        Assertions.assertFalse(ontology.getTypeHierarchy().isSubTypeOf(a, b));
+        ontology.addSuperType(a, b);
+        Assertions.assertTrue(ontology.getTypeHierarchy().isSubTypeOf(a, b));
+        Set<InstanceType> types = new HashSet<>();
+        types.add(a);
+        Instance instance = ontology.addInstance("i", "iri#i", types, new HashSet<>(), new HashSet<>());
+        Assertions.assertTrue(b.getInstances().contains(instance));
+    }
+}
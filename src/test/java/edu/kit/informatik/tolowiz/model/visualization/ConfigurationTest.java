@@ -13,7 +13,9 @@ import java.lang.reflect.Method;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.HashSet;
 import java.util.Optional;
+import java.util.Set;
 
 import org.apache.commons.io.IOUtils;
 import org.codehaus.plexus.util.FileUtils;
@@ -21,6 +23,7 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mockito;
 
@@ -36,7 +39,10 @@ import edu.kit.informatik.tolowiz.model.data.icons.IconDatabaseException;
 import edu.kit.informatik.tolowiz.model.ontology.Instance;
 import edu.kit.informatik.tolowiz.model.ontology.InstanceType;
 import edu.kit.informatik.tolowiz.model.ontology.Ontology;
+import edu.kit.informatik.tolowiz.model.ontology.OntologyBuilder;
+import edu.kit.informatik.tolowiz.model.ontology.OntologyDelta;
 import edu.kit.informatik.tolowiz.model.ontology.RelationType;
+import edu.kit.informatik.tolowiz.model.visualization.InstanceTypeConfiguration.TypeVisibility;
 
 public class ConfigurationTest {
     private static final String ONTOLOGY = "testOntologyMedium.rdf";
@@ -118,6 +124,24 @@ public class ConfigurationTest {
         });
     }
 
+    /**
+     * Tests if the members of every type are exactly the Instances of the type
+     * or one of its subtypes, in the configuration and in a clone.
+     */
+    @Test
+    public void testTypeClosure() {
+        for (Configuration conf : new Configuration[] { this.objectToTest, this.objectToTest.clone() }) {
+            for (InstanceTypeConfiguration type : conf.getInstanceTypes()) {
+                for (InstanceConfiguration instance : conf.getInstances()) {
+                    Instance base = this.ontology.getInstanceByURI(instance.getURI());
+                    Assertions.assertEquals(instance.isOfType(type), type.getMembers().contains(instance));
+                    Assertions.assertEquals(instance.isOfType(type),
+                            this.ontology.getTypeHierarchy().isInstanceOf(base, type.getInstanceType()));
+                }
+            }
+        }
+    }
+
     /**
      * Tests if all the Relations of the configuration are contained in the
      * ontology.
@@ -146,6 +170,29 @@ public class ConfigurationTest {
         this.objectToTest.getInstanceTypes().forEach(itc -> {
             Assertions.assertEquals(this.objectToTest.getTypeByIRI(itc.getIRI()), itc); // getType
         });
+
+        this.objectToTest.getInstances().forEach(ic -> {
+            Assertions.assertSame(this.objectToTest.getInstanceByURI(ic.getURI()), ic); // getInstance
+        });
+        Assertions.assertNull(this.objectToTest.getInstanceByURI("unknown")); //$NON-NLS-1$
+        Assertions.assertNull(this.objectToTest.getTypeByIRI("unknown")); //$NON-NLS-1$
+    }
+
+    /**
+     * Tests that the getters of a clone return the cloned objects.
+     */
+    @Test
+    public void testCloneGetters() {
+        Configuration clone = this.objectToTest.clone();
+        clone.getInstances().forEach(ic -> {
+            Assertions.assertSame(clone.getInstanceByURI(ic.getURI()), ic);
+        });
+        clone.getInstanceTypes().forEach(itc -> {
+            Assertions.assertSame(clone.getTypeByIRI(itc.getIRI()), itc);
+        });
+        clone.getRelationTypes().forEach(rtc -> {
+            Assertions.assertSame(clone.getRelationTypeByName(rtc.getName()), rtc);
+        });
     }
 
     /**
@@ -183,6 +230,75 @@ public class ConfigurationTest {
 
     }
 
+    /**
+     * Tests that a batch notifies the configuration listeners once with all
+     * changes instead of the listeners of every Instance.
+     */
+    @Test
+    public void testBatch() {
+        ConfigurationListenerInterface listener = mock(ConfigurationListenerInterface.class);
+        InstanceListenerInterface instanceListener = mock(InstanceListenerInterface.class);
+        InstanceTypeConfiguration root = this.objectToTest.getRootType();
+        InstanceConfiguration instance = root.getMembers().first();
+        instance.addListener(instanceListener);
+        this.objectToTest.addListener(listener);
+
+        this.objectToTest.batch(() -> {
+            this.objectToTest.batch(root::show);
+            Assertions.assertTrue(this.objectToTest.isInBatch());
+            instance.mark(new InstanceMark());
+        });
+        Assertions.assertFalse(this.objectToTest.isInBatch());
+        verify(instanceListener, Mockito.never()).onChange();
+        ArgumentCaptor<ChangeSet> changes = ArgumentCaptor.forClass(ChangeSet.class);
+        verify(listener).onChange(changes.capture());
+        verifyNoMoreInteractions(listener);
+        Assertions.assertEquals(new HashSet<>(root.getMembers()),
+                changes.getValue().getInstances(ChangeSet.Kind.VISIBILITY));
+        Assertions.assertEquals(Set.of(instance), changes.getValue().getInstances(ChangeSet.Kind.STYLE));
+        Assertions.assertFalse(changes.getValue().contains(ChangeSet.Kind.POSITION));
+        long touched = this.objectToTest.getRelations().stream()
+                .filter(r -> root.getMembers().contains(r.getOrigin())
+                        || root.getMembers().contains(r.getDestination()))
+                .count();
+        Assertions.assertEquals(touched, changes.getValue().getRelations(ChangeSet.Kind.VISIBILITY).size());
+
+        this.objectToTest.batch(() -> { });
+        verifyNoMoreInteractions(listener);
+        Assertions.assertThrows(IllegalStateException.class, this.objectToTest::commitBatch);
+    }
+
+    /**
+     * Tests that single changes and setting changes are described by change
+     * sets.
+     */
+    @Test
+    public void testChangeSets() {
+        ConfigurationListenerInterface listener = mock(ConfigurationListenerInterface.class);
+        InstanceListenerInterface instanceListener = mock(InstanceListenerInterface.class);
+        InstanceConfiguration instance = this.objectToTest.getInstances().first();
+        instance.addListener(instanceListener);
+        this.objectToTest.addListener(listener);
+        ArgumentCaptor<ChangeSet> changes = ArgumentCaptor.forClass(ChangeSet.class);
+
+        instance.setPosition(new Point(1, 2));
+        verify(instanceListener).onChange();
+        verify(listener).onChange(changes.capture());
+        Assertions.assertEquals(Set.of(instance), changes.getValue().getInstances(ChangeSet.Kind.POSITION));
+        Assertions.assertEquals(Set.of(instance), changes.getValue().getInstances());
+
+        Group group = new Group("group");
+        group.addInstance(instance);
+        verify(listener, Mockito.times(3)).onChange(changes.capture());
+        Assertions.assertTrue(changes.getValue().contains(ChangeSet.Kind.GROUPS));
+
+        this.objectToTest.setDepth(3);
+        verify(listener, Mockito.times(4)).onChange(changes.capture());
+        Assertions.assertTrue(changes.getValue().contains(ChangeSet.Kind.SETTINGS));
+        Assertions.assertTrue(changes.getValue().getInstances().isEmpty());
+        verify(listener, Mockito.never()).onFullChange();
+    }
+
     /**
      * Tests cloning and equals.
      */
@@ -193,6 +309,110 @@ public class ConfigurationTest {
 
     }
 
+    /**
+     * Tests that relation types with the same name are told apart by their URI.
+     */
+    @Test
+    public void testRelationTypesWithSameName() {
+        String iri = "http://tolowiz.test/same";
+        OntologyBuilder builder = new OntologyBuilder(iri, "same");
+        InstanceType server = builder.addType("Server", iri + "#Server");
+        RelationType first = builder.addRelationType("uses", iri + "#uses");
+        RelationType second = builder.addRelationType("uses", "http://tolowiz.test/other#uses");
+        Instance a = builder.addInstance("a", iri + "#a", new HashSet<>(Set.of(server)), new HashSet<>());
+        Instance b = builder.addInstance("b", iri + "#b", new HashSet<>(Set.of(server)), new HashSet<>());
+        builder.addRelation(iri + "#ab", first, a, b);
+        builder.addRelation(iri + "#ba", second, b, a);
+        Configuration conf = new Configuration(builder.build(), null);
+
+        Assertions.assertEquals(2, conf.getRelationTypes().size());
+        Assertions.assertEquals(2, conf.getRelations().size());
+        RelationTypeConfiguration firstConf = conf.getRelationTypeByURI(first.getURI());
+        RelationTypeConfiguration secondConf = conf.getRelationTypeByURI(second.getURI());
+        Assertions.assertNotEquals(firstConf, secondConf);
+        Assertions.assertEquals(iri + "#ab", firstConf.getMembers().iterator().next().getURI());
+        Assertions.assertEquals(iri + "#ba", secondConf.getMembers().iterator().next().getURI());
+        conf.getRelations().forEach(r -> Assertions.assertTrue(conf.getRelations().contains(r)));
+        Configuration clone = conf.clone();
+        Assertions.assertEquals(2, clone.getRelationTypes().size());
+        Assertions.assertNotNull(clone.getRelationTypeByURI(second.getURI()));
+    }
+
+    /**
+     * Builds an ontology with servers connected in a chain.
+     *
+     * @param names the names of the servers
+     * @return the ontology
+     */
+    private static Ontology chain(String... names) {
+        String iri = "http://tolowiz.test/chain";
+        OntologyBuilder builder = new OntologyBuilder(iri, "chain");
+        InstanceType server = builder.addType("Server", iri + "#Server");
+        RelationType connected = builder.addRelationType("connected", iri + "#connected");
+        Instance previous = null;
+        for (String name : names) {
+            Instance instance = builder.addInstance(name, iri + "#" + name,
+                    new HashSet<>(Set.of(server)), new HashSet<>());
+            if (previous != null) {
+                builder.addRelation(iri + "#" + previous.getName() + "-" + name, connected, previous, instance);
+            }
+            previous = instance;
+        }
+        return builder.build();
+    }
+
+    /**
+     * Tests if applying changes of the ontology keeps the state of unchanged
+     * instances.
+     */
+    @Test
+    public void testApplyDelta() {
+        Configuration conf = new Configuration(ConfigurationTest.chain("a", "b", "c"), null);
+        InstanceConfiguration b = conf.getInstances().stream().filter(i -> i.getName().equals("b")).findFirst()
+                .orElseThrow();
+        b.setPosition(new Point(1, 2));
+        InstanceMark mark = new InstanceMark();
+        b.mark(mark);
+        Group group = new Group("group");
+        conf.getGroups().add(group);
+        conf.getInstances().forEach(i -> i.addToGroup(group));
+
+        conf.applyDelta(OntologyDelta.between(conf.getOntology(), ConfigurationTest.chain("a", "b", "d")));
+
+        Assertions.assertEquals(3, conf.getInstances().size());
+        Assertions.assertTrue(conf.getInstances().contains(b));
+        Assertions.assertEquals(new Point(1, 2), b.getStoredPosition());
+        Assertions.assertTrue(b.getMarks().contains(mark));
+        Assertions.assertEquals(2, group.getInstances().size());
+        Assertions.assertEquals(2, conf.getRelations().size());
+        Assertions.assertEquals(3, conf.getRootType().getMembers().size());
+        Assertions.assertTrue(conf.getRelations().stream()
+                .anyMatch(r -> r.getOrigin().equals(b) && r.getDestination().getName().equals("d")));
+    }
+
+    /**
+     * Tests if the visibility of types follows the visibility of their members,
+     * also after changes of the ontology and in a clone.
+     */
+    @Test
+    public void testTypeVisibility() {
+        Configuration conf = new Configuration(ConfigurationTest.chain("a", "b", "c"), null);
+        InstanceTypeConfiguration root = conf.getRootType();
+        Assertions.assertEquals(TypeVisibility.NO, root.isVisible());
+        conf.getInstances().first().show();
+        Assertions.assertEquals(TypeVisibility.PARTIAL, root.isVisible());
+        root.show();
+        Assertions.assertEquals(TypeVisibility.YES, root.isVisible());
+        Assertions.assertEquals(TypeVisibility.YES, conf.clone().getRootType().isVisible());
+
+        conf.applyDelta(OntologyDelta.between(conf.getOntology(), ConfigurationTest.chain("a", "b", "d")));
+        Assertions.assertEquals(TypeVisibility.PARTIAL, root.isVisible());
+        conf.getInstances().stream().filter(i -> i.getName().equals("d")).findFirst().orElseThrow().show();
+        Assertions.assertEquals(TypeVisibility.YES, root.isVisible());
+        root.hide();
+        Assertions.assertEquals(TypeVisibility.NO, root.isVisible());
+    }
+
     /**
      * Deletes the test ontology after every test.
      *
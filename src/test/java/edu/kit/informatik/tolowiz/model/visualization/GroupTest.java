@@ -5,11 +5,17 @@
  */
 package edu.kit.informatik.tolowiz.model.visualization;
 
+import java.util.HashSet;
+import java.util.Set;
+
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 
+import edu.kit.informatik.tolowiz.model.ontology.InstanceType;
+import edu.kit.informatik.tolowiz.model.ontology.OntologyBuilder;
 import edu.kit.informatik.tolowiz.model.visualization.InstanceMark.InstanceShape;
 
 public class GroupTest {
@@ -76,6 +82,47 @@ public class GroupTest {
 
     }
 
+    /**
+     * Tests that adding, marking and removing many Instances notifies the
+     * configuration only once each.
+     */
+    @Test
+    public void testBulk() {
+        String ns = "http://tolowiz.test/bulk#";
+        OntologyBuilder builder = new OntologyBuilder(ns, "bulk");
+        InstanceType server = builder.addType("Server", ns + "Server");
+        for (int i = 0; i < 100; i++) {
+            builder.addInstance("server" + i, ns + "server" + i, new HashSet<>(Set.of(server)), new HashSet<>());
+        }
+        Configuration conf = new Configuration(builder.build(), null);
+        conf.getGroups().add(this.objectToTest);
+        ConfigurationListenerInterface listener = Mockito.mock(ConfigurationListenerInterface.class);
+        conf.addListener(listener);
+        ArgumentCaptor<ChangeSet> changes = ArgumentCaptor.forClass(ChangeSet.class);
+
+        this.objectToTest.addInstances(conf.getInstances());
+        Mockito.verify(listener).onChange(changes.capture());
+        Assertions.assertEquals(100, changes.getValue().getInstances(ChangeSet.Kind.GROUPS).size());
+        Assertions.assertEquals(100, this.objectToTest.getInstances().size());
+        Assertions.assertTrue(conf.getInstances().first().getGroups().contains(this.objectToTest));
+
+        this.objectToTest.setMark(new InstanceMark(Color.RED));
+        Mockito.verify(listener, Mockito.times(2)).onChange(changes.capture());
+        Assertions.assertEquals(100, changes.getValue().getInstances(ChangeSet.Kind.STYLE).size());
+        Assertions.assertEquals(this.objectToTest.getMark(), conf.getInstances().first().getEffectiveMark());
+
+        this.objectToTest.removeInstancesIf(i -> i.getName().endsWith("0"));
+        Mockito.verify(listener, Mockito.times(3)).onChange(changes.capture());
+        Assertions.assertEquals(90, this.objectToTest.getInstances().size());
+
+        this.objectToTest.addInstancesIf(conf.getInstances(), i -> i.getName().equals("server10"));
+        this.objectToTest.removeInstances(conf.getInstances());
+        Mockito.verify(listener, Mockito.times(5)).onChange(changes.capture());
+        Assertions.assertTrue(this.objectToTest.getInstances().isEmpty());
+        Assertions.assertTrue(conf.getInstances().first().getMarks().isEmpty());
+        Mockito.verify(listener, Mockito.never()).onFullChange();
+    }
+
     /**
      * Tests the clone and equals methods
      */
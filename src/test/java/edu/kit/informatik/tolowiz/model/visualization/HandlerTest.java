@@ -5,6 +5,10 @@
  */
 package edu.kit.informatik.tolowiz.model.visualization;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.HashSet;
 import java.util.Optional;
 
@@ -106,4 +110,32 @@ public class HandlerTest {
         Assertions.assertThrows(IllegalArgumentException.class, instance::getPosition);
     }
 
+    /**
+     * Tests the relations of an instance, which the Interface Handler uses,
+     * also after the configuration was serialized.
+     *
+     * @throws Exception if serialization fails
+     */
+    @Test
+    public void testAdjacency() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(this.conf);
+        }
+        Configuration read;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            read = (Configuration) in.readObject();
+        }
+        for (Configuration c : new Configuration[] { this.conf, read }) {
+            InstanceConfiguration instance = c.getInstanceByURI("uri instance 2");
+            RelationTypeConfiguration type = c.getRelationTypeByName("Relation 1");
+            Assertions.assertEquals(1, instance.getIncomingRelations().size());
+            Assertions.assertEquals("instance 1", instance.getIncomingRelations(type).get(0).getOrigin().getName());
+            Assertions.assertEquals("instance 3", instance.getOutgoingRelations(type).get(0).getDestination().getName());
+            Assertions.assertTrue(c.getInstanceByURI("uri instance 1").getIncomingRelations().isEmpty());
+            Assertions.assertEquals(2, c.getRelations().size());
+            Assertions.assertTrue(c.getRelations().containsAll(instance.getOutgoingRelations()));
+        }
+    }
+
 }
@@ -16,7 +16,9 @@ import edu.kit.informatik.tolowiz.model.ontology.Relation;
 import edu.kit.informatik.tolowiz.model.ontology.ValueType;
 import edu.kit.informatik.tolowiz.model.visualization.InstanceMark.InstanceStroke;
 
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 import org.javatuples.Pair;
@@ -34,7 +36,7 @@ public class InstanceConfigurationTest {
     private Set<InstanceType> subtypes;
     private Set<ValueType> values;
     private Set<InstanceType> supertypes;
-    private Set<InstanceTypeConfiguration> types;
+    private Map<String, InstanceTypeConfiguration> types;
 
     /**
      * Generates a new OTT for each test.
@@ -64,8 +66,8 @@ public class InstanceConfigurationTest {
                 .thenReturn(new HashSet<DefaultHandler>());
         this.type.setHandler(new DefaultHandler(conf));
 
-        this.types = new HashSet<>();
-        this.types.add(this.type);
+        this.types = new HashMap<>();
+        this.types.put(this.type.getIRI(), this.type);
 
         this.objectToTest = new InstanceConfiguration(this.base, this.types);
     }
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2020 Anne Bernhart, Anja Hansen, Tobias Klumpp, Fabian Palitza,
+ * Florian Patzer, Friedrich Volz, Sandra Wolf
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package edu.kit.informatik.tolowiz.model.visualization;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.kit.informatik.tolowiz.model.ontology.Instance;
+import edu.kit.informatik.tolowiz.model.ontology.InstanceType;
+import edu.kit.informatik.tolowiz.model.ontology.OntologyBuilder;
+import edu.kit.informatik.tolowiz.model.ontology.RelationType;
+
+public class NeighborhoodTest {
+    private static final String NS = "http://tolowiz.test/chain#";
+    private static final int LENGTH = 6;
+
+    private Configuration conf;
+    private InstanceConfiguration[] chain;
+
+    /**
+     * Creates a chain device0 -> device1 -> ... -> device5 with two more
+     * relations from device2 back to device1.
+     */
+    @BeforeEach
+    void setup() {
+        OntologyBuilder builder = new OntologyBuilder(NeighborhoodTest.NS, "chain");
+        InstanceType thing = builder.addType("Thing", NeighborhoodTest.NS + "Thing");
+        RelationType connected = builder.addRelationType("connected", NeighborhoodTest.NS + "connected");
+        Instance[] instances = new Instance[NeighborhoodTest.LENGTH];
+        for (int i = 0; i < instances.length; i++) {
+            Set<InstanceType> types = new HashSet<>();
+            types.add(thing);
+            instances[i] = builder.addInstance("device" + i, NeighborhoodTest.NS + "device" + i, types,
+                    new HashSet<>());
+            if (i > 0) {
+                builder.addRelation(connected, instances[i - 1], instances[i]);
+            }
+        }
+        builder.addRelation(NeighborhoodTest.NS + "back1", connected, instances[2], instances[1]);
+        builder.addRelation(NeighborhoodTest.NS + "back2", connected, instances[2], instances[1]);
+        this.conf = new Configuration(builder.build(), null);
+        this.chain = new InstanceConfiguration[instances.length];
+        for (int i = 0; i < instances.length; i++) {
+            this.chain[i] = this.conf.getInstanceByURI(instances[i].getURI());
+        }
+    }
+
+    /**
+     * Tests that the neighborhood contains the Instances up to the depth.
+     */
+    @Test
+    void testDepth() {
+        Neighborhood neighborhood = this.conf.getNeighborhood();
+        Assertions.assertSame(neighborhood, this.conf.getNeighborhood());
+        Assertions.assertTrue(neighborhood.getInstances().isEmpty());
+
+        neighborhood.addSeed(this.chain[3]);
+        Assertions.assertEquals(Set.of(this.chain[2], this.chain[3], this.chain[4]), neighborhood.getInstances());
+        Assertions.assertEquals(2, neighborhood.getRelations().size());
+
+        this.conf.setDepth(0);
+        Assertions.assertEquals(Set.of(this.chain[3]), neighborhood.getInstances());
+        Assertions.assertTrue(neighborhood.getRelations().isEmpty());
+
+        this.conf.setDepth(2);
+        Assertions.assertEquals(5, neighborhood.getInstances().size());
+        Assertions.assertFalse(neighborhood.contains(this.chain[0]));
+        Assertions.assertEquals(Set.of(this.chain[3]), neighborhood.getSeeds());
+    }
+
+    /**
+     * Tests that removing a seed keeps what other seeds reach.
+     */
+    @Test
+    void testSeeds() {
+        Neighborhood neighborhood = this.conf.getNeighborhood();
+        Assertions.assertTrue(neighborhood.addSeed(this.chain[0]));
+        Assertions.assertFalse(neighborhood.addSeed(this.chain[0]));
+        Assertions.assertTrue(neighborhood.addSeed(this.chain[5]));
+        Assertions.assertEquals(4, neighborhood.getInstances().size());
+
+        Assertions.assertTrue(neighborhood.removeSeed(this.chain[5]));
+        Assertions.assertFalse(neighborhood.removeSeed(this.chain[5]));
+        Assertions.assertEquals(Set.of(this.chain[0], this.chain[1]), neighborhood.getInstances());
+        Assertions.assertEquals(1, neighborhood.getRelations().size());
+
+        neighborhood.setSeeds(List.of(this.chain[1], this.chain[2]));
+        Assertions.assertEquals(Set.of(this.chain[1], this.chain[2]), neighborhood.getSeeds());
+        Assertions.assertEquals(4, neighborhood.getInstances().size());
+        neighborhood.setSeeds(List.of());
+        Assertions.assertTrue(neighborhood.getInstances().isEmpty());
+        Assertions.assertTrue(neighborhood.getRelations().isEmpty());
+        Assertions.assertTrue(neighborhood.getBundles().isEmpty());
+    }
+
+    /**
+     * Tests that parallel relations in either direction are bundled if there
+     * are more than the maximum.
+     */
+    @Test
+    void testBundles() {
+        Neighborhood neighborhood = this.conf.getNeighborhood();
+        neighborhood.addSeed(this.chain[1]);
+        List<Neighborhood.Bundle> bundles = neighborhood.getBundles();
+        Assertions.assertEquals(1, bundles.size());
+        Assertions.assertEquals(3, bundles.get(0).getRelations().size());
+        Assertions.assertEquals(Set.of(this.chain[1], this.chain[2]),
+                Set.of(bundles.get(0).getFirst(), bundles.get(0).getSecond()));
+        Assertions.assertEquals(1, neighborhood.getRelations().size());
+        RelationConfiguration back = this.chain[2].getOutgoingRelations().stream()
+                .filter(r -> r.getDestination() == this.chain[1]).findAny().orElseThrow();
+        Assertions.assertEquals(bundles.get(0).getRelations(), neighborhood.getBundle(back).getRelations());
+        Assertions.assertSame(bundles.get(0).getFirst(), neighborhood.getBundle(back).getFirst());
+        Assertions.assertNull(neighborhood.getBundle(this.chain[0].getOutgoingRelations().get(0)));
+
+        this.conf.setMaxParallelRelations(3);
+        Assertions.assertNull(neighborhood.getBundle(back));
+        Assertions.assertTrue(neighborhood.getBundles().isEmpty());
+        Assertions.assertEquals(4, neighborhood.getRelations().size());
+    }
+}
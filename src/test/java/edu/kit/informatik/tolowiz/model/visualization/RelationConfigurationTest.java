@@ -5,7 +5,9 @@
  */
 package edu.kit.informatik.tolowiz.model.visualization;
 
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -33,6 +35,7 @@ public class RelationConfigurationTest {
     private RelationTypeConfiguration parent;
     private RelationStyle style;
     private Configuration conf;
+    private Map<String, InstanceConfiguration> instances;
 
     /**
      * Generates a new OTT for each test.
@@ -54,12 +57,14 @@ public class RelationConfigurationTest {
 
         this.conf = Mockito.mock(Configuration.class);
         TreeSet<InstanceConfiguration> members = new TreeSet<>();
-        members.add(new InstanceConfiguration(this.origin, new TreeSet<InstanceTypeConfiguration>()));
-        members.add(new InstanceConfiguration(this.destination, new TreeSet<InstanceTypeConfiguration>()));
+        members.add(new InstanceConfiguration(this.origin, new HashMap<String, InstanceTypeConfiguration>()));
+        members.add(new InstanceConfiguration(this.destination, new HashMap<String, InstanceTypeConfiguration>()));
         Mockito.when(this.conf.getInstances()).thenReturn(members);
+        this.instances = new HashMap<>();
+        members.forEach(i -> this.instances.put(i.getURI(), i));
         this.base = ont.addRelation("someuri_anne_was_here", ont.addRelationType("type", "someuri_anne_was_here"),
                 this.origin, this.destination);
-        this.objectToTest = new RelationConfiguration(this.base, this.parent, members);
+        this.objectToTest = new RelationConfiguration(this.base, this.parent, this.instances);
     }
 
     /**
@@ -113,7 +118,7 @@ public class RelationConfigurationTest {
     @Test
     public void testCloneAndEquals() {
         RelationConfiguration other = this.objectToTest.cloneWithInstances(this.objectToTest.getRelationType(),
-                this.conf.getInstances());
+                this.instances);
         Assertions.assertEquals(this.objectToTest, other);
 
     }
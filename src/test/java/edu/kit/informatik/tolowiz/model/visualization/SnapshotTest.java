@@ -0,0 +1,198 @@
+/*
+ * Copyright 2020 Anne Bernhart, Anja Hansen, Tobias Klumpp, Fabian Palitza,
+ * Florian Patzer, Friedrich Volz, Sandra Wolf
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package edu.kit.informatik.tolowiz.model.visualization;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.kit.informatik.tolowiz.model.ontology.Instance;
+import edu.kit.informatik.tolowiz.model.ontology.InstanceType;
+import edu.kit.informatik.tolowiz.model.ontology.Ontology;
+import edu.kit.informatik.tolowiz.model.ontology.OntologyBuilder;
+import edu.kit.informatik.tolowiz.model.ontology.OntologyDelta;
+import edu.kit.informatik.tolowiz.model.ontology.RelationType;
+
+public class SnapshotTest {
+    private static final String NS = "http://tolowiz.test/many#";
+
+    /**
+     * More Instances than fit into one node of the states.
+     */
+    private static final int SIZE = 100;
+
+    private Configuration conf;
+    private List<InstanceConfiguration> instances;
+
+    @BeforeEach
+    void setup() {
+        this.conf = new Configuration(SnapshotTest.build(SnapshotTest.SIZE), null);
+        this.instances = new ArrayList<>(this.conf.getInstances());
+    }
+
+    private static Ontology build(int size) {
+        OntologyBuilder builder = new OntologyBuilder(SnapshotTest.NS, "many");
+        InstanceType thing = builder.addType("Thing", SnapshotTest.NS + "Thing");
+        RelationType connected = builder.addRelationType("connected", SnapshotTest.NS + "connected");
+        Instance previous = null;
+        for (int i = 0; i < size; i++) {
+            Instance instance = builder.addInstance("device" + i, SnapshotTest.NS + "device" + i,
+                    new HashSet<>(Set.of(thing)), new HashSet<>());
+            if (previous != null) {
+                builder.addRelation(connected, previous, instance);
+            }
+            previous = instance;
+        }
+        return builder.build();
+    }
+
+    private static int differences(Snapshot a, Snapshot b) {
+        int[] count = new int[1];
+        a.getStates().forEachDifference(b.getStates(), i -> count[0]++);
+        return count[0];
+    }
+
+    /**
+     * Tests that snapshots share the states of all Instances that did not
+     * change.
+     */
+    @Test
+    void testSharing() {
+        Snapshot first = this.conf.snapshot();
+        Assertions.assertSame(first.getStates(), this.conf.snapshot().getStates());
+
+        this.instances.get(70).setPosition(new Point(1, 2));
+        this.instances.get(3).setPosition(new Point(5, 6));
+        Snapshot second = this.conf.snapshot();
+        Assertions.assertEquals(2, SnapshotTest.differences(first, second));
+        Assertions.assertSame(first.getStates().get(50), second.getStates().get(50));
+
+        Point position = this.instances.get(10).getStoredPosition();
+        this.instances.get(10).setPosition(new Point(7, 8));
+        this.instances.get(10).setPosition(position);
+        Assertions.assertSame(second.getStates(), this.conf.snapshot().getStates());
+    }
+
+    /**
+     * Tests that restoring a snapshot undoes changes of Instances, groups,
+     * types and settings.
+     */
+    @Test
+    void testRestore() {
+        InstanceConfiguration moved = this.instances.get(5);
+        InstanceConfiguration marked = this.instances.get(80);
+        Point position = moved.getStoredPosition();
+        RelationTypeConfiguration relationType = this.conf.getRelationTypes().first();
+        RelationStyle style = relationType.getStyle();
+        Snapshot before = this.conf.snapshot();
+
+        moved.setPosition(new Point(3, 4));
+        marked.mark(new InstanceMark(InstanceMark.InstanceShape.BOX));
+        Group group = new Group("group");
+        group.addInstances(this.instances.subList(40, 43));
+        this.conf.addGroup(group);
+        relationType.setStyle(new RelationStyle());
+        this.conf.getHiddenInstances().add(marked);
+        this.conf.setDepth(3);
+
+        this.conf.restore(before);
+        Assertions.assertSame(position, moved.getStoredPosition());
+        Assertions.assertTrue(marked.getMarks().isEmpty());
+        Assertions.assertFalse(this.conf.getGroups().contains(group));
+        Assertions.assertTrue(this.instances.get(41).getGroups().isEmpty());
+        Assertions.assertSame(style, relationType.getStyle());
+        Assertions.assertTrue(this.conf.getHiddenInstances().isEmpty());
+        Assertions.assertSame(before.getStates(), this.conf.snapshot().getStates());
+    }
+
+    /**
+     * Tests that restoring only notifies of the Instances that differ.
+     */
+    @Test
+    void testRestoreDifferences() {
+        Point position = this.instances.get(33).getStoredPosition();
+        Snapshot before = this.conf.snapshot();
+        this.instances.get(33).setPosition(new Point(1, 1));
+        List<ChangeSet> changes = new ArrayList<>();
+        this.conf.addListener(new ConfigurationListenerInterface() {
+            @Override
+            public void onFullChange() {
+                Assertions.fail("The configuration was not changed completely");
+            }
+
+            @Override
+            public void onChange(ChangeSet changed) {
+                changes.add(changed);
+            }
+        });
+
+        this.conf.restore(before);
+        Assertions.assertEquals(1, changes.size());
+        Assertions.assertEquals(Set.of(this.instances.get(33)), changes.get(0).getInstances());
+        Assertions.assertSame(position, this.instances.get(33).getStoredPosition());
+    }
+
+    /**
+     * Tests that a transition between two snapshots can be written, read back
+     * and applied in both directions.
+     *
+     * @throws IOException if the test fails
+     */
+    @Test
+    void testTransition() throws IOException {
+        InstanceConfiguration changed = this.instances.get(60);
+        Point position = changed.getStoredPosition();
+        InstanceMark mark = new InstanceMark(InstanceMark.InstanceShape.BOX);
+        Snapshot before = this.conf.snapshot();
+        changed.setPosition(new Point(9, 9));
+        changed.mark(mark);
+        this.conf.getHiddenInstances().add(changed);
+        this.conf.setDepth(4);
+        Transition transition = Transition.between(before, this.conf.snapshot());
+        Assertions.assertEquals(1, transition.size());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        transition.write(new DataOutputStream(bytes));
+        transition.release();
+        Assertions.assertThrows(IllegalStateException.class, () -> transition.revert(this.conf));
+        transition.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        transition.revert(this.conf);
+        Assertions.assertEquals(position, changed.getStoredPosition());
+        Assertions.assertTrue(changed.getMarks().isEmpty());
+        Assertions.assertFalse(this.conf.getHiddenInstances().contains(changed));
+        Assertions.assertEquals(1, this.conf.getDepth());
+        transition.apply(this.conf);
+        Assertions.assertEquals(new Point(9, 9), changed.getStoredPosition());
+        Assertions.assertSame(mark, changed.getMarks().get(0));
+        Assertions.assertTrue(this.conf.getHiddenInstances().contains(changed));
+        Assertions.assertEquals(4, this.conf.getDepth());
+    }
+
+    /**
+     * Tests that snapshots taken before Instances were added can not be
+     * restored.
+     */
+    @Test
+    void testDelta() {
+        Snapshot before = this.conf.snapshot();
+        this.conf.applyDelta(OntologyDelta.between(this.conf.getOntology(), SnapshotTest.build(SnapshotTest.SIZE + 1)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> this.conf.restore(before));
+        Snapshot after = this.conf.snapshot();
+        Assertions.assertEquals(SnapshotTest.SIZE + 1, after.getStates().size());
+        this.conf.restore(after);
+    }
+}
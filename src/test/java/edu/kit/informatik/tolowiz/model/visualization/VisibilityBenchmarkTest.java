@@ -0,0 +1,103 @@
+/*
+ * Copyright 2020 Anne Bernhart, Anja Hansen, Tobias Klumpp, Fabian Palitza,
+ * Florian Patzer, Friedrich Volz, Sandra Wolf
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package edu.kit.informatik.tolowiz.model.visualization;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import edu.kit.informatik.tolowiz.model.ontology.InstanceType;
+import edu.kit.informatik.tolowiz.model.ontology.OntologyBuilder;
+import edu.kit.informatik.tolowiz.model.visualization.InstanceTypeConfiguration.TypeVisibility;
+
+/**
+ * Compares counting the visible members of every type, as it was done before
+ * the counters, with {@link InstanceTypeConfiguration#isVisible()}. Only run
+ * with the benchmark profile: {@code mvn test -P benchmark}.
+ */
+@Tag("benchmark")
+public class VisibilityBenchmarkTest {
+    private static final String NS = "http://tolowiz.test/synthetic#";
+    private static final int INSTANCES = 100000;
+    private static final int TYPES = 20;
+    private static final int REFRESHES = 20;
+
+    /**
+     * Benchmarks refreshing the visibility of all types of a configuration with
+     * 100k instances, as the GUI does after every change.
+     */
+    @Test
+    void benchmarkRefresh() {
+        OntologyBuilder builder = new OntologyBuilder(VisibilityBenchmarkTest.NS, "synthetic");
+        InstanceType thing = builder.addType("Thing", VisibilityBenchmarkTest.NS + "Thing");
+        InstanceType[] types = new InstanceType[VisibilityBenchmarkTest.TYPES];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = builder.addType("Type" + i, VisibilityBenchmarkTest.NS + "Type" + i);
+            builder.addSuperType(types[i], (i == 0 ? thing : types[i / 2]));
+        }
+        for (int i = 0; i < VisibilityBenchmarkTest.INSTANCES; i++) {
+            Set<InstanceType> type = new HashSet<>();
+            type.add(types[i % types.length]);
+            builder.addInstance("device" + i, VisibilityBenchmarkTest.NS + "device" + i, type, new HashSet<>());
+        }
+        Configuration conf = new Configuration(builder.build(), null);
+
+        long naive = 0;
+        long counted = 0;
+        int round = 0;
+        for (InstanceConfiguration instance : conf.getInstances()) {
+            if ((round++ % 3) == 0) {
+                instance.show();
+            }
+        }
+        for (int i = 0; i < VisibilityBenchmarkTest.REFRESHES; i++) {
+            conf.getInstances().stream().skip(i).findFirst().orElseThrow().hide();
+
+            long start = System.nanoTime();
+            int naiveVisible = 0;
+            for (InstanceTypeConfiguration type : conf.getInstanceTypes()) {
+                naiveVisible += VisibilityBenchmarkTest.naive(type).ordinal();
+            }
+            naive += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            int countedVisible = 0;
+            for (InstanceTypeConfiguration type : conf.getInstanceTypes()) {
+                countedVisible += type.isVisible().ordinal();
+                type.getAllValuesShown();
+            }
+            counted += System.nanoTime() - start;
+            Assertions.assertEquals(naiveVisible, countedVisible);
+        }
+        conf.getInstanceTypes().forEach(type -> Assertions.assertEquals(
+                VisibilityBenchmarkTest.naive(type), type.isVisible()));
+        System.out.println("Benchmark visibility of " + conf.getInstanceTypes().size() + " types, "
+                + VisibilityBenchmarkTest.INSTANCES + " instances: counting members "
+                + (naive / VisibilityBenchmarkTest.REFRESHES / 1000) + " us, counters "
+                + (counted / VisibilityBenchmarkTest.REFRESHES / 1000) + " us per refresh");
+    }
+
+    /**
+     * The visibility as it was computed before the counters: by counting the
+     * visible members.
+     *
+     * @param type the type
+     * @return the visibility of the type
+     */
+    private static TypeVisibility naive(InstanceTypeConfiguration type) {
+        int visibleMembers = (int) type.getMembers().stream().filter(InstanceConfiguration::isVisible).count();
+        if (visibleMembers == type.getMembers().size()) {
+            return TypeVisibility.YES;
+        } else if (visibleMembers == 0) {
+            return TypeVisibility.NO;
+        } else {
+            return TypeVisibility.PARTIAL;
+        }
+    }
+}